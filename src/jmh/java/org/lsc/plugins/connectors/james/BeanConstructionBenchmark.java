@@ -0,0 +1,84 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.lsc.LscDatasets;
+import org.lsc.beans.IBean;
+import org.lsc.beans.SimpleBean;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of the alias beans returned by getBean over the pivots of a run: a reflective
+ * {@link Class#newInstance()} and a dataset collected from a stream, as the services used to, against
+ * {@link BeanFactory} and {@link Datasets}. Run with {@code -prof gc} to compare the allocation per bean.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanConstructionBenchmark {
+	private static final int VALUES = 3;
+	private static final int DISTINCT_ALIASES = 1000;
+
+	@Param({"1000000"})
+	public int pivots;
+
+	private Class<SimpleBean> beanClass;
+	private BeanFactory beanFactory;
+	private String[] emails;
+	private List<List<Alias>> aliases;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		beanClass = SimpleBean.class;
+		beanFactory = BeanFactory.of(beanClass);
+		emails = new String[pivots];
+		for (int i = 0; i < pivots; i++) {
+			emails[i] = Payloads.email(i);
+		}
+		aliases = Payloads.list(DISTINCT_ALIASES,
+			i -> Payloads.list(VALUES, j -> new Alias("alias" + i + "-" + j + "@" + Payloads.DOMAIN)));
+	}
+
+	@Benchmark
+	public IBean reflective() throws Exception {
+		int pivot = nextPivot();
+		List<Alias> values = aliases.get(pivot % DISTINCT_ALIASES);
+		IBean bean = beanClass.newInstance();
+		bean.setMainIdentifier(emails[pivot]);
+		LscDatasets datasets = new LscDatasets();
+		datasets.put("email", emails[pivot]);
+		datasets.put(JamesAliasDstService.SOURCES_ATTRIBUTE, values.stream()
+			.map(alias -> alias.source)
+			.collect(Collectors.toList()));
+		bean.setDatasets(datasets);
+		return bean;
+	}
+
+	@Benchmark
+	public IBean factory() throws Exception {
+		int pivot = nextPivot();
+		return beanFactory.newBean(emails[pivot], JamesAliasDstService.toDataset(emails[pivot], aliases.get(pivot % DISTINCT_ALIASES)));
+	}
+
+	private int nextPivot() {
+		next = next + 1 == pivots ? 0 : next + 1;
+		return next;
+	}
+}
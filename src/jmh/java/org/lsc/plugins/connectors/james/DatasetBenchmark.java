@@ -0,0 +1,100 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.lsc.LscDatasets;
+import org.lsc.plugins.connectors.james.beans.AddressMapping;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.Contact;
+import org.lsc.plugins.connectors.james.beans.Forward;
+import org.lsc.plugins.connectors.james.beans.Identity;
+import org.lsc.plugins.connectors.james.beans.QuotaSize;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of the datasets of the beans returned by getBean, and of the identity display name.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatasetBenchmark {
+	private static final int VALUES = 5;
+
+	private String email;
+	private User user;
+	private List<Alias> aliases;
+	private List<Forward> forwards;
+	private List<AddressMapping> addressMappings;
+	private QuotaSize quotaSize;
+	private Contact contact;
+	private Optional<String> firstname;
+	private Optional<String> surname;
+
+	@Setup
+	public void setUp() {
+		email = Payloads.email(0);
+		user = new User(email);
+		aliases = Payloads.list(VALUES, i -> new Alias("alias" + i + "@" + Payloads.DOMAIN));
+		forwards = Payloads.list(VALUES, i -> new Forward("forward" + i + "@" + Payloads.DOMAIN));
+		addressMappings = Payloads.list(VALUES, i -> new AddressMapping("mapping" + i + "@" + Payloads.DOMAIN));
+		quotaSize = new QuotaSize(1_000_000L);
+		contact = new Contact(email, Optional.of("Bob"), Optional.of("Marley"));
+		firstname = Optional.of("Bob");
+		surname = Optional.of("Marley");
+	}
+
+	@Benchmark
+	public LscDatasets user() {
+		return user.toDatasets();
+	}
+
+	@Benchmark
+	public LscDatasets aliases() {
+		return JamesAliasDstService.toDataset(email, aliases);
+	}
+
+	@Benchmark
+	public LscDatasets forwards() {
+		return JamesForwardDstService.toDataset(email, forwards);
+	}
+
+	@Benchmark
+	public LscDatasets addressMappings() {
+		return JamesAddressMappingDstService.toDataset(email, addressMappings);
+	}
+
+	@Benchmark
+	public LscDatasets quotaSize() {
+		return JamesMailQuotaSizeDstService.toDataset(email, quotaSize);
+	}
+
+	@Benchmark
+	public LscDatasets contact() {
+		return TMailContactDstService.toDataset(contact);
+	}
+
+	@Benchmark
+	public String displayName() {
+		return Identity.toDisplayName(firstname, surname, email);
+	}
+
+	@Benchmark
+	public String displayNameFallback() {
+		return Identity.toDisplayName(Optional.empty(), Optional.empty(), email);
+	}
+}
@@ -0,0 +1,72 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.lsc.plugins.connectors.james.beans.AddressMapping;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.Forward;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Diffs between the values of an LDAP entry and the ones found in TMail, computed by {@link JamesDao} before updating
+ * aliases, forwards and address mappings. Half of the values are common to both sides.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiffBenchmark {
+	@Param({"1", "10", "100"})
+	public int values;
+
+	private User user;
+	private List<Alias> ldapAliases;
+	private List<Alias> jamesAliases;
+	private List<Forward> ldapForwards;
+	private List<Forward> jamesForwards;
+	private List<AddressMapping> ldapAddressMappings;
+	private List<AddressMapping> jamesAddressMappings;
+
+	@Setup
+	public void setUp() {
+		int shift = values / 2;
+		user = new User(Payloads.email(0));
+		ldapAliases = Payloads.list(values, i -> new Alias("alias" + i + "@" + Payloads.DOMAIN));
+		jamesAliases = Payloads.list(values, i -> new Alias("alias" + (i + shift) + "@" + Payloads.DOMAIN));
+		ldapForwards = Payloads.list(values, i -> new Forward("forward" + i + "@" + Payloads.DOMAIN));
+		jamesForwards = Payloads.list(values, i -> new Forward("forward" + (i + shift) + "@" + Payloads.DOMAIN));
+		ldapAddressMappings = Payloads.list(values, i -> new AddressMapping("mapping" + i + "@" + Payloads.DOMAIN));
+		jamesAddressMappings = Payloads.list(values, i -> new AddressMapping("mapping" + (i + shift) + "@" + Payloads.DOMAIN));
+	}
+
+	@Benchmark
+	public int aliases() {
+		return JamesDao.computeAliasToAdd(ldapAliases, jamesAliases).size()
+			+ JamesDao.computeAliasToRemove(ldapAliases, jamesAliases).size();
+	}
+
+	@Benchmark
+	public List<Forward> forwards() {
+		return JamesDao.computeForwardsToAdd(user, ldapForwards, jamesForwards, false);
+	}
+
+	@Benchmark
+	public int addressMappings() {
+		return JamesDao.computeAddressMappingsToAdd(ldapAddressMappings, jamesAddressMappings).size()
+			+ JamesDao.computeAddressMappingToRemove(ldapAddressMappings, jamesAddressMappings).size();
+	}
+}
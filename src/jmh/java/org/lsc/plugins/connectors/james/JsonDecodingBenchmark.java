@@ -0,0 +1,104 @@
+package org.lsc.plugins.connectors.james;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+
+import org.codehaus.jackson.jaxrs.JacksonJaxbJsonProvider;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.Contact;
+import org.lsc.plugins.connectors.james.beans.Forward;
+import org.lsc.plugins.connectors.james.beans.Identity;
+import org.lsc.plugins.connectors.james.beans.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+
+/**
+ * Decoding of the webadmin responses, with the Jersey Jackson provider used by {@link JamesDao} for rosters, aliases,
+ * forwards and identities, and with the DAO object mapper for contacts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonDecodingBenchmark {
+	private static final Type ROSTER = new GenericType<List<UserDto>>() {}.getType();
+	private static final Type ALIASES = new GenericType<List<Alias>>() {}.getType();
+	private static final Type FORWARDS = new GenericType<List<Forward>>() {}.getType();
+	private static final Type IDENTITIES = new GenericType<List<Identity>>() {}.getType();
+
+	@Param({"10", "10000"})
+	public int entries;
+
+	private JacksonJaxbJsonProvider provider;
+	private ObjectMapper mapper;
+	private byte[] roster;
+	private byte[] aliases;
+	private byte[] forwards;
+	private byte[] identities;
+	private String contact;
+
+	@Setup
+	public void setUp() {
+		provider = new JacksonJaxbJsonProvider();
+		mapper = new ObjectMapper().registerModule(new Jdk8Module());
+		roster = Payloads.roster(entries).getBytes(StandardCharsets.UTF_8);
+		aliases = Payloads.aliases(entries).getBytes(StandardCharsets.UTF_8);
+		forwards = Payloads.forwards(entries).getBytes(StandardCharsets.UTF_8);
+		identities = Payloads.identities(entries).getBytes(StandardCharsets.UTF_8);
+		contact = Payloads.contact();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object decode(byte[] payload, Type type) throws IOException {
+		return provider.readFrom((Class<Object>) (Class<?>) List.class, type, new Annotation[0],
+			MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), new ByteArrayInputStream(payload));
+	}
+
+	@Benchmark
+	public Object roster() throws IOException {
+		return decode(roster, ROSTER);
+	}
+
+	@Benchmark
+	public Object aliases() throws IOException {
+		return decode(aliases, ALIASES);
+	}
+
+	@Benchmark
+	public Object forwards() throws IOException {
+		return decode(forwards, FORWARDS);
+	}
+
+	@Benchmark
+	public Object identities() throws IOException {
+		return decode(identities, IDENTITIES);
+	}
+
+	@Benchmark
+	public Contact contact() throws IOException {
+		return mapper.readValue(contact, Contact.class);
+	}
+}
@@ -0,0 +1,101 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.NotFoundException;
+
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Absence of an entry in TMail, as seen by the getBean calls of the services: a {@link NotFoundException} thrown below
+ * a stack of the given depth and caught at its top, against an empty {@link Optional} returned through the same stack.
+ * The lookup benchmarks compare both DAO flavours for a user without aliases, against an in-process
+ * {@link WebadminStub}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotFoundBenchmark {
+	private static final String USER = Payloads.email(0);
+
+	@Param({"10", "100"})
+	public int depth;
+
+	private WebadminStub stub;
+	private JamesDao dao;
+
+	@Setup
+	public void setUp() throws Exception {
+		stub = new WebadminStub(0, Optional.of("token"), 1);
+		stub.tmail().addUser(USER, "secret");
+		dao = new JamesDao(stub.getUrl(), "token", mock(TaskType.class));
+	}
+
+	@TearDown
+	public void tearDown() {
+		stub.close();
+	}
+
+	@Benchmark
+	public Object thrownAndCaught() {
+		try {
+			return throwing(depth);
+		} catch (NotFoundException e) {
+			return null;
+		}
+	}
+
+	@Benchmark
+	public Object returnedEmpty() {
+		return empty(depth).orElse(null);
+	}
+
+	@Benchmark
+	public List<Alias> getAliasesLookup() {
+		try {
+			return dao.getAliases(USER);
+		} catch (NotFoundException e) {
+			return null;
+		}
+	}
+
+	@Benchmark
+	public List<Alias> findAliasesLookup() {
+		return dao.findAliases(USER).orElse(null);
+	}
+
+	private static Object throwing(int frames) {
+		if (frames == 0) {
+			throw new NotFoundException();
+		}
+		return throwing(frames - 1);
+	}
+
+	private static Optional<Object> empty(int frames) {
+		if (frames == 0) {
+			return Optional.empty();
+		}
+		return empty(frames - 1);
+	}
+}
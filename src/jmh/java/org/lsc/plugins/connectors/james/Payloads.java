@@ -0,0 +1,69 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.lsc.plugins.connectors.james.beans.User;
+
+/**
+ * Synthetic webadmin payloads and beans shared by the benchmarks.
+ */
+final class Payloads {
+	static final String DOMAIN = "james.org";
+
+	static String email(int index) {
+		return "user" + index + "@" + DOMAIN;
+	}
+
+	static List<User> users(int count) {
+		List<User> users = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			users.add(new User(email(i)));
+		}
+		return users;
+	}
+
+	static <T> List<T> list(int count, IntFunction<T> element) {
+		List<T> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			list.add(element.apply(i));
+		}
+		return list;
+	}
+
+	static String roster(int count) {
+		return jsonArray(count, i -> "{\"username\":\"" + email(i) + "\"}");
+	}
+
+	static String aliases(int count) {
+		return jsonArray(count, i -> "{\"source\":\"alias" + i + "@" + DOMAIN + "\"}");
+	}
+
+	static String forwards(int count) {
+		return jsonArray(count, i -> "{\"mailAddress\":\"forward" + i + "@" + DOMAIN + "\"}");
+	}
+
+	static String identities(int count) {
+		return jsonArray(count, i -> "{\"id\":\"" + i + "\",\"name\":\"Bob " + i + "\",\"email\":\"" + email(i)
+			+ "\",\"sortOrder\":0,\"mayDelete\":false,\"textSignature\":\"\",\"htmlSignature\":\"\"}");
+	}
+
+	static String contact() {
+		return "{\"id\":\"1\",\"emailAddress\":\"" + email(0) + "\",\"firstname\":\"Bob\",\"surname\":\"Marley\"}";
+	}
+
+	private static String jsonArray(int count, IntFunction<String> element) {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append(element.apply(i));
+		}
+		return json.append(']').toString();
+	}
+
+	private Payloads() {
+	}
+}
@@ -0,0 +1,45 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.lsc.LscDatasets;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building of the pivot map returned by getListPivots from the TMail roster.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PivotMapBenchmark {
+	@Param({"10000", "100000", "1000000"})
+	public int users;
+
+	private List<User> roster;
+
+	@Setup
+	public void setUp() {
+		roster = Payloads.users(users);
+	}
+
+	@Benchmark
+	public Map<String, LscDatasets> toPivots() {
+		return User.toPivots(roster);
+	}
+}
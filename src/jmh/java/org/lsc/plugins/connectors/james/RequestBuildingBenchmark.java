@@ -0,0 +1,94 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.mockito.Mockito.mock;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of the URI of an alias source request: appended segment by segment with the source encoded on each call,
+ * as {@link JamesDao} used to, against a template resolved with a cached encoded source. A lookup against an
+ * in-process {@link WebadminStub} gives the cost of the I/O they are compared with.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBuildingBenchmark {
+	private static final int ADDRESSES = 1000;
+
+	private Client client;
+	private WebTarget aliases;
+	private WebTarget aliasSource;
+	private EncodedSegments segments;
+	private List<String> sources;
+	private int next;
+	private WebadminStub stub;
+	private JamesDao dao;
+
+	@Setup
+	public void setUp() throws Exception {
+		client = ClientBuilder.newClient();
+		aliases = client.target("http://127.0.0.1:8000").path(JamesDao.ALIASES_PATH);
+		aliasSource = aliases.path("{user}/sources/{source}");
+		segments = new EncodedSegments(ADDRESSES);
+		sources = Payloads.list(ADDRESSES, i -> "alias" + i + "@" + Payloads.DOMAIN);
+		stub = new WebadminStub(0, Optional.of("token"), 1);
+		stub.tmail().addAlias(Payloads.email(0), sources.get(0));
+		dao = new JamesDao(stub.getUrl(), "token", mock(TaskType.class));
+	}
+
+	@TearDown
+	public void tearDown() {
+		stub.close();
+		client.close();
+	}
+
+	private String nextSource() {
+		next = (next + 1) % ADDRESSES;
+		return sources.get(next);
+	}
+
+	@Benchmark
+	public URI segmentBySegment() {
+		return aliases.path(Payloads.email(0))
+			.path("sources")
+			.path(EncodedSegments.urlEncode(nextSource()))
+			.getUri();
+	}
+
+	@Benchmark
+	public URI template() {
+		return aliasSource.resolveTemplateFromEncoded("user", Payloads.email(0))
+			.resolveTemplateFromEncoded("source", segments.encode(nextSource()))
+			.getUri();
+	}
+
+	@Benchmark
+	public Optional<List<Alias>> lookup() {
+		return dao.findAliases(Payloads.email(0));
+	}
+}
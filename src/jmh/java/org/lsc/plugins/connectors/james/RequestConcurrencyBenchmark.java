@@ -0,0 +1,118 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.metrics.MetricsRegistry;
+import org.lsc.plugins.connectors.james.stub.LatencyDistribution;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+import org.lsc.plugins.connectors.james.transport.RequestStream;
+import org.lsc.plugins.connectors.james.transport.Transports;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Creation of a batch of aliases against an in-process {@link WebadminStub} answering after a fixed latency: blocking
+ * calls from as many threads as calls in flight, against asynchronous calls streamed through a {@link RequestStream}
+ * of the same window, on each transport. The asynchronous calls of the {@value Transports#HTTP2} transport are carried
+ * by its few event loop threads, those of the {@value Transports#JERSEY} transport by a thread each.
+ *
+ * The http2 transport is loaded from the Java 11 part of the plugin, so the benchmark runs on Java 11 or later.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestConcurrencyBenchmark {
+	private static final int CALLS = 10_000;
+	private static final Duration LATENCY = Duration.ofMillis(5);
+
+	@Param({"jersey", "http2"})
+	public String transport;
+
+	@Param({"64", "1024"})
+	public int inFlight;
+
+	private WebadminStub stub;
+	private JamesDao dao;
+	private ExecutorService blockingThreads;
+	private List<Alias> aliases;
+	private int batch;
+
+	@Setup
+	public void setUp() throws Exception {
+		stub = new WebadminStub(0, Optional.of("token"), 16);
+		stub.setLatency(LatencyDistribution.fixed(LATENCY));
+		dao = new JamesDao(stub.getUrl(), "token", mock(TaskType.class), new MetricsRegistry(),
+			Transports.named(transport, Optional.empty()));
+		blockingThreads = Executors.newFixedThreadPool(inFlight,
+			new ThreadFactoryBuilder().setNameFormat("benchmark-blocking-%d").setDaemon(true).build());
+		aliases = Payloads.list(CALLS, i -> new Alias("alias" + i + "@" + Payloads.DOMAIN));
+	}
+
+	@TearDown
+	public void tearDown() {
+		blockingThreads.shutdownNow();
+		stub.close();
+	}
+
+	private User nextUser() {
+		// A user per batch, so that each batch creates aliases rather than overwriting those of the previous one
+		return new User(Payloads.email(batch++));
+	}
+
+	@Benchmark
+	public long blocking() throws Exception {
+		User user = nextUser();
+		List<Future<Boolean>> outcomes = new ArrayList<>(CALLS);
+		for (Alias alias : aliases) {
+			outcomes.add(blockingThreads.submit(() -> dao.createAliases(user, ImmutableList.of(alias))));
+		}
+		long created = 0;
+		for (Future<Boolean> outcome : outcomes) {
+			created += outcome.get() ? 1 : 0;
+		}
+		return created;
+	}
+
+	@Benchmark
+	public long streamed() throws Exception {
+		User user = nextUser();
+		RequestStream requests = new RequestStream(inFlight);
+		List<CompletableFuture<Boolean>> outcomes = new ArrayList<>(CALLS);
+		for (Alias alias : aliases) {
+			outcomes.add(requests.submit(() -> dao.createAliasAsync(user, alias)));
+		}
+		requests.awaitCompletion();
+		return outcomes.stream()
+			.filter(CompletableFuture::join)
+			.count();
+	}
+}
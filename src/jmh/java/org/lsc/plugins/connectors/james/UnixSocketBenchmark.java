@@ -0,0 +1,91 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.metrics.MetricsRegistry;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+import org.lsc.plugins.connectors.james.transport.Transports;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Webadmin round trips to an in-process {@link WebadminStub}, over its loopback TCP port with the default transport,
+ * against its Unix domain socket with the {@value Transports#UNIX} transport. Both are HTTP/1.1 with kept-alive
+ * connections, so the difference is the cost of the TCP stack. It requires Java 16.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnixSocketBenchmark {
+	private static final User USER = new User(Payloads.email(0));
+
+	@Param({"tcp", "unix"})
+	public String connection;
+
+	private Path directory;
+	private WebadminStub stub;
+	private Closeable front;
+	private JamesDao dao;
+	private int next;
+
+	@Setup
+	public void setUp() throws Exception {
+		stub = new WebadminStub(0, Optional.of("token"), 4);
+		stub.tmail().addUser(USER.email, "secret");
+		stub.tmail().addAlias(USER.email, "alias@" + Payloads.DOMAIN);
+		directory = Files.createTempDirectory("tmail-lsc");
+		Path socket = directory.resolve("webadmin.sock");
+		front = stub.serveUnixSocket(socket)
+			.orElseThrow(() -> new IllegalStateException("Unix domain sockets require Java 16"));
+		String url = connection.equals("unix") ? Transports.UNIX_URL_PREFIX + socket : stub.getUrl();
+		dao = new JamesDao(url, "token", mock(TaskType.class), new MetricsRegistry(), Optional.empty());
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		front.close();
+		stub.close();
+		Files.deleteIfExists(directory);
+	}
+
+	@Benchmark
+	public boolean exists() {
+		return dao.userExists(USER.email);
+	}
+
+	@Benchmark
+	public Optional<List<Alias>> lookup() {
+		return dao.findAliases(USER.email);
+	}
+
+	@Benchmark
+	public boolean create() {
+		next++;
+		return dao.createAliases(USER, ImmutableList.of(new Alias("alias" + next + "@" + Payloads.DOMAIN)));
+	}
+}
@@ -0,0 +1,128 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.lsc.LscDatasetModification;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.configuration.PluginDestinationServiceType;
+import org.lsc.configuration.ServiceType;
+import org.lsc.configuration.TaskType;
+import org.lsc.configuration.ValuesType;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.generated.JamesAddressMappingService;
+import org.lsc.plugins.connectors.james.generated.JamesAliasService;
+import org.lsc.plugins.connectors.james.generated.JamesForwardService;
+import org.lsc.plugins.connectors.james.generated.JamesIdentityService;
+import org.lsc.plugins.connectors.james.generated.JamesMailQuotaSizeService;
+import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.generated.JamesUsersService;
+import org.lsc.plugins.connectors.james.generated.TMailContactService;
+import org.lsc.service.IWritableService;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The TMail data synchronized by each destination service.
+ *
+ * Declaration order is the provisioning order: a user must exist before its quota, identity, aliases, forwards
+ * and address mappings can be written. Deletions should run in the reverse order.
+ */
+public enum Aspect {
+	USER(JamesUsersService::new, JamesUserDstService::new),
+	MAIL_QUOTA_SIZE(JamesMailQuotaSizeService::new, JamesMailQuotaSizeDstService::new,
+		JamesMailQuotaSizeDstService.MAIL_QUOTA_SIZE_ATTRIBUTE),
+	IDENTITY(JamesIdentityService::new, JamesIdentityDstService::new,
+		TMailContactDstService.FIRSTNAME_KEY, TMailContactDstService.SURNAME_KEY),
+	ALIAS(JamesAliasService::new, JamesAliasDstService::new,
+		JamesAliasDstService.SOURCES_ATTRIBUTE),
+	FORWARD(JamesForwardService::new, JamesForwardDstService::new,
+		JamesForwardDstService.FORWARDS_ATTRIBUTE),
+	ADDRESS_MAPPING(JamesAddressMappingService::new, JamesAddressMappingDstService::new,
+		JamesAddressMappingDstService.ADDRESS_MAPPING_ATTRIBUTE),
+	CONTACT(TMailContactService::new, TMailContactDstService::new,
+		TMailContactDstService.FIRSTNAME_KEY, TMailContactDstService.SURNAME_KEY);
+
+	@FunctionalInterface
+	interface ServiceFactory {
+		IWritableService create(TaskType task) throws LscServiceException;
+	}
+
+	private final Supplier<JamesService> serviceConfiguration;
+	private final ServiceFactory serviceFactory;
+	private final List<String> attributes;
+
+	Aspect(Supplier<JamesService> serviceConfiguration, ServiceFactory serviceFactory, String... attributes) {
+		this.serviceConfiguration = serviceConfiguration;
+		this.serviceFactory = serviceFactory;
+		this.attributes = ImmutableList.copyOf(attributes);
+	}
+
+	public String label() {
+		return name().toLowerCase();
+	}
+
+	/**
+	 * @return the dataset attributes written by the destination service of this aspect, besides the email
+	 */
+	public List<String> getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * @return the operation provisioning this aspect for a user which has just been created. Address mappings have no
+	 * creation of their own: they are updated once their user exists.
+	 */
+	public LscModificationType creationOperation() {
+		if (this == ADDRESS_MAPPING) {
+			return LscModificationType.UPDATE_OBJECT;
+		}
+		return LscModificationType.CREATE_OBJECT;
+	}
+
+	/**
+	 * @return the modifications of the given user which concern this aspect
+	 */
+	public List<LscDatasetModification> modificationsOf(LscModifications modifications) {
+		return modifications.getLscAttributeModifications()
+			.stream()
+			.filter(modification -> attributes.contains(modification.getAttributeName()))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the modifications of the given user which concern this aspect, as the given operation
+	 */
+	public LscModifications restrict(LscModifications modifications, LscModificationType operation) {
+		LscModifications aspectModifications = new LscModifications(operation, modifications.getTaskName());
+		aspectModifications.setMainIdentifer(modifications.getMainIdentifier());
+		aspectModifications.setLscAttributeModifications(modificationsOf(modifications));
+		return aspectModifications;
+	}
+
+	/**
+	 * Build the destination service of this aspect outside of an LSC configuration file, e.g. to replay operations.
+	 */
+	public IWritableService newService(String taskName, String beanClassName, PluginConnectionType connection) throws LscServiceException {
+		ServiceType.Connection connectionReference = new ServiceType.Connection();
+		connectionReference.setReference(connection);
+
+		JamesService service = serviceConfiguration.get();
+		service.setName(taskName + "-" + label());
+		service.setConnection(connectionReference);
+		service.setWritableAttributes(new ValuesType());
+
+		PluginDestinationServiceType destinationService = new PluginDestinationServiceType();
+		destinationService.getAny().add(service);
+
+		TaskType task = new TaskType();
+		task.setName(taskName);
+		task.setBean(beanClassName);
+		task.setPluginDestinationService(destinationService);
+		return serviceFactory.create(task);
+	}
+}
@@ -0,0 +1,68 @@
+package org.lsc.plugins.connectors.james;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.lsc.LscDatasets;
+import org.lsc.beans.IBean;
+
+/**
+ * Creates the beans returned by getBean through a method handle on the public no-argument constructor of the bean
+ * class of the task, looked up once per class, rather than through {@link Class#newInstance()}, which checks the
+ * access to the constructor on each call.
+ *
+ * Bean classes without such a constructor keep being instantiated by {@link Class#newInstance()}, so that they fail
+ * with the same exceptions as before.
+ */
+final class BeanFactory {
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(void.class);
+	private static final MethodType FACTORY_TYPE = MethodType.methodType(IBean.class);
+	private static final ConcurrentMap<Class<? extends IBean>, BeanFactory> FACTORIES = new ConcurrentHashMap<>();
+
+	static BeanFactory of(Class<? extends IBean> beanClass) {
+		return FACTORIES.computeIfAbsent(beanClass, BeanFactory::new);
+	}
+
+	private final Class<? extends IBean> beanClass;
+	private final MethodHandle constructor;
+
+	private BeanFactory(Class<? extends IBean> beanClass) {
+		this.beanClass = beanClass;
+		this.constructor = lookupConstructor(beanClass);
+	}
+
+	private static MethodHandle lookupConstructor(Class<? extends IBean> beanClass) {
+		try {
+			return MethodHandles.publicLookup()
+				.findConstructor(beanClass, CONSTRUCTOR_TYPE)
+				.asType(FACTORY_TYPE);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	IBean newBean(String mainIdentifier, LscDatasets datasets) throws InstantiationException, IllegalAccessException {
+		IBean bean = newInstance();
+		bean.setMainIdentifier(mainIdentifier);
+		bean.setDatasets(datasets);
+		return bean;
+	}
+
+	IBean newInstance() throws InstantiationException, IllegalAccessException {
+		if (constructor == null) {
+			return beanClass.newInstance();
+		}
+		try {
+			return (IBean) constructor.invokeExact();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			InstantiationException instantiationException = new InstantiationException(beanClass.getName());
+			instantiationException.initCause(e);
+			throw instantiationException;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.lsc.LscDatasets;
+
+/**
+ * Builds the datasets of the beans returned by getBean: the email of the user, and the values of the aspect. The value
+ * lists are sized to the number of values and filled in a plain loop, without an intermediate stream.
+ */
+final class Datasets {
+	static final String EMAIL_ATTRIBUTE = "email";
+
+	private Datasets() {
+	}
+
+	static LscDatasets of(String email) {
+		LscDatasets datasets = new LscDatasets();
+		datasets.put(EMAIL_ATTRIBUTE, email);
+		return datasets;
+	}
+
+	static LscDatasets of(String email, String attribute, Object value) {
+		LscDatasets datasets = of(email);
+		datasets.put(attribute, value);
+		return datasets;
+	}
+
+	static <T> LscDatasets of(String email, String attribute, List<T> values, Function<T, String> value) {
+		return of(email, attribute, values(values, value));
+	}
+
+	static <T> List<String> values(List<T> values, Function<T, String> value) {
+		List<String> strings = new ArrayList<>(values.size());
+		for (T element : values) {
+			strings.add(value.apply(element));
+		}
+		return strings;
+	}
+}
@@ -0,0 +1,177 @@
+package org.lsc.plugins.connectors.james;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.lsc.LscModifications;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Defers the deletions of the user, alias and composite tasks to an explicit step after the run, so that an LDAP
+ * outage returning an empty or partial directory does not delete mailboxes right away, and so that deletions, which
+ * are expensive for TMail, are applied at a controlled pace rather than competing with the other modifications.
+ *
+ * The queue is enabled with the {@value #ENABLED_PROPERTY} JVM property and shared by all the tasks of a run. Deletions
+ * are not applied: they are written to a plan file, one flushed entry at a time, and reported to LSC as successful once
+ * recorded, like the writes queued by {@link WriteBehindQueue}, so they only reach TMail once the plan applier is run on
+ * the file. The file is named after {@value #FILE_PROPERTY} with a {@value #PARTIAL_SUFFIX} suffix until the end of the
+ * run, so that the deletions of a killed run are never taken for checked ones. At the end of the run, the deletions of each
+ * task are checked against the {@value #MAX_RATIO_PROPERTY} ratio of the entries it listed in TMail. When one task
+ * exceeds it, the file is moved to {@value #ABORTED_FILE_PROPERTY}, otherwise to {@value #FILE_PROPERTY}. Either file
+ * can be reviewed and applied with {@link org.lsc.plugins.connectors.james.plan.PlanApplier}, which applies at most
+ * {@value #RATE_PROPERTY} deletions per second.
+ */
+public class DeletionQueue {
+	public static final String ENABLED_PROPERTY = "tmail.deletions.deferred";
+	public static final String MAX_RATIO_PROPERTY = "tmail.deletions.max.ratio";
+	public static final String RATE_PROPERTY = "tmail.deletions.rate";
+	public static final String FILE_PROPERTY = "tmail.deletions.file";
+	public static final String ABORTED_FILE_PROPERTY = "tmail.deletions.aborted";
+	public static final double DEFAULT_MAX_RATIO = 0.1;
+	public static final double DEFAULT_RATE = 2;
+	public static final String DEFAULT_FILE = "deferred-deletions.ndjson";
+	public static final String DEFAULT_ABORTED_FILE = "aborted-deletions.ndjson";
+	public static final String PARTIAL_SUFFIX = ".partial";
+	private static final Logger LOGGER = LoggerFactory.getLogger(DeletionQueue.class);
+
+	private static Optional<DeletionQueue> shared;
+
+	/**
+	 * @return the deletion queue of this run, or empty when it is not enabled
+	 */
+	public static synchronized Optional<DeletionQueue> shared() {
+		if (shared == null) {
+			shared = Optional.of(Boolean.getBoolean(ENABLED_PROPERTY))
+				.filter(enabled -> enabled)
+				.map(enabled -> openShared());
+		}
+		return shared;
+	}
+
+	private static DeletionQueue openShared() {
+		Path file = Paths.get(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+		Path abortedFile = Paths.get(System.getProperty(ABORTED_FILE_PROPERTY, DEFAULT_ABORTED_FILE));
+		try {
+			double maxRatio = Double.parseDouble(System.getProperty(MAX_RATIO_PROPERTY, String.valueOf(DEFAULT_MAX_RATIO)));
+			DeletionQueue queue = new DeletionQueue(maxRatio, file, abortedFile);
+			LOGGER.info("Deletions deferred to {}, at most {} of the entries listed by a task", file, maxRatio);
+			EndOfRun.register(EndOfRun.Stage.DELETE, "deferred deletions " + file, queue::publish);
+			return queue;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open deferred deletions file " + file, e);
+		}
+	}
+
+	private final double maxRatio;
+	private final Path file;
+	private final Path abortedFile;
+	private final Path partialFile;
+	private final PlanWriter deferred;
+	private final Map<String, Long> listedEntries;
+	private final Map<String, Long> deletions;
+	private boolean published;
+
+	DeletionQueue(double maxRatio, Path file, Path abortedFile) throws IOException {
+		this.maxRatio = maxRatio;
+		this.file = file;
+		this.abortedFile = abortedFile;
+		this.partialFile = Paths.get(file + PARTIAL_SUFFIX);
+		this.deferred = new PlanWriter(partialFile);
+		this.listedEntries = new HashMap<>();
+		this.deletions = new HashMap<>();
+	}
+
+	/**
+	 * Defer a deletion to the step following the run.
+	 *
+	 * @param taskName the task deleting the entry, whose deletions are checked together
+	 * @param listedEntries the number of entries listed in TMail by the task, which its deletions are compared to
+	 * @return true once the deletion is recorded in the deferred deletions file
+	 */
+	public boolean submit(String taskName, Aspect aspect, long listedEntries, LscModifications modifications) {
+		return submit(taskName, listedEntries, modifications.getMainIdentifier(), Collections.singletonMap(aspect, modifications));
+	}
+
+	/**
+	 * Defer the deletion of several aspects of an entry, such as the ones of a composite task, counted as a single
+	 * deletion of the task.
+	 *
+	 * @param aspects the deletion of each aspect, in the order to apply them
+	 * @return true once all the aspects are recorded in the deferred deletions file
+	 */
+	public synchronized boolean submit(String taskName, long listedEntries, String identifier, Map<Aspect, LscModifications> aspects) {
+		if (published) {
+			LOGGER.error("Deletion of {} {} submitted after the end of the run, it is neither applied nor deferred",
+				aspects.keySet(), identifier);
+			return false;
+		}
+		boolean recorded = true;
+		for (Map.Entry<Aspect, LscModifications> aspect : aspects.entrySet()) {
+			recorded &= deferred.record(aspect.getKey(), aspect.getValue());
+		}
+		this.listedEntries.merge(taskName, listedEntries, Math::max);
+		deletions.merge(taskName, 1L, Long::sum);
+		LOGGER.debug("Deletion of {} {} deferred to {}", aspects.keySet(), identifier, file);
+		return recorded;
+	}
+
+	/**
+	 * Close the deferred deletions and move them to the file of the deletions to apply, or to the aborted deletions
+	 * file when a task deletes more than the maximum ratio of its entries. No deletion is applied.
+	 */
+	public synchronized void publish() {
+		published = true;
+		try {
+			deferred.close();
+			if (deferred.getEntryCount() == 0) {
+				Files.deleteIfExists(partialFile);
+				return;
+			}
+			Optional<String> exceeded = exceededRatio();
+			if (exceeded.isPresent()) {
+				Files.move(partialFile, abortedFile, StandardCopyOption.REPLACE_EXISTING);
+				LOGGER.error("Aborting the deferred deletions of this run ({}), they were written to {}: {}",
+					summary(), abortedFile, exceeded.get());
+			} else {
+				Files.move(partialFile, file, StandardCopyOption.REPLACE_EXISTING);
+				LOGGER.warn("Deletions deferred to {} ({}), they are only applied by running the plan applier on this file",
+					file, summary());
+			}
+		} catch (IOException e) {
+			LOGGER.error("Unable to publish the deferred deletions, they are left in {}", partialFile, e);
+		}
+	}
+
+	private String summary() {
+		return deletions.entrySet().stream()
+			.map(count -> String.format("%d of the %d entries listed by task %s", count.getValue(),
+				listedEntries.getOrDefault(count.getKey(), 0L), count.getKey()))
+			.collect(Collectors.joining(", "));
+	}
+
+	private Optional<String> exceededRatio() {
+		for (Map.Entry<String, Long> count : deletions.entrySet()) {
+			long listed = listedEntries.getOrDefault(count.getKey(), 0L);
+			if (count.getValue() > maxRatio * listed) {
+				return Optional.of(String.format("the %d deletions of task %s out of %d listed entries exceed the maximum ratio of %s",
+					count.getValue(), count.getKey(), listed, maxRatio));
+			}
+		}
+		return Optional.empty();
+	}
+
+	public synchronized long getDeferredCount() {
+		return deferred.getEntryCount();
+	}
+}
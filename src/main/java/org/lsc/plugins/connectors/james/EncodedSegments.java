@@ -0,0 +1,60 @@
+package org.lsc.plugins.connectors.james;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import org.lsc.plugins.connectors.james.metrics.MetricsRegistry;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * The URL encoded form of the addresses used as path segments by the webadmin requests, such as alias sources, forward
+ * targets and address mappings. The same addresses are encoded again on each run and each aspect, so the encoded
+ * segments are kept in a bounded cache, of {@value #SIZE_PROPERTY} entries, shared by all the tasks.
+ */
+final class EncodedSegments {
+	static final String SIZE_PROPERTY = "tmail.segments.cache.size";
+	static final int DEFAULT_SIZE = 100_000;
+
+	private static EncodedSegments shared;
+
+	/**
+	 * @return the encoded segments of this run, reported in the metrics registry
+	 */
+	static synchronized EncodedSegments shared() {
+		if (shared == null) {
+			shared = new EncodedSegments(Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE));
+			MetricsRegistry.shared().registerCache("encoded path segments", shared.cache);
+		}
+		return shared;
+	}
+
+	private final LoadingCache<String, String> cache;
+
+	EncodedSegments(int size) {
+		this.cache = CacheBuilder.newBuilder()
+			.maximumSize(size)
+			.recordStats()
+			.build(new CacheLoader<String, String>() {
+				@Override
+				public String load(String address) {
+					return urlEncode(address);
+				}
+			});
+	}
+
+	String encode(String address) {
+		return cache.getUnchecked(address);
+	}
+
+	static String urlEncode(String address) {
+		try {
+			return URLEncoder.encode(address, StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is always supported", e);
+		}
+	}
+}
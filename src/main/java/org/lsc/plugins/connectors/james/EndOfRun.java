@@ -0,0 +1,79 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LSC does not notify destination services when a run ends. Work that must happen once per run (flushing files,
+ * exporting statistics...) is registered here and executed by a single JVM shutdown hook, stage after stage,
+ * so that the order between stages is deterministic, unlike with one shutdown hook per feature.
+ */
+public final class EndOfRun {
+	private static final Logger LOGGER = LoggerFactory.getLogger(EndOfRun.class);
+
+	public enum Stage {
+		/**
+		 * Apply the modifications still queued by the tasks
+		 */
+		FLUSH,
+		/**
+		 * Check the deletions deferred by the tasks and publish them to be applied after the run
+		 */
+		DELETE,
+		/**
+		 * Stop the background writes, recording the ones not started yet instead of applying them
+		 */
+		DRAIN,
+		/**
+		 * Publish the statistics of the run, once all the writes are done
+		 */
+		EXPORT,
+		/**
+		 * Release the resources the writes may use
+		 */
+		CLOSE
+	}
+
+	private static class Action {
+		private final Stage stage;
+		private final String name;
+		private final Runnable runnable;
+
+		private Action(Stage stage, String name, Runnable runnable) {
+			this.stage = stage;
+			this.name = name;
+			this.runnable = runnable;
+		}
+	}
+
+	private static final List<Action> ACTIONS = new ArrayList<>();
+	private static boolean hookInstalled = false;
+
+	private EndOfRun() {
+	}
+
+	public static synchronized void register(Stage stage, String name, Runnable runnable) {
+		if (!hookInstalled) {
+			Runtime.getRuntime().addShutdownHook(new Thread(EndOfRun::runAll, "tmail-lsc-end-of-run"));
+			hookInstalled = true;
+		}
+		ACTIONS.add(new Action(stage, name, runnable));
+	}
+
+	static synchronized void runAll() {
+		ACTIONS.sort(Comparator.comparing(action -> action.stage));
+		for (Action action : ACTIONS) {
+			try {
+				LOGGER.debug("Running end of run action {} ({})", action.name, action.stage);
+				action.runnable.run();
+			} catch (RuntimeException e) {
+				LOGGER.error("End of run action {} failed", action.name, e);
+			}
+		}
+		ACTIONS.clear();
+	}
+}
@@ -1,6 +1,5 @@
 package org.lsc.plugins.connectors.james;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,20 +21,25 @@ import org.lsc.plugins.connectors.james.beans.AddressMapping;
 import org.lsc.plugins.connectors.james.beans.User;
 import org.lsc.plugins.connectors.james.generated.JamesAddressMappingService;
 import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ImmutableMap;
-
 public class JamesAddressMappingDstService implements IWritableService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(JamesAddressMappingDstService.class);
-	private static final String ADDRESS_MAPPING_ATTRIBUTE = "addressMappings";
+	static final String ADDRESS_MAPPING_ATTRIBUTE = "addressMappings";
 
 	private final Class<IBean> beanClass;
+	private final BeanFactory beanFactory;
 	private final JamesService service;
 	private final PluginConnectionType connection;
 	private final JamesDao jamesDao;
+	private final Optional<MappingSnapshot> mappingSnapshot;
+	private final Optional<PlanWriter> planWriter;
+	private final Optional<WriteBehindQueue> writeBehind;
+	private final TaskMonitor monitor;
 
 	public JamesAddressMappingDstService(final TaskType task) throws LscServiceConfigurationException {
 		try {
@@ -46,9 +50,14 @@ public class JamesAddressMappingDstService implements IWritableService {
 	        }
         	service = (JamesService) task.getPluginDestinationService().getAny().get(0);
 			beanClass = (Class<IBean>) Class.forName(task.getBean());
+			beanFactory = BeanFactory.of(beanClass);
 			LOGGER.debug("Task bean is: " + task.getBean());
 			connection = (PluginConnectionType) service.getConnection().getReference();
 			jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+			mappingSnapshot = MappingSnapshot.shared(connection.getUrl(), jamesDao);
+			planWriter = PlanWriter.shared();
+			writeBehind = WriteBehindQueue.shared();
+			monitor = TaskMonitor.forService(task.getName(), Aspect.ADDRESS_MAPPING.label());
 		} catch (ClassNotFoundException e) {
 			throw new LscServiceConfigurationException(e);
 		}
@@ -56,6 +65,10 @@ public class JamesAddressMappingDstService implements IWritableService {
 	
 	@Override
 	public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+		return monitor.getBean(pivotName, pivotAttributes, () -> fetchBean(pivotName, pivotAttributes, fromSameService));
+	}
+
+	private IBean fetchBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
 		LOGGER.debug(String.format("Call to getBean(%s, %s, %b)", pivotName, pivotAttributes, fromSameService));
 		if (pivotAttributes.getAttributesNames().isEmpty()) {
 			return null;
@@ -67,7 +80,9 @@ public class JamesAddressMappingDstService implements IWritableService {
 		}
 		try {
 			if (jamesDao.userExists(email)) {
-				List<AddressMapping> addressMappings = jamesDao.getAddressMappings(email);
+				List<AddressMapping> addressMappings = mappingSnapshot.isPresent()
+					? mappingSnapshot.get().getAddressMappings(email)
+					: jamesDao.getAddressMappings(email);
 				return addressMappingsToBean(email, addressMappings);
 			}
 			return null;
@@ -90,15 +105,16 @@ public class JamesAddressMappingDstService implements IWritableService {
 
 	@Override
 	public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+		// A new synchronization of the task, which must not be served the mappings of the previous one
+		mappingSnapshot.ifPresent(MappingSnapshot::invalidate);
+		return monitor.listPivots(this::fetchPivots);
+	}
+
+	private Map<String, LscDatasets> fetchPivots() throws LscServiceException {
 		try {
 			List<User> userList = jamesDao.getUserList();
 			LOGGER.debug("Get address mapping's listPivots via list users webadmin API. userList size = {}", userList.size());
-
-			Map<String, LscDatasets> listPivots = new HashMap<String, LscDatasets>();
-			for (User user: userList) {
-				listPivots.put(user.email, user.toDatasets());
-			}
-			return ImmutableMap.copyOf(listPivots);
+			return User.toPivots(userList);
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e));
 			LOGGER.debug(e.toString(), e);
@@ -116,6 +132,16 @@ public class JamesAddressMappingDstService implements IWritableService {
 			LOGGER.error("MainIdentifier is needed to update");
 			return false;
 		}
+		if (planWriter.isPresent()) {
+			return planWriter.get().record(Aspect.ADDRESS_MAPPING, lm);
+		}
+		if (writeBehind.isPresent()) {
+			return writeBehind.get().submit(Aspect.ADDRESS_MAPPING, lm, modifications -> monitor.write(modifications, this::write));
+		}
+		return monitor.write(lm, this::write);
+	}
+
+	private boolean write(LscModifications lm) throws LscServiceException {
 		User user = new User(lm.getMainIdentifier());
 		LOGGER.debug("User: {}, Operation: {}", user.email, lm.getOperation());
 		try {
@@ -157,20 +183,11 @@ public class JamesAddressMappingDstService implements IWritableService {
 	}
 
 	private IBean addressMappingsToBean(String email, List<AddressMapping> addressMappings) throws InstantiationException, IllegalAccessException {
-		IBean bean = beanClass.newInstance();
-		bean.setMainIdentifier(email);
-		bean.setDatasets(toDataset(email, addressMappings));
-		return bean;
+		return beanFactory.newBean(email, toDataset(email, addressMappings));
 	}
 
-	private LscDatasets toDataset(String email, List<AddressMapping> addressMappings) {
-		LscDatasets datasets = new LscDatasets();
-		datasets.put("email", email);
-		List<String> addressMappingsAsStringList = addressMappings.stream()
-			.map(AddressMapping::getMapping)
-			.collect(Collectors.toList());
-		datasets.put(ADDRESS_MAPPING_ATTRIBUTE, addressMappingsAsStringList);
-		return datasets;
+	static LscDatasets toDataset(String email, List<AddressMapping> addressMappings) {
+		return Datasets.of(email, ADDRESS_MAPPING_ATTRIBUTE, addressMappings, AddressMapping::getMapping);
 	}
 
 	private Optional<List<AddressMapping>> addressMappingsFromLDAP(LscModifications lm) {
@@ -42,7 +42,6 @@
  */
 package org.lsc.plugins.connectors.james;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -53,6 +52,7 @@ import javax.ws.rs.ProcessingException;
 import javax.ws.rs.WebApplicationException;
 
 import org.lsc.LscDatasets;
+import org.lsc.LscModificationType;
 import org.lsc.LscModifications;
 import org.lsc.beans.IBean;
 import org.lsc.configuration.PluginConnectionType;
@@ -64,25 +64,33 @@ import org.lsc.plugins.connectors.james.beans.Alias;
 import org.lsc.plugins.connectors.james.beans.User;
 import org.lsc.plugins.connectors.james.generated.JamesAliasService;
 import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 
 public class JamesAliasDstService implements IWritableService {
 	
 	protected static final Logger LOGGER = LoggerFactory.getLogger(JamesAliasDstService.class);
+	static final String SOURCES_ATTRIBUTE = "sources";
 	/**
 	 * Preceding the object feeding, it will be instantiated from this class.
 	 */
 	private final Class<IBean> beanClass;
+	private final BeanFactory beanFactory;
 
 	private final JamesService service;
 	private final PluginConnectionType connection;
 
 	private final JamesDao jamesDao;
+	private final Optional<MappingSnapshot> mappingSnapshot;
+	private final Optional<PlanWriter> planWriter;
+	private final Optional<WriteBehindQueue> writeBehind;
+	private final Optional<DeletionQueue> deletions;
+	private final TaskMonitor monitor;
 	
 	/**
 	 * Create the service
@@ -99,9 +107,15 @@ public class JamesAliasDstService implements IWritableService {
 	        
         	service = (JamesService) task.getPluginDestinationService().getAny().get(0);
 			beanClass = (Class<IBean>) Class.forName(task.getBean());
+			beanFactory = BeanFactory.of(beanClass);
 			connection = (PluginConnectionType) service.getConnection().getReference();
 
 			jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+			mappingSnapshot = MappingSnapshot.shared(connection.getUrl(), jamesDao);
+			planWriter = PlanWriter.shared();
+			writeBehind = WriteBehindQueue.shared();
+			deletions = DeletionQueue.shared();
+			monitor = TaskMonitor.forService(task.getName(), Aspect.ALIAS.label());
 			
 		} catch (ClassNotFoundException e) {
 			throw new LscServiceConfigurationException(e);
@@ -109,7 +123,11 @@ public class JamesAliasDstService implements IWritableService {
 	}
 	
 	@Override
-	public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService)
+	public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+		return monitor.getBean(pivotName, pivotAttributes, () -> fetchBean(pivotName, pivotAttributes, fromSameService));
+	}
+
+	private IBean fetchBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService)
 			throws LscServiceException {
 		LOGGER.debug(String.format("Call to getBean(%s, %s, %b)", pivotName, pivotAttributes, fromSameService));
 		if (pivotAttributes.getAttributesNames().size() < 1) {
@@ -121,16 +139,17 @@ public class JamesAliasDstService implements IWritableService {
 			return null;
 		}
 		try {
-			List<Alias> aliases = jamesDao.getAliases(email);
-			return aliasesToBean(email, aliases);
+			Optional<List<Alias>> aliases = findAliases(email);
+			if (!aliases.isPresent()) {
+				LOGGER.debug(String.format("%s/%s not found", pivotName, email));
+				return null;
+			}
+			return aliasesToBean(email, aliases.get());
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting bean %s/%s (%s)",
 					pivotName, email, e));
 			LOGGER.error(e.toString(), e);
 			throw new LscServiceCommunicationException(e);
-		} catch (NotFoundException e) {
-			LOGGER.debug(String.format("%s/%s not found", pivotName, email));
-			return null;
 		} catch (WebApplicationException e) {
 			LOGGER.error(String.format("WebApplicationException while getting bean %s/%s (%s)",
 					pivotName, email, e));
@@ -144,33 +163,33 @@ public class JamesAliasDstService implements IWritableService {
 
 	}
 
+	private Optional<List<Alias>> findAliases(String email) {
+		if (mappingSnapshot.isPresent()) {
+			return Optional.of(mappingSnapshot.get().getAliases(email))
+				.filter(aliases -> !aliases.isEmpty());
+		}
+		return jamesDao.findAliases(email);
+	}
+
 	private IBean aliasesToBean(String email, List<Alias> aliases) throws InstantiationException, IllegalAccessException {
-		IBean bean = beanClass.newInstance();
-		bean.setMainIdentifier(email);
-		bean.setDatasets(toDataset(email, aliases));
-		return bean;
+		return beanFactory.newBean(email, toDataset(email, aliases));
 	}
 
-	private LscDatasets toDataset(String email, List<Alias> aliases) {
-		LscDatasets datasets = new LscDatasets();
-		datasets.put("email", email);
-		List<String> aliasesAsStringList = aliases.stream()
-			.map(alias -> alias.source)
-			.collect(Collectors.toList());
-		datasets.put("sources", aliasesAsStringList);
-		return datasets;
+	static LscDatasets toDataset(String email, List<Alias> aliases) {
+		return Datasets.of(email, SOURCES_ATTRIBUTE, aliases, alias -> alias.source);
 	}
 
 	@Override
 	public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+		// A new synchronization of the task, which must not be served the mappings of the previous one
+		mappingSnapshot.ifPresent(MappingSnapshot::invalidate);
+		return monitor.listPivots(this::fetchPivots);
+	}
+
+	private Map<String, LscDatasets> fetchPivots() throws LscServiceException {
 		try {
 			List<User> userList = jamesDao.getUsersListViaAlias();
-
-			Map<String, LscDatasets> listPivots = new HashMap<String, LscDatasets>();
-			for (User user: userList) {
-				listPivots.put(user.email, user.toDatasets());
-			}
-			return ImmutableMap.copyOf(listPivots);
+			return User.toPivots(userList);
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e));
 			LOGGER.debug(e.toString(), e);
@@ -188,6 +207,19 @@ public class JamesAliasDstService implements IWritableService {
 			LOGGER.error("MainIdentifier is needed to update");
 			return false;
 		}
+		if (planWriter.isPresent()) {
+			return planWriter.get().record(Aspect.ALIAS, lm);
+		}
+		if (deletions.isPresent() && lm.getOperation() == LscModificationType.DELETE_OBJECT) {
+			return deletions.get().submit(monitor.getTaskName(), Aspect.ALIAS, monitor.getListedPivots(), lm);
+		}
+		if (writeBehind.isPresent()) {
+			return writeBehind.get().submit(Aspect.ALIAS, lm, modifications -> monitor.write(modifications, this::write));
+		}
+		return monitor.write(lm, this::write);
+	}
+
+	private boolean write(LscModifications lm) throws LscServiceException {
 		User user = new User(lm.getMainIdentifier());
 		try {
 			switch(lm.getOperation()) {
@@ -230,7 +262,7 @@ public class JamesAliasDstService implements IWritableService {
 
 	private Optional<List<Alias>> aliasesFromSource(LscModifications lm) {
 		return Optional.ofNullable(lm.getModificationsItemsByHash()
-				.get("sources"))
+				.get(SOURCES_ATTRIBUTE))
 				.map(sources -> sources
 					.stream()
 					.map(alias -> new Alias(((String) alias)))
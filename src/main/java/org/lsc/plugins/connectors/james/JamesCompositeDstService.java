@@ -0,0 +1,353 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+
+import org.lsc.LscDatasets;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.beans.IBean;
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.configuration.TaskType;
+import org.lsc.exception.LscServiceCommunicationException;
+import org.lsc.exception.LscServiceConfigurationException;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.JamesCompositeService;
+import org.lsc.plugins.connectors.james.metrics.MetricsRegistry;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+import org.lsc.service.IWritableService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+/**
+ * Synchronizes several aspects of a TMail user (the user itself, its quota, identity, aliases, forwards and address
+ * mappings) from a single pass over the source.
+ *
+ * getBean fetches all the enabled aspects concurrently, on at most {@value #PARALLELISM_PROPERTY} threads shared by
+ * the composite tasks, and merges them into one bean. apply splits the modifications by aspect and dispatches them to
+ * the destination service of each aspect, in the provisioning order of {@link Aspect} (the reverse order for
+ * deletions).
+ *
+ * The other aspects of a user are skipped when the user service fails to create it synchronously. In write-behind
+ * mode and in plan mode the creation is only queued or recorded, so the other aspects are queued after it: write-behind
+ * applies the modifications of a user in order on the same lane, and the plan applier applies the aspects of a user in
+ * dependency order, the aspects failing for lack of the user being written to the failures file to be applied
+ * again.
+ *
+ * When deletions are deferred, the deletion of all the aspects of a user is submitted as one deletion of the task to
+ * the {@link DeletionQueue}, against the users listed by the task.
+ */
+public class JamesCompositeDstService implements IWritableService {
+	public static final String PARALLELISM_PROPERTY = "tmail.composite.parallelism";
+	public static final int DEFAULT_PARALLELISM = 32;
+	private static final Logger LOGGER = LoggerFactory.getLogger(JamesCompositeDstService.class);
+	private static final EnumSet<Aspect> USER_LIST_ASPECTS = EnumSet.of(Aspect.USER, Aspect.MAIL_QUOTA_SIZE, Aspect.IDENTITY, Aspect.ADDRESS_MAPPING);
+	private static final long PRESENCE_CACHE_SIZE = 100_000;
+	private static final int QUEUED_READS_PER_THREAD = 100;
+	private static final ExecutorService EXECUTOR = newExecutor(Integer.getInteger(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM));
+
+	private final Class<IBean> beanClass;
+	private final BeanFactory beanFactory;
+	private final JamesCompositeService service;
+	private final JamesDao jamesDao;
+	private final Map<Aspect, IWritableService> services;
+	private final TaskMonitor monitor;
+	private final Optional<DeletionQueue> deletions;
+	private final Optional<MappingSnapshot> mappingSnapshot;
+	/**
+	 * Aspects found in TMail by the last getBean of each user, so that apply knows whether to create or update them.
+	 */
+	private final Cache<String, Set<Aspect>> presentAspects;
+
+	public JamesCompositeDstService(final TaskType task) throws LscServiceException {
+		this(task, DeletionQueue.shared());
+	}
+
+	@SuppressWarnings("unchecked")
+	JamesCompositeDstService(final TaskType task, Optional<DeletionQueue> deletions) throws LscServiceException {
+		try {
+			if (task.getPluginDestinationService().getAny() == null || task.getPluginDestinationService().getAny().size() != 1 || !((task.getPluginDestinationService().getAny().get(0) instanceof JamesCompositeService))) {
+				throw new LscServiceConfigurationException("Unable to identify the James composite service configuration " + "inside the plugin source node of the task: " + task.getName());
+			}
+
+			service = (JamesCompositeService) task.getPluginDestinationService().getAny().get(0);
+			beanClass = (Class<IBean>) Class.forName(task.getBean());
+			beanFactory = BeanFactory.of(beanClass);
+			PluginConnectionType connection = (PluginConnectionType) service.getConnection().getReference();
+
+			jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+			mappingSnapshot = MappingSnapshot.shared(connection.getUrl(), jamesDao);
+			services = new EnumMap<>(Aspect.class);
+			for (Aspect aspect : parseAspects(service)) {
+				services.put(aspect, aspect.newService(task.getName(), task.getBean(), connection));
+			}
+			monitor = TaskMonitor.forService(task.getName(), "composite");
+			this.deletions = deletions;
+			presentAspects = CacheBuilder.newBuilder()
+				.maximumSize(PRESENCE_CACHE_SIZE)
+				.recordStats()
+				.build();
+			MetricsRegistry.shared().registerCache(task.getName() + " present aspects", presentAspects);
+		} catch (ClassNotFoundException e) {
+			throw new LscServiceConfigurationException(e);
+		}
+	}
+
+	private static ExecutorService newExecutor(int parallelism) {
+		// Callers read the aspects themselves when the queue is full, which slows down the task instead of buffering
+		// an unbounded number of reads
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(parallelism * QUEUED_READS_PER_THREAD),
+			Threads.factory("tmail-composite-"),
+			new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static Set<Aspect> parseAspects(JamesCompositeService service) throws LscServiceConfigurationException {
+		if (service.getAspects() == null || service.getAspects().getString().isEmpty()) {
+			throw new LscServiceConfigurationException("At least one aspect must be enabled in " + service.getName());
+		}
+		Set<Aspect> aspects = EnumSet.noneOf(Aspect.class);
+		for (String name : service.getAspects().getString()) {
+			Aspect aspect;
+			try {
+				aspect = Aspect.valueOf(name.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new LscServiceConfigurationException("Unknown aspect " + name + " in " + service.getName());
+			}
+			if (aspect == Aspect.CONTACT) {
+				throw new LscServiceConfigurationException("Domain contacts are not user aspects and can not be part of " + service.getName());
+			}
+			aspects.add(aspect);
+		}
+		return aspects;
+	}
+
+	@Override
+	public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+		return monitor.getBean(pivotName, pivotAttributes, () -> fetchBean(pivotName, pivotAttributes, fromSameService));
+	}
+
+	private IBean fetchBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+		LOGGER.debug(String.format("Call to getBean(%s, %s, %b)", pivotName, pivotAttributes, fromSameService));
+		if (pivotAttributes.getAttributesNames().isEmpty()) {
+			return null;
+		}
+		String pivotAttribute = pivotAttributes.getAttributesNames().get(0);
+		String email = pivotAttributes.getStringValueAttribute(pivotAttribute);
+		if (email == null) {
+			return null;
+		}
+
+		Map<Aspect, IBean> beans = fetchAspects(pivotName, pivotAttributes, fromSameService);
+		presentAspects.put(email, beans.isEmpty() ? EnumSet.noneOf(Aspect.class) : EnumSet.copyOf(beans.keySet()));
+		if (beans.isEmpty()) {
+			return null;
+		}
+		try {
+			LscDatasets datasets = Datasets.of(email);
+			beans.values().forEach(aspectBean -> aspectBean.datasets().getDatasets().forEach(datasets::put));
+			return beanFactory.newBean(email, datasets);
+		} catch (InstantiationException | IllegalAccessException e) {
+			LOGGER.error("Bad class name: " + beanClass.getName() + "(" + e + ")");
+			LOGGER.debug(e.toString(), e);
+			throw new LscServiceException(e);
+		}
+	}
+
+	private Map<Aspect, IBean> fetchAspects(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+		Map<Aspect, CompletableFuture<IBean>> futures = new EnumMap<>(Aspect.class);
+		services.forEach((aspect, aspectService) -> futures.put(aspect, CompletableFuture.supplyAsync(() -> {
+			try {
+				return aspectService.getBean(pivotName, pivotAttributes, fromSameService);
+			} catch (LscServiceException e) {
+				throw new CompletionException(e);
+			}
+		}, EXECUTOR)));
+
+		Map<Aspect, IBean> beans = new EnumMap<>(Aspect.class);
+		try {
+			for (Map.Entry<Aspect, CompletableFuture<IBean>> future : futures.entrySet()) {
+				IBean bean = future.getValue().join();
+				if (bean != null) {
+					beans.put(future.getKey(), bean);
+				}
+			}
+			return beans;
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof LscServiceException) {
+				throw (LscServiceException) e.getCause();
+			}
+			throw new LscServiceException(e.getCause());
+		}
+	}
+
+	@Override
+	public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+		return monitor.listPivots(this::fetchPivots);
+	}
+
+	private Map<String, LscDatasets> fetchPivots() throws LscServiceException {
+		// The alias, forward and address mapping services are not listed by LSC within a composite task
+		mappingSnapshot.ifPresent(MappingSnapshot::invalidate);
+		try {
+			List<CompletableFuture<List<User>>> userLists = new ArrayList<>();
+			Optional<CompletableFuture<List<User>>> users = Optional.empty();
+			if (services.keySet().stream().anyMatch(USER_LIST_ASPECTS::contains)) {
+				users = Optional.of(CompletableFuture.supplyAsync(jamesDao::getUserList, EXECUTOR));
+				userLists.add(users.get());
+			}
+			if (services.containsKey(Aspect.ALIAS)) {
+				userLists.add(CompletableFuture.supplyAsync(jamesDao::getUsersListViaAlias, EXECUTOR));
+			}
+			if (services.containsKey(Aspect.FORWARD)) {
+				userLists.add(CompletableFuture.supplyAsync(jamesDao::getUsersHaveForwards, EXECUTOR));
+			}
+
+			Map<String, LscDatasets> listPivots = new HashMap<String, LscDatasets>();
+			for (CompletableFuture<List<User>> userList : userLists) {
+				for (User user : userList.join()) {
+					listPivots.putIfAbsent(user.email, user.toDatasets());
+				}
+			}
+			// The quota service is not listed by LSC within a composite task, its prefetch starts from this listing
+			if (services.containsKey(Aspect.MAIL_QUOTA_SIZE) && users.isPresent()) {
+				((JamesMailQuotaSizeDstService) services.get(Aspect.MAIL_QUOTA_SIZE)).listed(users.get().join());
+			}
+			return ImmutableMap.copyOf(listPivots);
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ProcessingException) {
+				LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e.getCause()));
+				LOGGER.debug(e.toString(), e);
+				throw new LscServiceCommunicationException(e.getCause());
+			}
+			LOGGER.error(String.format("%s while getting pivot list (%s)", e.getCause().getClass().getSimpleName(), e.getCause()));
+			LOGGER.debug(e.toString(), e);
+			throw new LscServiceException(e.getCause());
+		} catch (WebApplicationException e) {
+			LOGGER.error(String.format("WebApplicationException while getting pivot list (%s)", e));
+			LOGGER.debug(e.toString(), e);
+			throw new LscServiceException(e);
+		}
+	}
+
+	@Override
+	public boolean apply(LscModifications lm) throws LscServiceException {
+		if (lm.getMainIdentifier() == null) {
+			LOGGER.error("MainIdentifier is needed to update");
+			return false;
+		}
+		return monitor.write(lm, this::write);
+	}
+
+	private boolean write(LscModifications lm) throws LscServiceException {
+		switch (lm.getOperation()) {
+			case CHANGE_ID:
+				LOGGER.warn("Trying to change ID of a James user, which is not a supported operation, ignored.");
+				return true;
+			case DELETE_OBJECT:
+				return delete(lm);
+			case CREATE_OBJECT:
+			case UPDATE_OBJECT:
+				return createOrUpdate(lm);
+			default:
+				LOGGER.error("Unknown operation {}", lm.getOperation());
+				return false;
+		}
+	}
+
+	private boolean createOrUpdate(LscModifications lm) throws LscServiceException {
+		Set<Aspect> present = lm.getOperation() == LscModificationType.CREATE_OBJECT
+			? EnumSet.noneOf(Aspect.class)
+			: presentAspects(lm);
+		presentAspects.invalidate(lm.getMainIdentifier());
+
+		boolean result = true;
+		for (Map.Entry<Aspect, IWritableService> entry : services.entrySet()) {
+			Aspect aspect = entry.getKey();
+			boolean modified = !aspect.modificationsOf(lm).isEmpty();
+			LscModificationType operation;
+			if (present.contains(aspect)) {
+				if (!modified) {
+					continue;
+				}
+				operation = LscModificationType.UPDATE_OBJECT;
+			} else if (aspect == Aspect.USER || modified) {
+				operation = aspect.creationOperation();
+			} else {
+				continue;
+			}
+
+			boolean applied = entry.getValue().apply(aspect.restrict(lm, operation));
+			// Only a synchronous failure is known here, a queued creation is followed by the other aspects on its lane
+			if (!applied && aspect == Aspect.USER) {
+				LOGGER.error("Unable to create user {}, its other aspects are not synchronized", lm.getMainIdentifier());
+				return false;
+			}
+			result &= applied;
+		}
+		return result;
+	}
+
+	private boolean delete(LscModifications lm) throws LscServiceException {
+		Set<Aspect> present = presentAspects(lm);
+		presentAspects.invalidate(lm.getMainIdentifier());
+
+		Map<Aspect, LscModifications> aspectDeletions = new LinkedHashMap<>();
+		for (Aspect aspect : Lists.reverse(new ArrayList<>(services.keySet()))) {
+			if (present.contains(aspect)) {
+				aspectDeletions.put(aspect, aspect.restrict(lm, LscModificationType.DELETE_OBJECT));
+			}
+		}
+		if (deletions.isPresent()) {
+			return aspectDeletions.isEmpty()
+				|| deletions.get().submit(monitor.getTaskName(), monitor.getListedPivots(), lm.getMainIdentifier(), aspectDeletions);
+		}
+
+		boolean result = true;
+		for (Map.Entry<Aspect, LscModifications> deletion : aspectDeletions.entrySet()) {
+			result &= services.get(deletion.getKey()).apply(deletion.getValue());
+		}
+		return result;
+	}
+
+	private Set<Aspect> presentAspects(LscModifications lm) throws LscServiceException {
+		Set<Aspect> present = presentAspects.getIfPresent(lm.getMainIdentifier());
+		if (present != null) {
+			return present;
+		}
+		LscDatasets pivot = new LscDatasets();
+		pivot.put("email", lm.getMainIdentifier());
+		Set<Aspect> fetched = EnumSet.noneOf(Aspect.class);
+		fetched.addAll(fetchAspects(lm.getMainIdentifier(), pivot, true).keySet());
+		return fetched;
+	}
+
+	@Override
+	public List<String> getWriteDatasetIds() {
+		return service.getWritableAttributes().getString();
+	}
+}
@@ -43,24 +43,35 @@
 package org.lsc.plugins.connectors.james;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.HttpUrlConnector;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import org.lsc.configuration.TaskType;
 import org.lsc.plugins.connectors.james.beans.AddressMapping;
@@ -72,10 +83,23 @@ import org.lsc.plugins.connectors.james.beans.Identity;
 import org.lsc.plugins.connectors.james.beans.QuotaSize;
 import org.lsc.plugins.connectors.james.beans.User;
 import org.lsc.plugins.connectors.james.beans.UserDto;
+import org.lsc.plugins.connectors.james.jfr.FlightRecorderEvents;
+import org.lsc.plugins.connectors.james.jfr.FlightRecorderFilter;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+import org.lsc.plugins.connectors.james.metrics.MetricsFilter;
+import org.lsc.plugins.connectors.james.metrics.MetricsRegistry;
+import org.lsc.plugins.connectors.james.metrics.SlowRequestLog;
+import org.lsc.plugins.connectors.james.tracing.Tracer;
+import org.lsc.plugins.connectors.james.tracing.TracingFilter;
+import org.lsc.plugins.connectors.james.transport.RequestStream;
+import org.lsc.plugins.connectors.james.transport.Transport;
+import org.lsc.plugins.connectors.james.transport.Transports;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 
@@ -84,11 +108,13 @@ public class JamesDao {
 	public static final String ALIASES_PATH = "/address/aliases";
 	public static final String FORWARDS_PATH = "/address/forwards";
 	public static final String QUOTA_SIZE_PATH = "/quota/users/%s/size";
+	public static final String USERS_QUOTA_PATH = "/quota/users";
 	public static final String IDENTITIES_PATH = "/users/%s/identities";
 	public static final String USERS_PATH = "/users";
 	public static final String DOMAIN_CONTACT_PATH = "/domains/%s/contacts/%s";
 	public static final String ADDRESS_MAPPING_PATH = "/mappings/address/%s/targets/%s";
 	public static final String USER_MAPPING_PATH = "/mappings/user";
+	public static final String MAPPINGS_PATH = "/mappings";
 	public static final int HTTP_STATUS_CODE_USER_EXITS = Status.OK.getStatusCode();
 	public static final int HTTP_STATUS_CODE_USER_DOES_NOT_EXITS = Status.NOT_FOUND.getStatusCode();
 
@@ -101,8 +127,24 @@ public class JamesDao {
 	private final WebTarget usersClient;
 	private final WebTarget contactsClient;
 	private final WebTarget addressMappingsClient;
+	private final WebTarget userAliasesTarget;
+	private final WebTarget aliasSourceTarget;
+	private final WebTarget userForwardsTarget;
+	private final WebTarget forwardTargetTarget;
+	private final WebTarget quotaSizeTarget;
+	private final WebTarget identitiesTarget;
+	private final WebTarget defaultIdentityTarget;
+	private final WebTarget userTarget;
+	private final WebTarget domainContactsTarget;
+	private final WebTarget contactTarget;
+	private final WebTarget userMappingsTarget;
+	private final WebTarget addressMappingTarget;
+	private final EncodedSegments segments;
 	private final String authorizationBearer;
 	private final ObjectMapper mapper;
+	private final MetricsRegistry metrics;
+	private final SingleFlight singleFlight;
+	private final Optional<RequestStream> requestStream;
 
 	public static boolean synchronizeLocalCopyForwards(Forward ldapForward, String userMailAddress, boolean allowSynchronizeLocalCopyForwards) {
 		if (allowSynchronizeLocalCopyForwards) {
@@ -113,48 +155,192 @@ public class JamesDao {
 	}
 
 	public JamesDao(String url, String token, TaskType task) {
+		this(url, token, task, MetricsRegistry.shared());
+	}
+
+	JamesDao(String url, String token, TaskType task, MetricsRegistry metrics) {
+		this(url, token, task, metrics, SlowRequestLog.fromProperties());
+	}
+
+	JamesDao(String url, String token, TaskType task, MetricsRegistry metrics, Optional<SlowRequestLog> slowRequests) {
+		this(Transports.httpUrl(url), token, task, metrics, Transports.forUrl(url, slowRequests));
+	}
+
+	JamesDao(String url, String token, TaskType task, MetricsRegistry metrics, Transport transport) {
+		this(url, token, task, metrics, transport, SingleFlight.shared());
+	}
+
+	JamesDao(String url, String token, TaskType task, MetricsRegistry metrics, Transport transport, SingleFlight singleFlight) {
 		authorizationBearer = "Bearer " + token;
-		aliasesClient = ClientBuilder.newClient()
-				.register(JacksonFeature.class)
+		this.metrics = metrics;
+		this.singleFlight = singleFlight;
+		// A non-blocking transport keeps many calls in flight with few threads, which the bulk creations make use of
+		this.requestStream = transport.asyncThreads().isPresent() ? Optional.of(RequestStream.shared()) : Optional.empty();
+		aliasesClient = newClient(Endpoint.ALIASES, metrics, transport, singleFlight)
 				.target(url)
 				.path(ALIASES_PATH);
 
-		forwardsClient = ClientBuilder.newClient()
-			.register(JacksonFeature.class)
+		forwardsClient = newClient(Endpoint.FORWARDS, metrics, transport, singleFlight)
 			.target(url)
 			.path(FORWARDS_PATH);
 
-		quotasClient = ClientBuilder.newClient()
-			.register(JacksonFeature.class)
+		quotasClient = newClient(Endpoint.QUOTAS, metrics, transport, singleFlight)
 			.target(url);
 
-		identitiesClient = ClientBuilder.newClient()
-			.register(JacksonFeature.class)
+		identitiesClient = newClient(Endpoint.IDENTITIES, metrics, transport, singleFlight)
 			.target(url);
 
-		usersClient = ClientBuilder.newClient()
-			.register(JacksonFeature.class)
+		usersClient = newClient(Endpoint.USERS, metrics, transport, singleFlight)
 			.target(url)
 			.path(USERS_PATH);
 
-		contactsClient = ClientBuilder.newClient()
-			.register(JacksonFeature.class)
+		contactsClient = newClient(Endpoint.CONTACTS, metrics, transport, singleFlight)
 			.target(url);
 
-		addressMappingsClient = ClientBuilder.newClient()
-			.register(JacksonFeature.class)
+		addressMappingsClient = newClient(Endpoint.MAPPINGS, metrics, transport, singleFlight)
 			.target(url);
 
+		// Request templates, built once and resolved for each request
+		userAliasesTarget = aliasesClient.path("{user}");
+		aliasSourceTarget = aliasesClient.path("{user}/sources/{source}");
+		userForwardsTarget = forwardsClient.path("{user}");
+		forwardTargetTarget = forwardsClient.path("{user}/targets/{target}");
+		quotaSizeTarget = quotasClient.path(String.format(QUOTA_SIZE_PATH, "{user}"));
+		identitiesTarget = identitiesClient.path(String.format(IDENTITIES_PATH, "{user}"));
+		defaultIdentityTarget = identitiesTarget.queryParam("default", true);
+		userTarget = usersClient.path("{user}");
+		domainContactsTarget = contactsClient.path("/domains/{domain}/contacts");
+		contactTarget = contactsClient.path(String.format(DOMAIN_CONTACT_PATH, "{domain}", "{username}"));
+		userMappingsTarget = addressMappingsClient.path(USER_MAPPING_PATH).path("{user}");
+		addressMappingTarget = addressMappingsClient.path(String.format(ADDRESS_MAPPING_PATH, "{user}", "{mapping}"));
+		segments = EncodedSegments.shared();
+
 		mapper = new ObjectMapper().registerModule(new Jdk8Module());
 	}
 
+	private static Client newClient(Endpoint endpoint, MetricsRegistry metrics, Transport transport, SingleFlight singleFlight) {
+		MetricsFilter metricsFilter = new MetricsFilter(endpoint, metrics);
+		ClientConfig config = new ClientConfig();
+		// The metrics observe the connector, which reports the calls that get no response
+		config.connector(metricsFilter.observe(transport.newConnector(endpoint).orElseGet(HttpUrlConnector::new)));
+		transport.asyncThreads().ifPresent(threads -> config.property(ClientProperties.ASYNC_THREADPOOL_SIZE, threads));
+		Client client = ClientBuilder.newClient(config)
+			.register(JacksonFeature.class)
+			.register(metricsFilter)
+			.register(singleFlight.writeObserver());
+		if (FlightRecorderEvents.AVAILABLE) {
+			client.register(new FlightRecorderFilter(endpoint));
+		}
+		Tracer tracer = Tracer.shared();
+		if (tracer.isEnabled()) {
+			client.register(new TracingFilter(endpoint, tracer));
+		}
+		return client;
+	}
+
+	public MetricsRegistry getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Adapts an asynchronous call of Jersey, which only signals its outcome to a callback
+	 */
+	private static CompletableFuture<Response> async(Consumer<InvocationCallback<Response>> call) {
+		CompletableFuture<Response> response = new CompletableFuture<>();
+		// An anonymous class rather than a lambda: Jersey reads the response type from its type argument
+		call.accept(new InvocationCallback<Response>() {
+			@Override
+			public void completed(Response completed) {
+				response.complete(completed);
+			}
+
+			@Override
+			public void failed(Throwable failure) {
+				response.completeExceptionally(failure);
+			}
+		});
+		return response;
+	}
+
+	/**
+	 * Starts the given calls through the request stream, and waits for their outcomes. Unlike the blocking creations,
+	 * which stop at the first failure, all the calls are started.
+	 *
+	 * @return whether all the calls succeeded
+	 */
+	private <T> boolean streamed(List<T> entries, Function<T, CompletableFuture<Boolean>> call) {
+		List<CompletableFuture<Boolean>> outcomes = new ArrayList<>(entries.size());
+		try {
+			for (T entry : entries) {
+				outcomes.add(requestStream.get().submit(() -> call.apply(entry)));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.error("Interrupted after starting {} of {} webadmin calls", outcomes.size(), entries.size());
+			return false;
+		}
+		try {
+			return outcomes.stream()
+				.map(CompletableFuture::join)
+				.reduce(true, Boolean::logicalAnd);
+		} catch (CompletionException e) {
+			// Surface the failure of the call as the blocking creations do
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Performs a read, unless an identical one is in flight, whose result is then shared, see {@link SingleFlight}
+	 */
+	private <T> T coalesced(String method, WebTarget target, Supplier<T> read) {
+		return singleFlight.execute(method + " " + target.getUri() + " " + authorizationBearer, read);
+	}
+
+	private <T> T get(WebTarget target, GenericType<T> type) {
+		return coalesced(HttpMethod.GET, target, () -> {
+			Response response = target.request()
+				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+				.get();
+			return unmodifiable(Responses.read(response, type));
+		});
+	}
+
+	/**
+	 * @return the entity of the resource, or empty when webadmin answers 404, without building a NotFoundException and
+	 * its stack trace
+	 */
+	private <T> Optional<T> find(WebTarget target, GenericType<T> type) {
+		return coalesced(HttpMethod.GET, target, () -> {
+			Response response = target.request()
+				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+				.get();
+			if (response.getStatus() == Status.NOT_FOUND.getStatusCode()) {
+				Responses.consume(response);
+				return Optional.empty();
+			}
+			return Optional.of(unmodifiable(Responses.read(response, type)));
+		});
+	}
+
+	/**
+	 * The decoded entity of a coalesced read is shared by its callers, none of which may modify it for the others
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T unmodifiable(T entity) {
+		if (entity instanceof List) {
+			return (T) Collections.unmodifiableList((List<?>) entity);
+		}
+		return entity;
+	}
+
 	public List<AddressMapping> getAddressMappings(String email) {
-		WebTarget target = addressMappingsClient.path(USER_MAPPING_PATH).path(email);
-		LOGGER.debug("GETting address mappings: " + target.getUri().toString());
+		WebTarget target = userMappingsTarget.resolveTemplateFromEncoded("user", email);
+		LOGGER.debug("GETting address mappings of {}", email);
 
-		List<AddressMapping> addressMappings = target.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get(new GenericType<List<AddressMappingDto>>(){})
+		List<AddressMapping> addressMappings = get(target, new GenericType<List<AddressMappingDto>>(){})
 			.stream()
 			.filter(filterAddressType())
 			.map(addressMappingDto -> new AddressMapping(addressMappingDto.getMapping()))
@@ -163,6 +349,67 @@ public class JamesDao {
 		return addressMappings;
 	}
 
+	/**
+	 * Receives the entries of the recipient rewrite table, one mapping at a time.
+	 */
+	@FunctionalInterface
+	public interface MappingVisitor {
+		void visit(String source, String type, String mapping);
+	}
+
+	/**
+	 * Read the whole recipient rewrite table with a single call, parsing the response while it is received so that
+	 * the listing is never held in memory. Entries are passed to the visitor in the order of the response.
+	 */
+	public void visitMappings(MappingVisitor visitor) {
+		LOGGER.debug("GETting all mappings");
+		Response response = addressMappingsClient.path(MAPPINGS_PATH)
+			.request()
+			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+			.get();
+		Responses.read(response, body -> {
+			try (JsonParser parser = mapper.getFactory().createParser(body)) {
+				readMappings(parser, visitor);
+			}
+			return null;
+		});
+	}
+
+	// {"source": [{"type": "Alias", "mapping": "user@domain"}, ...], ...}
+	private static void readMappings(JsonParser parser, MappingVisitor visitor) throws IOException {
+		expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String source = parser.getCurrentName();
+			expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				String type = null;
+				String mapping = null;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					parser.nextToken();
+					if (field.equals("type")) {
+						type = parser.getText();
+					} else if (field.equals("mapping")) {
+						mapping = parser.getText();
+					} else {
+						parser.skipChildren();
+					}
+				}
+				if (type != null && mapping != null) {
+					visitor.visit(source, type, mapping);
+				}
+			}
+			expect(parser, parser.getCurrentToken(), JsonToken.END_ARRAY);
+		}
+		expect(parser, parser.getCurrentToken(), JsonToken.END_OBJECT);
+	}
+
+	private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+		if (actual != expected) {
+			throw new IOException(String.format("Expected %s but got %s at %s", expected, actual, parser.getCurrentLocation()));
+		}
+	}
+
 	private Predicate<AddressMappingDto> filterAddressType() {
 		// AddressMapping create/delete APIs only work with "Address" type. IMO we only manage this type via LSC.
 		return addressMappingDto -> addressMappingDto.getType().equals("Address");
@@ -175,13 +422,13 @@ public class JamesDao {
 		return createAddressMappings(user, addressMappingsToAddToJames) && removeAddressMappings(user, addressMappingsToRemoveToJames);
 	}
 
-	private List<AddressMapping> computeAddressMappingsToAdd(List<AddressMapping> ldapAddressMappings, List<AddressMapping> jamesAddressMappings) {
+	static List<AddressMapping> computeAddressMappingsToAdd(List<AddressMapping> ldapAddressMappings, List<AddressMapping> jamesAddressMappings) {
 		return ldapAddressMappings.stream()
 			.filter(addressMapping -> !jamesAddressMappings.contains(addressMapping))
 			.collect(Collectors.toList());
 	}
 
-	private List<AddressMapping> computeAddressMappingToRemove(List<AddressMapping> ldapAddressMappings, List<AddressMapping> jamesAddressMappings) {
+	static List<AddressMapping> computeAddressMappingToRemove(List<AddressMapping> ldapAddressMappings, List<AddressMapping> jamesAddressMappings) {
 		return jamesAddressMappings.stream()
 			.filter(addressMapping -> !ldapAddressMappings.contains(addressMapping))
 			.collect(Collectors.toList());
@@ -200,28 +447,23 @@ public class JamesDao {
 			return true;
 		}
 
-		try {
-			WebTarget target = addressMappingsClient.path(String.format(ADDRESS_MAPPING_PATH, user.email, urlEncode(addressMapping.getMapping())));
-			LOGGER.debug("Creating address mapping: " + target.getUri().toString());
+		WebTarget target = addressMappingTarget.resolveTemplateFromEncoded("user", user.email)
+			.resolveTemplateFromEncoded("mapping", segments.encode(addressMapping.getMapping()));
+		LOGGER.debug("Creating address mapping {} for {}", addressMapping.getMapping(), user.email);
 
-			Response response = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.post(Entity.text(""));
-			String rawResponseBody = response.readEntity(String.class);
-			response.close();
-			if (checkResponse(response)) {
-				LOGGER.debug("Created address mapping {} for user {} successfully", addressMapping.getMapping(), user.email);
-				return true;
-			} else {
-				LOGGER.error(String.format("Error %d (%s - %s) while creating address mapping: %s",
-					response.getStatus(),
-					response.getStatusInfo(),
-					rawResponseBody,
-					target.getUri().toString()));
-				return false;
-			}
-		} catch (UnsupportedEncodingException e) {
-			LOGGER.error("Failed to URL encoding mail address {} with error {}", addressMapping.getMapping(), e.toString());
+		Response response = target.request()
+			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+			.post(Entity.text(""));
+		String rawResponseBody = Responses.consume(response);
+		if (checkResponse(response)) {
+			LOGGER.debug("Created address mapping {} for user {} successfully", addressMapping.getMapping(), user.email);
+			return true;
+		} else {
+			LOGGER.error(String.format("Error %d (%s - %s) while creating address mapping: %s",
+				response.getStatus(),
+				response.getStatusInfo(),
+				rawResponseBody,
+				target.getUri().toString()));
 			return false;
 		}
 	}
@@ -239,77 +481,182 @@ public class JamesDao {
 	}
 
 	private boolean removeAddressMapping(User user, AddressMapping addressMapping) {
-		try {
-			WebTarget target = addressMappingsClient.path(String.format(ADDRESS_MAPPING_PATH, user.email, urlEncode(addressMapping.getMapping())));
-			LOGGER.debug("DELETEting address mapping: " + target.getUri().toString());
+		WebTarget target = addressMappingTarget.resolveTemplateFromEncoded("user", user.email)
+			.resolveTemplateFromEncoded("mapping", segments.encode(addressMapping.getMapping()));
+		LOGGER.debug("DELETEting address mapping {} of {}", addressMapping.getMapping(), user.email);
 
-			Response response = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.delete();
-			String rawResponseBody = response.readEntity(String.class);
-			response.close();
-			if (checkResponse(response)) {
-				LOGGER.debug("DELETE address mapping successfully");
-				return true;
-			} else {
-				LOGGER.error(String.format("Error %d (%s - %s) while deleting address mapping: %s",
-					response.getStatus(),
-					response.getStatusInfo(),
-					rawResponseBody,
-					target.getUri().toString()));
-				return false;
-			}
-		} catch (UnsupportedEncodingException e) {
-			LOGGER.error("Failed to URL encoding mail address {} with error {}", addressMapping.getMapping(), e.toString());
+		Response response = target.request()
+			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+			.delete();
+		String rawResponseBody = Responses.consume(response);
+		if (checkResponse(response)) {
+			LOGGER.debug("DELETE address mapping successfully");
+			return true;
+		} else {
+			LOGGER.error(String.format("Error %d (%s - %s) while deleting address mapping: %s",
+				response.getStatus(),
+				response.getStatusInfo(),
+				rawResponseBody,
+				target.getUri().toString()));
 			return false;
 		}
 	}
 
+	/**
+	 * @throws NotFoundException when the user has no alias
+	 */
 	public List<Alias> getAliases(String email) {
-		WebTarget target = aliasesClient.path(email);
-		LOGGER.debug("GETting aliases: " + target.getUri().toString());
-		List<Alias> aliases = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.get(new GenericType<List<Alias>>(){});
-		if (aliases.isEmpty()) {
-			throw new NotFoundException();
-		}
-		return aliases;
+		return findAliases(email).orElseThrow(NotFoundException::new);
+	}
+
+	/**
+	 * @return the aliases of the user, or empty when it has none
+	 */
+	public Optional<List<Alias>> findAliases(String email) {
+		WebTarget target = userAliasesTarget.resolveTemplateFromEncoded("user", email);
+		LOGGER.debug("GETting aliases of {}", email);
+		return find(target, new GenericType<List<Alias>>(){})
+			.filter(aliases -> !aliases.isEmpty());
 	}
 
+	/**
+	 * @throws NotFoundException when the user has no forward
+	 */
 	public List<Forward> getForwards(String email) {
-		WebTarget target = forwardsClient.path(email);
-		LOGGER.debug("GETting forwards: " + target.getUri().toString());
-		List<Forward> forwards = target.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get(new GenericType<List<Forward>>(){});
-		if (forwards.isEmpty()) {
+		return findForwards(email).orElseThrow(NotFoundException::new);
+	}
+
+	/**
+	 * @return the forwards of the user, or empty when it has none
+	 */
+	public Optional<List<Forward>> findForwards(String email) {
+		WebTarget target = userForwardsTarget.resolveTemplateFromEncoded("user", email);
+		LOGGER.debug("GETting forwards of {}", email);
+		return find(target, new GenericType<List<Forward>>(){})
+			.filter(forwards -> !forwards.isEmpty());
+	}
+
+	/**
+	 * @return the quota size limit of the user, or empty when it has none
+	 * @throws NotFoundException when the user does not exist
+	 */
+	public Optional<QuotaSize> getQuotaSize(String username) {
+		return readQuotaSize(username, true);
+	}
+
+	/**
+	 * @return the quota size limit of the user, or empty when it has none or does not exist
+	 */
+	public Optional<QuotaSize> findQuotaSize(String username) {
+		return readQuotaSize(username, false);
+	}
+
+	private Optional<QuotaSize> readQuotaSize(String username, boolean userMustExist) {
+		WebTarget target = quotaSizeTarget.resolveTemplateFromEncoded("user", username);
+		LOGGER.debug("GETting quotaSize of {}", username);
+
+		// Empty when the user does not exist, so that reads expecting the user or not are coalesced alike
+		Optional<Optional<QuotaSize>> quotaSize = coalesced(HttpMethod.GET, target, () -> {
+			Response response = target.request()
+				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+				.get();
+
+			switch (response.getStatus()) {
+				case 200:
+					return Optional.of(Optional.of(new QuotaSize(Responses.read(response, new GenericType<Long>() {}))));
+				case 204:
+					Responses.consume(response);
+					LOGGER.debug("No quota size limit defined for user {}", username);
+					return Optional.of(Optional.empty());
+				default:
+					Responses.consume(response);
+					LOGGER.debug("User {} does not exist.", username);
+					return Optional.empty();
+			}
+		});
+		if (!quotaSize.isPresent() && userMustExist) {
 			throw new NotFoundException();
 		}
-		return forwards;
+		return quotaSize.orElse(Optional.empty());
 	}
 
-	public Optional<QuotaSize> getQuotaSize(String username) {
-		WebTarget target = quotasClient.path(String.format(QUOTA_SIZE_PATH, username));
-		LOGGER.debug("GETting quotaSize: " + target.getUri().toString());
+	/**
+	 * Receives the size limits of the users of a quota listing page.
+	 */
+	@FunctionalInterface
+	public interface QuotaSizeVisitor {
+		void visit(String username, long size);
+	}
 
-		Response response = target.request()
+	/**
+	 * Read one page of the user quota listing, passing the users having a size limit of their own to the visitor.
+	 * This listing is served by the quota search of TMail, which must be enabled.
+	 *
+	 * @return the number of users of the page, whether they have a size limit or not
+	 */
+	public int visitQuotaSizes(int offset, int limit, QuotaSizeVisitor visitor) {
+		LOGGER.debug("GETting user quotas from {} to {}", offset, offset + limit);
+		Response response = quotasClient.path(USERS_QUOTA_PATH)
+			.queryParam("offset", offset)
+			.queryParam("limit", limit)
+			.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.get();
+		return Responses.read(response, body -> {
+			try (JsonParser parser = mapper.getFactory().createParser(body)) {
+				return readQuotaSizes(parser, visitor);
+			}
+		});
+	}
 
-		switch (response.getStatus()) {
-			case 200:
-				return Optional.of(new QuotaSize(response.readEntity(Long.class)));
-			case 204:
-				LOGGER.debug("No quota size limit defined for user {}", username);
-				return Optional.empty();
-			default:
-				LOGGER.debug("User {} does not exist.", username);
-				throw new NotFoundException();
+	// [{"username": "bob@domain", "detail": {"global": {...}, "user": {"count": 10, "size": 1000}, ...}}, ...]
+	private static int readQuotaSizes(JsonParser parser, QuotaSizeVisitor visitor) throws IOException {
+		expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+		int users = 0;
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			users++;
+			String username = null;
+			long size = 0;
+			boolean limited = false;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if (field.equals("username")) {
+					username = parser.getText();
+				} else if (field.equals("detail") && value == JsonToken.START_OBJECT) {
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String scope = parser.getCurrentName();
+						JsonToken scopeValue = parser.nextToken();
+						if (scope.equals("user") && scopeValue == JsonToken.START_OBJECT) {
+							while (parser.nextToken() == JsonToken.FIELD_NAME) {
+								String limit = parser.getCurrentName();
+								if (parser.nextToken() == JsonToken.VALUE_NUMBER_INT && limit.equals("size")) {
+									size = parser.getLongValue();
+									limited = true;
+								} else {
+									parser.skipChildren();
+								}
+							}
+						} else {
+							parser.skipChildren();
+						}
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+			if (username != null && limited) {
+				visitor.visit(username, size);
+			}
 		}
+		expect(parser, parser.getCurrentToken(), JsonToken.END_ARRAY);
+		return users;
 	}
 
 	public boolean createForwards(User user, List<Forward> forwardsToAdd) {
+		if (requestStream.isPresent()) {
+			return streamed(forwardsToAdd, forward -> createForwardAsync(user, forward));
+		}
 		return forwardsToAdd.stream()
 			.reduce(true,
 				(result, forward) -> result && createForward(user, forward),
@@ -317,14 +664,13 @@ public class JamesDao {
 	}
 
 	public boolean setQuotaSize(User user, QuotaSize quotaSize) {
-		WebTarget target = quotasClient.path(String.format(QUOTA_SIZE_PATH, user.email));
-		LOGGER.debug("Updating quota size: " + target.getUri().toString());
+		WebTarget target = quotaSizeTarget.resolveTemplateFromEncoded("user", user.email);
+		LOGGER.debug("Updating quota size of {}", user.email);
 
 		Response response = target.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.put(Entity.text(String.valueOf(quotaSize.size)));
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
+		String rawResponseBody = Responses.consume(response);
 
 		if (checkResponse(response)) {
 			LOGGER.debug("Updated quota size {} for user {} successfully", quotaSize.size, user.email);
@@ -341,37 +687,49 @@ public class JamesDao {
 
 
 	private boolean createForward(User user, Forward forward) {
-		try {
-			WebTarget target = forwardsClient.path(user.email)
-				.path("targets")
-				.path(urlEncode(forward.getMailAddress()));
+		WebTarget target = forwardTarget(user, forward);
+		LOGGER.debug("Creating forward {} for {}", forward.getMailAddress(), user.email);
+
+		Response response = target.request()
+			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+			.put(Entity.text(""));
+		return forwardCreated(user, forward, target, response);
+	}
 
-			LOGGER.debug("Creating forward: " + target.getUri().toString());
+	/**
+	 * Creates a forward without waiting for webadmin, see {@link RequestStream}
+	 *
+	 * @return whether the forward was created, once webadmin answered
+	 */
+	public CompletableFuture<Boolean> createForwardAsync(User user, Forward forward) {
+		WebTarget target = forwardTarget(user, forward);
+		LOGGER.debug("Creating forward {} for {}", forward.getMailAddress(), user.email);
 
-			Response response = target.request()
+		return async(callback -> target.request()
 				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.put(Entity.text(""));
-			String rawResponseBody = response.readEntity(String.class);
-			response.close();
-			if (checkResponse(response)) {
-				LOGGER.debug("Created forward {} for user {} successfully", forward.getMailAddress(), user.email);
-				return true;
-			} else {
-				LOGGER.error(String.format("Error %d (%s - %s) while creating forward: %s",
-					response.getStatus(),
-					response.getStatusInfo(),
-					rawResponseBody,
-					target.getUri().toString()));
-				return false;
-			}
-		} catch (UnsupportedEncodingException e) {
-				LOGGER.error("Failed to URL encoding mail address {} with error {}", forward.getMailAddress(), e.toString());
-				return false;
-		}
+				.async()
+				.put(Entity.text(""), callback))
+			.thenApply(response -> forwardCreated(user, forward, target, response));
 	}
 
-	private String urlEncode(String address) throws UnsupportedEncodingException {
-		return URLEncoder.encode(address, StandardCharsets.UTF_8.toString());
+	private WebTarget forwardTarget(User user, Forward forward) {
+		return forwardTargetTarget.resolveTemplateFromEncoded("user", user.email)
+			.resolveTemplateFromEncoded("target", segments.encode(forward.getMailAddress()));
+	}
+
+	private static boolean forwardCreated(User user, Forward forward, WebTarget target, Response response) {
+		String rawResponseBody = Responses.consume(response);
+		if (checkResponse(response)) {
+			LOGGER.debug("Created forward {} for user {} successfully", forward.getMailAddress(), user.email);
+			return true;
+		} else {
+			LOGGER.error(String.format("Error %d (%s - %s) while creating forward: %s",
+				response.getStatus(),
+				response.getStatusInfo(),
+				rawResponseBody,
+				target.getUri().toString()));
+			return false;
+		}
 	}
 
 	public boolean updateForwards(User user, List<Forward> ldapForwards, boolean allowSynchronizeLocalCopyForwards) {
@@ -381,7 +739,7 @@ public class JamesDao {
 		return createForwards(user, forwardsToAddToJames);
 	}
 
-	private List<Forward> computeForwardsToAdd(User user, List<Forward> ldapForwards, List<Forward> jamesForwards, boolean allowSynchronizeLocalCopyForwards) {
+	static List<Forward> computeForwardsToAdd(User user, List<Forward> ldapForwards, List<Forward> jamesForwards, boolean allowSynchronizeLocalCopyForwards) {
 		return ldapForwards.stream()
 			.filter(ldapForward -> !jamesForwards.contains(ldapForward) && synchronizeLocalCopyForwards(ldapForward, user.email, allowSynchronizeLocalCopyForwards))
 			.collect(Collectors.toList());
@@ -400,40 +758,34 @@ public class JamesDao {
 	}
 
 	private boolean deleteForward(User user, Forward forward) {
-		try {
-			WebTarget target = forwardsClient.path(user.email).path("targets").path(urlEncode(forward.getMailAddress()));
-			LOGGER.debug("DELETEting forward: " + target.getUri().toString());
-			Response response = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.delete();
-			String rawResponseBody = response.readEntity(String.class);
-			response.close();
-			if (checkResponse(response)) {
-				LOGGER.debug("DELETE successfully");
-				return true;
-			} else {
-				LOGGER.error(String.format("Error %d (%s - %s) while deleting forward: %s",
-					response.getStatus(),
-					response.getStatusInfo(),
-					rawResponseBody,
-					target.getUri().toString()));
-				return false;
-			}
-		} catch (UnsupportedEncodingException e) {
-			LOGGER.error("Failed to URL encoding mail address {} with error {}", forward.getMailAddress(), e.toString());
+		WebTarget target = forwardTargetTarget.resolveTemplateFromEncoded("user", user.email)
+			.resolveTemplateFromEncoded("target", segments.encode(forward.getMailAddress()));
+		LOGGER.debug("DELETEting forward {} of {}", forward.getMailAddress(), user.email);
+		Response response = target.request()
+			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+			.delete();
+		String rawResponseBody = Responses.consume(response);
+		if (checkResponse(response)) {
+			LOGGER.debug("DELETE successfully");
+			return true;
+		} else {
+			LOGGER.error(String.format("Error %d (%s - %s) while deleting forward: %s",
+				response.getStatus(),
+				response.getStatusInfo(),
+				rawResponseBody,
+				target.getUri().toString()));
 			return false;
 		}
 	}
 
 	public boolean deleteQuotaSize(User user) {
-		WebTarget target = quotasClient.path(String.format(QUOTA_SIZE_PATH, user.email));
-		LOGGER.debug("DELETEting quota size: " + target.getUri().toString());
+		WebTarget target = quotaSizeTarget.resolveTemplateFromEncoded("user", user.email);
+		LOGGER.debug("DELETEting quota size of {}", user.email);
 
 		Response response = target.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.delete();
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
+		String rawResponseBody = Responses.consume(response);
 
 		if (checkResponse(response)) {
 			LOGGER.debug("Deleted Quota size successfully for user: {}", user.email);
@@ -448,29 +800,32 @@ public class JamesDao {
 		}
 	}
 
+	/**
+	 * @throws NotFoundException when the user has no default identity
+	 */
 	public Identity getDefaultIdentity(String email) throws IOException {
-		WebTarget target = identitiesClient
-			.path(String.format(IDENTITIES_PATH, email))
-			.queryParam("default", true);
-		LOGGER.debug("GETting default identity for user {} at {}", email, target.getUri().toString());
-		List<Identity> identities = target.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get(new GenericType<List<Identity>>(){});
-		if (identities.isEmpty()) {
-			throw new NotFoundException();
-		}
-		return identities.get(0);
+		return findDefaultIdentity(email).orElseThrow(NotFoundException::new);
+	}
+
+	/**
+	 * @return the default identity of the user, or empty when it has none or does not exist
+	 */
+	public Optional<Identity> findDefaultIdentity(String email) {
+		WebTarget target = defaultIdentityTarget.resolveTemplateFromEncoded("user", email);
+		LOGGER.debug("GETting default identity for user {}", email);
+		return find(target, new GenericType<List<Identity>>(){})
+			.filter(identities -> !identities.isEmpty())
+			.map(identities -> identities.get(0));
 	}
 
 	public boolean createDefaultIdentity(Identity identity) throws JsonProcessingException {
-		Response response = identitiesClient
-			.path(String.format(IDENTITIES_PATH, identity.getEmail()))
+		Response response = identitiesTarget
+			.resolveTemplateFromEncoded("user", identity.getEmail())
 			.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.post(Entity.text(mapper.writeValueAsString(identity)));
 
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
+		String rawResponseBody = Responses.consume(response);
 		if (checkResponse(response)) {
 			LOGGER.debug("Create default identity for user {} successfully with display name {}", identity.getEmail(), identity.getName());
 			return true;
@@ -486,10 +841,8 @@ public class JamesDao {
 
 	public List<User> getUsersListViaAlias() {
 		WebTarget target = aliasesClient.path("");
-		LOGGER.debug("GETting users with alias list: " + target.getUri().toString());
-		List<String> users = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.get(new GenericType<List<String>>(){});
+		LOGGER.debug("GETting users with alias list");
+		List<String> users = get(target, new GenericType<List<String>>(){});
 		return users.stream()
 			.map(User::new)
 			.collect(Collectors.toList());
@@ -497,16 +850,17 @@ public class JamesDao {
 
 	public List<User> getUsersHaveForwards() {
 		WebTarget target = forwardsClient.path("");
-		LOGGER.debug("GETting users list that have forwards: " + target.getUri().toString());
-		List<String> users = target.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get(new GenericType<List<String>>(){});
+		LOGGER.debug("GETting users list that have forwards");
+		List<String> users = get(target, new GenericType<List<String>>(){});
 		return users.stream()
 			.map(User::new)
 			.collect(Collectors.toList());
 	}
 
 	public boolean createAliases(User user, List<Alias> aliasesToAdd) {
+		if (requestStream.isPresent()) {
+			return streamed(aliasesToAdd, alias -> createAliasAsync(user, alias));
+		}
 		return aliasesToAdd.stream()
 			.reduce(true,
 				(result, alias) -> result && createAlias(user, alias),
@@ -519,27 +873,50 @@ public class JamesDao {
 			return true;
 		}
 
-		try {
-			WebTarget target = aliasesClient.path(user.email).path("sources").path(urlEncode(alias.source));
-			LOGGER.debug("PUTting alias: " + target.getUri().toString());
-			Response response = target.request()
+		WebTarget target = aliasTarget(user, alias);
+		LOGGER.debug("PUTting alias {} for {}", alias.source, user.email);
+		Response response = target.request()
+			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+			.put(Entity.text(""));
+		return aliasCreated(target, response);
+	}
+
+	/**
+	 * Creates an alias without waiting for webadmin, see {@link RequestStream}
+	 *
+	 * @return whether the alias was created, once webadmin answered
+	 */
+	public CompletableFuture<Boolean> createAliasAsync(User user, Alias alias) {
+		if (alias.source.equals(user.email)) {
+			LOGGER.debug("Alias source is the same as user email, skipping alias creation");
+			return CompletableFuture.completedFuture(true);
+		}
+
+		WebTarget target = aliasTarget(user, alias);
+		LOGGER.debug("PUTting alias {} for {}", alias.source, user.email);
+		return async(callback -> target.request()
 				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.put(Entity.text(""));
-			String rawResponseBody = response.readEntity(String.class);
-			response.close();
-			if (checkResponse(response)) {
-				LOGGER.debug("PUT is successful");
-				return true;
-			} else {
-				LOGGER.error(String.format("Error %d (%s - %s) while creating alias: %s",
-					response.getStatus(),
-					response.getStatusInfo(),
-					rawResponseBody,
-					target.getUri().toString()));
-				return false;
-			}
-		} catch (UnsupportedEncodingException e) {
-			LOGGER.error("Failed to URL encoding mail address {} with error {}", alias.source, e.toString());
+				.async()
+				.put(Entity.text(""), callback))
+			.thenApply(response -> aliasCreated(target, response));
+	}
+
+	private WebTarget aliasTarget(User user, Alias alias) {
+		return aliasSourceTarget.resolveTemplateFromEncoded("user", user.email)
+			.resolveTemplateFromEncoded("source", segments.encode(alias.source));
+	}
+
+	private static boolean aliasCreated(WebTarget target, Response response) {
+		String rawResponseBody = Responses.consume(response);
+		if (checkResponse(response)) {
+			LOGGER.debug("PUT is successful");
+			return true;
+		} else {
+			LOGGER.error(String.format("Error %d (%s - %s) while creating alias: %s",
+				response.getStatus(),
+				response.getStatusInfo(),
+				rawResponseBody,
+				target.getUri().toString()));
 			return false;
 		}
 	}
@@ -552,34 +929,28 @@ public class JamesDao {
 	}
 
 	private boolean removeAlias(User user, Alias alias) {
-		try {
-			WebTarget target = aliasesClient.path(user.email).path("sources").path(urlEncode(alias.source));
-			LOGGER.debug("DELETEting alias: " + target.getUri().toString());
-			Response response = target.request()
-				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-				.delete();
-			String rawResponseBody = response.readEntity(String.class);
-			response.close();
-			if (checkResponse(response)) {
-				LOGGER.debug("DELETE is successful");
-				return true;
-			} else {
-				LOGGER.error(String.format("Error %d (%s - %s) while deleting alias: %s",
-					response.getStatus(),
-					response.getStatusInfo(),
-					rawResponseBody,
-					target.getUri().toString()));
-				return false;
-			}
-		} catch (UnsupportedEncodingException e) {
-			LOGGER.error("Failed to URL encoding mail address {} with error {}", alias.source, e.toString());
+		WebTarget target = aliasTarget(user, alias);
+		LOGGER.debug("DELETEting alias {} of {}", alias.source, user.email);
+		Response response = target.request()
+			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+			.delete();
+		String rawResponseBody = Responses.consume(response);
+		if (checkResponse(response)) {
+			LOGGER.debug("DELETE is successful");
+			return true;
+		} else {
+			LOGGER.error(String.format("Error %d (%s - %s) while deleting alias: %s",
+				response.getStatus(),
+				response.getStatusInfo(),
+				rawResponseBody,
+				target.getUri().toString()));
 			return false;
 		}
 
 	}
 
 	private static boolean checkResponse(Response response) {
-		return Status.Family.familyOf(response.getStatus()) == Status.Family.SUCCESSFUL;
+		return Responses.isSuccessful(response);
 	}
 
 	public boolean updateAliases(User user, List<Alias> updatedAliases) {
@@ -594,28 +965,27 @@ public class JamesDao {
 		return removeAliases(user, aliasesToRemove);
 	}
 	
-	private List<Alias> computeAliasToAdd(List<Alias> sourceAliases, List<Alias> destinationAliases) {
+	static List<Alias> computeAliasToAdd(List<Alias> sourceAliases, List<Alias> destinationAliases) {
 		return sourceAliases.stream()
 				.filter(alias -> !destinationAliases.contains(alias))
 				.collect(Collectors.toList());
 	}
 	
 
-	private List<Alias> computeAliasToRemove(List<Alias> sourceAliases, List<Alias> destinationAliases) {
+	static List<Alias> computeAliasToRemove(List<Alias> sourceAliases, List<Alias> destinationAliases) {
 		return destinationAliases.stream()
 				.filter(alias -> !sourceAliases.contains(alias))
 				.collect(Collectors.toList());
 	}
 
 	public boolean addUser(User user, String password) {
-		Response response = usersClient
-			.path(user.email)
+		Response response = userTarget
+			.resolveTemplateFromEncoded("user", user.email)
 			.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.put(Entity.text("{\"password\":\"" + password + "\"}"));
 
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
+		String rawResponseBody = Responses.consume(response);
 		if (checkResponse(response)) {
 			LOGGER.debug("Create user {} is successful", user.email);
 			return true;
@@ -629,14 +999,13 @@ public class JamesDao {
 	}
 
 	public boolean removeUser(User user) {
-		Response response = usersClient
-			.path(user.email)
+		Response response = userTarget
+			.resolveTemplateFromEncoded("user", user.email)
 			.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.delete();
 
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
+		String rawResponseBody = Responses.consume(response);
 		if (checkResponse(response)) {
 			LOGGER.debug("Remove user {} is successful", user.email);
 			return true;
@@ -650,11 +1019,7 @@ public class JamesDao {
 	}
 
 	public List<User> getUserList() {
-		List<UserDto> users = usersClient
-			.path("")
-			.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get(new GenericType<List<UserDto>>() {
+		List<UserDto> users = get(usersClient.path(""), new GenericType<List<UserDto>>() {
 			});
 		return users.stream()
 			.map(User::fromDto)
@@ -662,36 +1027,35 @@ public class JamesDao {
 	}
 
 	public boolean userExists(String user) {
-		Response response = usersClient
-			.path(user)
-			.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.head();
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
-		if (response.getStatus() == HTTP_STATUS_CODE_USER_EXITS) {
-			return true;
-		} else if (response.getStatus() == HTTP_STATUS_CODE_USER_DOES_NOT_EXITS) {
-			return false;
-		}
-		LOGGER.error(String.format("Error %d (%s - %s) while check exits user: %s",
-			response.getStatus(),
-			response.getStatusInfo(),
-			rawResponseBody,
-			user));
+		WebTarget target = userTarget.resolveTemplateFromEncoded("user", user);
+		return coalesced(HttpMethod.HEAD, target, () -> {
+			Response response = target.request()
+				.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+				.head();
+			String rawResponseBody = Responses.consume(response);
+			if (response.getStatus() == HTTP_STATUS_CODE_USER_EXITS) {
+				return true;
+			} else if (response.getStatus() == HTTP_STATUS_CODE_USER_DOES_NOT_EXITS) {
+				return false;
+			}
+			LOGGER.error(String.format("Error %d (%s - %s) while check exits user: %s",
+				response.getStatus(),
+				response.getStatusInfo(),
+				rawResponseBody,
+				user));
 
-		throw new JamesClientException(usersClient.getUri(), HttpMethod.HEAD, response);
+			throw new JamesClientException(usersClient.getUri(), HttpMethod.HEAD, response);
+		});
 	}
 
 	public boolean addDomainContact(Contact contact) throws JsonProcessingException {
-		Response response = contactsClient
-			.path(String.format("/domains/%s/contacts", contact.getDomain()))
+		Response response = domainContactsTarget
+			.resolveTemplateFromEncoded("domain", contact.getDomain())
 			.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.post(Entity.text(mapper.writeValueAsString(contact)));
 
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
+		String rawResponseBody = Responses.consume(response);
 		if (checkResponse(response)) {
 			LOGGER.debug("Create domain contact {} is successful", contact.getEmailAddress());
 			return true;
@@ -707,10 +1071,8 @@ public class JamesDao {
 
 	public List<User> getAllDomainsContacts() {
 		WebTarget target = contactsClient.path("/domains/contacts/all");
-		LOGGER.debug("GETting users with all domain contacts list: " + target.getUri().toString());
-		List<String> users = target.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get(new GenericType<List<String>>(){});
+		LOGGER.debug("GETting users with all domain contacts list");
+		List<String> users = get(target, new GenericType<List<String>>(){});
 		return users.stream()
 			.map(User::new)
 			.collect(Collectors.toList());
@@ -724,41 +1086,60 @@ public class JamesDao {
 	}
 
 	private List<String> getContactsOfDomain(String domain) {
-		WebTarget target = contactsClient.path("/domains/{domain}/contacts")
-			.resolveTemplate("domain", domain);
-		LOGGER.debug("GETting contact email addresses of domain: " + domain);
+		WebTarget target = domainContactsTarget.resolveTemplate("domain", domain);
+		LOGGER.debug("GETting contact email addresses of domain {}", domain);
 
-		return target.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get(new GenericType<List<String>>() {})
+		return get(target, new GenericType<List<String>>() {})
 			.stream()
 			.collect(Collectors.toList());
 	}
 
+	/**
+	 * @throws NotFoundException when the contact does not exist
+	 */
 	public Contact getContact(String email) throws IOException {
-		WebTarget target = contactsClient.path(String.format(DOMAIN_CONTACT_PATH, Contact.extractDomainFromEmail(email),
-			Contact.extractUsernameFromEmail(email)));
-		LOGGER.debug("GETting contact: " + target.getUri().toString());
-		Response response = target.request()
-			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
-			.get();
-		if (checkResponse(response)) {
-			LOGGER.debug("Get domain contact {} is successful", email);
-			return mapper.readValue(response.readEntity(String.class), Contact.class);
-		} else {
-			throw new NotFoundException();
+		return findContact(email).orElseThrow(NotFoundException::new);
+	}
+
+	/**
+	 * @return the domain contact, or empty when webadmin does not return it
+	 */
+	public Optional<Contact> findContact(String email) throws IOException {
+		WebTarget target = contactTarget.resolveTemplateFromEncoded("domain", Contact.extractDomainFromEmail(email))
+			.resolveTemplateFromEncoded("username", Contact.extractUsernameFromEmail(email));
+		LOGGER.debug("GETting contact {}", email);
+		try {
+			return coalesced(HttpMethod.GET, target, () -> {
+				Response response = target.request()
+					.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
+					.get();
+				if (!checkResponse(response)) {
+					Responses.consume(response);
+					return Optional.empty();
+				}
+				LOGGER.debug("Get domain contact {} is successful", email);
+				try (InputStream body = response.readEntity(InputStream.class)) {
+					return Optional.of(mapper.readValue(body, Contact.class));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				} finally {
+					response.close();
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
 		}
 	}
 
 	public boolean updateDomainContact(Contact contact) throws JsonProcessingException {
-		Response response = contactsClient
-			.path(String.format(DOMAIN_CONTACT_PATH, contact.getDomain(), contact.getUsernameFromEmail()))
+		Response response = contactTarget
+			.resolveTemplateFromEncoded("domain", contact.getDomain())
+			.resolveTemplateFromEncoded("username", contact.getUsernameFromEmail())
 			.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.put(Entity.text(mapper.writeValueAsString(contact.getContactNames())));
 
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
+		String rawResponseBody = Responses.consume(response);
 		if (checkResponse(response)) {
 			LOGGER.debug("Update domain contact {} is successful", contact.getEmailAddress());
 			return true;
@@ -773,14 +1154,14 @@ public class JamesDao {
 	}
 
 	public boolean removeDomainContact(String email) {
-		Response response = contactsClient
-			.path(String.format(DOMAIN_CONTACT_PATH, Contact.extractDomainFromEmail(email), Contact.extractUsernameFromEmail(email)))
+		Response response = contactTarget
+			.resolveTemplateFromEncoded("domain", Contact.extractDomainFromEmail(email))
+			.resolveTemplateFromEncoded("username", Contact.extractUsernameFromEmail(email))
 			.request()
 			.header(HttpHeaders.AUTHORIZATION, authorizationBearer)
 			.delete();
 
-		String rawResponseBody = response.readEntity(String.class);
-		response.close();
+		String rawResponseBody = Responses.consume(response);
 		if (checkResponse(response)) {
 			LOGGER.debug("Remove domain contact {} is successful", email);
 			return true;
@@ -2,7 +2,6 @@ package org.lsc.plugins.connectors.james;
 
 import static org.lsc.plugins.connectors.james.JamesDao.synchronizeLocalCopyForwards;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,23 +23,29 @@ import org.lsc.plugins.connectors.james.beans.Forward;
 import org.lsc.plugins.connectors.james.beans.User;
 import org.lsc.plugins.connectors.james.generated.JamesForwardService;
 import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 
 public class JamesForwardDstService implements IWritableService {
 	private static final String ALLOW_SYNCHRONIZE_LOCAL_COPY_FORWARDS_PROPERTY_KEY = "allow.synchronize.local.copy.forwards";
 	private static final String ALLOW_SYNCHRONIZE_LOCAL_COPY_FORWARDS_PROPERTY_DEFAULT_VALUE = "false";
 	private static final Logger LOGGER = LoggerFactory.getLogger(JamesForwardDstService.class);
-	private static final String FORWARDS_ATTRIBUTE = "forwards";
+	static final String FORWARDS_ATTRIBUTE = "forwards";
 
 	private final Class<IBean> beanClass;
+	private final BeanFactory beanFactory;
 	private final JamesService service;
 	private final PluginConnectionType connection;
 	private final JamesDao jamesDao;
+	private final Optional<MappingSnapshot> mappingSnapshot;
+	private final Optional<PlanWriter> planWriter;
+	private final Optional<WriteBehindQueue> writeBehind;
+	private final TaskMonitor monitor;
 	private final boolean allowSynchronizeLocalCopyForwards;
 
 	public JamesForwardDstService(final TaskType task) throws LscServiceConfigurationException {
@@ -52,9 +57,14 @@ public class JamesForwardDstService implements IWritableService {
 	        }
         	service = (JamesService) task.getPluginDestinationService().getAny().get(0);
 			beanClass = (Class<IBean>) Class.forName(task.getBean());
+			beanFactory = BeanFactory.of(beanClass);
 			LOGGER.debug("Task bean is: " + task.getBean());
 			connection = (PluginConnectionType) service.getConnection().getReference();
 			jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+			mappingSnapshot = MappingSnapshot.shared(connection.getUrl(), jamesDao);
+			planWriter = PlanWriter.shared();
+			writeBehind = WriteBehindQueue.shared();
+			monitor = TaskMonitor.forService(task.getName(), Aspect.FORWARD.label());
 			allowSynchronizeLocalCopyForwards = Boolean.parseBoolean(System.getProperty(ALLOW_SYNCHRONIZE_LOCAL_COPY_FORWARDS_PROPERTY_KEY,
 				ALLOW_SYNCHRONIZE_LOCAL_COPY_FORWARDS_PROPERTY_DEFAULT_VALUE));
 		} catch (ClassNotFoundException e) {
@@ -64,6 +74,10 @@ public class JamesForwardDstService implements IWritableService {
 	
 	@Override
 	public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+		return monitor.getBean(pivotName, pivotAttributes, () -> fetchBean(pivotName, pivotAttributes, fromSameService));
+	}
+
+	private IBean fetchBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
 		LOGGER.debug(String.format("Call to getBean(%s, %s, %b)", pivotName, pivotAttributes, fromSameService));
 		if (pivotAttributes.getAttributesNames().isEmpty()) {
 			return null;
@@ -74,15 +88,16 @@ public class JamesForwardDstService implements IWritableService {
 			return null;
 		}
 		try {
-			List<Forward> forwards = jamesDao.getForwards(email);
-			return forwardsToBean(email, forwards);
+			Optional<List<Forward>> forwards = findForwards(email);
+			if (!forwards.isPresent()) {
+				LOGGER.debug("User {} does not have any forwards yet.", email);
+				return null;
+			}
+			return forwardsToBean(email, forwards.get());
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting bean %s/%s (%s)", pivotName, email, e));
 			LOGGER.error(e.toString(), e);
 			throw new LscServiceCommunicationException(e);
-		} catch (NotFoundException e) {
-			LOGGER.debug("User {} does not have any forwards yet.", email);
-			return null;
 		} catch (WebApplicationException e) {
 			LOGGER.error(String.format("WebApplicationException while getting bean %s/%s (%s)",
 					pivotName, email, e));
@@ -98,15 +113,16 @@ public class JamesForwardDstService implements IWritableService {
 
 	@Override
 	public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+		// A new synchronization of the task, which must not be served the mappings of the previous one
+		mappingSnapshot.ifPresent(MappingSnapshot::invalidate);
+		return monitor.listPivots(this::fetchPivots);
+	}
+
+	private Map<String, LscDatasets> fetchPivots() throws LscServiceException {
 		try {
 			List<User> userList = jamesDao.getUsersHaveForwards();
 			LOGGER.debug("Got Forward's listPivots via list users that have forwards webadmin API. userList size = {}", userList.size());
-
-			Map<String, LscDatasets> listPivots = new HashMap<String, LscDatasets>();
-			for (User user: userList) {
-				listPivots.put(user.email, user.toDatasets());
-			}
-			return ImmutableMap.copyOf(listPivots);
+			return User.toPivots(userList);
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e));
 			LOGGER.debug(e.toString(), e);
@@ -124,6 +140,16 @@ public class JamesForwardDstService implements IWritableService {
 			LOGGER.error("MainIdentifier is needed to update");
 			return false;
 		}
+		if (planWriter.isPresent()) {
+			return planWriter.get().record(Aspect.FORWARD, lm);
+		}
+		if (writeBehind.isPresent()) {
+			return writeBehind.get().submit(Aspect.FORWARD, lm, modifications -> monitor.write(modifications, this::write));
+		}
+		return monitor.write(lm, this::write);
+	}
+
+	private boolean write(LscModifications lm) throws LscServiceException {
 		User user = new User(lm.getMainIdentifier());
 		LOGGER.debug("User: {}, Operation: {}", user.email, lm.getOperation());
 		try {
@@ -172,21 +198,20 @@ public class JamesForwardDstService implements IWritableService {
 		return service.getWritableAttributes().getString();
 	}
 
+	private Optional<List<Forward>> findForwards(String email) {
+		if (mappingSnapshot.isPresent()) {
+			return Optional.of(mappingSnapshot.get().getForwards(email))
+				.filter(forwards -> !forwards.isEmpty());
+		}
+		return jamesDao.findForwards(email);
+	}
+
 	private IBean forwardsToBean(String email, List<Forward> forwards) throws InstantiationException, IllegalAccessException {
-		IBean bean = beanClass.newInstance();
-		bean.setMainIdentifier(email);
-		bean.setDatasets(toDataset(email, forwards));
-		return bean;
+		return beanFactory.newBean(email, toDataset(email, forwards));
 	}
 
-	private LscDatasets toDataset(String email, List<Forward> forwards) {
-		LscDatasets datasets = new LscDatasets();
-		datasets.put("email", email);
-		List<String> forwardsAsStringList = forwards.stream()
-			.map(Forward::getMailAddress)
-			.collect(Collectors.toList());
-		datasets.put(FORWARDS_ATTRIBUTE, forwardsAsStringList);
-		return datasets;
+	static LscDatasets toDataset(String email, List<Forward> forwards) {
+		return Datasets.of(email, FORWARDS_ATTRIBUTE, forwards, Forward::getMailAddress);
 	}
 
 	private Optional<List<Forward>> forwardsFromSource(LscModifications lm) {
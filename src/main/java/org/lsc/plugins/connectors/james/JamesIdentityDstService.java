@@ -4,8 +4,6 @@ import static org.lsc.plugins.connectors.james.TMailContactDstService.FIRSTNAME_
 import static org.lsc.plugins.connectors.james.TMailContactDstService.SURNAME_KEY;
 import static org.lsc.plugins.connectors.james.beans.Identity.DEFAULT_IDENTITY_SORT_ORDER;
 
-import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,20 +24,25 @@ import org.lsc.plugins.connectors.james.beans.Identity;
 import org.lsc.plugins.connectors.james.beans.User;
 import org.lsc.plugins.connectors.james.generated.JamesIdentityService;
 import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.google.common.collect.ImmutableMap;
 
 public class JamesIdentityDstService implements IWritableService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(JamesIdentityDstService.class);
 
 	private final Class<IBean> beanClass;
+	private final BeanFactory beanFactory;
 	private final JamesService service;
 	private final PluginConnectionType connection;
 	private final JamesDao jamesDao;
+	private final Optional<PlanWriter> planWriter;
+	private final Optional<WriteBehindQueue> writeBehind;
+	private final TaskMonitor monitor;
 
 	public JamesIdentityDstService(final TaskType task) throws LscServiceConfigurationException {
 		try {
@@ -50,9 +53,13 @@ public class JamesIdentityDstService implements IWritableService {
 	        }
         	service = (JamesService) task.getPluginDestinationService().getAny().get(0);
 			beanClass = (Class<IBean>) Class.forName(task.getBean());
+			beanFactory = BeanFactory.of(beanClass);
 			LOGGER.debug("Task bean is: " + task.getBean());
 			connection = (PluginConnectionType) service.getConnection().getReference();
 			jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+			planWriter = PlanWriter.shared();
+			writeBehind = WriteBehindQueue.shared();
+			monitor = TaskMonitor.forService(task.getName(), Aspect.IDENTITY.label());
 		} catch (ClassNotFoundException e) {
 			throw new LscServiceConfigurationException(e);
 		}
@@ -60,6 +67,10 @@ public class JamesIdentityDstService implements IWritableService {
 	
 	@Override
 	public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+		return monitor.getBean(pivotName, pivotAttributes, () -> fetchBean(pivotName, pivotAttributes, fromSameService));
+	}
+
+	private IBean fetchBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
 		LOGGER.debug(String.format("Call to getBean(%s, %s, %b)", pivotName, pivotAttributes, fromSameService));
 		if (pivotAttributes.getAttributesNames().isEmpty()) {
 			return null;
@@ -70,20 +81,16 @@ public class JamesIdentityDstService implements IWritableService {
 			return null;
 		}
 		try {
-			Identity defaultIdentity = jamesDao.getDefaultIdentity(email);
-			return identityToBean(email, defaultIdentity);
+			Optional<Identity> defaultIdentity = jamesDao.findDefaultIdentity(email);
+			if (!defaultIdentity.isPresent()) {
+				LOGGER.debug("User {} does not have a default identity yet.", email);
+				return null;
+			}
+			return identityToBean(email, defaultIdentity.get());
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting bean %s/%s (%s)", pivotName, email, e));
 			LOGGER.error(e.toString(), e);
 			throw new LscServiceCommunicationException(e);
-		} catch (NotFoundException e) {
-			LOGGER.debug("User {} does not have a default identity yet.", email);
-			return null;
-		} catch (IOException e) {
-			LOGGER.error(String.format("IOException while getting bean %s/%s (%s)",
-				pivotName, email, e));
-			LOGGER.debug(e.toString(), e);
-			throw new LscServiceException(e);
 		} catch (WebApplicationException e) {
 			LOGGER.error(String.format("WebApplicationException while getting bean %s/%s (%s)",
 					pivotName, email, e));
@@ -99,14 +106,14 @@ public class JamesIdentityDstService implements IWritableService {
 
 	@Override
 	public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+		return monitor.listPivots(this::fetchPivots);
+	}
+
+	private Map<String, LscDatasets> fetchPivots() throws LscServiceException {
 		try {
 			List<User> userList = jamesDao.getUserList();
 			LOGGER.debug("Get identity's listPivots via list users webadmin API. userList size = {}", userList.size());
-			Map<String, LscDatasets> listPivots = new HashMap<String, LscDatasets>();
-			for (User user: userList) {
-				listPivots.put(user.email, user.toDatasets());
-			}
-			return ImmutableMap.copyOf(listPivots);
+			return User.toPivots(userList);
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e));
 			LOGGER.debug(e.toString(), e);
@@ -124,6 +131,16 @@ public class JamesIdentityDstService implements IWritableService {
 			LOGGER.error("MainIdentifier is needed to update");
 			return false;
 		}
+		if (planWriter.isPresent()) {
+			return planWriter.get().record(Aspect.IDENTITY, lm);
+		}
+		if (writeBehind.isPresent()) {
+			return writeBehind.get().submit(Aspect.IDENTITY, lm, modifications -> monitor.write(modifications, this::write));
+		}
+		return monitor.write(lm, this::write);
+	}
+
+	private boolean write(LscModifications lm) throws LscServiceException {
 		User user = new User(lm.getMainIdentifier());
 		LOGGER.debug("User: {}, Operation: {}", user.email, lm.getOperation());
 		try {
@@ -161,16 +178,11 @@ public class JamesIdentityDstService implements IWritableService {
 	}
 
 	private IBean identityToBean(String email, Identity identity) throws InstantiationException, IllegalAccessException {
-		IBean bean = beanClass.newInstance();
-		bean.setMainIdentifier(email);
-		bean.setDatasets(toDataset(email, identity));
-		return bean;
+		return beanFactory.newBean(email, toDataset(email, identity));
 	}
 
 	private LscDatasets toDataset(String email, Identity identity) {
-		LscDatasets datasets = new LscDatasets();
-		datasets.put("email", email);
-		return datasets;
+		return Datasets.of(email);
 	}
 
 	private Identity extractIdentityFromLDAPBean(LscModifications lscModifications) {
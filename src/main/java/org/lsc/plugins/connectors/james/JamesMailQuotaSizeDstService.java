@@ -1,6 +1,5 @@
 package org.lsc.plugins.connectors.james;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,20 +20,32 @@ import org.lsc.plugins.connectors.james.beans.QuotaSize;
 import org.lsc.plugins.connectors.james.beans.User;
 import org.lsc.plugins.connectors.james.generated.JamesMailQuotaSizeService;
 import org.lsc.plugins.connectors.james.generated.JamesService;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ImmutableMap;
-
 public class JamesMailQuotaSizeDstService implements IWritableService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(JamesMailQuotaSizeDstService.class);
-	private static final String MAIL_QUOTA_SIZE_ATTRIBUTE = "mailQuotaSize";
+	static final String MAIL_QUOTA_SIZE_ATTRIBUTE = "mailQuotaSize";
+	public static final String PREFETCH_PROPERTY = "tmail.quota.prefetch";
+	public static final String PREFETCH_PAGE_SIZE_PROPERTY = "tmail.quota.prefetch.page.size";
+	public static final int DEFAULT_PREFETCH_PAGE_SIZE = 1000;
 
 	private final Class<IBean> beanClass;
+	private final BeanFactory beanFactory;
 	private final JamesService service;
 	private final PluginConnectionType connection;
 	private final JamesDao jamesDao;
+	private final Optional<PlanWriter> planWriter;
+	private final Optional<WriteBehindQueue> writeBehind;
+	private final TaskMonitor monitor;
+	private final boolean prefetch;
+	private volatile QuotaSizeTable quotaSizes;
+	private volatile boolean prefetchUnavailable;
+	// The users of the last listing, which the quota sizes are prefetched for
+	private List<User> listedUsers;
 
 	public JamesMailQuotaSizeDstService(final TaskType task) throws LscServiceConfigurationException {
 		try {
@@ -45,9 +56,14 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 	        }
         	service = (JamesService) task.getPluginDestinationService().getAny().get(0);
 			beanClass = (Class<IBean>) Class.forName(task.getBean());
+			beanFactory = BeanFactory.of(beanClass);
 			LOGGER.debug("Task bean is: " + task.getBean());
 			connection = (PluginConnectionType) service.getConnection().getReference();
 			jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+			planWriter = PlanWriter.shared();
+			writeBehind = WriteBehindQueue.shared();
+			monitor = TaskMonitor.forService(task.getName(), Aspect.MAIL_QUOTA_SIZE.label());
+			prefetch = Boolean.getBoolean(PREFETCH_PROPERTY);
 		} catch (ClassNotFoundException e) {
 			throw new LscServiceConfigurationException(e);
 		}
@@ -55,6 +71,10 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 	
 	@Override
 	public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+		return monitor.getBean(pivotName, pivotAttributes, () -> fetchBean(pivotName, pivotAttributes, fromSameService));
+	}
+
+	private IBean fetchBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
 		LOGGER.debug(String.format("Call to getBean(%s, %s, %b)", pivotName, pivotAttributes, fromSameService));
 		if (pivotAttributes.getAttributesNames().isEmpty()) {
 			return null;
@@ -65,15 +85,25 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 			return null;
 		}
 		try {
-			Optional<QuotaSize> maybeQuotaSize = jamesDao.getQuotaSize(email);
+			Optional<QuotaSizeTable> prefetched = quotaSizes();
+			if (prefetched.isPresent()) {
+				int ordinal = prefetched.get().ordinal(email);
+				// Users created after the prefetch are read one by one
+				if (ordinal >= 0) {
+					long size = prefetched.get().size(ordinal);
+					if (size == QuotaSizeTable.NO_LIMIT) {
+						LOGGER.debug("No quota size limit defined for user {}", email);
+						return null;
+					}
+					return quotaSizeToBean(email, Optional.of(new QuotaSize(size)));
+				}
+			}
+			Optional<QuotaSize> maybeQuotaSize = jamesDao.findQuotaSize(email);
 			return quotaSizeToBean(email, maybeQuotaSize);
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting bean %s/%s (%s)", pivotName, email, e));
 			LOGGER.error(e.toString(), e);
 			throw new LscServiceCommunicationException(e);
-		} catch (NotFoundException e) {
-			LOGGER.debug("User {} does not exist. Need to create user first.", email);
-			return null;
 		} catch (WebApplicationException e) {
 			LOGGER.error(String.format("WebApplicationException while getting bean %s/%s (%s)", pivotName, email, e));
 			LOGGER.debug(e.toString(), e);
@@ -81,17 +111,62 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 		}
 	}
 
+	/**
+	 * @return the prefetched quota sizes of the listed users, loaded on first use after each listing, or empty when the
+	 * prefetch is not enabled or the quota listing is not available
+	 */
+	private Optional<QuotaSizeTable> quotaSizes() {
+		if (!prefetch || prefetchUnavailable) {
+			return Optional.empty();
+		}
+		QuotaSizeTable loaded = quotaSizes;
+		if (loaded == null) {
+			synchronized (this) {
+				loaded = quotaSizes;
+				if (loaded == null && !prefetchUnavailable) {
+					try {
+						List<User> users = Optional.ofNullable(listedUsers).orElseGet(jamesDao::getUserList);
+						loaded = QuotaSizeTable.load(jamesDao, users,
+							Integer.getInteger(PREFETCH_PAGE_SIZE_PROPERTY, DEFAULT_PREFETCH_PAGE_SIZE));
+						quotaSizes = loaded;
+						listedUsers = null;
+					} catch (WebApplicationException e) {
+						LOGGER.warn(String.format("The user quota listing is not available (%s), reading quota sizes one user at a time", e));
+						prefetchUnavailable = true;
+					}
+				}
+			}
+		}
+		return Optional.ofNullable(loaded);
+	}
+
+	private boolean setQuotaSize(User user, QuotaSize quotaSize) {
+		boolean set = jamesDao.setQuotaSize(user, quotaSize);
+		if (set && quotaSizes != null) {
+			quotaSizes.set(user.email, quotaSize.size);
+		}
+		return set;
+	}
+
+	private boolean deleteQuotaSize(User user) {
+		boolean deleted = jamesDao.deleteQuotaSize(user);
+		if (deleted && quotaSizes != null) {
+			quotaSizes.clear(user.email);
+		}
+		return deleted;
+	}
+
 	@Override
 	public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+		return monitor.listPivots(this::fetchPivots);
+	}
+
+	private Map<String, LscDatasets> fetchPivots() throws LscServiceException {
 		try {
 			List<User> userList = jamesDao.getUserList();
 			LOGGER.debug("Get quotaSize's listPivots via list users webadmin API. userList size = {}", userList.size());
-
-			Map<String, LscDatasets> listPivots = new HashMap<String, LscDatasets>();
-			for (User user: userList) {
-				listPivots.put(user.email, user.toDatasets());
-			}
-			return ImmutableMap.copyOf(listPivots);
+			listed(userList);
+			return User.toPivots(userList);
 		} catch (ProcessingException e) {
 			LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e));
 			LOGGER.debug(e.toString(), e);
@@ -103,12 +178,32 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 		}
 	}
 	
+	/**
+	 * Start a new run from the users just listed: the quota sizes prefetched for the previous run are dropped, and
+	 * prefetched again for these users on first use.
+	 */
+	synchronized void listed(List<User> users) {
+		listedUsers = users;
+		quotaSizes = null;
+		prefetchUnavailable = false;
+	}
+
 	@Override
 	public boolean apply(LscModifications lm) throws LscServiceException {
 		if (lm.getMainIdentifier() == null) {
 			LOGGER.error("MainIdentifier is needed to update");
 			return false;
 		}
+		if (planWriter.isPresent()) {
+			return planWriter.get().record(Aspect.MAIL_QUOTA_SIZE, lm);
+		}
+		if (writeBehind.isPresent()) {
+			return writeBehind.get().submit(Aspect.MAIL_QUOTA_SIZE, lm, modifications -> monitor.write(modifications, this::write));
+		}
+		return monitor.write(lm, this::write);
+	}
+
+	private boolean write(LscModifications lm) throws LscServiceException {
 		User user = new User(lm.getMainIdentifier());
 		LOGGER.debug("User: {}, Operation: {}", user.email, lm.getOperation());
 		try {
@@ -120,7 +215,7 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 					LOGGER.debug("User {} has no quota size in James. Creating quota size from LDAP source for the first time.", user.email);
 					try {
 						Optional<QuotaSize> quotaSizeToCreate = quotaSizeFromSource(lm);
-						return quotaSizeToCreate.map(quotaSize -> jamesDao.setQuotaSize(user, quotaSize))
+						return quotaSizeToCreate.map(quotaSize -> setQuotaSize(user, quotaSize))
 							.orElse(false);
 					} catch (NumberFormatException e) {
 						LOGGER.warn("Invalid quota size value from LDAP", e);
@@ -129,15 +224,15 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 				case UPDATE_OBJECT:
 					try {
 						Optional<QuotaSize> quotaSizeToUpdate = quotaSizeFromSource(lm);
-						return quotaSizeToUpdate.map(quotaSize -> jamesDao.setQuotaSize(user, quotaSize))
-							.orElseGet(() -> jamesDao.deleteQuotaSize(user));
+						return quotaSizeToUpdate.map(quotaSize -> setQuotaSize(user, quotaSize))
+							.orElseGet(() -> deleteQuotaSize(user));
 					} catch (NumberFormatException e) {
 						LOGGER.warn("Invalid quota size value from LDAP", e);
 						return false;
 					}
 				case DELETE_OBJECT:
 					LOGGER.debug("User {} exists on James but not in LDAP. Deleting James quota size for this user.", user.email);
-					return jamesDao.deleteQuotaSize(user);
+					return deleteQuotaSize(user);
 				default:
 					LOGGER.error("Unknown operation {}", lm.getOperation());
 					return false;
@@ -161,10 +256,7 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 	private IBean quotaSizeToBean(String email, Optional<QuotaSize> quotaSizeOptional) {
 		return quotaSizeOptional.map(quotaSize -> {
 			try {
-				IBean bean = beanClass.newInstance();
-				bean.setMainIdentifier(email);
-				bean.setDatasets(toDataset(email, quotaSize));
-				return bean;
+				return beanFactory.newBean(email, toDataset(email, quotaSize));
 			} catch (InstantiationException | IllegalAccessException e) {
 				throw new RuntimeException(e);
 			}
@@ -172,11 +264,8 @@ public class JamesMailQuotaSizeDstService implements IWritableService {
 
 	}
 
-	private LscDatasets toDataset(String email, QuotaSize quotaSize) {
-		LscDatasets datasets = new LscDatasets();
-		datasets.put("email", email);
-		datasets.put(MAIL_QUOTA_SIZE_ATTRIBUTE, String.valueOf(quotaSize.size));
-		return datasets;
+	static LscDatasets toDataset(String email, QuotaSize quotaSize) {
+		return Datasets.of(email, MAIL_QUOTA_SIZE_ATTRIBUTE, String.valueOf(quotaSize.size));
 	}
 
 	private Optional<QuotaSize> quotaSizeFromSource(LscModifications lm) {
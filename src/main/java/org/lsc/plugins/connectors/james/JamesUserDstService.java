@@ -42,9 +42,9 @@
  */
 package org.lsc.plugins.connectors.james;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.ProcessingException;
@@ -52,6 +52,7 @@ import javax.ws.rs.WebApplicationException;
 
 import org.apache.commons.lang.RandomStringUtils;
 import org.lsc.LscDatasets;
+import org.lsc.LscModificationType;
 import org.lsc.LscModifications;
 import org.lsc.beans.IBean;
 import org.lsc.configuration.PluginConnectionType;
@@ -62,19 +63,25 @@ import org.lsc.exception.LscServiceException;
 import org.lsc.plugins.connectors.james.beans.User;
 import org.lsc.plugins.connectors.james.generated.JamesService;
 import org.lsc.plugins.connectors.james.generated.JamesUsersService;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ImmutableMap;
-
 public class JamesUserDstService implements IWritableService {
     private static final Logger LOGGER = LoggerFactory.getLogger(JamesUserDstService.class);
     public static final int USER_PASSWORD_LENGTH = 24;
 
     private final JamesDao jamesDao;
+    private final Optional<PlanWriter> planWriter;
+    private final Optional<WriteBehindQueue> writeBehind;
+    private final Optional<DeletionQueue> deletions;
+    private final TaskMonitor monitor;
+    private final Optional<ProvisioningPipeline> provisioningPipeline;
     private final JamesService service;
     private final Class<IBean> beanClass;
+    private final BeanFactory beanFactory;
 
     public JamesUserDstService(final TaskType task) throws LscServiceConfigurationException {
         try {
@@ -86,9 +93,15 @@ public class JamesUserDstService implements IWritableService {
 
             this.service = (JamesService) task.getPluginDestinationService().getAny().get(0);
             this.beanClass = (Class<IBean>) Class.forName(task.getBean());
+            this.beanFactory = BeanFactory.of(beanClass);
             LOGGER.debug("Task bean is: " + task.getBean());
             PluginConnectionType connection = (PluginConnectionType) service.getConnection().getReference();
             this.jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+            this.planWriter = PlanWriter.shared();
+            this.writeBehind = WriteBehindQueue.shared();
+            this.deletions = DeletionQueue.shared();
+            this.monitor = TaskMonitor.forService(task.getName(), Aspect.USER.label());
+            this.provisioningPipeline = ProvisioningPipeline.forTask(task, connection);
         } catch (ClassNotFoundException e) {
             throw new LscServiceConfigurationException(e);
         }
@@ -100,13 +113,30 @@ public class JamesUserDstService implements IWritableService {
             LOGGER.error("MainIdentifier is needed to update");
             return false;
         }
+        if (planWriter.isPresent()) {
+            return planWriter.get().record(Aspect.USER, lscModifications);
+        }
+        if (deletions.isPresent() && lscModifications.getOperation() == LscModificationType.DELETE_OBJECT) {
+            return deletions.get().submit(monitor.getTaskName(), Aspect.USER, monitor.getListedPivots(), lscModifications);
+        }
+        if (writeBehind.isPresent()) {
+            return writeBehind.get().submit(Aspect.USER, lscModifications, modifications -> monitor.write(modifications, this::write));
+        }
+        return monitor.write(lscModifications, this::write);
+    }
+
+    private boolean write(LscModifications lscModifications) throws LscServiceException {
         User user = new User(lscModifications.getMainIdentifier());
         LOGGER.debug("User: {}, Operation: {}", user.email, lscModifications.getOperation());
 
         try {
             switch (lscModifications.getOperation()) {
                 case CREATE_OBJECT:
-                    return jamesDao.addUser(user, RandomStringUtils.randomAlphanumeric(USER_PASSWORD_LENGTH));
+                    boolean created = jamesDao.addUser(user, RandomStringUtils.randomAlphanumeric(USER_PASSWORD_LENGTH));
+                    if (created) {
+                        provisioningPipeline.ifPresent(pipeline -> pipeline.userCreated(lscModifications));
+                    }
+                    return created;
                 case DELETE_OBJECT:
                     return jamesDao.removeUser(user);
                 default:
@@ -127,6 +157,10 @@ public class JamesUserDstService implements IWritableService {
 
     @Override
     public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+        return monitor.getBean(pivotName, pivotAttributes, () -> fetchBean(pivotName, pivotAttributes, fromSameService));
+    }
+
+    private IBean fetchBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
         LOGGER.debug(String.format("Call to getBean(%s, %s, %b)", pivotName, pivotAttributes, fromSameService));
         if (pivotAttributes.getAttributesNames().size() < 1) {
             return null;
@@ -138,10 +172,7 @@ public class JamesUserDstService implements IWritableService {
         }
         try {
             if (jamesDao.userExists(email)) {
-                IBean bean = beanClass.newInstance();
-                bean.setMainIdentifier(email);
-                bean.setDatasets(new User(email).toDatasets());
-                return bean;
+                return beanFactory.newBean(email, new User(email).toDatasets());
             }
             return null;
         } catch (ProcessingException e) {
@@ -166,14 +197,14 @@ public class JamesUserDstService implements IWritableService {
 
     @Override
     public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+        return monitor.listPivots(this::fetchPivots);
+    }
+
+    private Map<String, LscDatasets> fetchPivots() throws LscServiceException {
         try {
             List<User> userList = jamesDao.getUserList();
             LOGGER.debug("Get ListPivots. userList size = {}", userList.size());
-            Map<String, LscDatasets> listPivots = new HashMap<>();
-            for (User user : userList) {
-                listPivots.put(user.email, user.toDatasets());
-            }
-            return ImmutableMap.copyOf(listPivots);
+            return User.toPivots(userList);
         } catch (ProcessingException e) {
             LOGGER.error(String.format("ProcessingException while getting pivot list (%s)", e));
             LOGGER.debug(e.toString(), e);
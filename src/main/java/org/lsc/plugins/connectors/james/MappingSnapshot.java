@@ -0,0 +1,161 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.lsc.plugins.connectors.james.beans.AddressMapping;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.Forward;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The aliases, forwards and address mappings of every user, read with a single call to the global mappings listing
+ * instead of one call per user and aspect.
+ *
+ * The listing is read the first time a service asks for it, and then shared by the services using the same webadmin
+ * until one of them, or a composite task, lists its pivots again, which starts a new synchronization of its task: the
+ * snapshot is then read again on the next lookup. It reflects the state of the recipient rewrite table when it was
+ * read. A mapping changed outside of the task after that time is not seen: a mapping removed since then still shows
+ * as present, so LSC computes no change and the task does not restore it until its next synchronization. The tasks
+ * only write their own mapping type, and their updates compute their changes from the live state.
+ *
+ * Entries are indexed by user address, compared as the webadmin returns them. The values of a user are kept in an
+ * array, and the addresses appearing several times in the listing, such as a user having both aliases and forwards,
+ * are stored once.
+ */
+public class MappingSnapshot {
+	public static final String ENABLED_PROPERTY = "tmail.mappings.snapshot";
+	private static final Logger LOGGER = LoggerFactory.getLogger(MappingSnapshot.class);
+	private static final Map<String, MappingSnapshot> SHARED = new ConcurrentHashMap<>();
+	private static final String[] NONE = new String[0];
+
+	/**
+	 * @return the snapshot shared by the services using the webadmin at this URL, or empty when it is not enabled
+	 */
+	public static Optional<MappingSnapshot> shared(String url, JamesDao jamesDao) {
+		if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+			return Optional.empty();
+		}
+		return Optional.of(SHARED.computeIfAbsent(url, key -> new MappingSnapshot(jamesDao)));
+	}
+
+	private final JamesDao jamesDao;
+	private volatile Index index;
+
+	MappingSnapshot(JamesDao jamesDao) {
+		this.jamesDao = jamesDao;
+	}
+
+	/**
+	 * @return the alias sources of this user, empty when it has none
+	 */
+	public List<Alias> getAliases(String email) {
+		return list(index().aliases, email, Alias::new);
+	}
+
+	/**
+	 * @return the forward targets of this user, empty when it has none
+	 */
+	public List<Forward> getForwards(String email) {
+		return list(index().forwards, email, Forward::new);
+	}
+
+	/**
+	 * @return the mappings of type Address of this user, empty when it has none
+	 */
+	public List<AddressMapping> getAddressMappings(String email) {
+		return list(index().addressMappings, email, AddressMapping::new);
+	}
+
+	private static <T> List<T> list(Map<String, String[]> entries, String email, Function<String, T> factory) {
+		String[] values = entries.getOrDefault(email, NONE);
+		if (values.length == 0) {
+			return Collections.emptyList();
+		}
+		return Arrays.stream(values)
+			.map(factory)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Discards the listing, which is read again by the next lookup
+	 */
+	public synchronized void invalidate() {
+		index = null;
+	}
+
+	private Index index() {
+		Index loaded = index;
+		if (loaded == null) {
+			synchronized (this) {
+				loaded = index;
+				if (loaded == null) {
+					loaded = load();
+					index = loaded;
+				}
+			}
+		}
+		return loaded;
+	}
+
+	private Index load() {
+		long start = System.nanoTime();
+		Index loading = new Index();
+		jamesDao.visitMappings(loading::add);
+		loading.strings.clear();
+		LOGGER.info(String.format("Loaded the mappings snapshot in %d ms: %d users with aliases, %d with forwards, %d with address mappings",
+			TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+			loading.aliases.size(),
+			loading.forwards.size(),
+			loading.addressMappings.size()));
+		return loading;
+	}
+
+	private static class Index {
+		private final Map<String, String[]> aliases = new HashMap<>();
+		private final Map<String, String[]> forwards = new HashMap<>();
+		private final Map<String, String[]> addressMappings = new HashMap<>();
+		private final Map<String, String> strings = new HashMap<>();
+
+		void add(String source, String type, String mapping) {
+			switch (type) {
+				case "Alias":
+					// The listing is keyed by alias source, the aliases of a user are the sources mapped to it
+					append(aliases, dedup(mapping), dedup(source));
+					break;
+				case "Forward":
+					append(forwards, dedup(source), dedup(mapping));
+					break;
+				case "Address":
+					append(addressMappings, dedup(source), dedup(mapping));
+					break;
+				default:
+					break;
+			}
+		}
+
+		private String dedup(String value) {
+			return strings.computeIfAbsent(value, Function.identity());
+		}
+
+		private static void append(Map<String, String[]> entries, String user, String value) {
+			String[] values = entries.get(user);
+			if (values == null) {
+				entries.put(user, new String[] {value});
+			} else {
+				String[] grown = Arrays.copyOf(values, values.length + 1);
+				grown[values.length] = value;
+				entries.put(user, grown);
+			}
+		}
+	}
+}
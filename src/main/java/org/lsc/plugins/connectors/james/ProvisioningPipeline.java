@@ -0,0 +1,312 @@
+package org.lsc.plugins.connectors.james;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.lsc.LscModifications;
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.configuration.TaskType;
+import org.lsc.exception.LscServiceConfigurationException;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
+import org.lsc.service.IWritableService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Splitter;
+
+/**
+ * Provisions the other aspects of a user (quota, identity, aliases, forwards and address mappings) as soon as
+ * {@link JamesUserDstService} has created it, instead of waiting for the next run of their own tasks.
+ *
+ * The dependent aspects are enabled with the {@value #DEPENDENT_ASPECTS_PROPERTY} JVM property, e.g.
+ * {@code -Dtmail.provisioning.dependents=mail_quota_size,identity,address_mapping}. Their values are taken from the
+ * datasets of the user task. The aspects of one user are written sequentially in the provisioning order of
+ * {@link Aspect}, while at most {@value #PARALLELISM_PROPERTY} users are provisioned concurrently.
+ *
+ * LSC does not tell when the user task ends, so the pipeline is stopped by the end of run hook, which must not hold
+ * the JVM with webadmin calls: a container runtime kills it after a short grace period. The users still queued, and
+ * the aspects of the users being provisioned which are not applied after {@value #DRAIN_TIMEOUT_PROPERTY} seconds,
+ * are written to the {@value #PENDING_FILE_PROPERTY} plan file instead, one flushed entry at a time, to be applied with
+ * {@link org.lsc.plugins.connectors.james.plan.PlanApplier}.
+ */
+public class ProvisioningPipeline {
+	public static final String DEPENDENT_ASPECTS_PROPERTY = "tmail.provisioning.dependents";
+	public static final String PARALLELISM_PROPERTY = "tmail.provisioning.parallelism";
+	public static final String PENDING_FILE_PROPERTY = "tmail.provisioning.pending";
+	public static final String DRAIN_TIMEOUT_PROPERTY = "tmail.provisioning.drain.timeout";
+	public static final int DEFAULT_PARALLELISM = 8;
+	public static final String DEFAULT_PENDING_FILE = "pending-provisioning.ndjson";
+	public static final long DEFAULT_DRAIN_TIMEOUT_IN_SECONDS = 5;
+	private static final int QUEUED_USERS_PER_THREAD = 100;
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProvisioningPipeline.class);
+
+	@FunctionalInterface
+	interface ServiceProvider {
+		IWritableService serviceFor(Aspect aspect) throws LscServiceException;
+	}
+
+	/**
+	 * @return the pipeline of the given user task, or empty when no dependent aspect is enabled
+	 */
+	public static Optional<ProvisioningPipeline> forTask(TaskType task, PluginConnectionType connection) throws LscServiceConfigurationException {
+		String dependents = System.getProperty(DEPENDENT_ASPECTS_PROPERTY, "").trim();
+		if (dependents.isEmpty()) {
+			return Optional.empty();
+		}
+		int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM);
+		long drainTimeoutInSeconds = Long.getLong(DRAIN_TIMEOUT_PROPERTY, DEFAULT_DRAIN_TIMEOUT_IN_SECONDS);
+		ProvisioningPipeline pipeline;
+		try {
+			pipeline = new ProvisioningPipeline(parseDependents(dependents),
+				aspect -> aspect.newService(task.getName(), task.getBean(), connection), parallelism,
+				sharedPendingFile(), drainTimeoutInSeconds);
+		} catch (LscServiceConfigurationException e) {
+			throw e;
+		} catch (LscServiceException e) {
+			throw new LscServiceConfigurationException(e);
+		}
+		EndOfRun.register(EndOfRun.Stage.DRAIN, "provisioning pipeline of " + task.getName(), pipeline::drain);
+		return Optional.of(pipeline);
+	}
+
+	private static PlanWriter sharedPending;
+
+	/**
+	 * @return the pending provisioning file shared by the pipelines of this run
+	 */
+	private static synchronized PlanWriter sharedPendingFile() {
+		if (sharedPending == null) {
+			Path pendingFile = Paths.get(System.getProperty(PENDING_FILE_PROPERTY, DEFAULT_PENDING_FILE));
+			try {
+				sharedPending = new PlanWriter(pendingFile);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to open pending provisioning file " + pendingFile, e);
+			}
+			PlanWriter pending = sharedPending;
+			EndOfRun.register(EndOfRun.Stage.CLOSE, "pending provisioning " + pendingFile, () -> closePending(pending, pendingFile));
+		}
+		return sharedPending;
+	}
+
+	private static void closePending(PlanWriter pending, Path pendingFile) {
+		try {
+			pending.close();
+			if (pending.getEntryCount() == 0) {
+				Files.deleteIfExists(pendingFile);
+			} else {
+				LOGGER.error("{} aspects of new users were not provisioned before the end of the run, they were written to {}",
+					pending.getEntryCount(), pendingFile);
+			}
+		} catch (IOException e) {
+			LOGGER.error("Unable to close the pending provisioning file", e);
+		}
+	}
+
+	static Set<Aspect> parseDependents(String dependents) throws LscServiceConfigurationException {
+		Set<Aspect> aspects = EnumSet.noneOf(Aspect.class);
+		for (String name : Splitter.on(',').trimResults().omitEmptyStrings().split(dependents)) {
+			Aspect aspect;
+			try {
+				aspect = Aspect.valueOf(name.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new LscServiceConfigurationException("Unknown aspect " + name + " in " + DEPENDENT_ASPECTS_PROPERTY);
+			}
+			if (aspect == Aspect.USER || aspect == Aspect.CONTACT) {
+				throw new LscServiceConfigurationException(aspect + " can not be provisioned after a user creation");
+			}
+			aspects.add(aspect);
+		}
+		return aspects;
+	}
+
+	private final Map<Aspect, IWritableService> services;
+	private final ThreadPoolExecutor executor;
+	private final PlanWriter pending;
+	private final long drainTimeoutInSeconds;
+	private final Set<Provisioning> running;
+	private final AtomicInteger pendingUsers;
+	private final AtomicLong provisioned;
+	private final AtomicLong failed;
+	private volatile boolean draining;
+
+	ProvisioningPipeline(Iterable<Aspect> dependents, ServiceProvider serviceProvider, int parallelism,
+						 PlanWriter pending, long drainTimeoutInSeconds) throws LscServiceException {
+		this.services = new EnumMap<>(Aspect.class);
+		for (Aspect aspect : dependents) {
+			services.put(aspect, serviceProvider.serviceFor(aspect));
+		}
+		// Callers run the provisioning themselves when the queue is full, which slows down the user task
+		// instead of buffering an unbounded number of users. Once drained, users are recorded as pending.
+		this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(parallelism * QUEUED_USERS_PER_THREAD),
+			Threads.factory("tmail-provisioning-"),
+			(provisioning, executor) -> {
+				if (executor.isShutdown()) {
+					((Provisioning) provisioning).abandon();
+				} else {
+					provisioning.run();
+				}
+			});
+		this.pending = pending;
+		this.drainTimeoutInSeconds = drainTimeoutInSeconds;
+		this.running = ConcurrentHashMap.newKeySet();
+		this.pendingUsers = new AtomicInteger();
+		this.provisioned = new AtomicLong();
+		this.failed = new AtomicLong();
+	}
+
+	/**
+	 * Schedule the provisioning of the dependent aspects of a user which has just been created.
+	 *
+	 * @param modifications the creation of the user, holding the datasets of the dependent aspects
+	 */
+	public void userCreated(LscModifications modifications) {
+		List<Aspect> aspects = new LinkedList<>();
+		for (Aspect aspect : services.keySet()) {
+			if (!aspect.modificationsOf(modifications).isEmpty()) {
+				aspects.add(aspect);
+			}
+		}
+		if (!aspects.isEmpty()) {
+			pendingUsers.incrementAndGet();
+			executor.execute(new Provisioning(modifications, aspects));
+		}
+	}
+
+	/**
+	 * The provisioning of the dependent aspects of one user, which either applies them or records them as pending
+	 */
+	private class Provisioning implements Runnable {
+		private final LscModifications modifications;
+		private final List<Aspect> remaining;
+		private boolean done;
+
+		private Provisioning(LscModifications modifications, List<Aspect> remaining) {
+			this.modifications = modifications;
+			this.remaining = remaining;
+		}
+
+		@Override
+		public void run() {
+			running.add(this);
+			try {
+				while (true) {
+					Aspect aspect;
+					synchronized (this) {
+						if (done) {
+							return;
+						}
+						if (draining) {
+							abandon();
+							return;
+						}
+						if (remaining.isEmpty()) {
+							finish();
+							return;
+						}
+						aspect = remaining.get(0);
+					}
+					provision(aspect, modifications);
+					synchronized (this) {
+						if (!done) {
+							remaining.remove(0);
+						}
+					}
+				}
+			} finally {
+				running.remove(this);
+			}
+		}
+
+		/**
+		 * Records the aspects not applied yet, including the one being applied if any, as pending
+		 */
+		synchronized void abandon() {
+			if (done) {
+				return;
+			}
+			for (Aspect aspect : remaining) {
+				pending.record(aspect, aspect.restrict(modifications, aspect.creationOperation()));
+			}
+			LOGGER.warn("Provisioning of the new user {} interrupted by the end of the run, {} recorded as pending",
+				modifications.getMainIdentifier(), remaining);
+			finish();
+		}
+
+		private void finish() {
+			done = true;
+			pendingUsers.decrementAndGet();
+		}
+	}
+
+	private void provision(Aspect aspect, LscModifications modifications) {
+		try {
+			if (services.get(aspect).apply(aspect.restrict(modifications, aspect.creationOperation()))) {
+				provisioned.incrementAndGet();
+			} else {
+				LOGGER.error("Unable to provision {} of the new user {}", aspect, modifications.getMainIdentifier());
+				failed.incrementAndGet();
+			}
+		} catch (LscServiceException | RuntimeException e) {
+			LOGGER.error("Unable to provision {} of the new user {}", aspect, modifications.getMainIdentifier(), e);
+			failed.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Stop the pipeline at the end of the run: no user can be scheduled afterwards. The queued users are recorded as
+	 * pending right away, while the users being provisioned get {@value #DRAIN_TIMEOUT_PROPERTY} seconds to complete
+	 * the aspect they are applying, their other aspects being recorded as pending.
+	 */
+	public void drain() {
+		draining = true;
+		executor.shutdown();
+		List<Runnable> queued = new ArrayList<>();
+		executor.getQueue().drainTo(queued);
+		queued.forEach(provisioning -> ((Provisioning) provisioning).abandon());
+		try {
+			if (!executor.awaitTermination(drainTimeoutInSeconds, TimeUnit.SECONDS)) {
+				LOGGER.error("{} users were still being provisioned after {} seconds", running.size(), drainTimeoutInSeconds);
+				running.forEach(Provisioning::abandon);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running.forEach(Provisioning::abandon);
+		}
+		LOGGER.info("Provisioning pipeline completed: {} aspects provisioned, {} failed, {} users queued at the end of the run",
+			provisioned.get(), failed.get(), queued.size());
+	}
+
+	/**
+	 * @return the number of users whose provisioning is queued or in progress
+	 */
+	public int getPendingCount() {
+		return pendingUsers.get();
+	}
+
+	public long getProvisionedCount() {
+		return provisioned.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+}
@@ -0,0 +1,80 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.lsc.plugins.connectors.james.beans.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The size limits of every user, prefetched with the paginated user quota listing instead of one call per user.
+ *
+ * Users are identified by their ordinal in the roster of existing users, sorted once when the table is loaded, and
+ * their limits are kept in a table of primitive longs of the same length, {@link #NO_LIMIT} meaning that the user has
+ * no size limit of its own. The table is updated in place when the service writes a limit.
+ */
+class QuotaSizeTable {
+	static final long NO_LIMIT = Long.MIN_VALUE;
+	private static final Logger LOGGER = LoggerFactory.getLogger(QuotaSizeTable.class);
+
+	/**
+	 * Read the limits of the listed users page by page.
+	 */
+	static QuotaSizeTable load(JamesDao jamesDao, List<User> users, int pageSize) {
+		long start = System.nanoTime();
+		String[] roster = new String[users.size()];
+		for (int i = 0; i < roster.length; i++) {
+			roster[i] = users.get(i).email;
+		}
+		QuotaSizeTable table = new QuotaSizeTable(roster);
+		int offset = 0;
+		int pageUsers;
+		do {
+			pageUsers = jamesDao.visitQuotaSizes(offset, pageSize, table::set);
+			offset += pageUsers;
+		} while (pageUsers == pageSize);
+		LOGGER.info(String.format("Prefetched the quota sizes of %d users in %d ms",
+			roster.length, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+		return table;
+	}
+
+	private final String[] roster;
+	private final AtomicLongArray sizes;
+
+	QuotaSizeTable(String[] roster) {
+		this.roster = roster.clone();
+		Arrays.sort(this.roster);
+		this.sizes = new AtomicLongArray(roster.length);
+		for (int i = 0; i < roster.length; i++) {
+			sizes.set(i, NO_LIMIT);
+		}
+	}
+
+	/**
+	 * @return the ordinal of this user, negative when it was not listed
+	 */
+	int ordinal(String email) {
+		return Arrays.binarySearch(roster, email);
+	}
+
+	/**
+	 * @return the size limit of the user of this ordinal, or {@link #NO_LIMIT}
+	 */
+	long size(int ordinal) {
+		return sizes.get(ordinal);
+	}
+
+	void set(String email, long size) {
+		int ordinal = ordinal(email);
+		if (ordinal >= 0) {
+			sizes.set(ordinal, size);
+		}
+	}
+
+	void clear(String email) {
+		set(email, NO_LIMIT);
+	}
+}
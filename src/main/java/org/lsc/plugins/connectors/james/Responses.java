@@ -0,0 +1,178 @@
+package org.lsc.plugins.connectors.james;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.ForbiddenException;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotAcceptableException;
+import javax.ws.rs.NotAllowedException;
+import javax.ws.rs.NotAuthorizedException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.NotSupportedException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.RedirectionException;
+import javax.ws.rs.ServerErrorException;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Handles the webadmin responses so that each of them is closed once used, its connection going back to the keep-alive
+ * pool of the JDK:
+ * <ul>
+ *     <li>the bodies of successful writes are read to the end and discarded, without being buffered</li>
+ *     <li>error bodies are only read up to {@value #ERROR_BODY_LIMIT} bytes, for the logs and exception messages</li>
+ *     <li>entities are decoded from the response stream, without buffering the body first</li>
+ * </ul>
+ */
+final class Responses {
+	static final int ERROR_BODY_LIMIT = 4096;
+	private static final int DISCARD_BUFFER_SIZE = 512;
+	private static final String TRUNCATED = "...";
+
+	@FunctionalInterface
+	interface Decoder<T> {
+		T decode(InputStream body) throws IOException;
+	}
+
+	private Responses() {
+	}
+
+	static boolean isSuccessful(Response response) {
+		return Status.Family.familyOf(response.getStatus()) == Status.Family.SUCCESSFUL;
+	}
+
+	/**
+	 * Close a response whose entity is not needed.
+	 *
+	 * @return the beginning of the body of an unsuccessful response, or an empty string for a successful one
+	 */
+	static String consume(Response response) {
+		try {
+			if (isSuccessful(response)) {
+				discard(response);
+				return "";
+			}
+			return errorBody(response);
+		} finally {
+			response.close();
+		}
+	}
+
+	/**
+	 * Decode the entity of a successful response with the providers of the client, then close it.
+	 *
+	 * @throws WebApplicationException the subclass matching the status of an unsuccessful response
+	 */
+	static <T> T read(Response response, GenericType<T> type) {
+		try {
+			if (!isSuccessful(response)) {
+				throw exception(response);
+			}
+			return response.readEntity(type);
+		} finally {
+			response.close();
+		}
+	}
+
+	/**
+	 * Decode the entity of a successful response from its stream, then close it.
+	 *
+	 * @throws WebApplicationException the subclass matching the status of an unsuccessful response
+	 * @throws ProcessingException when the entity can not be read or decoded
+	 */
+	static <T> T read(Response response, Decoder<T> decoder) {
+		try {
+			if (!isSuccessful(response)) {
+				throw exception(response);
+			}
+			try (InputStream body = response.readEntity(InputStream.class)) {
+				return decoder.decode(body);
+			}
+		} catch (IOException e) {
+			throw new ProcessingException("Failed to decode the response entity", e);
+		} finally {
+			response.close();
+		}
+	}
+
+	/**
+	 * @return the exception matching the status of an unsuccessful response, the same as the one thrown by the typed
+	 * invocations of Jersey, with the beginning of the error body in its message. The response still has to be closed.
+	 */
+	static WebApplicationException exception(Response response) {
+		String message = String.format("HTTP %d %s: %s", response.getStatus(), response.getStatusInfo().getReasonPhrase(), errorBody(response));
+		switch (response.getStatus()) {
+			case 400:
+				return new BadRequestException(message, response);
+			case 401:
+				return new NotAuthorizedException(message, response);
+			case 403:
+				return new ForbiddenException(message, response);
+			case 404:
+				return new NotFoundException(message, response);
+			case 405:
+				return new NotAllowedException(message, response);
+			case 406:
+				return new NotAcceptableException(message, response);
+			case 415:
+				return new NotSupportedException(message, response);
+			case 500:
+				return new InternalServerErrorException(message, response);
+			case 503:
+				return new ServiceUnavailableException(message, response);
+			default:
+				break;
+		}
+		switch (Status.Family.familyOf(response.getStatus())) {
+			case REDIRECTION:
+				return new RedirectionException(message, response);
+			case CLIENT_ERROR:
+				return new ClientErrorException(message, response);
+			case SERVER_ERROR:
+				return new ServerErrorException(message, response);
+			default:
+				return new WebApplicationException(message, response);
+		}
+	}
+
+	private static void discard(Response response) {
+		if (!response.hasEntity()) {
+			return;
+		}
+		try (InputStream body = response.readEntity(InputStream.class)) {
+			byte[] buffer = new byte[DISCARD_BUFFER_SIZE];
+			while (body.read(buffer) >= 0) {
+				// Read to the end, so that the connection can be reused
+			}
+		} catch (IOException e) {
+			// The write succeeded, the connection will not be reused
+		}
+	}
+
+	private static String errorBody(Response response) {
+		try {
+			if (!response.hasEntity()) {
+				return "";
+			}
+			try (InputStream body = response.readEntity(InputStream.class)) {
+				byte[] bytes = new byte[ERROR_BODY_LIMIT];
+				int length = 0;
+				int read;
+				while (length < bytes.length && (read = body.read(bytes, length, bytes.length - length)) >= 0) {
+					length += read;
+				}
+				String text = new String(bytes, 0, length, StandardCharsets.UTF_8);
+				return length == bytes.length && body.read() >= 0 ? text + TRUNCATED : text;
+			}
+		} catch (IOException | ProcessingException | IllegalStateException e) {
+			return "unreadable body (" + e + ")";
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces identical webadmin reads in flight: while a read is in flight, callers issuing the same one, same method,
+ * URI and credentials, wait for it and share its decoded result, or its failure, instead of sending it again. Several
+ * tasks of a run listing the users at the same moment, or reading the same user, thus cost TMail a single call.
+ * Shared results must not be modified, {@link JamesDao} shares its decoded lists as unmodifiable ones.
+ *
+ * A caller only joins a read when no write completed since the read was sent, so that it never gets a state older
+ * than its own previous writes. Writes are observed by the {@link #writeObserver()} filter of the Jersey clients.
+ *
+ * The reads of all the tasks of a run are coalesced, unless the {@value #ENABLED_PROPERTY} JVM property is false.
+ */
+final class SingleFlight {
+	static final String ENABLED_PROPERTY = "tmail.single.flight.enabled";
+	private static final Logger LOGGER = LoggerFactory.getLogger(SingleFlight.class);
+
+	private static SingleFlight shared;
+
+	private static class Flight {
+		private final long generation;
+		private final CompletableFuture<Object> result;
+
+		private Flight(long generation) {
+			this.generation = generation;
+			this.result = new CompletableFuture<>();
+		}
+	}
+
+	/**
+	 * @return the single flight of this run, reporting the coalesced reads at its end
+	 */
+	static synchronized SingleFlight shared() {
+		if (shared == null) {
+			shared = new SingleFlight(Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true")));
+			if (shared.enabled) {
+				SingleFlight singleFlight = shared;
+				EndOfRun.register(EndOfRun.Stage.EXPORT, "coalesced reads", () ->
+					LOGGER.info("{} webadmin reads were coalesced with identical reads in flight", singleFlight.getCoalescedCount()));
+			}
+		}
+		return shared;
+	}
+
+	private final boolean enabled;
+	private final ConcurrentMap<String, Flight> flights;
+	private final AtomicLong writes;
+	private final LongAdder coalesced;
+
+	SingleFlight(boolean enabled) {
+		this.enabled = enabled;
+		this.flights = new ConcurrentHashMap<>();
+		this.writes = new AtomicLong();
+		this.coalesced = new LongAdder();
+	}
+
+	/**
+	 * @param key identifies the read: its method, URI and credentials
+	 * @return the result of the read, performed by this caller or by the caller of the identical read in flight
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T execute(String key, Supplier<T> read) {
+		if (!enabled) {
+			return read.get();
+		}
+		Flight flight = new Flight(writes.get());
+		Flight inFlight = flights.putIfAbsent(key, flight);
+		if (inFlight != null) {
+			if (inFlight.generation == flight.generation) {
+				coalesced.increment();
+				return (T) join(inFlight);
+			}
+			// A write completed since that read was sent
+			return read.get();
+		}
+		try {
+			T result = read.get();
+			// Removed before completion, so that no caller joins a read which already completed
+			flights.remove(key, flight);
+			flight.result.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			flights.remove(key, flight);
+			flight.result.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private static Object join(Flight flight) {
+		try {
+			return flight.result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return a filter recording the completion of the writes of a Jersey client
+	 */
+	ClientResponseFilter writeObserver() {
+		return new WriteObserver();
+	}
+
+	long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	private class WriteObserver implements ClientResponseFilter {
+		@Override
+		public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+			String method = requestContext.getMethod();
+			if (!method.equals(HttpMethod.GET) && !method.equals(HttpMethod.HEAD)) {
+				writes.incrementAndGet();
+			}
+		}
+	}
+}
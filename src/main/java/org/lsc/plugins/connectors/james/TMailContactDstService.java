@@ -6,7 +6,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import javax.ws.rs.NotFoundException;
 import javax.ws.rs.ProcessingException;
 import javax.ws.rs.WebApplicationException;
 
@@ -23,6 +22,8 @@ import org.lsc.plugins.connectors.james.beans.User;
 import org.lsc.plugins.connectors.james.config.SyncContactConfig;
 import org.lsc.plugins.connectors.james.generated.JamesService;
 import org.lsc.plugins.connectors.james.generated.TMailContactService;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
 import org.lsc.service.IWritableService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,8 +37,12 @@ public class TMailContactDstService implements IWritableService {
     private static final Logger LOGGER = LoggerFactory.getLogger(TMailContactDstService.class);
 
     private final JamesDao jamesDao;
+    private final Optional<PlanWriter> planWriter;
+    private final Optional<WriteBehindQueue> writeBehind;
+    private final TaskMonitor monitor;
     private final JamesService service;
     private final Class<IBean> beanClass;
+    private final BeanFactory beanFactory;
 
     public TMailContactDstService(final TaskType task) throws LscServiceConfigurationException {
         try {
@@ -48,9 +53,13 @@ public class TMailContactDstService implements IWritableService {
             } else {
                 this.service = (JamesService) task.getPluginDestinationService().getAny().get(0);
                 this.beanClass = (Class<IBean>) Class.forName(task.getBean());
+                this.beanFactory = BeanFactory.of(beanClass);
                 LOGGER.debug("Task bean is: " + task.getBean());
                 PluginConnectionType connection = (PluginConnectionType) service.getConnection().getReference();
                 this.jamesDao = new JamesDao(connection.getUrl(), connection.getPassword(), task);
+                this.planWriter = PlanWriter.shared();
+                this.writeBehind = WriteBehindQueue.shared();
+                this.monitor = TaskMonitor.forService(task.getName(), Aspect.CONTACT.label());
             }
         } catch (ClassNotFoundException e) {
             throw new LscServiceConfigurationException(e);
@@ -63,6 +72,16 @@ public class TMailContactDstService implements IWritableService {
             LOGGER.error("MainIdentifier is needed to update");
             return false;
         }
+        if (planWriter.isPresent()) {
+            return planWriter.get().record(Aspect.CONTACT, lscModifications);
+        }
+        if (writeBehind.isPresent()) {
+            return writeBehind.get().submit(Aspect.CONTACT, lscModifications, modifications -> monitor.write(modifications, this::write));
+        }
+        return monitor.write(lscModifications, this::write);
+    }
+
+    private boolean write(LscModifications lscModifications) throws LscServiceException {
         String email = lscModifications.getMainIdentifier();
         if (!SyncContactConfig.DOMAIN_LIST_TO_SYNCHRONIZE.isPresent() || SyncContactConfig.DOMAIN_LIST_TO_SYNCHRONIZE.get().contains(Contact.extractDomainFromEmail(email))) {
             LOGGER.debug("User: {}, Operation: {}", email, lscModifications.getOperation());
@@ -103,6 +122,10 @@ public class TMailContactDstService implements IWritableService {
 
     @Override
     public IBean getBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
+        return monitor.getBean(pivotName, pivotAttributes, () -> fetchBean(pivotName, pivotAttributes, fromSameService));
+    }
+
+    private IBean fetchBean(String pivotName, LscDatasets pivotAttributes, boolean fromSameService) throws LscServiceException {
         LOGGER.debug(String.format("Call to getBean(%s, %s, %b)", pivotName, pivotAttributes, fromSameService));
         if (pivotAttributes.getAttributesNames().isEmpty()) {
             return null;
@@ -114,8 +137,12 @@ public class TMailContactDstService implements IWritableService {
         }
         try {
             if (!SyncContactConfig.DOMAIN_LIST_TO_SYNCHRONIZE.isPresent() || SyncContactConfig.DOMAIN_LIST_TO_SYNCHRONIZE.get().contains(Contact.extractDomainFromEmail(email))) {
-                Contact contact = jamesDao.getContact(email);
-                return contactToBean(contact);
+                Optional<Contact> contact = jamesDao.findContact(email);
+                if (!contact.isPresent()) {
+                    LOGGER.debug(String.format("%s/%s not found", pivotName, email));
+                    return null;
+                }
+                return contactToBean(contact.get());
             } else {
                 LOGGER.debug("Not wished synchronize domain: " + Contact.extractDomainFromEmail(email));
                 return null;
@@ -125,9 +152,6 @@ public class TMailContactDstService implements IWritableService {
                 pivotName, email, e));
             LOGGER.error(e.toString(), e);
             throw new LscServiceCommunicationException(e);
-        } catch (NotFoundException e) {
-            LOGGER.debug(String.format("%s/%s not found", pivotName, email));
-            return null;
         } catch (WebApplicationException e) {
             LOGGER.error(String.format("WebApplicationException while getting bean %s/%s (%s)",
                 pivotName, email, e));
@@ -147,6 +171,10 @@ public class TMailContactDstService implements IWritableService {
 
     @Override
     public Map<String, LscDatasets> getListPivots() throws LscServiceException {
+        return monitor.listPivots(this::fetchPivots);
+    }
+
+    private Map<String, LscDatasets> fetchPivots() throws LscServiceException {
         try {
             List<User> userList = getDomainContacts();
             Map<String, LscDatasets> listPivots = new HashMap<>();
@@ -188,13 +216,10 @@ public class TMailContactDstService implements IWritableService {
     }
 
     private IBean contactToBean(Contact contact) throws InstantiationException, IllegalAccessException {
-        IBean bean = beanClass.newInstance();
-        bean.setMainIdentifier(contact.getEmailAddress());
-        bean.setDatasets(toDataset(contact));
-        return bean;
+        return beanFactory.newBean(contact.getEmailAddress(), toDataset(contact));
     }
 
-    private LscDatasets toDataset(Contact contact) {
+    static LscDatasets toDataset(Contact contact) {
         LscDatasets datasets = new LscDatasets();
         datasets.put(EMAIL_KEY, contact.getEmailAddress());
         contact.getFirstname().ifPresent(firstname -> datasets.put(FIRSTNAME_KEY, firstname));
@@ -0,0 +1,61 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Creates the threads of the executors of the plugin which wait for webadmin: the concurrent reads and pivot listings
+ * of the composite service, the provisioning pipeline, the write-behind lanes and the plan applier. Timers stay on
+ * platform threads.
+ *
+ * On Java 21 and later these are virtual threads, unless the {@value #VIRTUAL_PROPERTY} JVM property is false: a
+ * blocking webadmin call then parks its virtual thread instead of holding a platform thread, so that the parallelism
+ * of these executors can be raised to thousands without sizing thread stacks. The virtual thread factory is built in
+ * the Java 21 part of the multi-release plugin jar, so it is loaded by name; older runtimes use platform threads.
+ * Both are daemon threads.
+ */
+public final class Threads {
+	public static final String VIRTUAL_PROPERTY = "tmail.threads.virtual";
+	private static final String VIRTUAL_FACTORY_CLASS = "org.lsc.plugins.connectors.james.VirtualThreadFactory";
+	private static final Logger LOGGER = LoggerFactory.getLogger(Threads.class);
+	private static final Optional<Function<String, ThreadFactory>> VIRTUAL = loadVirtual();
+
+	private Threads() {
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Optional<Function<String, ThreadFactory>> loadVirtual() {
+		if (!Boolean.parseBoolean(System.getProperty(VIRTUAL_PROPERTY, "true"))) {
+			return Optional.empty();
+		}
+		try {
+			Function<String, ThreadFactory> factory = (Function<String, ThreadFactory>) Class.forName(VIRTUAL_FACTORY_CLASS)
+				.getDeclaredConstructor()
+				.newInstance();
+			LOGGER.info("The executors of the plugin run on virtual threads");
+			return Optional.of(factory);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			LOGGER.debug("Virtual threads require Java 21, the executors of the plugin run on platform threads ({})", e.toString());
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @param prefix the prefix of the thread names, followed by a sequence number
+	 * @return a factory of virtual threads when available, of daemon platform threads otherwise
+	 */
+	public static ThreadFactory factory(String prefix) {
+		return VIRTUAL.map(factory -> factory.apply(prefix))
+			.orElseGet(() -> new ThreadFactoryBuilder().setNameFormat(prefix + "%d").setDaemon(true).build());
+	}
+
+	public static boolean isVirtual() {
+		return VIRTUAL.isPresent();
+	}
+}
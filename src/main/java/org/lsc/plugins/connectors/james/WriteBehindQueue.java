@@ -0,0 +1,281 @@
+package org.lsc.plugins.connectors.james;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.lsc.LscModifications;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies the modifications of the destination services in background threads, so that LSC keeps reading and
+ * comparing entries while TMail writes are in flight.
+ *
+ * The queue is enabled with the {@value #ENABLED_PROPERTY} JVM property and shared by all the tasks of a run.
+ * Modifications are spread over {@value #THREADS_PROPERTY} lanes by user, each lane being drained by its own thread,
+ * so that the modifications of a user are applied in the order LSC submitted them. When a lane is full, apply blocks
+ * until a slot frees up. Modifications which fail are appended to the {@value #FAILURES_FILE_PROPERTY} plan file,
+ * which can be applied again with {@link org.lsc.plugins.connectors.james.plan.PlanApplier}, each failure being flushed
+ * to the file once recorded.
+ *
+ * The queue is flushed by the end of run hook, which must not hold the JVM with webadmin calls: a container runtime
+ * kills it after a short grace period. The modifications still queued after {@value #FLUSH_TIMEOUT_PROPERTY} seconds
+ * are not applied but written to the failures file, to be applied again with the other failures.
+ */
+public class WriteBehindQueue {
+	public static final String ENABLED_PROPERTY = "tmail.write.behind.enabled";
+	public static final String THREADS_PROPERTY = "tmail.write.behind.threads";
+	public static final String CAPACITY_PROPERTY = "tmail.write.behind.capacity";
+	public static final String FAILURES_FILE_PROPERTY = "tmail.write.behind.failures";
+	public static final String FLUSH_TIMEOUT_PROPERTY = "tmail.write.behind.flush.timeout";
+	public static final int DEFAULT_THREADS = 8;
+	public static final int DEFAULT_CAPACITY = 10_000;
+	public static final String DEFAULT_FAILURES_FILE = "write-behind-failures.ndjson";
+	public static final long DEFAULT_FLUSH_TIMEOUT_IN_SECONDS = 30;
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+	@FunctionalInterface
+	public interface Writer {
+		boolean write(LscModifications modifications) throws LscServiceException;
+	}
+
+	private static class Write {
+		private static final Write END_OF_LANE = new Write(null, null, null);
+
+		private final Aspect aspect;
+		private final LscModifications modifications;
+		private final Writer writer;
+
+		private Write(Aspect aspect, LscModifications modifications, Writer writer) {
+			this.aspect = aspect;
+			this.modifications = modifications;
+			this.writer = writer;
+		}
+	}
+
+	private static Optional<WriteBehindQueue> shared;
+
+	/**
+	 * @return the write-behind queue of this run, or empty when it is not enabled
+	 */
+	public static synchronized Optional<WriteBehindQueue> shared() {
+		if (shared == null) {
+			shared = Optional.of(Boolean.getBoolean(ENABLED_PROPERTY))
+				.filter(enabled -> enabled)
+				.map(enabled -> openShared());
+		}
+		return shared;
+	}
+
+	private static WriteBehindQueue openShared() {
+		Path failuresFile = Paths.get(System.getProperty(FAILURES_FILE_PROPERTY, DEFAULT_FAILURES_FILE));
+		try {
+			int threads = Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS);
+			int capacity = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+			long flushTimeoutInSeconds = Long.getLong(FLUSH_TIMEOUT_PROPERTY, DEFAULT_FLUSH_TIMEOUT_IN_SECONDS);
+			WriteBehindQueue queue = new WriteBehindQueue(threads, capacity, new PlanWriter(failuresFile), flushTimeoutInSeconds);
+			LOGGER.info("Write-behind enabled with {} threads, failed modifications are written to {}", threads, failuresFile);
+			EndOfRun.register(EndOfRun.Stage.FLUSH, "write-behind queue", queue::flush);
+			EndOfRun.register(EndOfRun.Stage.CLOSE, "write-behind failures " + failuresFile, () -> queue.closeFailures(failuresFile));
+			return queue;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open write-behind failures file " + failuresFile, e);
+		}
+	}
+
+	private final List<BlockingQueue<Write>> lanes;
+	private final List<Thread> threads;
+	private final PlanWriter failures;
+	private final AtomicLong written;
+	private final AtomicLong failed;
+	private final AtomicLong unapplied;
+	private final long flushTimeoutInSeconds;
+	// Held for reading while queuing, for writing while marking the queue flushed, so that no write is queued once
+	// the flush polled the lanes for the last time
+	private final ReadWriteLock flushLock;
+	private boolean flushed;
+	// Set once the flush timed out, the lane threads then record the writes they take instead of applying them
+	private volatile boolean abandoned;
+
+	WriteBehindQueue(int threadCount, int capacity, PlanWriter failures) {
+		this(threadCount, capacity, failures, DEFAULT_FLUSH_TIMEOUT_IN_SECONDS);
+	}
+
+	WriteBehindQueue(int threadCount, int capacity, PlanWriter failures, long flushTimeoutInSeconds) {
+		this.lanes = new ArrayList<>(threadCount);
+		this.threads = new ArrayList<>(threadCount);
+		this.failures = failures;
+		this.written = new AtomicLong();
+		this.failed = new AtomicLong();
+		this.unapplied = new AtomicLong();
+		this.flushTimeoutInSeconds = flushTimeoutInSeconds;
+		this.flushLock = new ReentrantReadWriteLock();
+		int laneCapacity = Math.max(1, capacity / threadCount);
+		// Flushed by the end of run hook, the daemon threads must not prevent the JVM from exiting
+		ThreadFactory threadFactory = Threads.factory("tmail-write-behind-");
+		for (int i = 0; i < threadCount; i++) {
+			BlockingQueue<Write> lane = new ArrayBlockingQueue<>(laneCapacity);
+			Thread thread = threadFactory.newThread(() -> drain(lane));
+			lanes.add(lane);
+			threads.add(thread);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Queue a modification, waiting for room in the queue if needed. The modification is applied synchronously once
+	 * the queue has been flushed.
+	 *
+	 * @return true once queued: failures are reported to the failures file rather than to LSC
+	 */
+	public boolean submit(Aspect aspect, LscModifications modifications, Writer writer) throws LscServiceException {
+		if (modifications.getOperation() == null) {
+			LOGGER.error("Operation is needed to update {}", modifications.getMainIdentifier());
+			return false;
+		}
+		flushLock.readLock().lock();
+		try {
+			if (!flushed) {
+				laneOf(modifications.getMainIdentifier()).put(new Write(aspect, modifications, writer));
+				return true;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.error("Interrupted while queuing {} {} for {}", aspect, modifications.getOperation(), modifications.getMainIdentifier());
+			return false;
+		} finally {
+			flushLock.readLock().unlock();
+		}
+		return writer.write(modifications);
+	}
+
+	private BlockingQueue<Write> laneOf(String identifier) {
+		return lanes.get(Math.floorMod(identifier.hashCode(), lanes.size()));
+	}
+
+	private void drain(BlockingQueue<Write> lane) {
+		while (true) {
+			Write write;
+			try {
+				write = lane.take();
+			} catch (InterruptedException e) {
+				LOGGER.error("Write-behind thread interrupted with {} modifications queued", lane.size());
+				return;
+			}
+			if (write == Write.END_OF_LANE) {
+				return;
+			}
+			if (abandoned) {
+				abandon(write);
+			} else {
+				apply(write);
+			}
+		}
+	}
+
+	private void apply(Write write) {
+		boolean success;
+		try {
+			success = write.writer.write(write.modifications);
+		} catch (LscServiceException | RuntimeException e) {
+			LOGGER.error("Failed to apply {} {} for {}", write.aspect, write.modifications.getOperation(), write.modifications.getMainIdentifier(), e);
+			success = false;
+		}
+		if (success) {
+			written.incrementAndGet();
+		} else {
+			failures.record(write.aspect, write.modifications);
+			failed.incrementAndGet();
+		}
+	}
+
+	private void abandon(Write write) {
+		failures.record(write.aspect, write.modifications);
+		unapplied.incrementAndGet();
+	}
+
+	/**
+	 * Apply the queued modifications for at most {@value #FLUSH_TIMEOUT_PROPERTY} seconds, the modifications still
+	 * queued afterwards being written to the failures file. Later modifications are applied synchronously.
+	 */
+	public void flush() {
+		// Waits for the writes being queued, the lane threads making room for them
+		flushLock.writeLock().lock();
+		try {
+			flushed = true;
+		} finally {
+			flushLock.writeLock().unlock();
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(flushTimeoutInSeconds);
+		try {
+			for (BlockingQueue<Write> lane : lanes) {
+				if (!lane.offer(Write.END_OF_LANE, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+					break;
+				}
+			}
+			// No modification is queued after the end of its lane, the lane threads apply them all
+			for (Thread thread : threads) {
+				TimeUnit.NANOSECONDS.timedJoin(thread, deadline - System.nanoTime());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.error("Interrupted while flushing the write-behind queue");
+		}
+		long applying = threads.stream().filter(Thread::isAlive).count();
+		if (applying > 0) {
+			abandoned = true;
+			List<Write> queued = new ArrayList<>();
+			lanes.forEach(lane -> lane.drainTo(queued));
+			queued.stream()
+				.filter(write -> write != Write.END_OF_LANE)
+				.forEach(this::abandon);
+			LOGGER.error("Write-behind queue not flushed after {} seconds, {} lanes were still applying modifications: "
+				+ "the modifications they had queued were written to the failures file", flushTimeoutInSeconds, applying);
+		}
+		LOGGER.info("Write-behind queue flushed: {} modifications applied, {} failed, {} not applied before the flush timeout",
+			written.get(), failed.get(), unapplied.get());
+	}
+
+	private void closeFailures(Path failuresFile) {
+		try {
+			failures.close();
+			if (failures.getEntryCount() == 0) {
+				Files.deleteIfExists(failuresFile);
+			} else {
+				LOGGER.error("{} modifications failed, they were written to {}", failures.getEntryCount(), failuresFile);
+			}
+		} catch (IOException e) {
+			LOGGER.error("Unable to close the write-behind failures file", e);
+		}
+	}
+
+	public long getWrittenCount() {
+		return written.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * @return the number of modifications written to the failures file without being applied, as the flush timed out
+	 */
+	public long getUnappliedCount() {
+		return unapplied.get();
+	}
+}
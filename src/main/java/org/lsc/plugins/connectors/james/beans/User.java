@@ -42,10 +42,27 @@
  */
 package org.lsc.plugins.connectors.james.beans;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.lsc.LscDatasets;
 
+import com.google.common.collect.ImmutableMap;
+
 public class User {
 
+	/**
+	 * @return the LSC pivots of the given users, by email
+	 */
+	public static Map<String, LscDatasets> toPivots(List<User> users) {
+		Map<String, LscDatasets> pivots = new HashMap<>();
+		for (User user : users) {
+			pivots.put(user.email, user.toDatasets());
+		}
+		return ImmutableMap.copyOf(pivots);
+	}
+
 	public User(String email) {
 		this.email = email;
 	}
@@ -0,0 +1,44 @@
+package org.lsc.plugins.connectors.james.generated;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+import org.lsc.configuration.ValuesType;
+
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "", propOrder = {
+    "aspects"
+})
+@XmlRootElement(name = "jamesCompositeService", namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd")
+public class JamesCompositeService extends JamesService {
+
+    @XmlElement(namespace = "http://lsc-project.org/XSD/lsc-james0-plugin-1.0.xsd", required = true)
+    protected ValuesType aspects;
+
+    /**
+     * Gets the value of the aspects property.
+     *
+     * @return
+     *     possible object is
+     *     {@link ValuesType }
+     *
+     */
+    public ValuesType getAspects() {
+        return aspects;
+    }
+
+    /**
+     * Sets the value of the aspects property.
+     *
+     * @param value
+     *     allowed object is
+     *     {@link ValuesType }
+     *
+     */
+    public void setAspects(ValuesType value) {
+        this.aspects = value;
+    }
+}
@@ -91,4 +91,12 @@ public class ObjectFactory {
     public TMailContactService createTMailContactService() {
         return new TMailContactService();
     }
+
+    /**
+     * Create an instance of {@link JamesCompositeService }
+     *
+     */
+    public JamesCompositeService createJamesCompositeService() {
+        return new JamesCompositeService();
+    }
 }
@@ -0,0 +1,30 @@
+package org.lsc.plugins.connectors.james.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.lsc.plugins.connectors.james.Apply")
+@Label("Apply")
+@Category({"TMail LSC", "Synchronization"})
+@Description("Modifications of one pivot applied by a destination service")
+@StackTrace(false)
+class ApplyEvent extends jdk.jfr.Event {
+	@Label("Task")
+	String task;
+
+	@Label("Service")
+	String service;
+
+	@Label("Pivot")
+	String pivot;
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Outcome")
+	@Description("success, failure or error when an exception was thrown")
+	String outcome;
+}
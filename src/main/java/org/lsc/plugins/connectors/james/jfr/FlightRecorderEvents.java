@@ -0,0 +1,98 @@
+package org.lsc.plugins.connectors.james.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * Emits the JDK Flight Recorder events of the plugin: {@code org.lsc.plugins.connectors.james.WebadminCall},
+ * {@code org.lsc.plugins.connectors.james.Apply} and {@code org.lsc.plugins.connectors.james.PivotListing}.
+ *
+ * Events are only created while a recording enables them, so this costs a boolean check otherwise. The event classes
+ * are only loaded when the JVM provides the {@code jdk.jfr} API, which Java 8 runtimes older than 8u262 do not.
+ * Callers hold the events as opaque objects for that reason.
+ */
+public final class FlightRecorderEvents {
+	public static final boolean AVAILABLE = isAvailable();
+
+	private static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.EventType");
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Referencing the event types triggers their registration, so they are held by a class loaded on first use.
+	 */
+	static final class Types {
+		static final EventType WEBADMIN_CALL = EventType.getEventType(WebadminCallEvent.class);
+		static final EventType APPLY = EventType.getEventType(ApplyEvent.class);
+		static final EventType PIVOT_LISTING = EventType.getEventType(PivotListingEvent.class);
+
+		private Types() {
+		}
+	}
+
+	private FlightRecorderEvents() {
+	}
+
+	/**
+	 * @return the started apply event, or null when it is not recorded
+	 */
+	public static Object beginApply() {
+		if (!AVAILABLE || !Types.APPLY.isEnabled()) {
+			return null;
+		}
+		ApplyEvent event = new ApplyEvent();
+		event.begin();
+		return event;
+	}
+
+	public static void commitApply(Object started, String task, String service, String pivot, Object operation, String outcome) {
+		if (started == null) {
+			return;
+		}
+		ApplyEvent event = (ApplyEvent) started;
+		event.end();
+		event.task = task;
+		event.service = service;
+		event.pivot = pivot;
+		event.operation = String.valueOf(operation);
+		event.outcome = outcome;
+		event.commit();
+	}
+
+	/**
+	 * @return the started pivot listing event, or null when it is not recorded
+	 */
+	public static Object beginPivotListing() {
+		if (!AVAILABLE || !Types.PIVOT_LISTING.isEnabled()) {
+			return null;
+		}
+		PivotListingEvent event = new PivotListingEvent();
+		event.begin();
+		return event;
+	}
+
+	public static void commitPivotListing(Object started, String task, String service, long pivots) {
+		if (started == null) {
+			return;
+		}
+		PivotListingEvent event = (PivotListingEvent) started;
+		event.end();
+		event.task = task;
+		event.service = service;
+		event.pivots = pivots;
+		event.commit();
+	}
+
+	static WebadminCallEvent beginWebadminCall() {
+		if (!Types.WEBADMIN_CALL.isEnabled()) {
+			return null;
+		}
+		WebadminCallEvent event = new WebadminCallEvent();
+		event.begin();
+		return event;
+	}
+}
@@ -0,0 +1,71 @@
+package org.lsc.plugins.connectors.james.jfr;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+
+/**
+ * Emits a {@code WebadminCall} Flight Recorder event per call of one Jersey client. It is only registered when
+ * {@link FlightRecorderEvents#AVAILABLE}. As for the metrics, calls which get no response are not recorded.
+ */
+public class FlightRecorderFilter implements ClientRequestFilter, ClientResponseFilter, WriterInterceptor {
+	private static final String EVENT_PROPERTY = FlightRecorderFilter.class.getName() + ".event";
+
+	private final Endpoint endpoint;
+
+	public FlightRecorderFilter(Endpoint endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	@Override
+	public void filter(ClientRequestContext requestContext) {
+		WebadminCallEvent event = FlightRecorderEvents.beginWebadminCall();
+		if (event != null) {
+			requestContext.setProperty(EVENT_PROPERTY, event);
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+		WebadminCallEvent event = (WebadminCallEvent) context.getProperty(EVENT_PROPERTY);
+		if (event != null) {
+			context.setOutputStream(new FilterOutputStream(context.getOutputStream()) {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					event.requestBytes++;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					event.requestBytes += len;
+				}
+			});
+		}
+		context.proceed();
+	}
+
+	@Override
+	public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+		WebadminCallEvent event = (WebadminCallEvent) requestContext.getProperty(EVENT_PROPERTY);
+		if (event == null) {
+			return;
+		}
+		event.end();
+		event.endpoint = endpoint.label();
+		event.method = requestContext.getMethod();
+		event.status = responseContext.getStatus();
+		event.responseBytes = responseContext.getLength();
+		event.commit();
+	}
+}
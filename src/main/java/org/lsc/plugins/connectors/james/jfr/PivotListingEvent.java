@@ -0,0 +1,24 @@
+package org.lsc.plugins.connectors.james.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.lsc.plugins.connectors.james.PivotListing")
+@Label("Pivot Listing")
+@Category({"TMail LSC", "Synchronization"})
+@Description("Listing of the pivots of a destination service")
+@StackTrace(false)
+class PivotListingEvent extends jdk.jfr.Event {
+	@Label("Task")
+	String task;
+
+	@Label("Service")
+	String service;
+
+	@Label("Pivots")
+	@Description("Number of pivots listed, -1 when the listing failed")
+	long pivots;
+}
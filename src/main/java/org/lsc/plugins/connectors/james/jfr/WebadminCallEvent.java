@@ -0,0 +1,35 @@
+package org.lsc.plugins.connectors.james.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.lsc.plugins.connectors.james.WebadminCall")
+@Label("Webadmin Call")
+@Category({"TMail LSC", "Webadmin"})
+@Description("A call of the TMail webadmin API, until its response headers are received")
+@StackTrace(false)
+class WebadminCallEvent extends jdk.jfr.Event {
+	@Label("Endpoint")
+	@Description("Family of webadmin routes")
+	String endpoint;
+
+	@Label("Method")
+	String method;
+
+	@Label("Status")
+	@Description("HTTP status of the response")
+	int status;
+
+	@Label("Request Bytes")
+	@DataAmount
+	long requestBytes;
+
+	@Label("Response Bytes")
+	@Description("Content length of the response, -1 when unknown")
+	@DataAmount
+	long responseBytes;
+}
@@ -0,0 +1,18 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+/**
+ * The families of webadmin routes called by {@link org.lsc.plugins.connectors.james.JamesDao}, one per HTTP client.
+ */
+public enum Endpoint {
+	ALIASES,
+	FORWARDS,
+	QUOTAS,
+	IDENTITIES,
+	USERS,
+	CONTACTS,
+	MAPPINGS;
+
+	public String label() {
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,76 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the calls of one HTTP method on one endpoint family.
+ */
+public class EndpointMetrics {
+	private final Endpoint endpoint;
+	private final String method;
+	private final LongAdder[] statusCounts;
+	private final LongAdder bytesIn;
+	private final LongAdder bytesOut;
+	private final LatencyHistogram latency;
+
+	EndpointMetrics(Endpoint endpoint, String method) {
+		this.endpoint = endpoint;
+		this.method = method;
+		this.statusCounts = new LongAdder[StatusClass.values().length];
+		for (int i = 0; i < statusCounts.length; i++) {
+			statusCounts[i] = new LongAdder();
+		}
+		this.bytesIn = new LongAdder();
+		this.bytesOut = new LongAdder();
+		this.latency = new LatencyHistogram();
+	}
+
+	public void recordCall(int status, long durationMicros) {
+		statusCounts[StatusClass.of(status).ordinal()].increment();
+		latency.record(durationMicros);
+	}
+
+	/**
+	 * Records a call which got no response, its latency being the time until it failed
+	 */
+	public void recordTransportError(long durationMicros) {
+		statusCounts[StatusClass.TRANSPORT_ERROR.ordinal()].increment();
+		latency.record(durationMicros);
+	}
+
+	public void addBytesIn(long bytes) {
+		bytesIn.add(bytes);
+	}
+
+	public void addBytesOut(long bytes) {
+		bytesOut.add(bytes);
+	}
+
+	public Endpoint getEndpoint() {
+		return endpoint;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public long getCount(StatusClass statusClass) {
+		return statusCounts[statusClass.ordinal()].sum();
+	}
+
+	public long getRequestCount() {
+		return latency.getCount();
+	}
+
+	public long getBytesIn() {
+		return bytesIn.sum();
+	}
+
+	public long getBytesOut() {
+		return bytesOut.sum();
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+}
@@ -0,0 +1,24 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs one summary line per endpoint and method.
+ */
+public class LoggingMetricsExporter implements MetricsExporter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoggingMetricsExporter.class);
+
+	@Override
+	public void export(MetricsRegistry registry) {
+		for (EndpointMetrics metrics : registry.getEndpointMetrics()) {
+			LatencyHistogram latency = metrics.getLatency();
+			LOGGER.info("{} {}: {} calls (2xx={}, 4xx={}, 5xx={}, transport={}), p50={}ms p95={}ms p99={}ms, {} bytes sent, {} bytes received",
+				metrics.getMethod(), metrics.getEndpoint().label(), metrics.getRequestCount(),
+				metrics.getCount(StatusClass.SUCCESS), metrics.getCount(StatusClass.CLIENT_ERROR),
+				metrics.getCount(StatusClass.SERVER_ERROR), metrics.getCount(StatusClass.TRANSPORT_ERROR),
+				latency.quantileMicros(0.5) / 1000, latency.quantileMicros(0.95) / 1000, latency.quantileMicros(0.99) / 1000,
+				metrics.getBytesOut(), metrics.getBytesIn());
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.io.IOException;
+
+/**
+ * Publishes the content of the {@link MetricsRegistry}. Implementations are listed in the
+ * {@value MetricsRegistry#EXPORTERS_PROPERTY} JVM property and need a public no-argument constructor.
+ */
+public interface MetricsExporter {
+	void export(MetricsRegistry registry) throws IOException;
+}
@@ -0,0 +1,200 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+
+/**
+ * Records the webadmin calls of one Jersey client in the {@link MetricsRegistry}. The latency is the time until the
+ * response headers are received, and a request is in flight until then. Jersey does not call response filters when
+ * no response is received, e.g. on a refused connection: such calls are reported by the connector of the client,
+ * wrapped with {@link #observe(Connector)}, which completes them and counts them as {@link StatusClass#TRANSPORT_ERROR}.
+ */
+public class MetricsFilter implements ClientRequestFilter, ClientResponseFilter, WriterInterceptor {
+	private static final String METRICS_PROPERTY = MetricsFilter.class.getName() + ".metrics";
+	private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+
+	private final Endpoint endpoint;
+	private final MetricsRegistry registry;
+
+	public MetricsFilter(Endpoint endpoint, MetricsRegistry registry) {
+		this.endpoint = endpoint;
+		this.registry = registry;
+	}
+
+	@Override
+	public void filter(ClientRequestContext requestContext) {
+		requestContext.setProperty(METRICS_PROPERTY, registry.forEndpoint(endpoint, requestContext.getMethod()));
+		requestContext.setProperty(START_PROPERTY, System.nanoTime());
+		registry.requestStarted();
+	}
+
+	@Override
+	public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+		EndpointMetrics metrics = (EndpointMetrics) requestContext.getProperty(METRICS_PROPERTY);
+		Long start = complete(requestContext);
+		if (metrics == null || start == null) {
+			return;
+		}
+		metrics.recordCall(responseContext.getStatus(), TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+		if (responseContext.hasEntity()) {
+			if (responseContext.getLength() >= 0) {
+				metrics.addBytesIn(responseContext.getLength());
+			} else {
+				responseContext.setEntityStream(new CountingInputStream(responseContext.getEntityStream(), metrics));
+			}
+		}
+	}
+
+	/**
+	 * @return the given connector, reporting to this filter the calls it gets no response for
+	 */
+	public Connector observe(Connector connector) {
+		return new ObservedConnector(connector);
+	}
+
+	private void callFailed(ClientRequestContext requestContext) {
+		EndpointMetrics metrics = (EndpointMetrics) requestContext.getProperty(METRICS_PROPERTY);
+		Long start = complete(requestContext);
+		if (metrics == null || start == null) {
+			return;
+		}
+		metrics.recordTransportError(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+	}
+
+	/**
+	 * Ends the flight of a request, at most once whether it got a response or failed
+	 *
+	 * @return the start of the request, or null when it was not started by this filter or is already completed
+	 */
+	private Long complete(ClientRequestContext requestContext) {
+		Long start = (Long) requestContext.getProperty(START_PROPERTY);
+		if (start != null) {
+			requestContext.removeProperty(START_PROPERTY);
+			registry.requestCompleted();
+		}
+		return start;
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+		EndpointMetrics metrics = (EndpointMetrics) context.getProperty(METRICS_PROPERTY);
+		if (metrics != null) {
+			context.setOutputStream(new CountingOutputStream(context.getOutputStream(), metrics));
+		}
+		context.proceed();
+	}
+
+	private static class CountingInputStream extends FilterInputStream {
+		private final EndpointMetrics metrics;
+
+		CountingInputStream(InputStream in, EndpointMetrics metrics) {
+			super(in);
+			this.metrics = metrics;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = super.read();
+			if (read >= 0) {
+				metrics.addBytesIn(1);
+			}
+			return read;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				metrics.addBytesIn(read);
+			}
+			return read;
+		}
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private final EndpointMetrics metrics;
+
+		CountingOutputStream(OutputStream out, EndpointMetrics metrics) {
+			super(out);
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			metrics.addBytesOut(1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			metrics.addBytesOut(len);
+		}
+	}
+
+	private class ObservedConnector implements Connector {
+		private final Connector connector;
+
+		ObservedConnector(Connector connector) {
+			this.connector = connector;
+		}
+
+		@Override
+		public ClientResponse apply(ClientRequest request) {
+			try {
+				return connector.apply(request);
+			} catch (RuntimeException e) {
+				callFailed(request);
+				throw e;
+			}
+		}
+
+		@Override
+		public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+			try {
+				return connector.apply(request, new AsyncConnectorCallback() {
+					@Override
+					public void response(ClientResponse response) {
+						callback.response(response);
+					}
+
+					@Override
+					public void failure(Throwable failure) {
+						callFailed(request);
+						callback.failure(failure);
+					}
+				});
+			} catch (RuntimeException e) {
+				callFailed(request);
+				throw e;
+			}
+		}
+
+		@Override
+		public String getName() {
+			return connector.getName();
+		}
+
+		@Override
+		public void close() {
+			connector.close();
+		}
+	}
+}
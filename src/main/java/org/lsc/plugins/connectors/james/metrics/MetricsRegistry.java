@@ -0,0 +1,188 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lsc.plugins.connectors.james.EndOfRun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Metrics of the webadmin calls of all the {@link org.lsc.plugins.connectors.james.JamesDao} of a run, per endpoint
+ * family and HTTP method: calls by status class, latency quantiles, bytes sent and received.
+ *
+ * Metrics are always collected, and exposed as the {@code org.lsc.plugins.connectors.james:type=Webadmin} MBean. They are exported at the end of the run, and every
+ * {@value #EXPORT_PERIOD_PROPERTY} seconds when set, by the exporters listed in {@value #EXPORTERS_PROPERTY}.
+ */
+public class MetricsRegistry implements MetricsRegistryMBean {
+	public static final String EXPORTERS_PROPERTY = "tmail.metrics.exporters";
+	public static final String EXPORT_PERIOD_PROPERTY = "tmail.metrics.export.period";
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRegistry.class);
+	private static final Map<String, String> EXPORTER_ALIASES = ImmutableMap.of(
+		"prometheus", PrometheusTextFileExporter.class.getName(),
+		"log", LoggingMetricsExporter.class.getName());
+
+	private static MetricsRegistry shared;
+
+	public static synchronized MetricsRegistry shared() {
+		if (shared == null) {
+			shared = new MetricsRegistry();
+			TaskMonitor.register(shared, "type=Webadmin");
+			List<MetricsExporter> exporters = exportersFromProperties();
+			if (!exporters.isEmpty()) {
+				shared.startExporting(exporters, Long.getLong(EXPORT_PERIOD_PROPERTY, 0));
+			}
+			RunReport.fromProperties(shared).ifPresent(report ->
+				EndOfRun.register(EndOfRun.Stage.EXPORT, "run report", report::writeQuietly));
+		}
+		return shared;
+	}
+
+	private static List<MetricsExporter> exportersFromProperties() {
+		List<MetricsExporter> exporters = new ArrayList<>();
+		for (String name : Splitter.on(',').trimResults().omitEmptyStrings().split(System.getProperty(EXPORTERS_PROPERTY, ""))) {
+			String className = EXPORTER_ALIASES.getOrDefault(name, name);
+			try {
+				exporters.add((MetricsExporter) Class.forName(className).newInstance());
+			} catch (ReflectiveOperationException | ClassCastException e) {
+				LOGGER.error("Unable to instantiate metrics exporter {}, it is ignored", className, e);
+			}
+		}
+		return exporters;
+	}
+
+	private final Map<Endpoint, ConcurrentHashMap<String, EndpointMetrics>> metrics;
+	private final Map<String, Cache<?, ?>> caches;
+	private final LongAdder inFlightRequests;
+
+	public MetricsRegistry() {
+		this.inFlightRequests = new LongAdder();
+		this.caches = new ConcurrentSkipListMap<>();
+		this.metrics = new EnumMap<>(Endpoint.class);
+		for (Endpoint endpoint : Endpoint.values()) {
+			metrics.put(endpoint, new ConcurrentHashMap<>());
+		}
+	}
+
+	public EndpointMetrics forEndpoint(Endpoint endpoint, String method) {
+		ConcurrentHashMap<String, EndpointMetrics> endpointMetrics = metrics.get(endpoint);
+		EndpointMetrics methodMetrics = endpointMetrics.get(method);
+		if (methodMetrics == null) {
+			methodMetrics = endpointMetrics.computeIfAbsent(method, key -> new EndpointMetrics(endpoint, key));
+		}
+		return methodMetrics;
+	}
+
+	/**
+	 * @return the metrics of each endpoint and method called so far
+	 */
+	public Collection<EndpointMetrics> getEndpointMetrics() {
+		List<EndpointMetrics> all = new ArrayList<>();
+		metrics.values().forEach(endpointMetrics -> all.addAll(endpointMetrics.values()));
+		return all;
+	}
+
+	/**
+	 * Report the hit ratio of a cache, which must record its stats.
+	 */
+	public void registerCache(String name, Cache<?, ?> cache) {
+		caches.put(name, cache);
+	}
+
+	/**
+	 * @return the stats of each registered cache, by name
+	 */
+	public Map<String, CacheStats> getCacheStats() {
+		Map<String, CacheStats> stats = new TreeMap<>();
+		caches.forEach((name, cache) -> stats.put(name, cache.stats()));
+		return stats;
+	}
+
+	void requestStarted() {
+		inFlightRequests.increment();
+	}
+
+	void requestCompleted() {
+		inFlightRequests.decrement();
+	}
+
+	@Override
+	public long getRequestCount() {
+		return getEndpointMetrics().stream().mapToLong(EndpointMetrics::getRequestCount).sum();
+	}
+
+	@Override
+	public long getInFlightRequests() {
+		return inFlightRequests.sum();
+	}
+
+	@Override
+	public long getClientErrorCount() {
+		return getEndpointMetrics().stream().mapToLong(metrics -> metrics.getCount(StatusClass.CLIENT_ERROR)).sum();
+	}
+
+	@Override
+	public long getServerErrorCount() {
+		return getEndpointMetrics().stream().mapToLong(metrics -> metrics.getCount(StatusClass.SERVER_ERROR)).sum();
+	}
+
+	@Override
+	public long getTransportErrorCount() {
+		return getEndpointMetrics().stream().mapToLong(metrics -> metrics.getCount(StatusClass.TRANSPORT_ERROR)).sum();
+	}
+
+	@Override
+	public long getBytesSent() {
+		return getEndpointMetrics().stream().mapToLong(EndpointMetrics::getBytesOut).sum();
+	}
+
+	@Override
+	public long getBytesReceived() {
+		return getEndpointMetrics().stream().mapToLong(EndpointMetrics::getBytesIn).sum();
+	}
+
+	@Override
+	public String[] getEndpointSummaries() {
+		return getEndpointMetrics().stream()
+			.map(metrics -> String.format("%s %s: %d calls, p50=%dms p99=%dms",
+				metrics.getMethod(), metrics.getEndpoint().label(), metrics.getRequestCount(),
+				metrics.getLatency().quantileMicros(0.5) / 1000, metrics.getLatency().quantileMicros(0.99) / 1000))
+			.toArray(String[]::new);
+	}
+
+	private void startExporting(List<MetricsExporter> exporters, long periodInSeconds) {
+		if (periodInSeconds > 0) {
+			ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactoryBuilder().setNameFormat("tmail-metrics-export").setDaemon(true).build());
+			scheduler.scheduleAtFixedRate(() -> export(exporters), periodInSeconds, periodInSeconds, TimeUnit.SECONDS);
+		}
+		EndOfRun.register(EndOfRun.Stage.EXPORT, "metrics exporters", () -> export(exporters));
+	}
+
+	void export(List<MetricsExporter> exporters) {
+		for (MetricsExporter exporter : exporters) {
+			try {
+				exporter.export(this);
+			} catch (IOException | RuntimeException e) {
+				LOGGER.error("Metrics exporter {} failed", exporter.getClass().getName(), e);
+			}
+		}
+	}
+}
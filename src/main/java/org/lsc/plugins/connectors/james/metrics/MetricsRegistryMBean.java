@@ -0,0 +1,25 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+public interface MetricsRegistryMBean {
+	long getRequestCount();
+
+	long getInFlightRequests();
+
+	long getClientErrorCount();
+
+	long getServerErrorCount();
+
+	/**
+	 * @return the number of calls which got no response
+	 */
+	long getTransportErrorCount();
+
+	long getBytesSent();
+
+	long getBytesReceived();
+
+	/**
+	 * @return one summary line per endpoint family and HTTP method
+	 */
+	String[] getEndpointSummaries();
+}
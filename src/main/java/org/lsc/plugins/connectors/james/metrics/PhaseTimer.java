@@ -0,0 +1,59 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time spent in one phase of a task (listing, getBean or apply), possibly by several threads at once.
+ */
+public class PhaseTimer {
+	private final LongAdder calls;
+	private final LongAdder busyNanos;
+	private final LongAccumulator firstStart;
+	private final LongAccumulator lastEnd;
+	private final AtomicLong maxNanos;
+
+	public PhaseTimer() {
+		this.calls = new LongAdder();
+		this.busyNanos = new LongAdder();
+		this.firstStart = new LongAccumulator(Math::min, Long.MAX_VALUE);
+		this.lastEnd = new LongAccumulator(Math::max, Long.MIN_VALUE);
+		this.maxNanos = new AtomicLong();
+	}
+
+	public void record(long startNanos, long endNanos) {
+		long duration = endNanos - startNanos;
+		calls.increment();
+		busyNanos.add(duration);
+		firstStart.accumulate(startNanos);
+		lastEnd.accumulate(endNanos);
+		maxNanos.accumulateAndGet(duration, Math::max);
+	}
+
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	/**
+	 * @return the cumulated duration of the calls, which exceeds the wall time when calls run concurrently
+	 */
+	public long getBusyMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(busyNanos.sum());
+	}
+
+	/**
+	 * @return the time between the start of the first call and the end of the last one
+	 */
+	public long getWallMillis() {
+		if (calls.sum() == 0) {
+			return 0;
+		}
+		return TimeUnit.NANOSECONDS.toMillis(lastEnd.get() - firstStart.get());
+	}
+
+	public long getMaxMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+	}
+}
@@ -0,0 +1,89 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Writes the metrics in the Prometheus text exposition format, to be collected by the textfile collector of the
+ * node exporter. The file, set by {@value #FILE_PROPERTY}, is replaced atomically so that it is never read half
+ * written.
+ */
+public class PrometheusTextFileExporter implements MetricsExporter {
+	public static final String FILE_PROPERTY = "tmail.metrics.prometheus.file";
+	public static final String DEFAULT_FILE = "tmail-lsc.prom";
+	private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+	private final Path file;
+
+	public PrometheusTextFileExporter() {
+		this(Paths.get(System.getProperty(FILE_PROPERTY, DEFAULT_FILE)));
+	}
+
+	public PrometheusTextFileExporter(Path file) {
+		this.file = file.toAbsolutePath();
+	}
+
+	@Override
+	public void export(MetricsRegistry registry) throws IOException {
+		Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+				write(registry.getEndpointMetrics(), writer);
+			}
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	static void write(Collection<EndpointMetrics> endpointMetrics, Writer writer) throws IOException {
+		writer.write("# HELP tmail_lsc_http_requests_total Webadmin calls by endpoint, method and status class.\n");
+		writer.write("# TYPE tmail_lsc_http_requests_total counter\n");
+		for (EndpointMetrics metrics : endpointMetrics) {
+			for (StatusClass statusClass : StatusClass.values()) {
+				long count = metrics.getCount(statusClass);
+				if (count > 0) {
+					writer.write("tmail_lsc_http_requests_total{" + labels(metrics) + ",status=\"" + statusClass.label() + "\"} " + count + "\n");
+				}
+			}
+		}
+
+		writer.write("# HELP tmail_lsc_http_request_duration_seconds Webadmin call latency by endpoint and method.\n");
+		writer.write("# TYPE tmail_lsc_http_request_duration_seconds summary\n");
+		for (EndpointMetrics metrics : endpointMetrics) {
+			LatencyHistogram latency = metrics.getLatency();
+			for (double quantile : QUANTILES) {
+				writer.write("tmail_lsc_http_request_duration_seconds{" + labels(metrics) + ",quantile=\"" + quantile + "\"} "
+					+ seconds(latency.quantileMicros(quantile)) + "\n");
+			}
+			writer.write("tmail_lsc_http_request_duration_seconds_sum{" + labels(metrics) + "} " + seconds(latency.getSumMicros()) + "\n");
+			writer.write("tmail_lsc_http_request_duration_seconds_count{" + labels(metrics) + "} " + latency.getCount() + "\n");
+		}
+
+		writer.write("# HELP tmail_lsc_http_request_bytes_total Bytes sent to webadmin by endpoint and method.\n");
+		writer.write("# TYPE tmail_lsc_http_request_bytes_total counter\n");
+		for (EndpointMetrics metrics : endpointMetrics) {
+			writer.write("tmail_lsc_http_request_bytes_total{" + labels(metrics) + "} " + metrics.getBytesOut() + "\n");
+		}
+		writer.write("# HELP tmail_lsc_http_response_bytes_total Bytes received from webadmin by endpoint and method.\n");
+		writer.write("# TYPE tmail_lsc_http_response_bytes_total counter\n");
+		for (EndpointMetrics metrics : endpointMetrics) {
+			writer.write("tmail_lsc_http_response_bytes_total{" + labels(metrics) + "} " + metrics.getBytesIn() + "\n");
+		}
+	}
+
+	private static String labels(EndpointMetrics metrics) {
+		return "endpoint=\"" + metrics.getEndpoint().label() + "\",method=\"" + metrics.getMethod() + "\"";
+	}
+
+	private static String seconds(long micros) {
+		return String.format(Locale.ROOT, "%.6f", micros / 1_000_000d);
+	}
+}
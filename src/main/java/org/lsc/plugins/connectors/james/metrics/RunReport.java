@@ -0,0 +1,183 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Writes a JSON performance report at the end of each run, in the directory set by {@value #DIRECTORY_PROPERTY}: time
+ * spent listing pivots, fetching beans and applying modifications by each destination service, its slowest operations,
+ * webadmin calls and latency quantiles by endpoint, and cache hit ratios. The report is written to a temporary file
+ * first then moved atomically, so that it is never read half written.
+ */
+public class RunReport {
+	public static final String DIRECTORY_PROPERTY = "tmail.report.dir";
+	private static final Logger LOGGER = LoggerFactory.getLogger(RunReport.class);
+	private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+	private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+	/**
+	 * @return the report of this run, or empty when no report directory is set
+	 */
+	static Optional<RunReport> fromProperties(MetricsRegistry registry) {
+		return Optional.ofNullable(System.getProperty(DIRECTORY_PROPERTY))
+			.map(directory -> new RunReport(Paths.get(directory), registry, TaskMonitor::all, Clock.systemUTC()));
+	}
+
+	@FunctionalInterface
+	interface Monitors {
+		Collection<TaskMonitor> all();
+	}
+
+	private final Path directory;
+	private final MetricsRegistry registry;
+	private final Monitors monitors;
+	private final Clock clock;
+	private final Instant start;
+	private final ObjectMapper mapper;
+
+	RunReport(Path directory, MetricsRegistry registry, Monitors monitors, Clock clock) {
+		this.directory = directory;
+		this.registry = registry;
+		this.monitors = monitors;
+		this.clock = clock;
+		this.start = clock.instant();
+		this.mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+	}
+
+	void writeQuietly() {
+		try {
+			Path report = write();
+			LOGGER.info("Performance report written to {}", report);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.error("Unable to write the performance report in {}", directory, e);
+		}
+	}
+
+	/**
+	 * @return the path of the written report
+	 */
+	Path write() throws IOException {
+		Instant end = clock.instant();
+		Files.createDirectories(directory);
+		Path report = directory.resolve("tmail-lsc-report-" + FILE_TIMESTAMP.format(end) + ".json");
+		Path temporaryFile = Files.createTempFile(directory, report.getFileName().toString(), ".tmp");
+		try {
+			mapper.writeValue(temporaryFile.toFile(), toJson(end));
+			Files.move(temporaryFile, report, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+		return report;
+	}
+
+	Map<String, Object> toJson(Instant end) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("start", start.toString());
+		json.put("end", end.toString());
+		json.put("durationMillis", Duration.between(start, end).toMillis());
+		List<Object> services = new ArrayList<>();
+		for (TaskMonitor monitor : monitors.all()) {
+			services.add(serviceJson(monitor));
+		}
+		json.put("services", services);
+		List<Object> http = new ArrayList<>();
+		for (EndpointMetrics metrics : registry.getEndpointMetrics()) {
+			http.add(httpJson(metrics));
+		}
+		json.put("http", http);
+		Map<String, Object> caches = new LinkedHashMap<>();
+		registry.getCacheStats().forEach((name, stats) -> caches.put(name, cacheJson(stats)));
+		json.put("caches", caches);
+		return json;
+	}
+
+	private static Map<String, Object> serviceJson(TaskMonitor monitor) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("task", monitor.getTaskName());
+		json.put("service", monitor.getServiceName());
+		json.put("listedPivots", monitor.getListedPivots());
+		json.put("processedPivots", monitor.getTotalProcessedPivots());
+		Map<String, Object> operations = new LinkedHashMap<>();
+		operations.put("create", monitor.getTotalCreateCount());
+		operations.put("update", monitor.getTotalUpdateCount());
+		operations.put("delete", monitor.getTotalDeleteCount());
+		operations.put("failure", monitor.getTotalFailureCount());
+		json.put("operations", operations);
+		Map<String, Object> phases = new LinkedHashMap<>();
+		phases.put("listing", phaseJson(monitor.getListing()));
+		phases.put("getBean", phaseJson(monitor.getFetching()));
+		phases.put("apply", phaseJson(monitor.getWriting()));
+		json.put("phases", phases);
+		List<Object> slowest = new ArrayList<>();
+		for (SlowestOperations.Operation operation : monitor.getSlowestOperations()) {
+			Map<String, Object> operationJson = new LinkedHashMap<>();
+			operationJson.put("pivot", operation.getPivot());
+			operationJson.put("phase", operation.getPhase());
+			operationJson.put("millis", operation.getMillis());
+			slowest.add(operationJson);
+		}
+		json.put("slowest", slowest);
+		return json;
+	}
+
+	private static Map<String, Object> phaseJson(PhaseTimer timer) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("calls", timer.getCalls());
+		json.put("wallMillis", timer.getWallMillis());
+		json.put("busyMillis", timer.getBusyMillis());
+		json.put("maxMillis", timer.getMaxMillis());
+		return json;
+	}
+
+	private static Map<String, Object> httpJson(EndpointMetrics metrics) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("endpoint", metrics.getEndpoint().label());
+		json.put("method", metrics.getMethod());
+		Map<String, Object> statuses = new LinkedHashMap<>();
+		for (StatusClass statusClass : StatusClass.values()) {
+			long count = metrics.getCount(statusClass);
+			if (count > 0) {
+				statuses.put(statusClass.label(), count);
+			}
+		}
+		json.put("requests", metrics.getRequestCount());
+		json.put("statuses", statuses);
+		Map<String, Object> latency = new LinkedHashMap<>();
+		for (double quantile : QUANTILES) {
+			latency.put("p" + Math.round(quantile * 100), metrics.getLatency().quantileMicros(quantile) / 1000.0);
+		}
+		json.put("latencyMillis", latency);
+		json.put("bytesIn", metrics.getBytesIn());
+		json.put("bytesOut", metrics.getBytesOut());
+		return json;
+	}
+
+	private static Map<String, Object> cacheJson(CacheStats stats) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("hits", stats.hitCount());
+		json.put("misses", stats.missCount());
+		json.put("hitRatio", stats.hitRate());
+		return json;
+	}
+}
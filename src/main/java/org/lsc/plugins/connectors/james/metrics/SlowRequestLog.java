@@ -0,0 +1,96 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.net.HttpURLConnection;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.jersey.client.HttpUrlConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the webadmin calls slower than {@value #THRESHOLD_PROPERTY} milliseconds, plus a random sample of
+ * {@value #SAMPLE_RATE_PROPERTY} of the other calls, with the breakdown of their duration:
+ * <ul>
+ *     <li>acquire: getting a connection, from the keep-alive cache or by opening a new one</li>
+ *     <li>send: writing the request entity</li>
+ *     <li>first byte: until the status line is received. The JDK connection buffers small request entities, which are
+ *     sent at this time</li>
+ *     <li>body: reading the response entity, whose size is logged as well</li>
+ * </ul>
+ * Calls are timed by wrapping the connections of the Jersey clients, so the log is not enabled unless a threshold is
+ * set. A call is logged once its response entity has been read or closed, or when it fails. The timings are recorded
+ * in the connection wrapper itself: calls under the threshold and not sampled are not formatted.
+ *
+ * Entries are written to the {@value #LOGGER_NAME} logger, at WARN level for slow calls and INFO level for sampled
+ * ones, so that they can be routed to a dedicated appender.
+ */
+public class SlowRequestLog {
+	public static final String THRESHOLD_PROPERTY = "tmail.slow.requests.threshold";
+	public static final String SAMPLE_RATE_PROPERTY = "tmail.slow.requests.sample.rate";
+	public static final double DEFAULT_SAMPLE_RATE = 0.001;
+	public static final String LOGGER_NAME = "org.lsc.plugins.connectors.james.SlowRequests";
+	private static final Logger LOGGER = LoggerFactory.getLogger(LOGGER_NAME);
+
+	/**
+	 * @return the slow request log configured by the JVM properties, or empty when no threshold is set
+	 */
+	public static Optional<SlowRequestLog> fromProperties() {
+		Long thresholdMillis = Long.getLong(THRESHOLD_PROPERTY);
+		if (thresholdMillis == null) {
+			return Optional.empty();
+		}
+		double sampleRate = Double.parseDouble(System.getProperty(SAMPLE_RATE_PROPERTY, String.valueOf(DEFAULT_SAMPLE_RATE)));
+		return Optional.of(new SlowRequestLog(TimeUnit.MILLISECONDS.toNanos(thresholdMillis), sampleRate, LOGGER));
+	}
+
+	private final long thresholdNanos;
+	private final double sampleRate;
+	private final Logger logger;
+
+	SlowRequestLog(long thresholdNanos, double sampleRate, Logger logger) {
+		this.thresholdNanos = thresholdNanos;
+		this.sampleRate = sampleRate;
+		this.logger = logger;
+	}
+
+	/**
+	 * @return the connection factory timing the calls of the Jersey client of the given endpoint
+	 */
+	public HttpUrlConnector.ConnectionFactory connectionFactory(Endpoint endpoint) {
+		return url -> new TimedConnection((HttpURLConnection) url.openConnection(), endpoint, this);
+	}
+
+	void completed(TimedConnection call) {
+		long duration = call.getDurationNanos();
+		if (duration >= thresholdNanos) {
+			if (logger.isWarnEnabled()) {
+				logger.warn(format("Slow", call));
+			}
+		} else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+			if (logger.isInfoEnabled()) {
+				logger.info(format("Sampled", call));
+			}
+		}
+	}
+
+	private static String format(String kind, TimedConnection call) {
+		return String.format("%s webadmin call %s %s %s: status %d in %.1f ms (acquire %.1f ms, send %.1f ms, first byte %.1f ms, body %.1f ms, %d bytes)",
+			kind,
+			call.getEndpoint().label(),
+			call.getRequestMethod(),
+			call.getURL().getPath(),
+			call.getStatus(),
+			millis(call.getDurationNanos()),
+			millis(call.getAcquireNanos()),
+			millis(call.getSendNanos()),
+			millis(call.getFirstByteNanos()),
+			millis(call.getBodyNanos()),
+			call.getBodyBytes());
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+}
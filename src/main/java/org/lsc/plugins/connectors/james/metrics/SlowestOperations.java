@@ -0,0 +1,77 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the N slowest operations of a task. Operations faster than the current N-th slowest one are rejected without
+ * locking nor allocating.
+ */
+public class SlowestOperations {
+	public static class Operation {
+		private final String pivot;
+		private final String phase;
+		private final long nanos;
+
+		Operation(String pivot, String phase, long nanos) {
+			this.pivot = pivot;
+			this.phase = phase;
+			this.nanos = nanos;
+		}
+
+		public String getPivot() {
+			return pivot;
+		}
+
+		public String getPhase() {
+			return phase;
+		}
+
+		public double getMillis() {
+			return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+		}
+	}
+
+	private static final Comparator<Operation> BY_DURATION = Comparator.comparingLong(operation -> operation.nanos);
+
+	private final int capacity;
+	private final PriorityQueue<Operation> fastestFirst;
+	private volatile long threshold;
+
+	public SlowestOperations(int capacity) {
+		this.capacity = capacity;
+		this.fastestFirst = new PriorityQueue<>(BY_DURATION);
+		this.threshold = capacity > 0 ? 0 : Long.MAX_VALUE;
+	}
+
+	public void record(Supplier<String> pivot, String phase, long nanos) {
+		if (nanos < threshold) {
+			return;
+		}
+		synchronized (this) {
+			if (nanos < threshold) {
+				return;
+			}
+			fastestFirst.add(new Operation(pivot.get(), phase, nanos));
+			if (fastestFirst.size() > capacity) {
+				fastestFirst.poll();
+			}
+			if (fastestFirst.size() == capacity) {
+				threshold = fastestFirst.peek().nanos;
+			}
+		}
+	}
+
+	/**
+	 * @return the slowest operations, the slowest first
+	 */
+	public synchronized List<Operation> getOperations() {
+		List<Operation> operations = new ArrayList<>(fastestFirst);
+		operations.sort(BY_DURATION.reversed());
+		return operations;
+	}
+}
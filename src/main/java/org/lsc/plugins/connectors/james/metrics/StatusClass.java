@@ -0,0 +1,41 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+public enum StatusClass {
+	INFORMATIONAL("1xx"),
+	SUCCESS("2xx"),
+	REDIRECTION("3xx"),
+	CLIENT_ERROR("4xx"),
+	SERVER_ERROR("5xx"),
+	OTHER("other"),
+	/**
+	 * Calls which got no response: refused or reset connection, timeout...
+	 */
+	TRANSPORT_ERROR("transport");
+
+	public static StatusClass of(int status) {
+		switch (status / 100) {
+			case 1:
+				return INFORMATIONAL;
+			case 2:
+				return SUCCESS;
+			case 3:
+				return REDIRECTION;
+			case 4:
+				return CLIENT_ERROR;
+			case 5:
+				return SERVER_ERROR;
+			default:
+				return OTHER;
+		}
+	}
+
+	private final String label;
+
+	StatusClass(String label) {
+		this.label = label;
+	}
+
+	public String label() {
+		return label;
+	}
+}
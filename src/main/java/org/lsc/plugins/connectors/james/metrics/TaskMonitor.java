@@ -0,0 +1,405 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.lsc.LscDatasets;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.beans.IBean;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.jfr.FlightRecorderEvents;
+import org.lsc.plugins.connectors.james.tracing.Span;
+import org.lsc.plugins.connectors.james.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Live progress of one destination service of a task, exposed as an MBean named
+ * {@code org.lsc.plugins.connectors.james:type=DestinationService,task=<task>,service=<service>}.
+ *
+ * Monitors live as long as the JVM, which runs the tasks again and again in daemon mode. Each listing of the pivots
+ * starts a new window: the counts and the throughput are then reported since the last listing, while the totals
+ * cover every run of the JVM.
+ */
+public class TaskMonitor implements TaskMonitorMBean {
+	public static final String DOMAIN = "org.lsc.plugins.connectors.james";
+	private static final Logger LOGGER = LoggerFactory.getLogger(TaskMonitor.class);
+	private static final long TICK_IN_SECONDS = 5;
+	// Weight of the last tick in a moving average over one minute, as done for the Unix load average
+	private static final double ALPHA = 1 - Math.exp(-TICK_IN_SECONDS / 60d);
+	private static final Map<String, TaskMonitor> MONITORS = new ConcurrentHashMap<>();
+	// Phases of the slowest operations, built once rather than for each write
+	private static final String APPLY_PHASE = "apply";
+	private static final Map<LscModificationType, String> APPLY_PHASES = new EnumMap<>(LscModificationType.class);
+	private static final ScheduledExecutorService TICKER = Executors.newSingleThreadScheduledExecutor(
+		new ThreadFactoryBuilder().setNameFormat("tmail-monitor-tick").setDaemon(true).build());
+
+	static {
+		for (LscModificationType operation : LscModificationType.values()) {
+			APPLY_PHASES.put(operation, APPLY_PHASE + " " + operation);
+		}
+		TICKER.scheduleAtFixedRate(() -> MONITORS.values().forEach(TaskMonitor::tick), TICK_IN_SECONDS, TICK_IN_SECONDS, TimeUnit.SECONDS);
+	}
+
+	public static final String SLOWEST_OPERATIONS_PROPERTY = "tmail.report.slowest";
+	public static final int DEFAULT_SLOWEST_OPERATIONS = 10;
+
+	@FunctionalInterface
+	public interface Write {
+		boolean write(LscModifications modifications) throws LscServiceException;
+	}
+
+	@FunctionalInterface
+	public interface Fetch {
+		IBean fetch() throws LscServiceException;
+	}
+
+	@FunctionalInterface
+	public interface Listing {
+		Map<String, LscDatasets> list() throws LscServiceException;
+	}
+
+	/**
+	 * @return the monitor of the given destination service, registered as an MBean on first use
+	 */
+	public static TaskMonitor forService(String taskName, String serviceName) {
+		return MONITORS.computeIfAbsent(taskName + "/" + serviceName, key -> {
+			TaskMonitor monitor = new TaskMonitor(taskName, serviceName);
+			register(monitor, "type=DestinationService,task=" + ObjectName.quote(String.valueOf(taskName)) + ",service=" + ObjectName.quote(serviceName));
+			return monitor;
+		});
+	}
+
+	/**
+	 * @return the monitors of all the destination services of the run
+	 */
+	public static Collection<TaskMonitor> all() {
+		return MONITORS.values();
+	}
+
+	static void register(Object mbean, String properties) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(mbean, name);
+		} catch (JMException | RuntimeException e) {
+			LOGGER.warn("Unable to register MBean {}", properties, e);
+		}
+	}
+
+	private final String taskName;
+	private final String serviceName;
+	private final AtomicLong listedPivots;
+	private final LongAdder processedPivots;
+	private final LongAdder creates;
+	private final LongAdder updates;
+	private final LongAdder deletes;
+	private final LongAdder failures;
+	private final LongAdder inFlightWrites;
+	private final PhaseTimer listing;
+	private final PhaseTimer fetching;
+	private final PhaseTimer writing;
+	private final SlowestOperations slowest;
+	private final Tracer tracer;
+	private long processedAtLastTick;
+	private volatile double pivotsPerSecond;
+	private volatile boolean rateInitialized;
+	// Totals at the last listing, which the counts of the current window are relative to
+	private volatile long processedAtListing;
+	private volatile long createsAtListing;
+	private volatile long updatesAtListing;
+	private volatile long deletesAtListing;
+	private volatile long failuresAtListing;
+
+	TaskMonitor(String taskName, String serviceName) {
+		this(taskName, serviceName, Tracer.shared());
+	}
+
+	TaskMonitor(String taskName, String serviceName, Tracer tracer) {
+		this.taskName = taskName;
+		this.serviceName = serviceName;
+		this.listedPivots = new AtomicLong();
+		this.processedPivots = new LongAdder();
+		this.creates = new LongAdder();
+		this.updates = new LongAdder();
+		this.deletes = new LongAdder();
+		this.failures = new LongAdder();
+		this.inFlightWrites = new LongAdder();
+		this.listing = new PhaseTimer();
+		this.fetching = new PhaseTimer();
+		this.writing = new PhaseTimer();
+		this.slowest = new SlowestOperations(Integer.getInteger(SLOWEST_OPERATIONS_PROPERTY, DEFAULT_SLOWEST_OPERATIONS));
+		this.tracer = tracer;
+	}
+
+	private Span startSpan(String name) {
+		Span span = tracer.startSpan(name);
+		return span.setAttribute("task", taskName)
+			.setAttribute("service", serviceName);
+	}
+
+	/**
+	 * List the pivots while timing it, starting a new window of counts.
+	 */
+	public Map<String, LscDatasets> listPivots(Listing listing) throws LscServiceException {
+		startWindow();
+		Object event = FlightRecorderEvents.beginPivotListing();
+		long start = System.nanoTime();
+		long listed = -1;
+		try (Span span = startSpan("getListPivots")) {
+			try {
+				Map<String, LscDatasets> pivots = listing.list();
+				listed = pivots.size();
+				listedPivots.set(listed);
+				span.setAttribute("pivots", listed);
+				return pivots;
+			} catch (LscServiceException | RuntimeException e) {
+				span.setError(e.toString());
+				throw e;
+			}
+		} finally {
+			this.listing.record(start, System.nanoTime());
+			FlightRecorderEvents.commitPivotListing(event, taskName, serviceName, listed);
+		}
+	}
+
+	private synchronized void startWindow() {
+		long processed = processedPivots.sum();
+		processedAtListing = processed;
+		processedAtLastTick = processed;
+		createsAtListing = creates.sum();
+		updatesAtListing = updates.sum();
+		deletesAtListing = deletes.sum();
+		failuresAtListing = failures.sum();
+		pivotsPerSecond = 0;
+		rateInitialized = false;
+	}
+
+	/**
+	 * Fetch the bean of a pivot while timing it.
+	 */
+	public IBean getBean(String pivotName, LscDatasets pivotAttributes, Fetch fetch) throws LscServiceException {
+		processedPivots.increment();
+		long start = System.nanoTime();
+		try (Span span = startSpan("getBean")) {
+			if (span.isRecording()) {
+				span.setAttribute("pivot", pivotOf(pivotName, pivotAttributes));
+			}
+			try {
+				IBean bean = fetch.fetch();
+				span.setAttribute("found", bean != null);
+				return bean;
+			} catch (LscServiceException | RuntimeException e) {
+				span.setError(e.toString());
+				throw e;
+			}
+		} finally {
+			long end = System.nanoTime();
+			fetching.record(start, end);
+			slowest.record(() -> pivotOf(pivotName, pivotAttributes), "getBean", end - start);
+		}
+	}
+
+	private static String pivotOf(String pivotName, LscDatasets pivotAttributes) {
+		if (pivotAttributes.getAttributesNames().isEmpty()) {
+			return pivotName;
+		}
+		return pivotAttributes.getStringValueAttribute(pivotAttributes.getAttributesNames().get(0));
+	}
+
+	/**
+	 * Apply the given modifications while counting and timing them.
+	 */
+	public boolean write(LscModifications modifications, Write write) throws LscServiceException {
+		inFlightWrites.increment();
+		Object event = FlightRecorderEvents.beginApply();
+		long start = System.nanoTime();
+		String outcome = "error";
+		try (Span span = startSpan("apply")) {
+			span.setAttribute("pivot", modifications.getMainIdentifier())
+				.setAttribute("operation", modifications.getOperation());
+			try {
+				boolean success = write.write(modifications);
+				span.setAttribute("success", success);
+				outcome = success ? "success" : "failure";
+				if (!success) {
+					failures.increment();
+				}
+				return success;
+			} catch (LscServiceException | RuntimeException e) {
+				failures.increment();
+				span.setError(e.toString());
+				throw e;
+			}
+		} finally {
+			long end = System.nanoTime();
+			count(modifications.getOperation());
+			inFlightWrites.decrement();
+			writing.record(start, end);
+			slowest.record(modifications::getMainIdentifier, applyPhase(modifications.getOperation()), end - start);
+			FlightRecorderEvents.commitApply(event, taskName, serviceName, modifications.getMainIdentifier(), modifications.getOperation(), outcome);
+		}
+	}
+
+	private static String applyPhase(LscModificationType operation) {
+		if (operation == null) {
+			return APPLY_PHASE;
+		}
+		return APPLY_PHASES.get(operation);
+	}
+
+	private void count(LscModificationType operation) {
+		if (operation == null) {
+			return;
+		}
+		switch (operation) {
+			case CREATE_OBJECT:
+				creates.increment();
+				break;
+			case UPDATE_OBJECT:
+				updates.increment();
+				break;
+			case DELETE_OBJECT:
+				deletes.increment();
+				break;
+			default:
+				break;
+		}
+	}
+
+	synchronized void tick() {
+		long processed = processedPivots.sum();
+		double instantRate = (processed - processedAtLastTick) / (double) TICK_IN_SECONDS;
+		processedAtLastTick = processed;
+		if (rateInitialized) {
+			pivotsPerSecond += ALPHA * (instantRate - pivotsPerSecond);
+		} else {
+			pivotsPerSecond = instantRate;
+			rateInitialized = true;
+		}
+	}
+
+	public PhaseTimer getListing() {
+		return listing;
+	}
+
+	public PhaseTimer getFetching() {
+		return fetching;
+	}
+
+	public PhaseTimer getWriting() {
+		return writing;
+	}
+
+	public List<SlowestOperations.Operation> getSlowestOperations() {
+		return slowest.getOperations();
+	}
+
+	@Override
+	public String getTaskName() {
+		return taskName;
+	}
+
+	@Override
+	public String getServiceName() {
+		return serviceName;
+	}
+
+	@Override
+	public long getListedPivots() {
+		return listedPivots.get();
+	}
+
+	@Override
+	public long getProcessedPivots() {
+		return processedPivots.sum() - processedAtListing;
+	}
+
+	@Override
+	public long getCreateCount() {
+		return creates.sum() - createsAtListing;
+	}
+
+	@Override
+	public long getUpdateCount() {
+		return updates.sum() - updatesAtListing;
+	}
+
+	@Override
+	public long getDeleteCount() {
+		return deletes.sum() - deletesAtListing;
+	}
+
+	@Override
+	public long getFailureCount() {
+		return failures.sum() - failuresAtListing;
+	}
+
+	@Override
+	public long getTotalProcessedPivots() {
+		return processedPivots.sum();
+	}
+
+	@Override
+	public long getTotalCreateCount() {
+		return creates.sum();
+	}
+
+	@Override
+	public long getTotalUpdateCount() {
+		return updates.sum();
+	}
+
+	@Override
+	public long getTotalDeleteCount() {
+		return deletes.sum();
+	}
+
+	@Override
+	public long getTotalFailureCount() {
+		return failures.sum();
+	}
+
+	@Override
+	public long getInFlightWrites() {
+		return inFlightWrites.sum();
+	}
+
+	@Override
+	public double getPivotsPerSecond() {
+		return pivotsPerSecond;
+	}
+
+	@Override
+	public long getEtaSeconds() {
+		long listed = listedPivots.get();
+		long remaining = listed - getProcessedPivots();
+		double rate = pivotsPerSecond;
+		if (listed == 0 || rate <= 0) {
+			return -1;
+		}
+		if (remaining <= 0) {
+			return 0;
+		}
+		return (long) Math.ceil(remaining / rate);
+	}
+}
@@ -0,0 +1,50 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+public interface TaskMonitorMBean {
+	String getTaskName();
+
+	String getServiceName();
+
+	long getListedPivots();
+
+	/**
+	 * @return getBean calls since the last listing of the pivots
+	 */
+	long getProcessedPivots();
+
+	/**
+	 * @return creations since the last listing of the pivots, as well as the other operation counts
+	 */
+	long getCreateCount();
+
+	long getUpdateCount();
+
+	long getDeleteCount();
+
+	long getFailureCount();
+
+	/**
+	 * @return getBean calls since the start of the JVM, as well as the other totals
+	 */
+	long getTotalProcessedPivots();
+
+	long getTotalCreateCount();
+
+	long getTotalUpdateCount();
+
+	long getTotalDeleteCount();
+
+	long getTotalFailureCount();
+
+	long getInFlightWrites();
+
+	/**
+	 * @return pivots processed per second, averaged over the last minute
+	 */
+	double getPivotsPerSecond();
+
+	/**
+	 * @return estimated seconds until all the listed pivots are processed, -1 when unknown
+	 */
+	long getEtaSeconds();
+}
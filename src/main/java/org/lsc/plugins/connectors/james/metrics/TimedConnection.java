@@ -0,0 +1,351 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delegates to the JDK connection used by Jersey for one webadmin call, recording when each phase of the call ends.
+ * Reports the call to the {@link SlowRequestLog} once the response entity has been read or closed, or on failure.
+ */
+class TimedConnection extends HttpURLConnection {
+	private static final int NO_RESPONSE = 0;
+
+	private final HttpURLConnection connection;
+	private final Endpoint endpoint;
+	private final SlowRequestLog log;
+	private final long start;
+	private long acquireStart;
+	private long acquireEnd;
+	private long sendStart;
+	private long sendEnd;
+	private long firstByte;
+	private long end;
+	private long bodyBytes;
+	private int status;
+	private boolean completed;
+
+	TimedConnection(HttpURLConnection connection, Endpoint endpoint, SlowRequestLog log) {
+		super(connection.getURL());
+		this.connection = connection;
+		this.endpoint = endpoint;
+		this.log = log;
+		this.start = System.nanoTime();
+	}
+
+	@Override
+	public void connect() throws IOException {
+		if (acquireStart != 0) {
+			return;
+		}
+		acquireStart = System.nanoTime();
+		try {
+			connection.connect();
+		} catch (IOException e) {
+			complete(NO_RESPONSE);
+			throw e;
+		}
+		acquireEnd = System.nanoTime();
+		connected = true;
+	}
+
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+		connect();
+		OutputStream output;
+		try {
+			sendStart = System.nanoTime();
+			output = connection.getOutputStream();
+		} catch (IOException e) {
+			complete(NO_RESPONSE);
+			throw e;
+		}
+		return new FilterOutputStream(output) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				super.close();
+				sendEnd = System.nanoTime();
+			}
+		};
+	}
+
+	@Override
+	public int getResponseCode() throws IOException {
+		connect();
+		try {
+			int responseCode = connection.getResponseCode();
+			if (firstByte == 0) {
+				firstByte = System.nanoTime();
+				status = responseCode;
+			}
+			return responseCode;
+		} catch (IOException e) {
+			complete(NO_RESPONSE);
+			throw e;
+		}
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		getResponseCode();
+		try {
+			return timed(connection.getInputStream());
+		} catch (IOException e) {
+			complete(status);
+			throw e;
+		}
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		return timed(connection.getErrorStream());
+	}
+
+	private InputStream timed(InputStream body) {
+		if (body == null) {
+			complete(status);
+			return null;
+		}
+		return new FilterInputStream(body) {
+			@Override
+			public int read() throws IOException {
+				int read = in.read();
+				if (read < 0) {
+					complete(status);
+				} else {
+					bodyBytes++;
+				}
+				return read;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int read = in.read(b, off, len);
+				if (read < 0) {
+					complete(status);
+				} else {
+					bodyBytes += read;
+				}
+				return read;
+			}
+
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					complete(status);
+				}
+			}
+		};
+	}
+
+	private void complete(int status) {
+		if (completed) {
+			return;
+		}
+		completed = true;
+		this.status = status;
+		end = System.nanoTime();
+		log.completed(this);
+	}
+
+	Endpoint getEndpoint() {
+		return endpoint;
+	}
+
+	int getStatus() {
+		return status;
+	}
+
+	long getBodyBytes() {
+		return bodyBytes;
+	}
+
+	long getDurationNanos() {
+		return end - start;
+	}
+
+	long getAcquireNanos() {
+		return acquireEnd == 0 ? 0 : acquireEnd - acquireStart;
+	}
+
+	long getSendNanos() {
+		return sendEnd == 0 ? 0 : sendEnd - sendStart;
+	}
+
+	long getFirstByteNanos() {
+		return firstByte == 0 ? 0 : firstByte - Math.max(acquireEnd, sendEnd);
+	}
+
+	long getBodyNanos() {
+		return firstByte == 0 ? 0 : end - firstByte;
+	}
+
+	@Override
+	public void disconnect() {
+		connection.disconnect();
+		complete(status);
+	}
+
+	@Override
+	public boolean usingProxy() {
+		return connection.usingProxy();
+	}
+
+	@Override
+	public String getResponseMessage() throws IOException {
+		return connection.getResponseMessage();
+	}
+
+	@Override
+	public void setRequestMethod(String method) throws ProtocolException {
+		connection.setRequestMethod(method);
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return connection.getRequestMethod();
+	}
+
+	@Override
+	public void setInstanceFollowRedirects(boolean followRedirects) {
+		connection.setInstanceFollowRedirects(followRedirects);
+	}
+
+	@Override
+	public boolean getInstanceFollowRedirects() {
+		return connection.getInstanceFollowRedirects();
+	}
+
+	@Override
+	public void setChunkedStreamingMode(int chunkLength) {
+		connection.setChunkedStreamingMode(chunkLength);
+	}
+
+	@Override
+	public void setFixedLengthStreamingMode(int contentLength) {
+		connection.setFixedLengthStreamingMode(contentLength);
+	}
+
+	@Override
+	public void setFixedLengthStreamingMode(long contentLength) {
+		connection.setFixedLengthStreamingMode(contentLength);
+	}
+
+	@Override
+	public void setDoInput(boolean doInput) {
+		connection.setDoInput(doInput);
+	}
+
+	@Override
+	public boolean getDoInput() {
+		return connection.getDoInput();
+	}
+
+	@Override
+	public void setDoOutput(boolean doOutput) {
+		connection.setDoOutput(doOutput);
+	}
+
+	@Override
+	public boolean getDoOutput() {
+		return connection.getDoOutput();
+	}
+
+	@Override
+	public void setUseCaches(boolean useCaches) {
+		connection.setUseCaches(useCaches);
+	}
+
+	@Override
+	public boolean getUseCaches() {
+		return connection.getUseCaches();
+	}
+
+	@Override
+	public void setConnectTimeout(int timeout) {
+		connection.setConnectTimeout(timeout);
+	}
+
+	@Override
+	public int getConnectTimeout() {
+		return connection.getConnectTimeout();
+	}
+
+	@Override
+	public void setReadTimeout(int timeout) {
+		connection.setReadTimeout(timeout);
+	}
+
+	@Override
+	public int getReadTimeout() {
+		return connection.getReadTimeout();
+	}
+
+	@Override
+	public void setRequestProperty(String key, String value) {
+		connection.setRequestProperty(key, value);
+	}
+
+	@Override
+	public void addRequestProperty(String key, String value) {
+		connection.addRequestProperty(key, value);
+	}
+
+	@Override
+	public String getRequestProperty(String key) {
+		return connection.getRequestProperty(key);
+	}
+
+	@Override
+	public Map<String, List<String>> getRequestProperties() {
+		return connection.getRequestProperties();
+	}
+
+	@Override
+	public Map<String, List<String>> getHeaderFields() {
+		return connection.getHeaderFields();
+	}
+
+	@Override
+	public String getHeaderField(String name) {
+		return connection.getHeaderField(name);
+	}
+
+	@Override
+	public String getHeaderField(int n) {
+		return connection.getHeaderField(n);
+	}
+
+	@Override
+	public String getHeaderFieldKey(int n) {
+		return connection.getHeaderFieldKey(n);
+	}
+
+	@Override
+	public String getContentType() {
+		return connection.getContentType();
+	}
+
+	@Override
+	public long getContentLengthLong() {
+		return connection.getContentLengthLong();
+	}
+
+	@Override
+	public String toString() {
+		return connection.toString();
+	}
+}
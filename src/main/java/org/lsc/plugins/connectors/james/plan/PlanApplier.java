@@ -0,0 +1,204 @@
+package org.lsc.plugins.connectors.james.plan;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.lsc.LscModificationType;
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.Aspect;
+import org.lsc.plugins.connectors.james.DeletionQueue;
+import org.lsc.plugins.connectors.james.Threads;
+import org.lsc.plugins.connectors.james.WriteBehindQueue;
+import org.lsc.service.IWritableService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Second phase of the plan-then-execute mode: applies a plan file written by {@link PlanWriter} to TMail.
+ *
+ * Operations are grouped by user. The operations of one user are applied sequentially in the provisioning order
+ * of {@link Aspect} (deletions in the reverse order), while distinct users are applied in parallel.
+ * Deletions, which are expensive for TMail, are applied at most {@value DeletionQueue#RATE_PROPERTY} per second
+ * across all the users, 0 applying them without limit. Failed operations are written to a new plan file that can be
+ * applied again.
+ *
+ * Usage: {@code PlanApplier <plan file> <webadmin url> [parallelism]}, the JWT token being read from the
+ * {@value #TOKEN_ENVIRONMENT_VARIABLE} environment variable.
+ */
+public class PlanApplier {
+	public static final String TOKEN_ENVIRONMENT_VARIABLE = "TMAIL_WEBADMIN_TOKEN";
+	public static final int DEFAULT_PARALLELISM = 16;
+	public static final String FAILED_PLAN_SUFFIX = ".failed";
+	private static final Logger LOGGER = LoggerFactory.getLogger(PlanApplier.class);
+	private static final String TASK_NAME = "plan-applier";
+	private static final String BEAN_CLASS_NAME = "org.lsc.beans.SimpleBean";
+	private static final long PROGRESS_PERIOD_IN_SECONDS = 10;
+
+	static final Comparator<PlanEntry> APPLY_ORDER = Comparator
+		.comparing((PlanEntry entry) -> entry.getOperation() == LscModificationType.DELETE_OBJECT)
+		.thenComparing(entry -> entry.getOperation() == LscModificationType.DELETE_OBJECT
+			? -entry.getAspect().ordinal()
+			: entry.getAspect().ordinal());
+
+	@FunctionalInterface
+	interface ServiceProvider {
+		IWritableService serviceFor(Aspect aspect) throws LscServiceException;
+	}
+
+	public static class Result {
+		private final long applied;
+		private final long failed;
+
+		Result(long applied, long failed) {
+			this.applied = applied;
+			this.failed = failed;
+		}
+
+		public long getApplied() {
+			return applied;
+		}
+
+		public long getFailed() {
+			return failed;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: PlanApplier <plan file> <webadmin url> [parallelism]");
+			System.exit(2);
+		}
+		String token = System.getenv(TOKEN_ENVIRONMENT_VARIABLE);
+		if (token == null) {
+			System.err.println("The " + TOKEN_ENVIRONMENT_VARIABLE + " environment variable must contain the webadmin JWT token");
+			System.exit(2);
+		}
+		// The applier must write to TMail, not to another plan, and must know the outcome of each write
+		System.clearProperty(PlanWriter.PLAN_FILE_PROPERTY);
+		System.clearProperty(WriteBehindQueue.ENABLED_PROPERTY);
+		System.clearProperty(DeletionQueue.ENABLED_PROPERTY);
+
+		Path planFile = Paths.get(args[0]);
+		PluginConnectionType connection = new PluginConnectionType();
+		connection.setUrl(args[1]);
+		connection.setPassword(token);
+		int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PARALLELISM;
+		double deletionRate = Double.parseDouble(System.getProperty(DeletionQueue.RATE_PROPERTY, String.valueOf(DeletionQueue.DEFAULT_RATE)));
+
+		List<PlanEntry> entries = new PlanReader().readAll(planFile);
+		Path failedPlanFile = Paths.get(planFile + FAILED_PLAN_SUFFIX);
+		Result result;
+		try (PlanWriter failures = new PlanWriter(failedPlanFile)) {
+			result = new PlanApplier(aspect -> aspect.newService(TASK_NAME, BEAN_CLASS_NAME, connection), parallelism, deletionRate)
+				.apply(entries, failures);
+		}
+		if (result.getFailed() > 0) {
+			LOGGER.error("{} operations failed, they were written to {}", result.getFailed(), failedPlanFile);
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+
+	private final ServiceProvider serviceProvider;
+	private final Map<Aspect, IWritableService> services;
+	private final int parallelism;
+	private final Optional<RateLimiter> deletionRateLimiter;
+
+	PlanApplier(ServiceProvider serviceProvider, int parallelism) {
+		this(serviceProvider, parallelism, 0);
+	}
+
+	/**
+	 * @param deletionRate the maximum number of deletions applied per second, 0 for no limit
+	 */
+	PlanApplier(ServiceProvider serviceProvider, int parallelism, double deletionRate) {
+		this.serviceProvider = serviceProvider;
+		this.services = new EnumMap<>(Aspect.class);
+		this.parallelism = parallelism;
+		this.deletionRateLimiter = Optional.of(deletionRate)
+			.filter(rate -> rate > 0)
+			.map(RateLimiter::create);
+	}
+
+	public Result apply(List<PlanEntry> entries, PlanWriter failures) throws InterruptedException, LscServiceException {
+		for (PlanEntry entry : entries) {
+			if (!services.containsKey(entry.getAspect())) {
+				services.put(entry.getAspect(), serviceProvider.serviceFor(entry.getAspect()));
+			}
+		}
+		Collection<List<PlanEntry>> entriesByUser = groupByUser(entries);
+		LOGGER.info("Applying {} operations for {} users with a parallelism of {}", entries.size(), entriesByUser.size(), parallelism);
+
+		AtomicLong applied = new AtomicLong();
+		AtomicLong failed = new AtomicLong();
+		long startNanos = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, Threads.factory("tmail-plan-applier-"));
+		ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("tmail-plan-progress").setDaemon(true).build());
+		progress.scheduleAtFixedRate(() -> logProgress(applied.get(), failed.get(), entries.size(), startNanos),
+			PROGRESS_PERIOD_IN_SECONDS, PROGRESS_PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+
+		for (List<PlanEntry> userEntries : entriesByUser) {
+			executor.submit(() -> {
+				for (PlanEntry entry : userEntries) {
+					if (applyEntry(entry)) {
+						applied.incrementAndGet();
+					} else {
+						failed.incrementAndGet();
+						failures.record(entry.getAspect(), entry.toModifications());
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		progress.shutdownNow();
+		logProgress(applied.get(), failed.get(), entries.size(), startNanos);
+		return new Result(applied.get(), failed.get());
+	}
+
+	private boolean applyEntry(PlanEntry entry) {
+		if (entry.getOperation() == LscModificationType.DELETE_OBJECT) {
+			deletionRateLimiter.ifPresent(RateLimiter::acquire);
+		}
+		try {
+			return services.get(entry.getAspect()).apply(entry.toModifications());
+		} catch (LscServiceException | RuntimeException e) {
+			LOGGER.error("Failed to apply {} {} for {}", entry.getAspect(), entry.getOperation(), entry.getIdentifier(), e);
+			return false;
+		}
+	}
+
+	static Collection<List<PlanEntry>> groupByUser(List<PlanEntry> entries) {
+		Map<String, List<PlanEntry>> entriesByUser = new LinkedHashMap<>();
+		for (PlanEntry entry : entries) {
+			entriesByUser.computeIfAbsent(entry.getIdentifier(), identifier -> new ArrayList<>()).add(entry);
+		}
+		entriesByUser.values().forEach(userEntries -> userEntries.sort(APPLY_ORDER));
+		return entriesByUser.values();
+	}
+
+	private static void logProgress(long applied, long failed, long total, long startNanos) {
+		long done = applied + failed;
+		double elapsedSeconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)) / 1000d;
+		LOGGER.info(String.format("%d/%d operations done (%d failed), %.1f operations/s",
+			done, total, failed, done / elapsedSeconds));
+	}
+}
@@ -0,0 +1,99 @@
+package org.lsc.plugins.connectors.james.plan;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.lsc.LscDatasetModification;
+import org.lsc.LscDatasetModification.LscDatasetModificationType;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.plugins.connectors.james.Aspect;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One modification an LSC task asked a destination service to apply, as stored in a plan file.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class PlanEntry {
+	public static PlanEntry of(Aspect aspect, LscModifications modifications) {
+		Map<String, List<String>> attributes = new LinkedHashMap<>();
+		modifications.getModificationsItemsByHash()
+			.forEach((attribute, values) -> {
+				List<String> stringValues = new ArrayList<>(values.size());
+				for (Object value : values) {
+					stringValues.add(String.valueOf(value));
+				}
+				attributes.put(attribute, stringValues);
+			});
+		return new PlanEntry(aspect, modifications.getOperation(), modifications.getMainIdentifier(), attributes);
+	}
+
+	private final Aspect aspect;
+	private final LscModificationType operation;
+	private final String identifier;
+	private final Map<String, List<String>> attributes;
+
+	@JsonCreator
+	public PlanEntry(@JsonProperty("aspect") Aspect aspect,
+					 @JsonProperty("operation") LscModificationType operation,
+					 @JsonProperty("identifier") String identifier,
+					 @JsonProperty("attributes") Map<String, List<String>> attributes) {
+		this.aspect = aspect;
+		this.operation = operation;
+		this.identifier = identifier;
+		this.attributes = attributes == null ? new LinkedHashMap<>() : attributes;
+	}
+
+	public Aspect getAspect() {
+		return aspect;
+	}
+
+	public LscModificationType getOperation() {
+		return operation;
+	}
+
+	public String getIdentifier() {
+		return identifier;
+	}
+
+	public Map<String, List<String>> getAttributes() {
+		return attributes;
+	}
+
+	public LscModifications toModifications() {
+		List<LscDatasetModification> datasetModifications = new ArrayList<>(attributes.size());
+		attributes.forEach((attribute, values) -> datasetModifications.add(
+			new LscDatasetModification(LscDatasetModificationType.REPLACE_VALUES, attribute, new ArrayList<Object>(values))));
+
+		LscModifications modifications = new LscModifications(operation);
+		modifications.setMainIdentifer(identifier);
+		modifications.setLscAttributeModifications(datasetModifications);
+		return modifications;
+	}
+
+	@Override
+	public final boolean equals(Object o) {
+		if (o instanceof PlanEntry) {
+			PlanEntry that = (PlanEntry) o;
+
+			return Objects.equals(this.aspect, that.aspect)
+				&& Objects.equals(this.operation, that.operation)
+				&& Objects.equals(this.identifier, that.identifier)
+				&& Objects.equals(this.attributes, that.attributes);
+		}
+		return false;
+	}
+
+	@Override
+	public final int hashCode() {
+		return Objects.hash(aspect, operation, identifier, attributes);
+	}
+}
@@ -0,0 +1,49 @@
+package org.lsc.plugins.connectors.james.plan;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads a plan file written by {@link PlanWriter}. The last line of the plan of a run killed while writing it may be
+ * truncated: it is skipped with a warning, the operation it held being lost. Any other malformed line fails the read.
+ */
+public class PlanReader {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PlanReader.class);
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	public List<PlanEntry> readAll(Path path) throws IOException {
+		List<PlanEntry> entries = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			long lineNumber = 1;
+			while (line != null) {
+				String next = reader.readLine();
+				if (!line.trim().isEmpty()) {
+					try {
+						entries.add(mapper.readValue(line, PlanEntry.class));
+					} catch (JsonProcessingException e) {
+						if (next != null) {
+							throw e;
+						}
+						LOGGER.warn("Skipping the truncated last line {} of {}: {}", lineNumber, path, line);
+					}
+				}
+				line = next;
+				lineNumber++;
+			}
+		}
+		return entries;
+	}
+}
@@ -0,0 +1,110 @@
+package org.lsc.plugins.connectors.james.plan;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.lsc.LscModifications;
+import org.lsc.plugins.connectors.james.Aspect;
+import org.lsc.plugins.connectors.james.EndOfRun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends the modifications LSC asks to apply to a newline delimited JSON plan file instead of writing them to TMail.
+ *
+ * The plan file is enabled with the {@value #PLAN_FILE_PROPERTY} JVM property. All the tasks of a run share the
+ * same file, which is closed at the end of the run. Each entry is flushed once written, so that the plan of a killed
+ * run holds all the entries recorded so far, and at most a truncated last line, which {@link PlanReader} skips.
+ */
+public class PlanWriter implements Closeable {
+	public static final String PLAN_FILE_PROPERTY = "tmail.plan.file";
+	private static final Logger LOGGER = LoggerFactory.getLogger(PlanWriter.class);
+
+	private static Optional<PlanWriter> shared;
+
+	/**
+	 * @return the plan writer of this run, or empty when the plan mode is not enabled
+	 */
+	public static synchronized Optional<PlanWriter> shared() {
+		if (shared == null) {
+			shared = Optional.ofNullable(System.getProperty(PLAN_FILE_PROPERTY))
+				.map(Paths::get)
+				.map(PlanWriter::openShared);
+		}
+		return shared;
+	}
+
+	private static PlanWriter openShared(Path path) {
+		try {
+			PlanWriter planWriter = new PlanWriter(path);
+			LOGGER.info("Plan mode enabled, operations are written to {} instead of being applied to TMail", path);
+			EndOfRun.register(EndOfRun.Stage.CLOSE, "plan file " + path, planWriter::closeQuietly);
+			return planWriter;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open plan file " + path, e);
+		}
+	}
+
+	private final ObjectMapper mapper;
+	private final BufferedWriter writer;
+	private long entryCount;
+
+	public PlanWriter(Path path) throws IOException {
+		this.mapper = new ObjectMapper();
+		this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Record the modification of the given aspect. The plan does not know yet if it will succeed, so it always
+	 * reports success to LSC.
+	 */
+	public boolean record(Aspect aspect, LscModifications modifications) {
+		try {
+			String line = mapper.writeValueAsString(PlanEntry.of(aspect, modifications));
+			synchronized (this) {
+				writer.write(line);
+				writer.newLine();
+				writer.flush();
+				entryCount++;
+			}
+			LOGGER.debug("Planned {} {} for {}", aspect, modifications.getOperation(), modifications.getMainIdentifier());
+			return true;
+		} catch (JsonProcessingException e) {
+			LOGGER.error("Unable to serialize {} {} for {}", aspect, modifications.getOperation(), modifications.getMainIdentifier(), e);
+			return false;
+		} catch (IOException e) {
+			LOGGER.error("Unable to write {} {} for {} to the plan file", aspect, modifications.getOperation(), modifications.getMainIdentifier(), e);
+			return false;
+		}
+	}
+
+	public synchronized long getEntryCount() {
+		return entryCount;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+
+	private void closeQuietly() {
+		try {
+			close();
+			LOGGER.info("Plan file closed with {} operations", getEntryCount());
+		} catch (IOException e) {
+			LOGGER.error("Unable to close the plan file", e);
+		}
+	}
+}
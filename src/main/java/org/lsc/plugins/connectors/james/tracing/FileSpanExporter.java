@@ -0,0 +1,63 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Appends the spans to a newline delimited JSON file, one span per line. Fields are named after the OpenTelemetry
+ * protocol JSON encoding, so that the file can be converted and loaded in a trace viewer.
+ */
+public class FileSpanExporter implements SpanExporter, Closeable {
+	private final ObjectMapper mapper;
+	private final BufferedWriter writer;
+
+	public FileSpanExporter(Path path) throws IOException {
+		this.mapper = new ObjectMapper();
+		this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	@Override
+	public void export(Span span) throws IOException {
+		String line = mapper.writeValueAsString(toJson(span));
+		synchronized (this) {
+			writer.write(line);
+			writer.newLine();
+		}
+	}
+
+	ObjectNode toJson(Span span) {
+		ObjectNode json = mapper.createObjectNode()
+			.put("traceId", span.getTraceId())
+			.put("spanId", span.getSpanId());
+		span.getParentSpanId().ifPresent(parentSpanId -> json.put("parentSpanId", parentSpanId));
+		json.put("name", span.getName())
+			.put("startTimeUnixNano", span.getStartEpochNanos())
+			.put("endTimeUnixNano", span.getStartEpochNanos() + span.getDurationNanos());
+		ObjectNode attributes = json.putObject("attributes");
+		for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+			attributes.putPOJO(attribute.getKey(), attribute.getValue());
+		}
+		ObjectNode status = json.putObject("status");
+		if (span.getError().isPresent()) {
+			status.put("code", "ERROR").put("message", span.getError().get());
+		} else {
+			status.put("code", "OK");
+		}
+		return json;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,21 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps the exported spans in memory, in the order they were closed.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+	private final ConcurrentLinkedQueue<Span> spans = new ConcurrentLinkedQueue<>();
+
+	@Override
+	public void export(Span span) {
+		spans.add(span);
+	}
+
+	public List<Span> getSpans() {
+		return new ArrayList<>(spans);
+	}
+}
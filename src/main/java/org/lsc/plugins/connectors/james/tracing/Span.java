@@ -0,0 +1,149 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timed operation of a trace, exported when closed. Spans which are not sampled do not record anything.
+ *
+ * A scoped span is the current span of its thread until it is closed, the spans started meanwhile being its children.
+ * A leaf span, such as a webadmin call, has a parent but never becomes current.
+ */
+public class Span implements AutoCloseable {
+	static final Span NOOP = new Span(null, null, null, null, null, false);
+	static final String NO_RESPONSE = "no response";
+
+	private final Tracer tracer;
+	private final String name;
+	private final String traceId;
+	private final String spanId;
+	private final Span parent;
+	private final boolean scoped;
+	private final long startEpochNanos;
+	private final long start;
+	private final Map<String, Object> attributes;
+	private final List<Span> openLeaves;
+	private long durationNanos;
+	private String error;
+	private boolean closed;
+
+	Span(Tracer tracer, String name, String traceId, String spanId, Span parent, boolean scoped) {
+		this.tracer = tracer;
+		this.name = name;
+		this.traceId = traceId;
+		this.spanId = spanId;
+		this.parent = parent;
+		this.scoped = scoped;
+		this.startEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+		this.start = System.nanoTime();
+		this.attributes = isRecording() ? new LinkedHashMap<>() : Collections.emptyMap();
+		this.openLeaves = isRecording() ? new ArrayList<>() : Collections.emptyList();
+	}
+
+	/**
+	 * @return true when the span is sampled, its attributes being exported
+	 */
+	public boolean isRecording() {
+		return traceId != null;
+	}
+
+	public Span setAttribute(String key, Object value) {
+		if (isRecording() && value != null) {
+			attributes.put(key, value);
+		}
+		return this;
+	}
+
+	public Span setError(String error) {
+		if (isRecording()) {
+			this.error = error;
+		}
+		return this;
+	}
+
+	/**
+	 * @return the W3C trace context header identifying this span, when it is recording
+	 */
+	public Optional<String> traceparent() {
+		if (!isRecording()) {
+			return Optional.empty();
+		}
+		return Optional.of("00-" + traceId + "-" + spanId + "-01");
+	}
+
+	synchronized void leafStarted(Span leaf) {
+		openLeaves.add(leaf);
+	}
+
+	synchronized void leafClosed(Span leaf) {
+		openLeaves.remove(leaf);
+	}
+
+	@Override
+	public void close() {
+		if (this == NOOP || closed) {
+			return;
+		}
+		closed = true;
+		durationNanos = System.nanoTime() - start;
+		if (scoped) {
+			tracer.exit(this);
+		}
+		if (!isRecording()) {
+			return;
+		}
+		List<Span> unfinished;
+		synchronized (this) {
+			unfinished = new ArrayList<>(openLeaves);
+		}
+		// Jersey does not call response filters when no response is received
+		for (Span leaf : unfinished) {
+			leaf.setError(NO_RESPONSE).close();
+		}
+		if (!scoped && parent != null) {
+			parent.leafClosed(this);
+		}
+		tracer.export(this);
+	}
+
+	Span getParent() {
+		return parent;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getTraceId() {
+		return traceId;
+	}
+
+	public String getSpanId() {
+		return spanId;
+	}
+
+	public Optional<String> getParentSpanId() {
+		return Optional.ofNullable(parent).filter(Span::isRecording).map(Span::getSpanId);
+	}
+
+	public long getStartEpochNanos() {
+		return startEpochNanos;
+	}
+
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	public Map<String, Object> getAttributes() {
+		return attributes;
+	}
+
+	public Optional<String> getError() {
+		return Optional.ofNullable(error);
+	}
+}
@@ -0,0 +1,10 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import java.io.IOException;
+
+/**
+ * Publishes the sampled spans once they are closed.
+ */
+public interface SpanExporter {
+	void export(Span span) throws IOException;
+}
@@ -0,0 +1,145 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.lsc.plugins.connectors.james.EndOfRun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts the spans of the plugin: one per getBean, apply and pivot listing of the destination services, with a child
+ * span per webadmin call, whose context is propagated to TMail with the W3C {@code traceparent} header.
+ *
+ * Tracing is enabled with the {@value #FILE_PROPERTY} JVM property, spans being appended to that file. Each trace is
+ * sampled with the {@value #SAMPLE_RATE_PROPERTY} probability, its spans being exported or not as a whole. When
+ * tracing is disabled, spans are a shared no-op instance.
+ */
+public class Tracer {
+	public static final String FILE_PROPERTY = "tmail.tracing.file";
+	public static final String SAMPLE_RATE_PROPERTY = "tmail.tracing.sample.rate";
+	public static final double DEFAULT_SAMPLE_RATE = 1.0;
+	public static final Tracer DISABLED = new Tracer(null, 0);
+	private static final Logger LOGGER = LoggerFactory.getLogger(Tracer.class);
+
+	private static Tracer shared;
+
+	/**
+	 * @return the tracer of this run, {@link #DISABLED} when no trace file is set
+	 */
+	public static synchronized Tracer shared() {
+		if (shared == null) {
+			shared = Optional.ofNullable(System.getProperty(FILE_PROPERTY))
+				.map(Paths::get)
+				.map(Tracer::openShared)
+				.orElse(DISABLED);
+		}
+		return shared;
+	}
+
+	private static Tracer openShared(Path path) {
+		try {
+			FileSpanExporter exporter = new FileSpanExporter(path);
+			double sampleRate = Double.parseDouble(System.getProperty(SAMPLE_RATE_PROPERTY, String.valueOf(DEFAULT_SAMPLE_RATE)));
+			LOGGER.info("Tracing enabled with a sample rate of {}, spans are written to {}", sampleRate, path);
+			EndOfRun.register(EndOfRun.Stage.CLOSE, "trace file " + path, () -> {
+				try {
+					exporter.close();
+				} catch (IOException e) {
+					LOGGER.error("Unable to close the trace file", e);
+				}
+			});
+			return new Tracer(exporter, sampleRate);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open trace file " + path, e);
+		}
+	}
+
+	private final SpanExporter exporter;
+	private final double sampleRate;
+	private final ThreadLocal<Span> current;
+
+	public Tracer(SpanExporter exporter, double sampleRate) {
+		this.exporter = exporter;
+		this.sampleRate = sampleRate;
+		this.current = new ThreadLocal<>();
+	}
+
+	public boolean isEnabled() {
+		return exporter != null;
+	}
+
+	/**
+	 * Start a span which is the current span of this thread until it is closed. Without a current span, it starts a
+	 * new trace, which is sampled or not.
+	 */
+	public Span startSpan(String name) {
+		if (!isEnabled()) {
+			return Span.NOOP;
+		}
+		Span parent = current.get();
+		Span span;
+		if (parent != null) {
+			span = new Span(this, name, parent.getTraceId(), parent.isRecording() ? newId() : null, parent, true);
+		} else if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+			span = new Span(this, name, newId() + newId(), newId(), null, true);
+		} else {
+			span = new Span(this, name, null, null, null, true);
+		}
+		current.set(span);
+		return span;
+	}
+
+	/**
+	 * Start a child span of the current span, which does not become current. Leaf spans are only recorded within a
+	 * sampled trace, and are closed by their parent if they are still open when it ends.
+	 */
+	public Span startLeafSpan(String name) {
+		if (!isEnabled()) {
+			return Span.NOOP;
+		}
+		Span parent = current.get();
+		if (parent == null || !parent.isRecording()) {
+			return Span.NOOP;
+		}
+		Span leaf = new Span(this, name, parent.getTraceId(), newId(), parent, false);
+		parent.leafStarted(leaf);
+		return leaf;
+	}
+
+	/**
+	 * @return the current span of this thread
+	 */
+	public Optional<Span> current() {
+		return Optional.ofNullable(current.get());
+	}
+
+	void exit(Span span) {
+		if (span.getParent() == null) {
+			current.remove();
+		} else {
+			current.set(span.getParent());
+		}
+	}
+
+	void export(Span span) {
+		try {
+			exporter.export(span);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Unable to export span {} of trace {}", span.getName(), span.getTraceId(), e);
+		}
+	}
+
+	private static String newId() {
+		long id;
+		do {
+			id = ThreadLocalRandom.current().nextLong();
+		} while (id == 0);
+		String hex = Long.toHexString(id);
+		return "0000000000000000".substring(hex.length()) + hex;
+	}
+}
@@ -0,0 +1,51 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+
+/**
+ * Records each webadmin call of one Jersey client as a leaf span of the current span, and propagates its context to
+ * TMail with the {@value #TRACEPARENT_HEADER} header. Calls made outside of a sampled trace are not traced.
+ */
+public class TracingFilter implements ClientRequestFilter, ClientResponseFilter {
+	public static final String TRACEPARENT_HEADER = "traceparent";
+	private static final String SPAN_PROPERTY = TracingFilter.class.getName() + ".span";
+
+	private final Endpoint endpoint;
+	private final Tracer tracer;
+
+	public TracingFilter(Endpoint endpoint, Tracer tracer) {
+		this.endpoint = endpoint;
+		this.tracer = tracer;
+	}
+
+	@Override
+	public void filter(ClientRequestContext requestContext) {
+		Span span = tracer.startLeafSpan(requestContext.getMethod() + " " + endpoint.label());
+		if (!span.isRecording()) {
+			return;
+		}
+		span.setAttribute("endpoint", endpoint.label())
+			.setAttribute("http.method", requestContext.getMethod())
+			.setAttribute("http.target", requestContext.getUri().getRawPath());
+		span.traceparent().ifPresent(traceparent -> requestContext.getHeaders().putSingle(TRACEPARENT_HEADER, traceparent));
+		requestContext.setProperty(SPAN_PROPERTY, span);
+	}
+
+	@Override
+	public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+		Span span = (Span) requestContext.getProperty(SPAN_PROPERTY);
+		if (span == null) {
+			return;
+		}
+		span.setAttribute("http.status_code", responseContext.getStatus());
+		if (responseContext.getStatus() >= 500) {
+			span.setError(responseContext.getStatusInfo().getReasonPhrase());
+		}
+		span.close();
+	}
+}
@@ -0,0 +1,30 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import java.util.Optional;
+
+import org.glassfish.jersey.client.HttpUrlConnector;
+import org.glassfish.jersey.client.spi.Connector;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+import org.lsc.plugins.connectors.james.metrics.SlowRequestLog;
+
+/**
+ * The HTTP/1.1 connector of Jersey, on top of {@link java.net.HttpURLConnection} and the keep-alive cache of the JDK.
+ * Its connections are timed by the slow request log when it is enabled.
+ */
+class JerseyTransport implements Transport {
+	private final Optional<SlowRequestLog> slowRequests;
+
+	JerseyTransport(Optional<SlowRequestLog> slowRequests) {
+		this.slowRequests = slowRequests;
+	}
+
+	@Override
+	public String getName() {
+		return Transports.JERSEY;
+	}
+
+	@Override
+	public Optional<Connector> newConnector(Endpoint endpoint) {
+		return slowRequests.map(log -> new HttpUrlConnector(log.connectionFactory(endpoint)));
+	}
+}
@@ -0,0 +1,81 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Streams asynchronous webadmin calls, such as {@link org.lsc.plugins.connectors.james.JamesDao#createAliasAsync},
+ * with at most {@value #MAX_IN_FLIGHT_PROPERTY} calls in flight: submitting a call blocks until a call of the window
+ * completes. A bulk provisioning of millions of entries thus goes at the pace TMail answers, with a bounded memory,
+ * rather than queueing every call upfront. The alias and forward creations of all the tasks share one window when the
+ * transport is non-blocking, see {@link #shared()}.
+ *
+ * With a non-blocking transport, {@value Transports#HTTP2}, the whole window is kept in flight by the few threads of
+ * the transport. With the {@value Transports#JERSEY} transport, each call in flight holds a thread of Jersey.
+ */
+public class RequestStream {
+	public static final String MAX_IN_FLIGHT_PROPERTY = "tmail.transport.max.in.flight";
+	public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+	private static RequestStream shared;
+
+	public static RequestStream fromProperties() {
+		return new RequestStream(Integer.getInteger(MAX_IN_FLIGHT_PROPERTY, DEFAULT_MAX_IN_FLIGHT));
+	}
+
+	/**
+	 * @return the window shared by the tasks of this run
+	 */
+	public static synchronized RequestStream shared() {
+		if (shared == null) {
+			shared = fromProperties();
+		}
+		return shared;
+	}
+
+	private final int maxInFlight;
+	private final Semaphore window;
+
+	public RequestStream(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException(String.format("%s must be positive, got %d", MAX_IN_FLIGHT_PROPERTY, maxInFlight));
+		}
+		this.maxInFlight = maxInFlight;
+		this.window = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * Starts the given call once the window has room for it.
+	 *
+	 * @return the outcome of the call
+	 * @throws InterruptedException when interrupted while the window is full, the call not being started
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) throws InterruptedException {
+		window.acquire();
+		CompletableFuture<T> outcome;
+		try {
+			outcome = call.get();
+		} catch (RuntimeException e) {
+			window.release();
+			throw e;
+		}
+		return outcome.whenComplete((result, failure) -> window.release());
+	}
+
+	/**
+	 * Waits for the calls in flight to complete.
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		window.acquire(maxInFlight);
+		window.release(maxInFlight);
+	}
+
+	public int getInFlight() {
+		return maxInFlight - window.availablePermits();
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+}
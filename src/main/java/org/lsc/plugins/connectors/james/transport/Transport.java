@@ -0,0 +1,31 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import org.glassfish.jersey.client.spi.Connector;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+
+/**
+ * Carries the webadmin calls of {@link org.lsc.plugins.connectors.james.JamesDao}. A transport is plugged under the
+ * Jersey client of each endpoint as its connector, so that the request templates, entity providers and filters of the
+ * DAO work the same whatever the transport. Transports are selected with the {@value Transports#PROPERTY} JVM
+ * property, see {@link Transports}.
+ */
+public interface Transport {
+	String getName();
+
+	/**
+	 * @return the connector of the Jersey client of the given endpoint, or empty to keep the default connector of
+	 * Jersey
+	 */
+	Optional<Connector> newConnector(Endpoint endpoint);
+
+	/**
+	 * @return the number of threads handing the asynchronous calls of a Jersey client to the connector, or empty for
+	 * the unbounded pool of Jersey, which blocking connectors need as each of these threads waits for its response
+	 */
+	default OptionalInt asyncThreads() {
+		return OptionalInt.empty();
+	}
+}
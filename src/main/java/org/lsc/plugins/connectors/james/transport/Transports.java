@@ -0,0 +1,139 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.lsc.plugins.connectors.james.metrics.SlowRequestLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the transport of the webadmin calls with the {@value #PROPERTY} JVM property:
+ * <ul>
+ *     <li>{@value #JERSEY}, the default: the HTTP/1.1 connector of Jersey, one connection per call in flight</li>
+ *     <li>{@value #HTTP2}: {@code java.net.http.HttpClient}, which multiplexes the calls in flight over a few HTTP/2
+ *     connections when TMail supports it. It requires Java 11: on older runtimes the Jersey transport is used. Being
+ *     non-blocking, it keeps thousands of asynchronous calls in flight, see {@link RequestStream}, with the
+ *     {@value #THREADS_PROPERTY} threads of its event loop.</li>
+ * </ul>
+ * A webadmin URL made of {@value #UNIX_URL_PREFIX} and the path of a Unix domain socket, such as
+ * {@code unix:/run/tmail/webadmin.sock}, selects the {@value #UNIX} transport whatever the property, HTTP/1.1 over
+ * that socket. It requires Java 16.
+ *
+ * The transports other than Jersey are built for newer Java versions, in the multi-release part of the plugin jar, so
+ * they are loaded by name. They are shared by all the tasks of a run, so that their connections are.
+ */
+public final class Transports {
+	public static final String PROPERTY = "tmail.transport";
+	public static final String JERSEY = "jersey";
+	public static final String HTTP2 = "http2";
+	public static final String UNIX = "unix";
+	/**
+	 * Prefix of the webadmin URLs of a TMail reached through a Unix domain socket, followed by the path of the socket
+	 */
+	public static final String UNIX_URL_PREFIX = "unix:";
+	public static final String THREADS_PROPERTY = "tmail.transport.threads";
+	public static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static final String HTTP2_CLASS = "org.lsc.plugins.connectors.james.transport.HttpClientTransport";
+	private static final String UNIX_CLASS = "org.lsc.plugins.connectors.james.transport.UnixSocketTransport";
+	// Requests sent through a Unix domain socket still need a host
+	private static final String UNIX_HTTP_URL = "http://localhost";
+	private static final Logger LOGGER = LoggerFactory.getLogger(Transports.class);
+	private static final ConcurrentMap<String, Optional<Transport>> LOADED = new ConcurrentHashMap<>();
+
+	private Transports() {
+	}
+
+	/**
+	 * @return the transport selected by the JVM properties
+	 * @throws IllegalArgumentException when the transport is unknown
+	 */
+	public static Transport fromProperties(Optional<SlowRequestLog> slowRequests) {
+		return named(System.getProperty(PROPERTY, JERSEY), slowRequests);
+	}
+
+	/**
+	 * @return the {@value #UNIX} transport for a Unix domain socket URL, the transport selected by the JVM properties
+	 * otherwise
+	 * @throws IllegalArgumentException when the transport is unknown, or the URL is a Unix domain socket one and this
+	 * runtime does not support them
+	 */
+	public static Transport forUrl(String url, Optional<SlowRequestLog> slowRequests) {
+		if (!isUnixSocket(url)) {
+			return fromProperties(slowRequests);
+		}
+		String socketPath = url.substring(UNIX_URL_PREFIX.length());
+		Transport transport = LOADED.computeIfAbsent(url, key -> load(UNIX, UNIX_CLASS, "Java 16", socketPath))
+			.orElseThrow(() -> new IllegalArgumentException(String.format("The webadmin URL %s requires Java 16", url)));
+		warnUntimed(UNIX, slowRequests);
+		return transport;
+	}
+
+	/**
+	 * @return the URL the Jersey clients target: the given one, or a local one for Unix domain socket URLs
+	 */
+	public static String httpUrl(String url) {
+		return isUnixSocket(url) ? UNIX_HTTP_URL : url;
+	}
+
+	public static boolean isUnixSocket(String url) {
+		return url.startsWith(UNIX_URL_PREFIX);
+	}
+
+	/**
+	 * @return the given transport, or the Jersey transport when it is not available on this runtime
+	 * @throws IllegalArgumentException when the transport is unknown
+	 */
+	public static Transport named(String name, Optional<SlowRequestLog> slowRequests) {
+		String normalized = name.trim().toLowerCase(Locale.ROOT);
+		switch (normalized) {
+			case JERSEY:
+				return jersey(slowRequests);
+			case HTTP2:
+				return loaded(HTTP2, HTTP2_CLASS, "Java 11", slowRequests);
+			default:
+				throw new IllegalArgumentException(String.format("Unknown %s %s, expected one of %s, %s", PROPERTY, name, JERSEY, HTTP2));
+		}
+	}
+
+	public static Transport jersey(Optional<SlowRequestLog> slowRequests) {
+		return new JerseyTransport(slowRequests);
+	}
+
+	private static Transport loaded(String name, String className, String requirement, Optional<SlowRequestLog> slowRequests) {
+		Optional<Transport> transport = LOADED.computeIfAbsent(name, key -> load(key, className, requirement));
+		if (!transport.isPresent()) {
+			return jersey(slowRequests);
+		}
+		warnUntimed(name, slowRequests);
+		return transport.get();
+	}
+
+	private static void warnUntimed(String name, Optional<SlowRequestLog> slowRequests) {
+		if (slowRequests.isPresent()) {
+			LOGGER.warn("The slow request log only times the {} transport, {} calls are not logged", JERSEY, name);
+		}
+	}
+
+	/**
+	 * @param arguments the arguments of the constructor of the transport, all strings
+	 */
+	private static Optional<Transport> load(String name, String className, String requirement, String... arguments) {
+		try {
+			Class<?>[] parameterTypes = new Class<?>[arguments.length];
+			Arrays.fill(parameterTypes, String.class);
+			Transport transport = Class.forName(className)
+				.asSubclass(Transport.class)
+				.getDeclaredConstructor(parameterTypes)
+				.newInstance((Object[]) arguments);
+			LOGGER.info("Webadmin calls use the {} transport", name);
+			return Optional.of(transport);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			LOGGER.warn(String.format("The %s transport requires %s (%s)", name, requirement, e));
+			return Optional.empty();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.ProcessingException;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+/**
+ * Sends the requests of a Jersey client through a shared {@link HttpClient}. Request entities, small JSON documents,
+ * are written to a buffer by the providers of the client. The response entities of blocking calls are streamed to
+ * them, while those of asynchronous calls are buffered before the response is handed over: the callbacks run on the
+ * few threads of the client, none of which may wait for the body of a response.
+ */
+class HttpClientConnector implements Connector {
+	// Headers managed by the HttpClient itself, which it refuses to be given
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "date", "expect",
+		"from", "host", "origin", "referer", "upgrade", "via", "warning");
+
+	private final HttpClient client;
+
+	HttpClientConnector(HttpClient client) {
+		this.client = client;
+	}
+
+	@Override
+	public ClientResponse apply(ClientRequest request) {
+		try {
+			HttpResponse<InputStream> response = client.send(toHttpRequest(request), HttpResponse.BodyHandlers.ofInputStream());
+			return toClientResponse(request, response, response.body());
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+		HttpRequest httpRequest;
+		try {
+			httpRequest = toHttpRequest(request);
+		} catch (IOException | RuntimeException e) {
+			callback.failure(e);
+			return CompletableFuture.completedFuture(null);
+		}
+		return client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+			.whenComplete((response, failure) -> {
+				if (failure != null) {
+					callback.failure(failure);
+				} else {
+					callback.response(toClientResponse(request, response, new ByteArrayInputStream(response.body())));
+				}
+			});
+	}
+
+	private static HttpRequest toHttpRequest(ClientRequest request) throws IOException {
+		HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+		if (request.hasEntity()) {
+			ByteArrayOutputStream entity = new ByteArrayOutputStream();
+			request.setStreamProvider(contentLength -> entity);
+			request.writeEntity();
+			body = HttpRequest.BodyPublishers.ofByteArray(entity.toByteArray());
+		}
+		HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri())
+			.method(request.getMethod(), body);
+		for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+			if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+				header.getValue().forEach(value -> builder.header(header.getKey(), value));
+			}
+		}
+		return builder.build();
+	}
+
+	private static ClientResponse toClientResponse(ClientRequest request, HttpResponse<?> response, InputStream body) {
+		ClientResponse clientResponse = new ClientResponse(Statuses.from(response.statusCode()), request);
+		Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		response.headers().map().forEach((name, values) -> {
+			// HTTP/2 pseudo headers, such as :status
+			if (!name.startsWith(":")) {
+				headers.put(name, values);
+			}
+		});
+		clientResponse.headers(headers);
+		clientResponse.setEntityStream(body);
+		return clientResponse;
+	}
+
+	@Override
+	public String getName() {
+		return "java.net.http " + client.version();
+	}
+
+	@Override
+	public void close() {
+		// The HttpClient is shared by the clients of all the endpoints
+	}
+}
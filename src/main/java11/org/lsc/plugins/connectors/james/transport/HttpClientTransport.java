@@ -0,0 +1,57 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import java.net.http.HttpClient;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.Executors;
+
+import org.glassfish.jersey.client.spi.Connector;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * The {@value Transports#HTTP2} transport: one {@link HttpClient} shared by all the endpoints, which negotiates
+ * HTTP/2 with TMail, through ALPN over TLS or an upgrade over cleartext, and then multiplexes the calls in flight over
+ * its connections. It falls back to HTTP/1.1 with servers not supporting HTTP/2.
+ *
+ * The client is non-blocking: its connections are served by a selector thread and the responses are handled by
+ * {@value Transports#THREADS_PROPERTY} threads, however many asynchronous calls are in flight.
+ */
+class HttpClientTransport implements Transport {
+	private final HttpClient client;
+	private final int threads;
+
+	HttpClientTransport() {
+		this(Integer.getInteger(Transports.THREADS_PROPERTY, Transports.DEFAULT_THREADS));
+	}
+
+	private HttpClientTransport(int threads) {
+		this(HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_2)
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.executor(Executors.newFixedThreadPool(threads,
+				new ThreadFactoryBuilder().setNameFormat("tmail-http-%d").setDaemon(true).build()))
+			.build(), threads);
+	}
+
+	HttpClientTransport(HttpClient client, int threads) {
+		this.client = client;
+		this.threads = threads;
+	}
+
+	@Override
+	public String getName() {
+		return Transports.HTTP2;
+	}
+
+	@Override
+	public Optional<Connector> newConnector(Endpoint endpoint) {
+		return Optional.of(new HttpClientConnector(client));
+	}
+
+	@Override
+	public OptionalInt asyncThreads() {
+		return OptionalInt.of(threads);
+	}
+}
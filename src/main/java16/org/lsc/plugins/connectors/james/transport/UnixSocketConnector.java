@@ -0,0 +1,265 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+/**
+ * Sends the requests of a Jersey client as HTTP/1.1 over a Unix domain socket. Connections are kept alive and reused,
+ * one per call in flight. Request and response entities, small JSON documents, are buffered, so that a connection
+ * goes back to the pool as soon as its response is read.
+ */
+class UnixSocketConnector implements Connector {
+	// Headers written by the connector itself
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "host", "transfer-encoding");
+	// Requests which can be sent again when the server may have processed them already
+	private static final Set<String> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.OPTIONS);
+
+	private final UnixDomainSocketAddress address;
+	private final Deque<Connection> idle;
+
+	UnixSocketConnector(UnixDomainSocketAddress address) {
+		this.address = address;
+		this.idle = new ConcurrentLinkedDeque<>();
+	}
+
+	@Override
+	public ClientResponse apply(ClientRequest request) {
+		try {
+			byte[] entity = entity(request);
+			Connection connection = idle.pollFirst();
+			if (connection != null) {
+				try {
+					return exchange(connection, request, entity);
+				} catch (IOException e) {
+					if (connection.statusRead || (connection.requestWritten && !IDEMPOTENT_METHODS.contains(request.getMethod()))) {
+						throw e;
+					}
+					// The server closed the idle connection: the request was not written, or can be sent again
+				}
+			}
+			return exchange(new Connection(address), request, entity);
+		} catch (IOException e) {
+			throw new ProcessingException(e);
+		}
+	}
+
+	@Override
+	public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+		// Called from a thread of the asynchronous pool of Jersey, which can wait for the response
+		try {
+			callback.response(apply(request));
+		} catch (ProcessingException e) {
+			callback.failure(e);
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	private ClientResponse exchange(Connection connection, ClientRequest request, byte[] entity) throws IOException {
+		connection.requestWritten = false;
+		connection.statusRead = false;
+		connection.keepAlive = false;
+		try {
+			writeRequest(connection.output, request, entity);
+			connection.requestWritten = true;
+			return readResponse(connection, request);
+		} finally {
+			if (connection.keepAlive) {
+				idle.offerFirst(connection);
+			} else {
+				connection.close();
+			}
+		}
+	}
+
+	private static byte[] entity(ClientRequest request) throws IOException {
+		if (!request.hasEntity()) {
+			return null;
+		}
+		ByteArrayOutputStream entity = new ByteArrayOutputStream();
+		request.setStreamProvider(contentLength -> entity);
+		request.writeEntity();
+		return entity.toByteArray();
+	}
+
+	private static void writeRequest(OutputStream output, ClientRequest request, byte[] entity) throws IOException {
+		URI uri = request.getUri();
+		StringBuilder head = new StringBuilder()
+			.append(request.getMethod()).append(' ').append(uri.getRawPath());
+		if (uri.getRawQuery() != null) {
+			head.append('?').append(uri.getRawQuery());
+		}
+		head.append(" HTTP/1.1\r\nHost: localhost\r\n");
+		for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+			if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+				header.getValue().forEach(value -> head.append(header.getKey()).append(": ").append(value).append("\r\n"));
+			}
+		}
+		if (entity != null || request.getMethod().equals(HttpMethod.PUT) || request.getMethod().equals(HttpMethod.POST)) {
+			head.append("Content-Length: ").append(entity == null ? 0 : entity.length).append("\r\n");
+		}
+		head.append("\r\n");
+		output.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+		if (entity != null) {
+			output.write(entity);
+		}
+		output.flush();
+	}
+
+	private static ClientResponse readResponse(Connection connection, ClientRequest request) throws IOException {
+		InputStream input = connection.input;
+		String statusLine = readLine(input);
+		connection.statusRead = true;
+		String[] status = statusLine.split(" ", 3);
+		if (status.length < 2 || !status[0].startsWith("HTTP/1.")) {
+			throw new IOException("Invalid HTTP status line: " + statusLine);
+		}
+		int statusCode = Integer.parseInt(status[1]);
+		Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (String line = readLine(input); !line.isEmpty(); line = readLine(input)) {
+			int colon = line.indexOf(':');
+			if (colon > 0) {
+				headers.computeIfAbsent(line.substring(0, colon).trim(), name -> new ArrayList<>())
+					.add(line.substring(colon + 1).trim());
+			}
+		}
+
+		boolean closed = status[0].equals("HTTP/1.0") || hasToken(headers, "Connection", "close");
+		byte[] body;
+		if (request.getMethod().equals(HttpMethod.HEAD) || statusCode / 100 == 1 || statusCode == 204 || statusCode == 304) {
+			body = new byte[0];
+		} else if (hasToken(headers, "Transfer-Encoding", "chunked")) {
+			body = readChunked(input);
+		} else if (headers.containsKey("Content-Length")) {
+			body = readFully(input, Integer.parseInt(headers.get("Content-Length").get(0)));
+		} else {
+			body = input.readAllBytes();
+			closed = true;
+		}
+
+		connection.keepAlive = !closed;
+		ClientResponse response = new ClientResponse(Statuses.from(statusCode), request);
+		response.headers(headers);
+		response.setEntityStream(new ByteArrayInputStream(body));
+		return response;
+	}
+
+	private static boolean hasToken(Map<String, List<String>> headers, String name, String token) {
+		return headers.getOrDefault(name, List.of()).stream()
+			.anyMatch(value -> value.toLowerCase(Locale.ROOT).contains(token));
+	}
+
+	private static byte[] readChunked(InputStream input) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		while (true) {
+			String sizeLine = readLine(input);
+			int extension = sizeLine.indexOf(';');
+			int size = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+			if (size == 0) {
+				// Trailers, up to the empty line
+				while (!readLine(input).isEmpty()) {
+				}
+				return body.toByteArray();
+			}
+			body.write(readFully(input, size));
+			readLine(input);
+		}
+	}
+
+	private static byte[] readFully(InputStream input, int length) throws IOException {
+		byte[] bytes = input.readNBytes(length);
+		if (bytes.length < length) {
+			throw new EOFException(String.format("Expected %d bytes, got %d", length, bytes.length));
+		}
+		return bytes;
+	}
+
+	private static String readLine(InputStream input) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int previous = -1;
+		while (true) {
+			int current = input.read();
+			if (current < 0) {
+				throw new EOFException("Connection closed by the server");
+			}
+			if (previous == '\r' && current == '\n') {
+				line.setLength(line.length() - 1);
+				return line.toString();
+			}
+			line.append((char) current);
+			previous = current;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "HTTP/1.1 over " + address;
+	}
+
+	@Override
+	public void close() {
+		for (Connection connection = idle.pollFirst(); connection != null; connection = idle.pollFirst()) {
+			connection.close();
+		}
+	}
+
+	private static class Connection {
+		private final SocketChannel channel;
+		private final InputStream input;
+		private final OutputStream output;
+		// State of the current exchange
+		private boolean requestWritten;
+		private boolean statusRead;
+		private boolean keepAlive;
+
+		Connection(UnixDomainSocketAddress address) throws IOException {
+			this.channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+			try {
+				channel.connect(address);
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+			this.input = new BufferedInputStream(Channels.newInputStream(channel));
+			this.output = new BufferedOutputStream(Channels.newOutputStream(channel));
+		}
+
+		void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// Nothing to release
+			}
+		}
+	}
+}
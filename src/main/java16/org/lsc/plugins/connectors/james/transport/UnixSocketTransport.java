@@ -0,0 +1,29 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import java.net.UnixDomainSocketAddress;
+import java.util.Optional;
+
+import org.glassfish.jersey.client.spi.Connector;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+
+/**
+ * The {@value Transports#UNIX} transport, selected by a {@value Transports#UNIX_URL_PREFIX} webadmin URL: HTTP/1.1
+ * over the Unix domain socket of a TMail running on the same host, which saves the TCP stack of the loopback interface.
+ */
+class UnixSocketTransport implements Transport {
+	private final UnixDomainSocketAddress address;
+
+	UnixSocketTransport(String socketPath) {
+		this.address = UnixDomainSocketAddress.of(socketPath);
+	}
+
+	@Override
+	public String getName() {
+		return Transports.UNIX;
+	}
+
+	@Override
+	public Optional<Connector> newConnector(Endpoint endpoint) {
+		return Optional.of(new UnixSocketConnector(address));
+	}
+}
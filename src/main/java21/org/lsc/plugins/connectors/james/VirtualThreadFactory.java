@@ -0,0 +1,16 @@
+package org.lsc.plugins.connectors.james;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+/**
+ * The factories of virtual threads of {@link Threads}, given the prefix of their names.
+ */
+class VirtualThreadFactory implements Function<String, ThreadFactory> {
+	@Override
+	public ThreadFactory apply(String prefix) {
+		return Thread.ofVirtual()
+			.name(prefix, 0)
+			.factory();
+	}
+}
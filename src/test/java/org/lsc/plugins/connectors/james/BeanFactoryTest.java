@@ -0,0 +1,43 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.lsc.LscDatasets;
+import org.lsc.beans.IBean;
+import org.lsc.beans.SimpleBean;
+import org.lsc.plugins.connectors.james.beans.Alias;
+
+import com.google.common.collect.ImmutableList;
+
+class BeanFactoryTest {
+	static class HiddenBean extends SimpleBean {
+		private HiddenBean() {
+		}
+	}
+
+	@Test
+	void beansShouldBeCreatedWithTheirIdentifierAndDatasets() throws Exception {
+		LscDatasets datasets = Datasets.of("bob@james.org", "sources", ImmutableList.of(new Alias("bobby@james.org")),
+			alias -> alias.source);
+
+		IBean bean = BeanFactory.of(SimpleBean.class).newBean("bob@james.org", datasets);
+
+		assertThat(bean).isInstanceOf(SimpleBean.class);
+		assertThat(bean.getMainIdentifier()).isEqualTo("bob@james.org");
+		assertThat(bean.datasets().getStringValueAttribute("email")).isEqualTo("bob@james.org");
+		assertThat(bean.datasets().getListValueAttribute("sources")).containsExactly("bobby@james.org");
+	}
+
+	@Test
+	void factoriesShouldBeSharedByBeanClass() {
+		assertThat(BeanFactory.of(SimpleBean.class)).isSameAs(BeanFactory.of(SimpleBean.class));
+	}
+
+	@Test
+	void beanClassesWithoutPublicConstructorShouldFailAsWithNewInstance() {
+		assertThatThrownBy(() -> BeanFactory.of(HiddenBean.class).newInstance())
+			.isInstanceOf(IllegalAccessException.class);
+	}
+}
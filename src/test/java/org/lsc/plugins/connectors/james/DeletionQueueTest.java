@@ -0,0 +1,146 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.plugins.connectors.james.plan.PlanEntry;
+import org.lsc.plugins.connectors.james.plan.PlanReader;
+
+import com.google.common.collect.ImmutableMap;
+
+class DeletionQueueTest {
+	private static final String BOB = "bob@james.org";
+	private static final String ALICE = "alice@james.org";
+	private static final String USERS_TASK = "users";
+	private static final String ALIASES_TASK = "aliases";
+
+	private Path directory;
+	private Path file;
+	private Path partialFile;
+	private Path abortedFile;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		directory = Files.createTempDirectory("deletions");
+		file = directory.resolve("deferred-deletions.ndjson");
+		partialFile = Paths.get(file + DeletionQueue.PARTIAL_SUFFIX);
+		abortedFile = directory.resolve("aborted-deletions.ndjson");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(partialFile);
+		Files.deleteIfExists(abortedFile);
+		Files.deleteIfExists(directory);
+	}
+
+	private static LscModifications deletion(String user) {
+		LscModifications modifications = new LscModifications(LscModificationType.DELETE_OBJECT);
+		modifications.setMainIdentifer(user);
+		return modifications;
+	}
+
+	private static PlanEntry entry(Aspect aspect, String user) {
+		return new PlanEntry(aspect, LscModificationType.DELETE_OBJECT, user, ImmutableMap.of());
+	}
+
+	@Test
+	void deferredDeletionsShouldBeReportedAsSuccessfulOnceRecorded() throws Exception {
+		DeletionQueue testee = new DeletionQueue(0.5, file, abortedFile);
+
+		assertThat(testee.submit(USERS_TASK, Aspect.USER, 4, deletion(BOB))).isTrue();
+		assertThat(testee.getDeferredCount()).isEqualTo(1);
+	}
+
+	@Test
+	void deferredDeletionsShouldBeReadableBeforeTheEndOfTheRun() throws Exception {
+		DeletionQueue testee = new DeletionQueue(0.5, file, abortedFile);
+		testee.submit(USERS_TASK, Aspect.USER, 4, deletion(BOB));
+
+		assertThat(new PlanReader().readAll(partialFile)).containsExactly(entry(Aspect.USER, BOB));
+		assertThat(file).doesNotExist();
+	}
+
+	@Test
+	void publishShouldMoveTheDeletionsToApply() throws Exception {
+		DeletionQueue testee = new DeletionQueue(0.5, file, abortedFile);
+		testee.submit(USERS_TASK, Aspect.USER, 4, deletion(BOB));
+		testee.submit(ALIASES_TASK, Aspect.ALIAS, 10, deletion(ALICE));
+
+		testee.publish();
+
+		assertThat(new PlanReader().readAll(file)).containsExactly(entry(Aspect.USER, BOB), entry(Aspect.ALIAS, ALICE));
+		assertThat(partialFile).doesNotExist();
+		assertThat(abortedFile).doesNotExist();
+	}
+
+	@Test
+	void allDeletionsShouldBeAbortedWhenATaskExceedsTheMaximumRatio() throws Exception {
+		DeletionQueue testee = new DeletionQueue(0.5, file, abortedFile);
+		testee.submit(ALIASES_TASK, Aspect.ALIAS, 10, deletion(BOB));
+		testee.submit(USERS_TASK, Aspect.USER, 3, deletion(BOB));
+		testee.submit(USERS_TASK, Aspect.USER, 3, deletion(ALICE));
+
+		testee.publish();
+
+		assertThat(file).doesNotExist();
+		assertThat(new PlanReader().readAll(abortedFile)).containsExactly(
+			entry(Aspect.ALIAS, BOB),
+			entry(Aspect.USER, BOB),
+			entry(Aspect.USER, ALICE));
+	}
+
+	@Test
+	void theRatioShouldBeCheckedForEachTask() throws Exception {
+		DeletionQueue testee = new DeletionQueue(0.5, file, abortedFile);
+		// Another task of the same aspect listing many entries must not hide the deletions of a small one
+		testee.submit("all-users", Aspect.USER, 100, deletion(BOB));
+		testee.submit(USERS_TASK, Aspect.USER, 2, deletion("user1@james.org"));
+		testee.submit(USERS_TASK, Aspect.USER, 2, deletion("user2@james.org"));
+
+		testee.publish();
+
+		assertThat(file).doesNotExist();
+		assertThat(abortedFile).exists();
+	}
+
+	@Test
+	void deletionsShouldBeAbortedWhenNoEntryWasListed() throws Exception {
+		DeletionQueue testee = new DeletionQueue(1, file, abortedFile);
+		testee.submit(USERS_TASK, Aspect.USER, 0, deletion(BOB));
+
+		testee.publish();
+
+		assertThat(new PlanReader().readAll(abortedFile)).containsExactly(entry(Aspect.USER, BOB));
+	}
+
+	@Test
+	void publishShouldLeaveNoFileWhenNothingWasDeferred() throws Exception {
+		DeletionQueue testee = new DeletionQueue(0.5, file, abortedFile);
+
+		testee.publish();
+
+		assertThat(partialFile).doesNotExist();
+		assertThat(file).doesNotExist();
+		assertThat(abortedFile).doesNotExist();
+	}
+
+	@Test
+	void deletionsSubmittedOncePublishedShouldNotBeDeferred() throws Exception {
+		DeletionQueue testee = new DeletionQueue(1, file, abortedFile);
+		testee.submit(USERS_TASK, Aspect.USER, 4, deletion(BOB));
+		testee.publish();
+
+		assertThat(testee.submit(USERS_TASK, Aspect.USER, 4, deletion(ALICE))).isFalse();
+		assertThat(new PlanReader().readAll(file)).containsExactly(entry(Aspect.USER, BOB));
+	}
+}
@@ -0,0 +1,38 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+
+import org.junit.jupiter.api.Test;
+
+class EncodedSegmentsTest {
+	private static final String USER = "bob+tag@james.org";
+	private static final String SOURCE = "bob.o'brian+alias@james.org";
+
+	@Test
+	void addressesShouldBeUrlEncoded() {
+		EncodedSegments testee = new EncodedSegments(10);
+
+		assertThat(testee.encode(SOURCE)).isEqualTo("bob.o%27brian%2Balias%40james.org");
+	}
+
+	@Test
+	void resolvedTemplatesShouldMatchTheTargetsBuiltSegmentBySegment() {
+		Client client = ClientBuilder.newClient();
+		try {
+			String encodedSource = EncodedSegments.urlEncode(SOURCE);
+			WebTarget aliases = client.target("http://127.0.0.1:8000").path(JamesDao.ALIASES_PATH);
+
+			WebTarget resolved = aliases.path("{user}/sources/{source}")
+				.resolveTemplateFromEncoded("user", USER)
+				.resolveTemplateFromEncoded("source", encodedSource);
+
+			assertThat(resolved.getUri()).isEqualTo(aliases.path(USER).path("sources").path(encodedSource).getUri());
+		} finally {
+			client.close();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.beans.SimpleBean;
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.configuration.PluginDestinationServiceType;
+import org.lsc.configuration.ServiceType;
+import org.lsc.configuration.TaskType;
+import org.lsc.configuration.ValuesType;
+import org.lsc.plugins.connectors.james.generated.JamesCompositeService;
+import org.lsc.plugins.connectors.james.plan.PlanEntry;
+import org.lsc.plugins.connectors.james.plan.PlanReader;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+
+import com.google.common.collect.ImmutableMap;
+
+class JamesCompositeDeferredDeletionsTest {
+	private static final String DOMAIN = "james.org";
+	private static final String BOB = "bob@" + DOMAIN;
+
+	private WebadminStub stub;
+	private Path directory;
+	private Path file;
+	private Path abortedFile;
+	private DeletionQueue deletions;
+	private JamesCompositeDstService testee;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = new WebadminStub();
+		directory = Files.createTempDirectory("deletions");
+		file = directory.resolve("deferred-deletions.ndjson");
+		abortedFile = directory.resolve("aborted-deletions.ndjson");
+		deletions = new DeletionQueue(0.5, file, abortedFile);
+		testee = new JamesCompositeDstService(task(), Optional.of(deletions));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		stub.close();
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(Paths.get(file + DeletionQueue.PARTIAL_SUFFIX));
+		Files.deleteIfExists(abortedFile);
+		Files.deleteIfExists(directory);
+	}
+
+	private TaskType task() {
+		PluginConnectionType connection = new PluginConnectionType();
+		connection.setUrl(stub.getUrl());
+		connection.setPassword("token");
+		ServiceType.Connection connectionReference = new ServiceType.Connection();
+		connectionReference.setReference(connection);
+		ValuesType aspects = new ValuesType();
+		aspects.getString().add("user");
+		aspects.getString().add("alias");
+		aspects.getString().add("forward");
+		JamesCompositeService service = new JamesCompositeService();
+		service.setName("james-composite-service-dst");
+		service.setConnection(connectionReference);
+		service.setWritableAttributes(new ValuesType());
+		service.setAspects(aspects);
+		PluginDestinationServiceType destinationService = new PluginDestinationServiceType();
+		destinationService.getAny().add(service);
+		TaskType task = new TaskType();
+		task.setName("composite-deletions");
+		task.setBean(SimpleBean.class.getName());
+		task.setPluginDestinationService(destinationService);
+		return task;
+	}
+
+	private static LscModifications deletion(String user) {
+		LscModifications modifications = new LscModifications(LscModificationType.DELETE_OBJECT);
+		modifications.setMainIdentifer(user);
+		return modifications;
+	}
+
+	private static PlanEntry entry(Aspect aspect, String user) {
+		return new PlanEntry(aspect, LscModificationType.DELETE_OBJECT, user, ImmutableMap.of());
+	}
+
+	@Test
+	void allTheAspectsOfADeletedUserShouldBeDeferred() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			stub.tmail().addUser("user" + i + "@" + DOMAIN, "secret");
+		}
+		stub.tmail().addUser(BOB, "secret");
+		stub.tmail().addAlias(BOB, "bob-alias@" + DOMAIN);
+		stub.tmail().addForward(BOB, "bob@other.org");
+		testee.getListPivots();
+
+		assertThat(testee.apply(deletion(BOB))).isTrue();
+		deletions.publish();
+
+		assertThat(new PlanReader().readAll(file)).containsExactly(
+			entry(Aspect.FORWARD, BOB),
+			entry(Aspect.ALIAS, BOB),
+			entry(Aspect.USER, BOB));
+		assertThat(stub.tmail().hasUser(BOB)).isTrue();
+		assertThat(stub.tmail().getAliases(BOB)).isNotEmpty();
+		assertThat(stub.tmail().getForwards(BOB)).isNotEmpty();
+	}
+
+	@Test
+	void theRatioShouldBeCheckedAgainstTheUsersListedByTheCompositeTask() throws Exception {
+		stub.tmail().addUser(BOB, "secret");
+		stub.tmail().addUser("alice@" + DOMAIN, "secret");
+		stub.tmail().addAlias(BOB, "bob-alias@" + DOMAIN);
+		testee.getListPivots();
+
+		testee.apply(deletion(BOB));
+		testee.apply(deletion("alice@" + DOMAIN));
+		deletions.publish();
+
+		assertThat(file).doesNotExist();
+		assertThat(new PlanReader().readAll(abortedFile)).containsExactly(
+			entry(Aspect.ALIAS, BOB),
+			entry(Aspect.USER, BOB),
+			entry(Aspect.USER, "alice@" + DOMAIN));
+	}
+}
@@ -0,0 +1,258 @@
+package org.lsc.plugins.connectors.james;
+
+import static io.restassured.RestAssured.requestSpecification;
+import static io.restassured.RestAssured.with;
+import static io.restassured.config.EncoderConfig.encoderConfig;
+import static io.restassured.config.RestAssuredConfig.newConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.FileReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.RandomStringUtils;
+import org.apache.http.HttpStatus;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openssl.PEMReader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscDatasetModification;
+import org.lsc.LscDatasetModification.LscDatasetModificationType;
+import org.lsc.LscDatasets;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.beans.IBean;
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.configuration.PluginDestinationServiceType;
+import org.lsc.configuration.ServiceType.Connection;
+import org.lsc.configuration.TaskType;
+import org.lsc.configuration.ValuesType;
+import org.lsc.exception.LscServiceConfigurationException;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.Forward;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.generated.JamesCompositeService;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.MountableFile;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.http.ContentType;
+
+class JamesCompositeDstServiceTest {
+	private static final URL PRIVATE_KEY = ClassLoader.getSystemResource("conf/jwt_privatekey");
+	private static final URL PUBLIC_KEY = ClassLoader.getSystemResource("conf/jwt_publickey");
+	private static final String DOMAIN = "james.org";
+	private static final String BOB = "bob@" + DOMAIN;
+	private static final String ALICE = "alice@" + DOMAIN;
+	private static final String ALIAS_BOB = "bob-alias@" + DOMAIN;
+	private static final int JAMES_WEBADMIN_PORT = 8000;
+	private static final boolean FROM_SAME_SERVICE = true;
+	private static final List<String> ALL_ASPECTS = ImmutableList.of("user", "mail_quota_size", "identity", "alias", "forward");
+
+	private static GenericContainer<?> james;
+	private static JamesDao jamesDao;
+	private static Connection connection;
+
+	@BeforeAll
+	static void beforeAll() throws Exception {
+		james = new GenericContainer<>("linagora/tmail-backend:memory-branch-master");
+		james.withCopyFileToContainer(MountableFile.forClasspathResource("conf/jwt_publickey"), "/root/conf/");
+		james.withCopyFileToContainer(MountableFile.forClasspathResource("conf/jwt_privatekey"), "/root/conf/");
+		james.withCopyFileToContainer(MountableFile.forClasspathResource("conf/webadmin.properties"), "/root/conf/");
+		james.withExposedPorts(JAMES_WEBADMIN_PORT).start();
+
+		int MAPPED_JAMES_WEBADMIN_PORT = james.getMappedPort(JAMES_WEBADMIN_PORT);
+		PluginConnectionType jamesConnection = mock(PluginConnectionType.class);
+		connection = mock(Connection.class);
+		when(jamesConnection.getUrl()).thenReturn("http://localhost:" + MAPPED_JAMES_WEBADMIN_PORT);
+		when(jamesConnection.getPassword()).thenReturn(jwtToken());
+		when(connection.getReference()).thenReturn(jamesConnection);
+
+		requestSpecification = new RequestSpecBuilder().setPort(MAPPED_JAMES_WEBADMIN_PORT)
+				.setContentType(ContentType.JSON).setAccept(ContentType.JSON)
+				.setConfig(newConfig().encoderConfig(encoderConfig().defaultContentCharset(StandardCharsets.UTF_8)))
+				.addHeader("Authorization", "Bearer " + jwtToken())
+				.build();
+		RestAssured.enableLoggingOfRequestAndResponseIfValidationFails();
+
+		with().basePath("/domains").put(DOMAIN).then().statusCode(HttpStatus.SC_NO_CONTENT);
+		jamesDao = new JamesDao("http://localhost:" + MAPPED_JAMES_WEBADMIN_PORT, jwtToken(), task(ALL_ASPECTS));
+	}
+
+	private static TaskType task(List<String> aspects) {
+		ValuesType aspectValues = new ValuesType();
+		aspectValues.getString().addAll(aspects);
+		JamesCompositeService jamesCompositeService = new JamesCompositeService();
+		jamesCompositeService.setName("james-composite-service-dst");
+		jamesCompositeService.setConnection(connection);
+		jamesCompositeService.setWritableAttributes(new ValuesType());
+		jamesCompositeService.setAspects(aspectValues);
+
+		PluginDestinationServiceType pluginDestinationService = mock(PluginDestinationServiceType.class);
+		TaskType task = mock(TaskType.class);
+		when(task.getName()).thenReturn("composite");
+		when(task.getBean()).thenReturn("org.lsc.beans.SimpleBean");
+		when(task.getPluginDestinationService()).thenReturn(pluginDestinationService);
+		when(pluginDestinationService.getAny()).thenReturn(ImmutableList.of(jamesCompositeService));
+		return task;
+	}
+
+	private static String jwtToken() throws Exception {
+		Security.addProvider(new BouncyCastleProvider());
+
+		RSAPublicKey publicKey = getPublicKey();
+		RSAPrivateKey privateKey = getPrivateKey();
+
+		Algorithm algorithm = Algorithm.RSA256(publicKey, privateKey);
+		return JWT.create()
+			.withSubject("admin@james.org")
+			.withClaim("admin", true)
+			.withIssuedAt(Date.from(Instant.now()))
+			.sign(algorithm);
+	}
+
+	private static RSAPublicKey getPublicKey() throws Exception {
+		try (PEMReader pemReader = new PEMReader(new FileReader(PUBLIC_KEY.getFile()))) {
+			Object readObject = pemReader.readObject();
+			return (org.bouncycastle.jce.provider.JCERSAPublicKey)readObject;
+		}
+	}
+
+	private static RSAPrivateKey getPrivateKey() throws Exception {
+		try (PEMReader pemReader = new PEMReader(new FileReader(PRIVATE_KEY.getFile()), "james"::toCharArray)) {
+	        Object readObject = pemReader.readObject();
+	        return (RSAPrivateKey)((java.security.KeyPair)readObject).getPrivate();
+		}
+	}
+
+	@AfterEach
+	void removeAllUsers() {
+		jamesDao.getUsersListViaAlias().forEach(jamesDao::deleteAlias);
+		jamesDao.getUsersHaveForwards().forEach(jamesDao::deleteForwards);
+		jamesDao.getUserList().forEach(user -> {
+			jamesDao.deleteQuotaSize(user);
+			jamesDao.removeUser(user);
+		});
+	}
+
+	@AfterAll
+	static void close() {
+		james.close();
+	}
+
+	@Test
+	void constructorShouldRejectContactAspect() {
+		assertThatThrownBy(() -> new JamesCompositeDstService(task(ImmutableList.of("user", "contact"))))
+			.isInstanceOf(LscServiceConfigurationException.class);
+	}
+
+	@Test
+	void constructorShouldRejectUnknownAspect() {
+		assertThatThrownBy(() -> new JamesCompositeDstService(task(ImmutableList.of("user", "unknown"))))
+			.isInstanceOf(LscServiceConfigurationException.class);
+	}
+
+	@Test
+	void getListPivotsShouldReturnTheUnionOfTheEnabledAspectsPivots() throws Exception {
+		createUser(BOB);
+		jamesDao.createAliases(new User(ALICE), ImmutableList.of(new Alias(ALIAS_BOB)));
+
+		Map<String, LscDatasets> listPivots = new JamesCompositeDstService(task(ALL_ASPECTS)).getListPivots();
+
+		assertThat(listPivots).containsOnlyKeys(BOB, ALICE);
+	}
+
+	@Test
+	void getBeanShouldReturnNullWhenUserDoesNotExist() throws Exception {
+		JamesCompositeDstService testee = new JamesCompositeDstService(task(ALL_ASPECTS));
+
+		assertThat(testee.getBean("email", new LscDatasets(ImmutableMap.of("email", BOB)), FROM_SAME_SERVICE)).isNull();
+	}
+
+	@Test
+	void getBeanShouldMergeTheDatasetsOfAllAspects() throws Exception {
+		createUser(BOB);
+		jamesDao.createAliases(new User(BOB), ImmutableList.of(new Alias(ALIAS_BOB)));
+		JamesCompositeDstService testee = new JamesCompositeDstService(task(ALL_ASPECTS));
+
+		IBean bean = testee.getBean("email", new LscDatasets(ImmutableMap.of("email", BOB)), FROM_SAME_SERVICE);
+
+		assertThat(bean.getMainIdentifier()).isEqualTo(BOB);
+		assertThat(bean.getDatasetById("sources")).containsOnly(ALIAS_BOB);
+	}
+
+	@Test
+	void createShouldProvisionTheUserBeforeItsOtherAspects() throws Exception {
+		JamesCompositeDstService testee = new JamesCompositeDstService(task(ALL_ASPECTS));
+		LscModifications modifications = new LscModifications(LscModificationType.CREATE_OBJECT);
+		modifications.setMainIdentifer(BOB);
+		modifications.setLscAttributeModifications(ImmutableList.of(
+			new LscDatasetModification(LscDatasetModificationType.REPLACE_VALUES, "mailQuotaSize", ImmutableList.of("1000")),
+			new LscDatasetModification(LscDatasetModificationType.REPLACE_VALUES, "firstname", ImmutableList.of("Bob")),
+			new LscDatasetModification(LscDatasetModificationType.REPLACE_VALUES, "surname", ImmutableList.of("Marley")),
+			new LscDatasetModification(LscDatasetModificationType.REPLACE_VALUES, "sources", ImmutableList.of(ALIAS_BOB))));
+
+		assertThat(testee.apply(modifications)).isTrue();
+
+		assertThat(jamesDao.userExists(BOB)).isTrue();
+		assertThat(jamesDao.getQuotaSize(BOB).get().size).isEqualTo(1000);
+		assertThat(jamesDao.getDefaultIdentity(BOB).getName()).isEqualTo("Bob Marley");
+		assertThat(jamesDao.getAliases(BOB)).extracting(alias -> alias.source).containsOnly(ALIAS_BOB);
+	}
+
+	@Test
+	void updateShouldCreateTheAspectsMissingInTMail() throws Exception {
+		createUser(BOB);
+		JamesCompositeDstService testee = new JamesCompositeDstService(task(ALL_ASPECTS));
+		testee.getBean("email", new LscDatasets(ImmutableMap.of("email", BOB)), FROM_SAME_SERVICE);
+		LscModifications modifications = new LscModifications(LscModificationType.UPDATE_OBJECT);
+		modifications.setMainIdentifer(BOB);
+		modifications.setLscAttributeModifications(ImmutableList.of(
+			new LscDatasetModification(LscDatasetModificationType.REPLACE_VALUES, "forwards", ImmutableList.of(ALICE))));
+
+		assertThat(testee.apply(modifications)).isTrue();
+
+		assertThat(jamesDao.getForwards(BOB)).extracting(Forward::getMailAddress).containsOnly(ALICE);
+	}
+
+	@Test
+	void deleteShouldRemoveAllAspectsOfTheUser() throws Exception {
+		createUser(BOB);
+		jamesDao.createAliases(new User(BOB), ImmutableList.of(new Alias(ALIAS_BOB)));
+		JamesCompositeDstService testee = new JamesCompositeDstService(task(ALL_ASPECTS));
+		LscModifications modifications = new LscModifications(LscModificationType.DELETE_OBJECT);
+		modifications.setMainIdentifer(BOB);
+
+		assertThat(testee.apply(modifications)).isTrue();
+
+		assertThat(jamesDao.userExists(BOB)).isFalse();
+		assertThat(jamesDao.getUsersListViaAlias()).isEmpty();
+	}
+
+	private static void createUser(String user) {
+		with()
+			.body("{\"password\":\"" + RandomStringUtils.randomAlphanumeric(24) + "\"}")
+			.basePath("/users")
+			.put("/{user}", user)
+			.then()
+			.statusCode(HttpStatus.SC_NO_CONTENT);
+	}
+}
@@ -0,0 +1,108 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.ProcessingException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+import org.lsc.plugins.connectors.james.metrics.EndpointMetrics;
+import org.lsc.plugins.connectors.james.metrics.MetricsRegistry;
+import org.lsc.plugins.connectors.james.metrics.StatusClass;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class JamesDaoMetricsTest {
+	private static final String USERS = "[{\"username\":\"bob@james.org\"},{\"username\":\"alice@james.org\"}]";
+
+	private HttpServer server;
+	private MetricsRegistry metrics;
+	private JamesDao testee;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/users", this::handleUsers);
+		server.start();
+		metrics = new MetricsRegistry();
+		testee = new JamesDao("http://127.0.0.1:" + server.getAddress().getPort(), "token", mock(TaskType.class), metrics);
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	private void handleUsers(HttpExchange exchange) throws IOException {
+		exchange.getRequestBody().close();
+		if (exchange.getRequestMethod().equals("GET")) {
+			byte[] body = USERS.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream responseBody = exchange.getResponseBody()) {
+				responseBody.write(body);
+			}
+		} else {
+			exchange.sendResponseHeaders(409, -1);
+			exchange.close();
+		}
+	}
+
+	@Test
+	void callsShouldBeCountedByEndpointMethodAndStatusClass() {
+		testee.getUserList();
+		testee.getUserList();
+		testee.addUser(new User("bob@james.org"), "secret");
+
+		EndpointMetrics get = metrics.forEndpoint(Endpoint.USERS, "GET");
+		EndpointMetrics put = metrics.forEndpoint(Endpoint.USERS, "PUT");
+		assertThat(get.getCount(StatusClass.SUCCESS)).isEqualTo(2);
+		assertThat(put.getCount(StatusClass.CLIENT_ERROR)).isEqualTo(1);
+		assertThat(get.getLatency().getCount()).isEqualTo(2);
+	}
+
+	@Test
+	void bytesShouldBeCountedInBothDirections() {
+		testee.getUserList();
+		testee.addUser(new User("bob@james.org"), "secret");
+
+		assertThat(metrics.forEndpoint(Endpoint.USERS, "GET").getBytesIn()).isEqualTo(USERS.length());
+		assertThat(metrics.forEndpoint(Endpoint.USERS, "PUT").getBytesOut()).isEqualTo("{\"password\":\"secret\"}".length());
+	}
+
+	@Test
+	void callsWithoutResponseShouldBeCountedAsTransportErrors() {
+		server.stop(0);
+
+		assertThatThrownBy(() -> testee.getUserList()).isInstanceOf(ProcessingException.class);
+
+		EndpointMetrics get = metrics.forEndpoint(Endpoint.USERS, "GET");
+		assertThat(get.getCount(StatusClass.TRANSPORT_ERROR)).isEqualTo(1);
+		assertThat(get.getRequestCount()).isEqualTo(1);
+		assertThat(metrics.getTransportErrorCount()).isEqualTo(1);
+	}
+
+	@Test
+	void callsWithoutResponseShouldNotStayInFlight() {
+		testee.getUserList();
+		server.stop(0);
+
+		assertThatThrownBy(() -> testee.addUser(new User("bob@james.org"), "secret")).isInstanceOf(ProcessingException.class);
+		assertThatThrownBy(() -> testee.getUserList()).isInstanceOf(ProcessingException.class);
+
+		assertThat(metrics.getInFlightRequests()).isZero();
+		assertThat(metrics.getRequestCount()).isEqualTo(3);
+	}
+}
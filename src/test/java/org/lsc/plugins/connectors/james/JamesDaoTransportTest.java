@@ -0,0 +1,198 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.ws.rs.ProcessingException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.Contact;
+import org.lsc.plugins.connectors.james.beans.Forward;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+import org.lsc.plugins.connectors.james.metrics.MetricsRegistry;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+import org.lsc.plugins.connectors.james.transport.RequestStream;
+import org.lsc.plugins.connectors.james.transport.Transport;
+import org.lsc.plugins.connectors.james.transport.Transports;
+
+import com.google.common.collect.ImmutableList;
+
+class JamesDaoTransportTest {
+	private static final User BOB = new User("bob@james.org");
+
+	private WebadminStub stub;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = new WebadminStub(0, Optional.of("token"), 8);
+	}
+
+	@AfterEach
+	void tearDown() {
+		stub.close();
+	}
+
+	@Test
+	void jerseyShouldKeepItsDefaultConnector() {
+		Transport transport = Transports.named(Transports.JERSEY, Optional.empty());
+
+		assertThat(transport.getName()).isEqualTo(Transports.JERSEY);
+		assertThat(transport.newConnector(Endpoint.USERS)).isEmpty();
+	}
+
+	@Test
+	void unknownTransportsShouldBeRejected() {
+		assertThatThrownBy(() -> Transports.named("carrier-pigeon", Optional.empty()))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining(Transports.PROPERTY);
+	}
+
+	@Test
+	void http2TransportShouldCarryTheWebadminCalls() throws Exception {
+		Transport transport = Transports.named(Transports.HTTP2, Optional.empty());
+		assumeTrue(transport.getName().equals(Transports.HTTP2), "java.net.http is not available on this runtime");
+		MetricsRegistry metrics = new MetricsRegistry();
+		JamesDao testee = new JamesDao(stub.getUrl(), "token", mock(TaskType.class), metrics, transport);
+		Contact alice = new Contact("alice@james.org", Optional.of("Alice"), Optional.empty());
+
+		assertThat(testee.addUser(BOB, "secret")).isTrue();
+		stub.tmail().addAlias(BOB.email, "old@james.org");
+		assertThat(testee.updateAliases(BOB, ImmutableList.of(new Alias("bobby+tag@james.org")))).isTrue();
+		assertThat(testee.addDomainContact(alice)).isTrue();
+
+		assertThat(testee.findAliases(BOB.email)).contains(ImmutableList.of(new Alias("bobby+tag@james.org")));
+		assertThat(testee.findForwards(BOB.email)).isEmpty();
+		assertThat(testee.getContact("alice@james.org")).isEqualTo(alice);
+		assertThat(testee.userExists("unknown@james.org")).isFalse();
+		assertThat(stub.tmail().getAliases(BOB.email)).containsExactly("bobby+tag@james.org");
+		assertThat(testee.removeUser(BOB)).isTrue();
+		assertThat(metrics.getRequestCount()).isEqualTo(stub.getRequestCount());
+	}
+
+	@Test
+	void asynchronousCallsShouldBeStreamedThroughEachTransport() throws Exception {
+		for (String name : ImmutableList.of(Transports.JERSEY, Transports.HTTP2)) {
+			JamesDao testee = new JamesDao(stub.getUrl(), "token", mock(TaskType.class), new MetricsRegistry(),
+				Transports.named(name, Optional.empty()));
+			User user = new User(name + "@james.org");
+			RequestStream requests = new RequestStream(16);
+			List<CompletableFuture<Boolean>> outcomes = new ArrayList<>();
+
+			for (int i = 0; i < 200; i++) {
+				Alias alias = new Alias(name + i + "@james.org");
+				outcomes.add(requests.submit(() -> testee.createAliasAsync(user, alias)));
+			}
+			outcomes.add(requests.submit(() -> testee.createForwardAsync(user, new Forward(name + "@remote.org"))));
+			requests.awaitCompletion();
+
+			assertThat(outcomes).allSatisfy(outcome -> assertThat(outcome.join()).isTrue());
+			assertThat(stub.tmail().getAliases(user.email)).containsOnlyElementsOf(IntStream.range(0, 200)
+				.mapToObj(i -> name + i + "@james.org")
+				.collect(Collectors.toList()))
+				.hasSize(200);
+			assertThat(testee.findForwards(user.email)).contains(ImmutableList.of(new Forward(name + "@remote.org")));
+		}
+	}
+
+	@Test
+	void bulkCreationsShouldBeStreamedOverTheHttp2Transport() throws Exception {
+		Transport transport = Transports.named(Transports.HTTP2, Optional.empty());
+		assumeTrue(transport.getName().equals(Transports.HTTP2), "java.net.http is not available on this runtime");
+		JamesDao testee = new JamesDao(stub.getUrl(), "token", mock(TaskType.class), new MetricsRegistry(), transport);
+		List<Alias> aliases = IntStream.range(0, 200)
+			.mapToObj(i -> new Alias("bob" + i + "@james.org"))
+			.collect(Collectors.toList());
+
+		assertThat(testee.createAliases(BOB, aliases)).isTrue();
+		assertThat(testee.createForwards(BOB, ImmutableList.of(new Forward("bob@remote.org"), new Forward("bob@other.org")))).isTrue();
+
+		assertThat(testee.getAliases(BOB.email)).containsOnlyElementsOf(aliases).hasSize(200);
+		assertThat(testee.findForwards(BOB.email)).hasValueSatisfying(forwards -> assertThat(forwards)
+			.containsOnly(new Forward("bob@remote.org"), new Forward("bob@other.org")));
+		assertThat(RequestStream.shared().getInFlight()).isZero();
+	}
+
+	@Test
+	void unixSocketUrlsShouldReachTheWebadminThroughTheSocket() throws Exception {
+		Path directory = Files.createTempDirectory("tmail-lsc");
+		Path socket = directory.resolve("webadmin.sock");
+		Optional<Closeable> front = stub.serveUnixSocket(socket);
+		assumeTrue(front.isPresent(), "Unix domain sockets are not available on this runtime");
+		try (Closeable closeable = front.get()) {
+			String url = Transports.UNIX_URL_PREFIX + socket;
+			MetricsRegistry metrics = new MetricsRegistry();
+			JamesDao testee = new JamesDao(url, "token", mock(TaskType.class), metrics, Optional.empty());
+			Contact alice = new Contact("alice@james.org", Optional.of("Alice"), Optional.empty());
+
+			assertThat(Transports.forUrl(url, Optional.empty()).getName()).isEqualTo(Transports.UNIX);
+			assertThat(testee.addUser(BOB, "secret")).isTrue();
+			assertThat(testee.userExists(BOB.email)).isTrue();
+			assertThat(testee.userExists("unknown@james.org")).isFalse();
+			stub.tmail().addAlias(BOB.email, "old@james.org");
+			assertThat(testee.updateAliases(BOB, ImmutableList.of(new Alias("bobby+tag@james.org")))).isTrue();
+			assertThat(testee.createAliasAsync(BOB, new Alias("bob+async@james.org")).join()).isTrue();
+			assertThat(testee.addDomainContact(alice)).isTrue();
+
+			assertThat(testee.getAliases(BOB.email)).containsOnly(new Alias("bobby+tag@james.org"), new Alias("bob+async@james.org"));
+			assertThat(testee.getContact("alice@james.org")).isEqualTo(alice);
+			assertThat(testee.getUserList()).extracting(user -> user.email).containsExactly(BOB.email);
+			assertThat(metrics.getRequestCount()).isEqualTo(stub.getRequestCount());
+		} finally {
+			Files.deleteIfExists(socket);
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	void unixSocketShouldOnlySendIdempotentRequestsAgainWhenTheConnectionIsReset() throws Exception {
+		Path directory = Files.createTempDirectory("tmail-lsc");
+		Path socket = directory.resolve("webadmin.sock");
+		Optional<Closeable> front = stub.serveUnixSocket(socket);
+		assumeTrue(front.isPresent(), "Unix domain sockets are not available on this runtime");
+		try (Closeable closeable = front.get()) {
+			JamesDao testee = new JamesDao(Transports.UNIX_URL_PREFIX + socket, "token", mock(TaskType.class), new MetricsRegistry(), Optional.empty());
+			// Each call leaves an idle connection of its endpoint, which the server then closes after reading the next request
+			assertThat(testee.addDomainContact(new Contact("alice@james.org", Optional.of("Alice"), Optional.empty()))).isTrue();
+			stub.setFaultRates(0, 0, 1);
+
+			assertThatThrownBy(() -> testee.addDomainContact(new Contact("bob@james.org", Optional.of("Bob"), Optional.empty())))
+				.isInstanceOf(ProcessingException.class);
+			assertThat(requestCount("POST")).isEqualTo(2);
+
+			stub.setFaultRates(0, 0, 0);
+			assertThat(testee.addUser(BOB, "secret")).isTrue();
+			stub.setFaultRates(0, 0, 1);
+			catchThrowable(testee::getUserList);
+			// Once on the idle connection, once on a new one
+			assertThat(requestCount("GET")).isEqualTo(2);
+		} finally {
+			Files.deleteIfExists(socket);
+			Files.delete(directory);
+		}
+	}
+
+	private long requestCount(String method) {
+		return stub.getRequestCounts().entrySet().stream()
+			.filter(count -> count.getKey().startsWith(method + " "))
+			.mapToLong(count -> count.getValue())
+			.sum();
+	}
+}
@@ -0,0 +1,80 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.beans.IBean;
+import org.lsc.beans.SimpleBean;
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.configuration.PluginDestinationServiceType;
+import org.lsc.configuration.ServiceType;
+import org.lsc.configuration.TaskType;
+import org.lsc.configuration.ValuesType;
+import org.lsc.plugins.connectors.james.generated.JamesMailQuotaSizeService;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+
+class JamesMailQuotaSizePrefetchTest {
+	private static final String BOB = "bob@james.org";
+	private static final String ALICE = "alice@james.org";
+
+	private WebadminStub stub;
+	private JamesMailQuotaSizeDstService testee;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = new WebadminStub();
+		System.setProperty(JamesMailQuotaSizeDstService.PREFETCH_PROPERTY, "true");
+		testee = new JamesMailQuotaSizeDstService(task());
+	}
+
+	@AfterEach
+	void tearDown() {
+		System.clearProperty(JamesMailQuotaSizeDstService.PREFETCH_PROPERTY);
+		stub.close();
+	}
+
+	private TaskType task() {
+		PluginConnectionType connection = new PluginConnectionType();
+		connection.setUrl(stub.getUrl());
+		connection.setPassword("token");
+		ServiceType.Connection connectionReference = new ServiceType.Connection();
+		connectionReference.setReference(connection);
+		JamesMailQuotaSizeService service = new JamesMailQuotaSizeService();
+		service.setName("james-quota-size-service-dst");
+		service.setConnection(connectionReference);
+		service.setWritableAttributes(new ValuesType());
+		PluginDestinationServiceType destinationService = new PluginDestinationServiceType();
+		destinationService.getAny().add(service);
+		TaskType task = new TaskType();
+		task.setName("quota-prefetch");
+		task.setBean(SimpleBean.class.getName());
+		task.setPluginDestinationService(destinationService);
+		return task;
+	}
+
+	private String quotaSize(String user) throws Exception {
+		IBean bean = testee.getBean(user, Datasets.of(user), true);
+		return bean == null ? null : bean.getDatasetFirstValueById(JamesMailQuotaSizeDstService.MAIL_QUOTA_SIZE_ATTRIBUTE);
+	}
+
+	@Test
+	void eachListingShouldPrefetchTheQuotaSizesAgain() throws Exception {
+		stub.tmail().addUser(BOB, "secret");
+		stub.tmail().setQuota(BOB, 1000);
+		testee.getListPivots();
+		assertThat(quotaSize(BOB)).isEqualTo("1000");
+
+		stub.tmail().setQuota(BOB, 2000);
+		stub.tmail().addUser(ALICE, "secret");
+		stub.tmail().setQuota(ALICE, 500);
+		testee.getListPivots();
+
+		assertThat(quotaSize(BOB)).isEqualTo("2000");
+		assertThat(quotaSize(ALICE)).isEqualTo("500");
+		assertThat(stub.getRequestCount("GET", "/users")).isEqualTo(2);
+		assertThat(stub.getRequestCount("GET", "/quota/users")).isEqualTo(2);
+		assertThat(stub.getRequestCount("GET", "/quota/users/{}/size")).isZero();
+	}
+}
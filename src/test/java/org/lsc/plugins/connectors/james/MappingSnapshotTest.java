@@ -0,0 +1,118 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import javax.ws.rs.ProcessingException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.beans.AddressMapping;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.Forward;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+
+import com.sun.net.httpserver.HttpServer;
+
+class MappingSnapshotTest {
+	private static final String BOB = "bob@james.org";
+	private static final String ALICE = "alice@james.org";
+
+	private WebadminStub stub;
+	private MappingSnapshot testee;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = new WebadminStub(0, Optional.of("token"), 4);
+		testee = new MappingSnapshot(new JamesDao(stub.getUrl(), "token", mock(TaskType.class)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		stub.close();
+	}
+
+	@Test
+	void mappingsShouldBeIndexedByUserAndType() {
+		stub.tmail().addAlias(BOB, "bobby@james.org");
+		stub.tmail().addAlias(BOB, "robert@james.org");
+		stub.tmail().addAlias(ALICE, "alicia@james.org");
+		stub.tmail().addForward(BOB, ALICE);
+		stub.tmail().addForward(BOB, BOB);
+		stub.tmail().addAddressMapping(BOB, "bob@other.org");
+
+		assertThat(testee.getAliases(BOB)).containsExactlyInAnyOrder(new Alias("bobby@james.org"), new Alias("robert@james.org"));
+		assertThat(testee.getAliases(ALICE)).containsExactly(new Alias("alicia@james.org"));
+		assertThat(testee.getForwards(BOB)).containsExactlyInAnyOrder(new Forward(ALICE), new Forward(BOB));
+		assertThat(testee.getAddressMappings(BOB)).containsExactly(new AddressMapping("bob@other.org"));
+		assertThat(testee.getForwards(ALICE)).isEmpty();
+		assertThat(testee.getAddressMappings(ALICE)).isEmpty();
+		assertThat(testee.getAliases("unknown@james.org")).isEmpty();
+	}
+
+	@Test
+	void theListingShouldBeReadOnlyOnce() {
+		stub.tmail().addUsers(100, "james.org");
+		stub.tmail().addAlias("user1@james.org", "alias1@james.org");
+
+		for (String user : stub.tmail().getUsers()) {
+			testee.getAliases(user);
+			testee.getForwards(user);
+			testee.getAddressMappings(user);
+		}
+
+		assertThat(stub.getRequestCount()).isEqualTo(1);
+		assertThat(stub.getRequestCount("GET", "/mappings")).isEqualTo(1);
+	}
+
+	@Test
+	void writesAfterTheListingShouldNotBeVisible() {
+		stub.tmail().addForward(BOB, ALICE);
+		testee.getForwards(BOB);
+
+		stub.tmail().removeForward(BOB, ALICE);
+
+		assertThat(testee.getForwards(BOB)).containsExactly(new Forward(ALICE));
+	}
+
+	@Test
+	void invalidatedSnapshotsShouldReadTheListingAgain() {
+		stub.tmail().addForward(BOB, ALICE);
+		testee.getForwards(BOB);
+
+		stub.tmail().removeForward(BOB, ALICE);
+		testee.invalidate();
+
+		assertThat(testee.getForwards(BOB)).isEmpty();
+		assertThat(stub.getRequestCount("GET", "/mappings")).isEqualTo(2);
+	}
+
+	@Test
+	void malformedListingsShouldFailAndBeReadAgain() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/mappings", exchange -> {
+			byte[] body = "{\"bob@james.org\": {\"type\": \"Alias\"}}".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream responseBody = exchange.getResponseBody()) {
+				responseBody.write(body);
+			}
+		});
+		server.start();
+		try {
+			MappingSnapshot malformed = new MappingSnapshot(new JamesDao("http://127.0.0.1:" + server.getAddress().getPort(), "token", mock(TaskType.class)));
+
+			assertThatThrownBy(() -> malformed.getAliases(BOB)).isInstanceOf(ProcessingException.class);
+			assertThatThrownBy(() -> malformed.getForwards(BOB)).isInstanceOf(ProcessingException.class);
+		} finally {
+			server.stop(0);
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscDatasetModification;
+import org.lsc.LscDatasetModification.LscDatasetModificationType;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.exception.LscServiceConfigurationException;
+import org.lsc.plugins.connectors.james.plan.PlanEntry;
+import org.lsc.plugins.connectors.james.plan.PlanReader;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
+import org.lsc.service.IWritableService;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+class ProvisioningPipelineTest {
+	private static final String BOB = "bob@james.org";
+	private static final String ALICE = "alice@james.org";
+
+	private Path pendingFile;
+	private PlanWriter pending;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		pendingFile = Files.createTempFile("pending", ".ndjson");
+		pending = new PlanWriter(pendingFile);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		pending.close();
+		Files.deleteIfExists(pendingFile);
+	}
+
+	private static LscModifications userCreation(String user, LscDatasetModification... modifications) {
+		LscModifications userCreation = new LscModifications(LscModificationType.CREATE_OBJECT);
+		userCreation.setMainIdentifer(user);
+		userCreation.setLscAttributeModifications(ImmutableList.copyOf(modifications));
+		return userCreation;
+	}
+
+	private static LscDatasetModification replace(String attribute, String value) {
+		return new LscDatasetModification(LscDatasetModificationType.REPLACE_VALUES, attribute, ImmutableList.of(value));
+	}
+
+	@Test
+	void parseDependentsShouldBeCaseInsensitive() throws Exception {
+		assertThat(ProvisioningPipeline.parseDependents("mail_quota_size, IDENTITY,address_mapping"))
+			.containsExactly(Aspect.MAIL_QUOTA_SIZE, Aspect.IDENTITY, Aspect.ADDRESS_MAPPING);
+	}
+
+	@Test
+	void parseDependentsShouldRejectTheUserAspect() {
+		assertThatThrownBy(() -> ProvisioningPipeline.parseDependents("user,identity"))
+			.isInstanceOf(LscServiceConfigurationException.class);
+	}
+
+	@Test
+	void parseDependentsShouldRejectUnknownAspects() {
+		assertThatThrownBy(() -> ProvisioningPipeline.parseDependents("unknown"))
+			.isInstanceOf(LscServiceConfigurationException.class);
+	}
+
+	@Test
+	void userCreatedShouldProvisionTheDependentAspectsInOrder() throws Exception {
+		List<String> applied = new ArrayList<>();
+		IWritableService service = mock(IWritableService.class);
+		when(service.apply(any())).thenAnswer(invocation -> {
+			LscModifications modifications = invocation.getArgument(0);
+			applied.add(modifications.getOperation() + " " + modifications.getLscAttributeModifications().get(0).getAttributeName());
+			return true;
+		});
+		ProvisioningPipeline testee = new ProvisioningPipeline(
+			EnumSet.of(Aspect.ADDRESS_MAPPING, Aspect.MAIL_QUOTA_SIZE, Aspect.FORWARD), aspect -> service, 1, pending, 5);
+
+		testee.userCreated(userCreation(BOB,
+			replace("addressMappings", "bob-mapping@james.org"),
+			replace("mailQuotaSize", "1000"),
+			replace("forwards", "alice@james.org")));
+		awaitProvisioned(testee);
+		testee.drain();
+
+		assertThat(applied).containsExactly(
+			"CREATE_OBJECT mailQuotaSize",
+			"CREATE_OBJECT forwards",
+			"UPDATE_OBJECT addressMappings");
+		assertThat(testee.getProvisionedCount()).isEqualTo(3);
+	}
+
+	@Test
+	void userCreatedShouldSkipAspectsWithoutDatasets() throws Exception {
+		IWritableService quotaService = mock(IWritableService.class);
+		IWritableService identityService = mock(IWritableService.class);
+		when(quotaService.apply(any())).thenReturn(true);
+		when(identityService.apply(any())).thenReturn(true);
+		ProvisioningPipeline testee = new ProvisioningPipeline(EnumSet.of(Aspect.MAIL_QUOTA_SIZE, Aspect.IDENTITY),
+			aspect -> aspect == Aspect.IDENTITY ? identityService : quotaService, 2, pending, 5);
+
+		testee.userCreated(userCreation(BOB, replace("mailQuotaSize", "1000")));
+		awaitProvisioned(testee);
+		testee.drain();
+
+		assertThat(testee.getProvisionedCount()).isEqualTo(1);
+		assertThat(testee.getFailedCount()).isZero();
+	}
+
+	@Test
+	void userCreatedShouldCountFailures() throws Exception {
+		IWritableService service = mock(IWritableService.class);
+		when(service.apply(any())).thenReturn(false);
+		ProvisioningPipeline testee = new ProvisioningPipeline(EnumSet.of(Aspect.MAIL_QUOTA_SIZE), aspect -> service, 2, pending, 5);
+
+		testee.userCreated(userCreation(BOB, replace("mailQuotaSize", "1000")));
+		awaitProvisioned(testee);
+		testee.drain();
+
+		assertThat(testee.getFailedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void drainShouldRecordTheQueuedUsersAsPending() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IWritableService service = mock(IWritableService.class);
+		when(service.apply(any())).thenAnswer(invocation -> {
+			started.countDown();
+			return release.await(10, TimeUnit.SECONDS);
+		});
+		ProvisioningPipeline testee = new ProvisioningPipeline(EnumSet.of(Aspect.MAIL_QUOTA_SIZE, Aspect.FORWARD),
+			aspect -> service, 1, pending, 5);
+
+		testee.userCreated(userCreation(BOB, replace("mailQuotaSize", "1000"), replace("forwards", ALICE)));
+		testee.userCreated(userCreation(ALICE, replace("mailQuotaSize", "2000")));
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+		Thread releaser = new Thread(() -> {
+			awaitPendingEntries(1);
+			release.countDown();
+		});
+		releaser.start();
+		testee.drain();
+		releaser.join();
+
+		assertThat(new PlanReader().readAll(pendingFile))
+			.extracting(entry -> entry.getAspect() + " " + entry.getIdentifier())
+			.containsExactlyInAnyOrder(
+				"MAIL_QUOTA_SIZE " + ALICE,
+				"FORWARD " + BOB);
+		assertThat(testee.getProvisionedCount()).isEqualTo(1);
+		assertThat(testee.getPendingCount()).isZero();
+	}
+
+	@Test
+	void drainShouldNotWaitForSlowWritesBeyondItsTimeout() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		IWritableService service = mock(IWritableService.class);
+		CountDownLatch started = new CountDownLatch(1);
+		when(service.apply(any())).thenAnswer(invocation -> {
+			started.countDown();
+			return release.await(10, TimeUnit.SECONDS);
+		});
+		ProvisioningPipeline testee = new ProvisioningPipeline(EnumSet.of(Aspect.MAIL_QUOTA_SIZE),
+			aspect -> service, 1, pending, 0);
+
+		testee.userCreated(userCreation(BOB, replace("mailQuotaSize", "1000")));
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+		testee.drain();
+		release.countDown();
+
+		assertThat(new PlanReader().readAll(pendingFile))
+			.containsExactly(new PlanEntry(Aspect.MAIL_QUOTA_SIZE, LscModificationType.CREATE_OBJECT, BOB,
+				ImmutableMap.of("mailQuotaSize", ImmutableList.of("1000"))));
+	}
+
+	@Test
+	void usersCreatedAfterTheDrainShouldBeRecordedAsPending() throws Exception {
+		IWritableService service = mock(IWritableService.class);
+		ProvisioningPipeline testee = new ProvisioningPipeline(EnumSet.of(Aspect.MAIL_QUOTA_SIZE), aspect -> service, 1, pending, 5);
+
+		testee.drain();
+		testee.userCreated(userCreation(BOB, replace("mailQuotaSize", "1000")));
+
+		assertThat(new PlanReader().readAll(pendingFile))
+			.extracting(PlanEntry::getIdentifier)
+			.containsExactly(BOB);
+		assertThat(testee.getProvisionedCount()).isZero();
+	}
+
+	private static void awaitProvisioned(ProvisioningPipeline pipeline) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (pipeline.getPendingCount() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(pipeline.getPendingCount()).isZero();
+	}
+
+	private void awaitPendingEntries(long expected) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (pending.getEntryCount() < expected && System.nanoTime() < deadline) {
+			Thread.yield();
+		}
+	}
+}
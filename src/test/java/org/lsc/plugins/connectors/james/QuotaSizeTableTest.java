@@ -0,0 +1,70 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+
+class QuotaSizeTableTest {
+	private static final int PAGE_SIZE = 10;
+
+	private WebadminStub stub;
+	private JamesDao dao;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = new WebadminStub(0, Optional.of("token"), 4);
+		dao = new JamesDao(stub.getUrl(), "token", mock(TaskType.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		stub.close();
+	}
+
+	@Test
+	void limitsShouldBeReadPageByPage() {
+		stub.tmail().addUsers(25, "james.org");
+		stub.tmail().setQuota("user3@james.org", 1000);
+		stub.tmail().setQuota("user24@james.org", -1);
+
+		QuotaSizeTable testee = QuotaSizeTable.load(dao, dao.getUserList(), PAGE_SIZE);
+
+		assertThat(testee.size(testee.ordinal("user3@james.org"))).isEqualTo(1000);
+		assertThat(testee.size(testee.ordinal("user24@james.org"))).isEqualTo(-1);
+		assertThat(testee.size(testee.ordinal("user4@james.org"))).isEqualTo(QuotaSizeTable.NO_LIMIT);
+		assertThat(stub.getRequestCount("GET", "/users")).isEqualTo(1);
+		assertThat(stub.getRequestCount("GET", "/quota/users")).isEqualTo(3);
+		assertThat(stub.getRequestCount("GET", "/quota/users/{}/size")).isZero();
+	}
+
+	@Test
+	void unlistedUsersShouldHaveNoOrdinal() {
+		stub.tmail().addUsers(PAGE_SIZE, "james.org");
+
+		QuotaSizeTable testee = QuotaSizeTable.load(dao, dao.getUserList(), PAGE_SIZE);
+
+		assertThat(testee.ordinal("bob@james.org")).isNegative();
+		assertThat(stub.getRequestCount("GET", "/quota/users")).isEqualTo(2);
+	}
+
+	@Test
+	void writesShouldUpdateTheTableInPlace() {
+		QuotaSizeTable testee = new QuotaSizeTable(new String[] {"bob@james.org", "alice@james.org"});
+
+		testee.set("bob@james.org", 2000);
+		testee.set("unknown@james.org", 3000);
+		testee.set("alice@james.org", 4000);
+		testee.clear("alice@james.org");
+
+		assertThat(testee.size(testee.ordinal("bob@james.org"))).isEqualTo(2000);
+		assertThat(testee.size(testee.ordinal("alice@james.org"))).isEqualTo(QuotaSizeTable.NO_LIMIT);
+		assertThat(testee.ordinal("unknown@james.org")).isNegative();
+	}
+}
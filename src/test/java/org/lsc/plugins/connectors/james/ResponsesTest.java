@@ -0,0 +1,125 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Strings;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class ResponsesTest {
+	private static final String USERS = "[\"bob@james.org\",\"alice@james.org\"]";
+
+	private HttpServer server;
+	private Set<Integer> clientPorts;
+	private Client client;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		clientPorts = ConcurrentHashMap.newKeySet();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/users", exchange -> respond(exchange, 200, USERS));
+		server.createContext("/written", exchange -> respond(exchange, 200, Strings.repeat("x", 10_000)));
+		server.createContext("/missing", exchange -> respond(exchange, 404, "{\"message\":\"bob@james.org does not exist\"}"));
+		server.createContext("/failing", exchange -> respond(exchange, 500, Strings.repeat("e", 2 * Responses.ERROR_BODY_LIMIT)));
+		server.start();
+		client = ClientBuilder.newClient().register(JacksonFeature.class);
+	}
+
+	@AfterEach
+	void tearDown() {
+		client.close();
+		server.stop(0);
+	}
+
+	private void respond(HttpExchange exchange, int status, String body) throws IOException {
+		clientPorts.add(exchange.getRemoteAddress().getPort());
+		exchange.getRequestBody().close();
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(bytes);
+		}
+	}
+
+	private Response call(String path) {
+		return client.target("http://127.0.0.1:" + server.getAddress().getPort()).path(path).request().put(Entity.text(""));
+	}
+
+	@Test
+	void successfulBodiesShouldBeDiscardedAndTheirConnectionReused() {
+		for (int i = 0; i < 5; i++) {
+			assertThat(Responses.consume(call("/written"))).isEmpty();
+		}
+
+		assertThat(clientPorts).hasSize(1);
+	}
+
+	@Test
+	void errorBodiesShouldBeReturned() {
+		Response response = call("/missing");
+
+		assertThat(Responses.consume(response)).isEqualTo("{\"message\":\"bob@james.org does not exist\"}");
+		assertThat(response.getStatus()).isEqualTo(404);
+	}
+
+	@Test
+	void errorBodiesShouldBeTruncated() {
+		String body = Responses.consume(call("/failing"));
+
+		assertThat(body).hasSize(Responses.ERROR_BODY_LIMIT + 3).endsWith("e...");
+	}
+
+	@Test
+	void entitiesShouldBeDecodedAndTheirConnectionReused() {
+		for (int i = 0; i < 5; i++) {
+			assertThat(Responses.read(call("/users"), new GenericType<List<String>>() {}))
+				.containsExactly("bob@james.org", "alice@james.org");
+		}
+
+		assertThat(clientPorts).hasSize(1);
+	}
+
+	@Test
+	void unsuccessfulReadsShouldThrowTheExceptionOfTheirStatus() {
+		assertThatThrownBy(() -> Responses.read(call("/missing"), new GenericType<List<String>>() {}))
+			.isInstanceOf(NotFoundException.class)
+			.hasMessage("HTTP 404 Not Found: {\"message\":\"bob@james.org does not exist\"}");
+		assertThatThrownBy(() -> Responses.read(call("/failing"), body -> body.read()))
+			.isInstanceOf(InternalServerErrorException.class)
+			.hasMessageEndingWith("e...");
+	}
+
+	@Test
+	void unsuccessfulReadsShouldReleaseTheirConnection() {
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> Responses.read(call("/missing"), new GenericType<List<String>>() {}))
+				.isInstanceOf(NotFoundException.class);
+		}
+		Responses.read(call("/users"), new GenericType<List<String>>() {});
+
+		assertThat(clientPorts).hasSize(1);
+	}
+}
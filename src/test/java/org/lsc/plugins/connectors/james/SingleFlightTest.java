@@ -0,0 +1,203 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.User;
+import org.lsc.plugins.connectors.james.metrics.MetricsRegistry;
+import org.lsc.plugins.connectors.james.stub.LatencyDistribution;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+import org.lsc.plugins.connectors.james.transport.Transports;
+
+import com.google.common.collect.ImmutableList;
+
+class SingleFlightTest {
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void identicalReadsInFlightShouldShareOneCall() throws Exception {
+		SingleFlight testee = new SingleFlight(true);
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> leader = executor.submit(() -> testee.execute("GET /users", () -> {
+			calls.incrementAndGet();
+			await(release);
+			return "users";
+		}));
+		awaitCalls(calls, 1);
+
+		Future<String> follower = executor.submit(() -> testee.execute("GET /users", () -> {
+			calls.incrementAndGet();
+			return "other users";
+		}));
+		String other = testee.execute("GET /domains", () -> {
+			calls.incrementAndGet();
+			return "domains";
+		});
+		awaitCoalesced(testee, 1);
+		release.countDown();
+
+		assertThat(leader.get()).isEqualTo("users");
+		assertThat(follower.get()).isSameAs(leader.get());
+		assertThat(other).isEqualTo("domains");
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	void failuresShouldBeSharedToo() throws Exception {
+		SingleFlight testee = new SingleFlight(true);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		Future<String> leader = executor.submit(() -> testee.execute("GET /users", () -> {
+			started.countDown();
+			await(release);
+			throw new IllegalStateException("webadmin is down");
+		}));
+		await(started);
+
+		Future<String> follower = executor.submit(() -> testee.execute("GET /users", () -> "users"));
+		awaitCoalesced(testee, 1);
+		release.countDown();
+
+		assertThatThrownBy(leader::get).hasRootCauseInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(follower::get).hasRootCauseInstanceOf(IllegalStateException.class);
+		assertThat(testee.execute("GET /users", () -> "users")).isEqualTo("users");
+	}
+
+	@Test
+	void readsShouldNotBeJoinedAcrossAWrite() throws Exception {
+		SingleFlight testee = new SingleFlight(true);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		Future<String> leader = executor.submit(() -> testee.execute("GET /users", () -> {
+			started.countDown();
+			await(release);
+			return "users before the write";
+		}));
+		await(started);
+
+		WebadminStub stub = new WebadminStub();
+		try {
+			JamesDao dao = new JamesDao(stub.getUrl(), "token", mock(TaskType.class), new MetricsRegistry(),
+				Transports.jersey(Optional.empty()), testee);
+			assertThat(dao.addUser(new User("bob@james.org"), "secret")).isTrue();
+		} finally {
+			stub.close();
+		}
+
+		assertThat(testee.execute("GET /users", () -> "users after the write")).isEqualTo("users after the write");
+		release.countDown();
+		assertThat(leader.get()).isEqualTo("users before the write");
+		assertThat(testee.getCoalescedCount()).isZero();
+	}
+
+	@Test
+	void disabledSingleFlightShouldPerformEveryRead() throws Exception {
+		SingleFlight testee = new SingleFlight(false);
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		Future<Integer> first = executor.submit(() -> testee.execute("GET /users", () -> {
+			await(release);
+			return calls.incrementAndGet();
+		}));
+
+		assertThat(testee.execute("GET /users", calls::incrementAndGet)).isEqualTo(1);
+		release.countDown();
+		assertThat(first.get()).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentTasksShouldShareTheirIdenticalWebadminReads() throws Exception {
+		try (WebadminStub stub = new WebadminStub()) {
+			stub.tmail().addUser("bob@james.org", "secret");
+			stub.tmail().addAlias("bob@james.org", "bobby@james.org");
+			stub.setLatency(LatencyDistribution.fixed(Duration.ofMillis(500)));
+			SingleFlight singleFlight = new SingleFlight(true);
+			JamesDao userTask = new JamesDao(stub.getUrl(), "token", mock(TaskType.class), new MetricsRegistry(),
+				Transports.jersey(Optional.empty()), singleFlight);
+			JamesDao aliasTask = new JamesDao(stub.getUrl(), "token", mock(TaskType.class), new MetricsRegistry(),
+				Transports.jersey(Optional.empty()), singleFlight);
+			JamesDao otherToken = new JamesDao(stub.getUrl(), "other token", mock(TaskType.class), new MetricsRegistry(),
+				Transports.jersey(Optional.empty()), singleFlight);
+
+			CompletableFuture<List<User>> users = CompletableFuture.supplyAsync(userTask::getUserList, executor);
+			CompletableFuture<Optional<List<Alias>>> aliases = CompletableFuture.supplyAsync(() -> userTask.findAliases("bob@james.org"), executor);
+			awaitRequests(stub, 2);
+			CompletableFuture<List<User>> sameUsers = CompletableFuture.supplyAsync(aliasTask::getUserList, executor);
+			CompletableFuture<Optional<List<Alias>>> sameAliases = CompletableFuture.supplyAsync(() -> aliasTask.findAliases("bob@james.org"), executor);
+			CompletableFuture<List<User>> usersOfOtherToken = CompletableFuture.supplyAsync(otherToken::getUserList, executor);
+			awaitCoalesced(singleFlight, 2);
+
+			assertThat(users.get()).extracting(user -> user.email).containsExactly("bob@james.org");
+			assertThat(sameUsers.get()).extracting(user -> user.email).containsExactly("bob@james.org");
+			assertThat(sameAliases.get()).isSameAs(aliases.get()).contains(ImmutableList.of(new Alias("bobby@james.org")));
+			// Shared with the user task, so the alias task must not be able to change it
+			assertThatThrownBy(() -> sameAliases.get().get().add(new Alias("mallory@james.org")))
+				.isInstanceOf(UnsupportedOperationException.class);
+			assertThat(usersOfOtherToken.get()).extracting(user -> user.email).containsExactly("bob@james.org");
+			assertThat(stub.getRequestCount("GET", "/users")).isEqualTo(2);
+			assertThat(stub.getRequestCount()).isEqualTo(3);
+		}
+	}
+
+	// Called by the reads, which may not throw checked exceptions
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void awaitCalls(AtomicInteger calls, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (calls.get() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(calls.get()).isEqualTo(expected);
+	}
+
+	private static void awaitCoalesced(SingleFlight singleFlight, long expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (singleFlight.getCoalescedCount() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(singleFlight.getCoalescedCount()).isEqualTo(expected);
+	}
+
+	private static void awaitRequests(WebadminStub stub, long expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (stub.getRequestCount() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(stub.getRequestCount()).isEqualTo(expected);
+	}
+}
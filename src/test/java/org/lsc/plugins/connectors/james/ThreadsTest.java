@@ -0,0 +1,27 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ThreadsTest {
+	@Test
+	void factoryShouldCreateDaemonThreadsNamedAfterThePrefix() throws Exception {
+		ThreadFactory testee = Threads.factory("tmail-test-");
+		CountDownLatch ran = new CountDownLatch(2);
+
+		Thread first = testee.newThread(ran::countDown);
+		Thread second = testee.newThread(ran::countDown);
+		first.start();
+		second.start();
+
+		assertThat(ran.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(first.isDaemon()).isTrue();
+		assertThat(first.getName()).isEqualTo("tmail-test-0");
+		assertThat(second.getName()).isEqualTo("tmail-test-1");
+	}
+}
@@ -0,0 +1,182 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.plugins.connectors.james.plan.PlanEntry;
+import org.lsc.plugins.connectors.james.plan.PlanReader;
+import org.lsc.plugins.connectors.james.plan.PlanWriter;
+
+import com.google.common.collect.ImmutableMap;
+
+class WriteBehindQueueTest {
+	private static final String BOB = "bob@james.org";
+	private static final String ALICE = "alice@james.org";
+
+	private Path failuresFile;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		failuresFile = Files.createTempFile("write-behind", ".ndjson");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		Files.deleteIfExists(failuresFile);
+	}
+
+	private static LscModifications modifications(LscModificationType operation, String user) {
+		LscModifications modifications = new LscModifications(operation);
+		modifications.setMainIdentifer(user);
+		return modifications;
+	}
+
+	@Test
+	void submitShouldApplyTheModificationsOfAUserInOrder() throws Exception {
+		List<LscModificationType> applied = new ArrayList<>();
+		WriteBehindQueue testee;
+		try (PlanWriter failures = new PlanWriter(failuresFile)) {
+			testee = new WriteBehindQueue(4, 2, failures);
+			for (LscModificationType operation : new LscModificationType[] {LscModificationType.CREATE_OBJECT,
+					LscModificationType.UPDATE_OBJECT, LscModificationType.DELETE_OBJECT}) {
+				testee.submit(Aspect.ALIAS, modifications(operation, BOB), modifications -> {
+					synchronized (applied) {
+						applied.add(modifications.getOperation());
+					}
+					return true;
+				});
+			}
+			testee.flush();
+		}
+
+		assertThat(applied).containsExactly(LscModificationType.CREATE_OBJECT, LscModificationType.UPDATE_OBJECT,
+			LscModificationType.DELETE_OBJECT);
+		assertThat(testee.getWrittenCount()).isEqualTo(3);
+	}
+
+	@Test
+	void submitShouldRecordFailedModifications() throws Exception {
+		WriteBehindQueue testee;
+		try (PlanWriter failures = new PlanWriter(failuresFile)) {
+			testee = new WriteBehindQueue(2, 10, failures);
+			assertThat(testee.submit(Aspect.FORWARD, modifications(LscModificationType.DELETE_OBJECT, BOB), modifications -> false)).isTrue();
+			testee.submit(Aspect.FORWARD, modifications(LscModificationType.DELETE_OBJECT, ALICE), modifications -> {
+				throw new IllegalStateException("boom");
+			});
+			testee.flush();
+		}
+
+		assertThat(testee.getFailedCount()).isEqualTo(2);
+		assertThat(new PlanReader().readAll(failuresFile)).containsOnly(
+			new PlanEntry(Aspect.FORWARD, LscModificationType.DELETE_OBJECT, BOB, ImmutableMap.of()),
+			new PlanEntry(Aspect.FORWARD, LscModificationType.DELETE_OBJECT, ALICE, ImmutableMap.of()));
+	}
+
+	@Test
+	void submitShouldApplySynchronouslyOnceFlushed() throws Exception {
+		try (PlanWriter failures = new PlanWriter(failuresFile)) {
+			WriteBehindQueue testee = new WriteBehindQueue(1, 1, failures);
+			testee.flush();
+
+			assertThat(testee.submit(Aspect.USER, modifications(LscModificationType.CREATE_OBJECT, BOB), modifications -> false)).isFalse();
+		}
+	}
+
+	@Test
+	void failuresShouldBeReadableBeforeTheFlush() throws Exception {
+		try (PlanWriter failures = new PlanWriter(failuresFile)) {
+			WriteBehindQueue testee = new WriteBehindQueue(1, 10, failures);
+			testee.submit(Aspect.FORWARD, modifications(LscModificationType.DELETE_OBJECT, BOB), modifications -> false);
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (testee.getFailedCount() == 0 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+
+			assertThat(new PlanReader().readAll(failuresFile))
+				.containsExactly(new PlanEntry(Aspect.FORWARD, LscModificationType.DELETE_OBJECT, BOB, ImmutableMap.of()));
+			testee.flush();
+		}
+	}
+
+	@Test
+	void flushShouldRecordTheModificationsStillQueuedAfterTheTimeout() throws Exception {
+		CountDownLatch blocked = new CountDownLatch(1);
+		try (PlanWriter failures = new PlanWriter(failuresFile)) {
+			WriteBehindQueue testee = new WriteBehindQueue(1, 10, failures, 1);
+			testee.submit(Aspect.USER, modifications(LscModificationType.CREATE_OBJECT, BOB), modifications -> {
+				try {
+					blocked.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return true;
+			});
+			testee.submit(Aspect.ALIAS, modifications(LscModificationType.UPDATE_OBJECT, BOB), modifications -> true);
+			testee.submit(Aspect.FORWARD, modifications(LscModificationType.UPDATE_OBJECT, BOB), modifications -> true);
+
+			long start = System.nanoTime();
+			testee.flush();
+
+			assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(10));
+			assertThat(testee.getUnappliedCount()).isEqualTo(2);
+			assertThat(new PlanReader().readAll(failuresFile)).containsExactly(
+				new PlanEntry(Aspect.ALIAS, LscModificationType.UPDATE_OBJECT, BOB, ImmutableMap.of()),
+				new PlanEntry(Aspect.FORWARD, LscModificationType.UPDATE_OBJECT, BOB, ImmutableMap.of()));
+		} finally {
+			blocked.countDown();
+		}
+	}
+
+	@Test
+	void modificationsSubmittedDuringTheFlushShouldAllBeApplied() throws Exception {
+		AtomicInteger applied = new AtomicInteger();
+		CountDownLatch submitting = new CountDownLatch(4);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (PlanWriter failures = new PlanWriter(failuresFile)) {
+			WriteBehindQueue testee = new WriteBehindQueue(2, 4, failures);
+			List<Future<Integer>> submitted = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				String user = "user" + i + "@james.org";
+				submitted.add(executor.submit(() -> {
+					submitting.countDown();
+					int accepted = 0;
+					for (int j = 0; j < 1000; j++) {
+						if (testee.submit(Aspect.ALIAS, modifications(LscModificationType.UPDATE_OBJECT, user), modifications -> {
+							applied.incrementAndGet();
+							return true;
+						})) {
+							accepted++;
+						}
+					}
+					return accepted;
+				}));
+			}
+			submitting.await();
+			testee.flush();
+
+			int accepted = 0;
+			for (Future<Integer> future : submitted) {
+				accepted += future.get();
+			}
+			assertThat(accepted).isEqualTo(4000);
+			assertThat(applied.get()).isEqualTo(4000);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
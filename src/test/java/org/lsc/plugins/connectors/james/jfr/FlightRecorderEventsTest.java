@@ -0,0 +1,109 @@
+package org.lsc.plugins.connectors.james.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+import org.lsc.plugins.connectors.james.metrics.TaskMonitor;
+
+import com.sun.net.httpserver.HttpServer;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class FlightRecorderEventsTest {
+	private static final String PREFIX = "org.lsc.plugins.connectors.james.";
+
+	private Recording recording;
+	private Path dump;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		dump = Files.createTempFile("plugin", ".jfr");
+		recording = new Recording();
+		recording.enable(PREFIX + "WebadminCall");
+		recording.enable(PREFIX + "Apply");
+		recording.enable(PREFIX + "PivotListing");
+		recording.start();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		recording.close();
+		Files.deleteIfExists(dump);
+	}
+
+	private List<RecordedEvent> recordedEvents() throws Exception {
+		recording.stop();
+		recording.dump(dump);
+		return RecordingFile.readAllEvents(dump);
+	}
+
+	private static RecordedEvent single(List<RecordedEvent> events, String name) {
+		List<RecordedEvent> named = events.stream()
+			.filter(event -> event.getEventType().getName().equals(PREFIX + name))
+			.collect(Collectors.toList());
+		assertThat(named).hasSize(1);
+		return named.get(0);
+	}
+
+	@Test
+	void applyAndPivotListingShouldBeRecorded() throws Exception {
+		TaskMonitor monitor = TaskMonitor.forService("jfr", "alias");
+		LscModifications modifications = new LscModifications(LscModificationType.DELETE_OBJECT);
+		modifications.setMainIdentifer("bob@james.org");
+
+		monitor.listPivots(HashMap::new);
+		monitor.write(modifications, ignored -> false);
+
+		List<RecordedEvent> events = recordedEvents();
+		RecordedEvent apply = single(events, "Apply");
+		assertThat(apply.getString("service")).isEqualTo("alias");
+		assertThat(apply.getString("pivot")).isEqualTo("bob@james.org");
+		assertThat(apply.getString("operation")).isEqualTo("DELETE_OBJECT");
+		assertThat(apply.getString("outcome")).isEqualTo("failure");
+		assertThat(single(events, "PivotListing").getLong("pivots")).isZero();
+	}
+
+	@Test
+	void webadminCallsShouldBeRecorded() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/users", exchange -> {
+			exchange.getRequestBody().close();
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		server.start();
+		try {
+			ClientBuilder.newClient()
+				.register(new FlightRecorderFilter(Endpoint.USERS))
+				.target("http://127.0.0.1:" + server.getAddress().getPort() + "/users/bob@james.org")
+				.request()
+				.put(Entity.text("{\"password\":\"secret\"}"))
+				.close();
+		} finally {
+			server.stop(0);
+		}
+
+		RecordedEvent call = single(recordedEvents(), "WebadminCall");
+		assertThat(call.getString("endpoint")).isEqualTo("users");
+		assertThat(call.getString("method")).isEqualTo("PUT");
+		assertThat(call.getInt("status")).isEqualTo(204);
+		assertThat(call.getLong("requestBytes")).isEqualTo("{\"password\":\"secret\"}".length());
+	}
+}
@@ -0,0 +1,48 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+	@Test
+	void quantilesShouldBeZeroWhenEmpty() {
+		assertThat(new LatencyHistogram().quantileMicros(0.99)).isZero();
+	}
+
+	@Test
+	void smallValuesShouldBeExact() {
+		LatencyHistogram testee = new LatencyHistogram();
+		testee.record(3);
+		testee.record(7);
+
+		assertThat(testee.quantileMicros(0.5)).isEqualTo(3);
+		assertThat(testee.quantileMicros(1)).isEqualTo(7);
+	}
+
+	@Test
+	void quantilesShouldBeWithinTheBucketPrecision() {
+		LatencyHistogram testee = new LatencyHistogram();
+		for (long micros = 1; micros <= 100_000; micros++) {
+			testee.record(micros);
+		}
+
+		assertThat(testee.quantileMicros(0.5)).isBetween(50_000L, 56_250L);
+		assertThat(testee.quantileMicros(0.95)).isBetween(95_000L, 106_875L);
+		assertThat(testee.quantileMicros(0.99)).isBetween(99_000L, 111_375L);
+		assertThat(testee.getCount()).isEqualTo(100_000);
+	}
+
+	@Test
+	void bucketsShouldContainTheirUpperBound() {
+		for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT - 1; bucket++) {
+			assertThat(LatencyHistogram.bucketOf(LatencyHistogram.upperBoundOf(bucket))).isEqualTo(bucket);
+			assertThat(LatencyHistogram.bucketOf(LatencyHistogram.upperBoundOf(bucket) + 1)).isEqualTo(bucket + 1);
+		}
+	}
+
+	@Test
+	void hugeValuesShouldFallInTheLastBucket() {
+		assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKET_COUNT - 1);
+	}
+}
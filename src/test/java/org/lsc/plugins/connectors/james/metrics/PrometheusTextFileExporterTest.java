@@ -0,0 +1,62 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PrometheusTextFileExporterTest {
+	private Path directory;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		directory = Files.createTempDirectory("metrics");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	void exportShouldWriteCountersByEndpointMethodAndStatus() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry();
+		EndpointMetrics metrics = registry.forEndpoint(Endpoint.ALIASES, "GET");
+		metrics.recordCall(200, 1500);
+		metrics.recordCall(404, 500);
+		metrics.addBytesIn(42);
+		Path file = directory.resolve("tmail-lsc.prom");
+
+		new PrometheusTextFileExporter(file).export(registry);
+
+		assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+			.contains("tmail_lsc_http_requests_total{endpoint=\"aliases\",method=\"GET\",status=\"2xx\"} 1\n")
+			.contains("tmail_lsc_http_requests_total{endpoint=\"aliases\",method=\"GET\",status=\"4xx\"} 1\n")
+			.contains("tmail_lsc_http_request_duration_seconds_count{endpoint=\"aliases\",method=\"GET\"} 2\n")
+			.contains("tmail_lsc_http_request_duration_seconds_sum{endpoint=\"aliases\",method=\"GET\"} 0.002000\n")
+			.contains("tmail_lsc_http_response_bytes_total{endpoint=\"aliases\",method=\"GET\"} 42\n");
+	}
+
+	@Test
+	void exportShouldNotLeaveTemporaryFiles() throws Exception {
+		Path file = directory.resolve("tmail-lsc.prom");
+
+		new PrometheusTextFileExporter(file).export(new MetricsRegistry());
+		new PrometheusTextFileExporter(file).export(new MetricsRegistry());
+
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files).containsExactly(file);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+class RunReportTest {
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-01T10:15:30Z"), ZoneOffset.UTC);
+
+	private Path directory;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		directory = Files.createTempDirectory("report");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	void writeShouldReportPhasesHttpCallsAndCaches() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.forEndpoint(Endpoint.USERS, "PUT").recordCall(204, 2000);
+		Cache<String, String> cache = CacheBuilder.newBuilder().recordStats().build();
+		cache.put("bob@james.org", "user");
+		cache.getIfPresent("bob@james.org");
+		cache.getIfPresent("alice@james.org");
+		registry.registerCache("users present aspects", cache);
+		TaskMonitor monitor = new TaskMonitor("users", "user");
+		LscModifications creation = new LscModifications(LscModificationType.CREATE_OBJECT);
+		creation.setMainIdentifer("bob@james.org");
+		monitor.write(creation, modifications -> true);
+
+		Path report = new RunReport(directory, registry, () -> ImmutableList.of(monitor), CLOCK).write();
+
+		assertThat(report.getFileName().toString()).isEqualTo("tmail-lsc-report-20240301T101530Z.json");
+		JsonNode json = new ObjectMapper().readTree(report.toFile());
+		JsonNode service = json.get("services").get(0);
+		assertThat(service.get("task").asText()).isEqualTo("users");
+		assertThat(service.get("operations").get("create").asLong()).isEqualTo(1);
+		assertThat(service.get("phases").get("apply").get("calls").asLong()).isEqualTo(1);
+		assertThat(service.get("slowest").get(0).get("pivot").asText()).isEqualTo("bob@james.org");
+		JsonNode http = json.get("http").get(0);
+		assertThat(http.get("endpoint").asText()).isEqualTo("users");
+		assertThat(http.get("statuses").get("2xx").asLong()).isEqualTo(1);
+		assertThat(json.get("caches").get("users present aspects").get("hitRatio").asDouble()).isEqualTo(0.5);
+	}
+
+	@Test
+	void writeShouldNotLeaveTemporaryFiles() throws Exception {
+		Path report = new RunReport(directory, new MetricsRegistry(), ImmutableList::of, CLOCK).write();
+
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files).containsExactly(report);
+		}
+	}
+}
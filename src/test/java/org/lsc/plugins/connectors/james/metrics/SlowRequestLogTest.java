@@ -0,0 +1,125 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.HttpUrlConnector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class SlowRequestLogTest {
+	private static final String BODY = "[\"bob@james.org\",\"alice@james.org\"]";
+	private static final long THRESHOLD_MILLIS = 50;
+	private static final long UNREACHED_THRESHOLD_MILLIS = 60_000;
+
+	private HttpServer server;
+	private Logger logger;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/fast", exchange -> respond(exchange, 0));
+		server.createContext("/slow", exchange -> respond(exchange, 2 * THRESHOLD_MILLIS));
+		server.start();
+		logger = mock(Logger.class);
+		when(logger.isWarnEnabled()).thenReturn(true);
+		when(logger.isInfoEnabled()).thenReturn(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	private static void respond(HttpExchange exchange, long delayMillis) throws IOException {
+		exchange.getRequestBody().close();
+		try {
+			Thread.sleep(delayMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(body);
+		}
+	}
+
+	private Client client(long thresholdMillis, double sampleRate) {
+		SlowRequestLog testee = new SlowRequestLog(TimeUnit.MILLISECONDS.toNanos(thresholdMillis), sampleRate, logger);
+		return ClientBuilder.newClient(new ClientConfig()
+			.connector(new HttpUrlConnector(testee.connectionFactory(Endpoint.USERS))));
+	}
+
+	private String url(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	@Test
+	void slowCallsShouldBeLoggedWithTheirBreakdown() {
+		client(THRESHOLD_MILLIS, 0).target(url("/slow")).request().get(String.class);
+
+		ArgumentCaptor<String> entry = ArgumentCaptor.forClass(String.class);
+		verify(logger).warn(entry.capture());
+		assertThat(entry.getValue())
+			.startsWith("Slow webadmin call users GET /slow: status 200 in ")
+			.contains("acquire ", "send 0.0 ms", "first byte ", "body ")
+			.endsWith(BODY.length() + " bytes)");
+	}
+
+	@Test
+	void fastCallsShouldNotBeLoggedWhenNotSampled() {
+		client(UNREACHED_THRESHOLD_MILLIS, 0).target(url("/fast")).request().get(String.class);
+
+		verify(logger, never()).warn(anyString());
+		verify(logger, never()).info(anyString());
+	}
+
+	@Test
+	void sampledCallsShouldBeLoggedAtInfoLevel() {
+		client(UNREACHED_THRESHOLD_MILLIS, 1).target(url("/fast")).request().put(Entity.text("{\"password\":\"secret\"}"), String.class);
+
+		ArgumentCaptor<String> entry = ArgumentCaptor.forClass(String.class);
+		verify(logger).info(entry.capture());
+		assertThat(entry.getValue()).startsWith("Sampled webadmin call users PUT /fast: status 200 in ");
+	}
+
+	@Test
+	void failedCallsShouldBeLoggedWithoutStatus() throws Exception {
+		int closedPort;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			closedPort = socket.getLocalPort();
+		}
+
+		assertThatThrownBy(() -> client(UNREACHED_THRESHOLD_MILLIS, 1).target("http://127.0.0.1:" + closedPort + "/users").request().get(String.class))
+			.isInstanceOf(ProcessingException.class);
+
+		ArgumentCaptor<String> entry = ArgumentCaptor.forClass(String.class);
+		verify(logger).info(entry.capture());
+		assertThat(entry.getValue()).startsWith("Sampled webadmin call users GET /users: status 0 in ");
+	}
+}
@@ -0,0 +1,43 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SlowestOperationsTest {
+	@Test
+	void shouldKeepTheSlowestOperationsSlowestFirst() {
+		SlowestOperations testee = new SlowestOperations(2);
+
+		testee.record(() -> "alice", "getBean", 10);
+		testee.record(() -> "bob", "getBean", 30);
+		testee.record(() -> "cedric", "getBean", 20);
+		testee.record(() -> "damien", "getBean", 5);
+
+		assertThat(testee.getOperations())
+			.extracting(SlowestOperations.Operation::getPivot)
+			.containsExactly("bob", "cedric");
+	}
+
+	@Test
+	void shouldNotComputeThePivotOfFastOperations() {
+		SlowestOperations testee = new SlowestOperations(1);
+		AtomicInteger computedPivots = new AtomicInteger();
+
+		testee.record(() -> "alice" + computedPivots.incrementAndGet(), "getBean", 10);
+		testee.record(() -> "bob" + computedPivots.incrementAndGet(), "getBean", 5);
+
+		assertThat(computedPivots).hasValue(1);
+	}
+
+	@Test
+	void shouldKeepNothingWhenDisabled() {
+		SlowestOperations testee = new SlowestOperations(0);
+
+		testee.record(() -> "alice", "getBean", 10);
+
+		assertThat(testee.getOperations()).isEmpty();
+	}
+}
@@ -0,0 +1,176 @@
+package org.lsc.plugins.connectors.james.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+import org.lsc.LscDatasets;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.tracing.InMemorySpanExporter;
+import org.lsc.plugins.connectors.james.tracing.Span;
+import org.lsc.plugins.connectors.james.tracing.Tracer;
+
+class TaskMonitorTest {
+	private static LscModifications modifications(LscModificationType operation) {
+		LscModifications modifications = new LscModifications(operation);
+		modifications.setMainIdentifer("bob@james.org");
+		return modifications;
+	}
+
+	private static Map<String, LscDatasets> pivots(int count) {
+		Map<String, LscDatasets> pivots = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			pivots.put("user" + i + "@james.org", new LscDatasets());
+		}
+		return pivots;
+	}
+
+	@Test
+	void writeShouldCountOperationsAndFailures() throws Exception {
+		TaskMonitor testee = new TaskMonitor("task", "alias");
+
+		testee.write(modifications(LscModificationType.CREATE_OBJECT), modifications -> true);
+		testee.write(modifications(LscModificationType.UPDATE_OBJECT), modifications -> false);
+		assertThatThrownBy(() -> testee.write(modifications(LscModificationType.DELETE_OBJECT), modifications -> {
+			throw new LscServiceException("boom");
+		})).isInstanceOf(LscServiceException.class);
+
+		assertThat(testee.getCreateCount()).isEqualTo(1);
+		assertThat(testee.getUpdateCount()).isEqualTo(1);
+		assertThat(testee.getDeleteCount()).isEqualTo(1);
+		assertThat(testee.getFailureCount()).isEqualTo(2);
+		assertThat(testee.getInFlightWrites()).isZero();
+	}
+
+	@Test
+	void eachListingShouldStartANewWindowOfCounts() throws Exception {
+		TaskMonitor testee = new TaskMonitor("task", "alias");
+		testee.listPivots(() -> pivots(100));
+		for (int i = 0; i < 50; i++) {
+			testee.getBean("email", new LscDatasets(), () -> null);
+		}
+		testee.write(modifications(LscModificationType.CREATE_OBJECT), modifications -> true);
+		testee.write(modifications(LscModificationType.UPDATE_OBJECT), modifications -> false);
+		testee.tick();
+
+		testee.listPivots(() -> pivots(100));
+		testee.getBean("email", new LscDatasets(), () -> null);
+		testee.write(modifications(LscModificationType.DELETE_OBJECT), modifications -> true);
+
+		assertThat(testee.getProcessedPivots()).isEqualTo(1);
+		assertThat(testee.getCreateCount()).isZero();
+		assertThat(testee.getUpdateCount()).isZero();
+		assertThat(testee.getDeleteCount()).isEqualTo(1);
+		assertThat(testee.getFailureCount()).isZero();
+		assertThat(testee.getPivotsPerSecond()).isZero();
+		assertThat(testee.getEtaSeconds()).isEqualTo(-1);
+		assertThat(testee.getTotalProcessedPivots()).isEqualTo(51);
+		assertThat(testee.getTotalCreateCount()).isEqualTo(1);
+		assertThat(testee.getTotalUpdateCount()).isEqualTo(1);
+		assertThat(testee.getTotalDeleteCount()).isEqualTo(1);
+		assertThat(testee.getTotalFailureCount()).isEqualTo(1);
+	}
+
+	@Test
+	void etaShouldBeDerivedFromTheListedPivotsAndTheThroughput() throws Exception {
+		TaskMonitor testee = new TaskMonitor("task", "alias");
+		testee.listPivots(() -> pivots(100));
+		for (int i = 0; i < 50; i++) {
+			testee.getBean("email", new LscDatasets(), () -> null);
+		}
+
+		testee.tick();
+
+		assertThat(testee.getPivotsPerSecond()).isEqualTo(10);
+		assertThat(testee.getEtaSeconds()).isEqualTo(5);
+	}
+
+	@Test
+	void etaShouldBeUnknownBeforeTheFirstTick() throws Exception {
+		TaskMonitor testee = new TaskMonitor("task", "alias");
+		testee.listPivots(() -> pivots(100));
+
+		assertThat(testee.getEtaSeconds()).isEqualTo(-1);
+	}
+
+	@Test
+	void forServiceShouldRegisterAnMBean() throws Exception {
+		TaskMonitor.forService("users", "user").getBean("email", new LscDatasets(), () -> null);
+
+		Object processed = ManagementFactory.getPlatformMBeanServer().getAttribute(
+			new ObjectName("org.lsc.plugins.connectors.james:type=DestinationService,task=\"users\",service=\"user\""),
+			"ProcessedPivots");
+
+		assertThat(processed).isEqualTo(1L);
+	}
+
+	@Test
+	void phasesShouldBeTimed() throws Exception {
+		TaskMonitor testee = new TaskMonitor("task", "alias");
+
+		testee.listPivots(() -> pivots(3));
+		testee.getBean("email", new LscDatasets(), () -> null);
+		testee.getBean("email", new LscDatasets(), () -> null);
+		testee.write(modifications(LscModificationType.CREATE_OBJECT), modifications -> true);
+
+		assertThat(testee.getListedPivots()).isEqualTo(3);
+		assertThat(testee.getListing().getCalls()).isEqualTo(1);
+		assertThat(testee.getFetching().getCalls()).isEqualTo(2);
+		assertThat(testee.getWriting().getCalls()).isEqualTo(1);
+	}
+
+	@Test
+	void slowestOperationsShouldBeIdentifiedByTheirPivot() throws Exception {
+		TaskMonitor testee = new TaskMonitor("task", "alias");
+		LscDatasets pivot = new LscDatasets();
+		pivot.put("email", "alice@james.org");
+
+		testee.getBean("email", pivot, () -> null);
+		testee.write(modifications(LscModificationType.UPDATE_OBJECT), modifications -> true);
+
+		assertThat(testee.getSlowestOperations())
+			.extracting(SlowestOperations.Operation::getPivot)
+			.containsExactlyInAnyOrder("alice@james.org", "bob@james.org");
+	}
+
+	@Test
+	void slowestWritesShouldBeNamedAfterTheirOperation() throws Exception {
+		TaskMonitor testee = new TaskMonitor("task", "alias");
+
+		testee.write(modifications(LscModificationType.CREATE_OBJECT), modifications -> true);
+		testee.write(modifications(null), modifications -> true);
+
+		assertThat(testee.getSlowestOperations())
+			.extracting(SlowestOperations.Operation::getPhase)
+			.containsExactlyInAnyOrder("apply CREATE_OBJECT", "apply");
+	}
+
+	@Test
+	void getBeanAndWritesShouldBeTraced() throws Exception {
+		InMemorySpanExporter exporter = new InMemorySpanExporter();
+		TaskMonitor testee = new TaskMonitor("task", "alias", new Tracer(exporter, 1));
+		LscDatasets pivot = new LscDatasets();
+		pivot.put("email", "alice@james.org");
+
+		testee.getBean("email", pivot, () -> null);
+		testee.write(modifications(LscModificationType.UPDATE_OBJECT), modifications -> false);
+
+		assertThat(exporter.getSpans()).extracting(Span::getName).containsExactly("getBean", "apply");
+		assertThat(exporter.getSpans().get(0).getAttributes())
+			.containsEntry("service", "alias")
+			.containsEntry("pivot", "alice@james.org")
+			.containsEntry("found", false);
+		assertThat(exporter.getSpans().get(1).getAttributes())
+			.containsEntry("pivot", "bob@james.org")
+			.containsEntry("operation", LscModificationType.UPDATE_OBJECT)
+			.containsEntry("success", false);
+	}
+}
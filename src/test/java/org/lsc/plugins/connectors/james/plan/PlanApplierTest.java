@@ -0,0 +1,154 @@
+package org.lsc.plugins.connectors.james.plan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.plugins.connectors.james.Aspect;
+import org.lsc.service.IWritableService;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+class PlanApplierTest {
+	private static final String BOB = "bob@james.org";
+	private static final String ALICE = "alice@james.org";
+
+	private Path failedPlanFile;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		failedPlanFile = Files.createTempFile("plan", ".failed");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		Files.deleteIfExists(failedPlanFile);
+	}
+
+	private static PlanEntry entry(Aspect aspect, LscModificationType operation, String user) {
+		return new PlanEntry(aspect, operation, user, ImmutableMap.of());
+	}
+
+	@Test
+	void groupByUserShouldProvisionTheUserFirst() {
+		List<PlanEntry> entries = ImmutableList.of(
+			entry(Aspect.ADDRESS_MAPPING, LscModificationType.UPDATE_OBJECT, BOB),
+			entry(Aspect.MAIL_QUOTA_SIZE, LscModificationType.CREATE_OBJECT, BOB),
+			entry(Aspect.USER, LscModificationType.CREATE_OBJECT, BOB));
+
+		assertThat(PlanApplier.groupByUser(entries))
+			.containsExactly(ImmutableList.of(
+				entry(Aspect.USER, LscModificationType.CREATE_OBJECT, BOB),
+				entry(Aspect.MAIL_QUOTA_SIZE, LscModificationType.CREATE_OBJECT, BOB),
+				entry(Aspect.ADDRESS_MAPPING, LscModificationType.UPDATE_OBJECT, BOB)));
+	}
+
+	@Test
+	void groupByUserShouldDeleteTheUserLast() {
+		List<PlanEntry> entries = ImmutableList.of(
+			entry(Aspect.USER, LscModificationType.DELETE_OBJECT, BOB),
+			entry(Aspect.ALIAS, LscModificationType.DELETE_OBJECT, BOB),
+			entry(Aspect.FORWARD, LscModificationType.DELETE_OBJECT, BOB));
+
+		assertThat(PlanApplier.groupByUser(entries))
+			.containsExactly(ImmutableList.of(
+				entry(Aspect.FORWARD, LscModificationType.DELETE_OBJECT, BOB),
+				entry(Aspect.ALIAS, LscModificationType.DELETE_OBJECT, BOB),
+				entry(Aspect.USER, LscModificationType.DELETE_OBJECT, BOB)));
+	}
+
+	@Test
+	void groupByUserShouldSeparateUsers() {
+		List<PlanEntry> entries = ImmutableList.of(
+			entry(Aspect.ALIAS, LscModificationType.CREATE_OBJECT, BOB),
+			entry(Aspect.ALIAS, LscModificationType.CREATE_OBJECT, ALICE),
+			entry(Aspect.USER, LscModificationType.CREATE_OBJECT, BOB));
+
+		Collection<List<PlanEntry>> groups = PlanApplier.groupByUser(entries);
+
+		assertThat(groups).hasSize(2);
+	}
+
+	@Test
+	void applyShouldReportAndRecordFailures() throws Exception {
+		IWritableService aliasService = mock(IWritableService.class);
+		IWritableService userService = mock(IWritableService.class);
+		when(aliasService.apply(any())).thenReturn(false);
+		when(userService.apply(any())).thenReturn(true);
+		Map<Aspect, IWritableService> services = new EnumMap<>(Aspect.class);
+		services.put(Aspect.ALIAS, aliasService);
+		services.put(Aspect.USER, userService);
+
+		List<PlanEntry> entries = ImmutableList.of(
+			entry(Aspect.USER, LscModificationType.CREATE_OBJECT, BOB),
+			entry(Aspect.USER, LscModificationType.CREATE_OBJECT, ALICE),
+			entry(Aspect.ALIAS, LscModificationType.CREATE_OBJECT, BOB));
+
+		PlanApplier.Result result;
+		try (PlanWriter failures = new PlanWriter(failedPlanFile)) {
+			result = new PlanApplier(services::get, 2).apply(entries, failures);
+		}
+
+		assertThat(result.getApplied()).isEqualTo(2);
+		assertThat(result.getFailed()).isEqualTo(1);
+		assertThat(new PlanReader().readAll(failedPlanFile))
+			.containsExactly(entry(Aspect.ALIAS, LscModificationType.CREATE_OBJECT, BOB));
+	}
+
+	@Test
+	void applyShouldReplayTheRecordedModifications() throws Exception {
+		List<LscModifications> applied = new ArrayList<>();
+		IWritableService userService = mock(IWritableService.class);
+		when(userService.apply(any())).thenAnswer(invocation -> {
+			synchronized (applied) {
+				applied.add(invocation.getArgument(0));
+			}
+			return true;
+		});
+
+		try (PlanWriter failures = new PlanWriter(failedPlanFile)) {
+			new PlanApplier(aspect -> userService, 4)
+				.apply(ImmutableList.of(entry(Aspect.USER, LscModificationType.CREATE_OBJECT, BOB)), failures);
+		}
+
+		assertThat(applied).hasSize(1);
+		assertThat(applied.get(0).getMainIdentifier()).isEqualTo(BOB);
+		assertThat(applied.get(0).getOperation()).isEqualTo(LscModificationType.CREATE_OBJECT);
+	}
+
+	@Test
+	void deletionsShouldBeRateLimited() throws Exception {
+		IWritableService userService = mock(IWritableService.class);
+		when(userService.apply(any())).thenReturn(true);
+		List<PlanEntry> entries = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			entries.add(entry(Aspect.USER, LscModificationType.DELETE_OBJECT, "user" + i + "@james.org"));
+		}
+
+		long start = System.nanoTime();
+		PlanApplier.Result result;
+		try (PlanWriter failures = new PlanWriter(failedPlanFile)) {
+			result = new PlanApplier(aspect -> userService, 4, 20).apply(entries, failures);
+		}
+
+		// The first permit is immediate, the four others are spaced by 50 ms whatever the parallelism
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(150);
+		assertThat(result.getApplied()).isEqualTo(5);
+	}
+}
@@ -0,0 +1,123 @@
+package org.lsc.plugins.connectors.james.plan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.LscDatasetModification;
+import org.lsc.LscDatasetModification.LscDatasetModificationType;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.plugins.connectors.james.Aspect;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+class PlanWriterTest {
+	private static final String BOB = "bob@james.org";
+
+	private Path planFile;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		planFile = Files.createTempFile("plan", ".ndjson");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		Files.deleteIfExists(planFile);
+	}
+
+	@Test
+	void recordedModificationsShouldBeReadBack() throws Exception {
+		LscModifications modifications = new LscModifications(LscModificationType.UPDATE_OBJECT);
+		modifications.setMainIdentifer(BOB);
+		modifications.setLscAttributeModifications(ImmutableList.of(new LscDatasetModification(
+			LscDatasetModificationType.REPLACE_VALUES, "sources", ImmutableList.of("bob-alias@james.org", "robert@james.org"))));
+
+		try (PlanWriter planWriter = new PlanWriter(planFile)) {
+			assertThat(planWriter.record(Aspect.ALIAS, modifications)).isTrue();
+		}
+
+		assertThat(new PlanReader().readAll(planFile))
+			.containsExactly(new PlanEntry(Aspect.ALIAS, LscModificationType.UPDATE_OBJECT, BOB,
+				ImmutableMap.of("sources", ImmutableList.of("bob-alias@james.org", "robert@james.org"))));
+	}
+
+	@Test
+	void readBackEntryShouldConvertToTheSameModifications() throws Exception {
+		LscModifications modifications = new LscModifications(LscModificationType.CREATE_OBJECT);
+		modifications.setMainIdentifer(BOB);
+		modifications.setLscAttributeModifications(ImmutableList.of(new LscDatasetModification(
+			LscDatasetModificationType.REPLACE_VALUES, "mailQuotaSize", ImmutableList.of("4000"))));
+
+		try (PlanWriter planWriter = new PlanWriter(planFile)) {
+			planWriter.record(Aspect.MAIL_QUOTA_SIZE, modifications);
+		}
+		List<PlanEntry> entries = new PlanReader().readAll(planFile);
+		LscModifications readBack = entries.get(0).toModifications();
+
+		assertThat(readBack.getOperation()).isEqualTo(LscModificationType.CREATE_OBJECT);
+		assertThat(readBack.getMainIdentifier()).isEqualTo(BOB);
+		assertThat(readBack.getModificationsItemsByHash()).isEqualTo(modifications.getModificationsItemsByHash());
+	}
+
+	@Test
+	void recordShouldWriteOneLinePerModification() throws Exception {
+		try (PlanWriter planWriter = new PlanWriter(planFile)) {
+			for (String user : ImmutableList.of("alice@james.org", BOB, "marie@james.org")) {
+				LscModifications modifications = new LscModifications(LscModificationType.DELETE_OBJECT);
+				modifications.setMainIdentifer(user);
+				planWriter.record(Aspect.USER, modifications);
+			}
+			assertThat(planWriter.getEntryCount()).isEqualTo(3);
+		}
+
+		assertThat(Files.readAllLines(planFile)).hasSize(3);
+	}
+
+	@Test
+	void recordedEntriesShouldBeReadableBeforeTheWriterIsClosed() throws Exception {
+		LscModifications modifications = new LscModifications(LscModificationType.DELETE_OBJECT);
+		modifications.setMainIdentifer(BOB);
+
+		try (PlanWriter planWriter = new PlanWriter(planFile)) {
+			planWriter.record(Aspect.USER, modifications);
+
+			assertThat(new PlanReader().readAll(planFile))
+				.containsExactly(new PlanEntry(Aspect.USER, LscModificationType.DELETE_OBJECT, BOB, ImmutableMap.of()));
+		}
+	}
+
+	@Test
+	void truncatedLastLineShouldBeSkipped() throws Exception {
+		LscModifications modifications = new LscModifications(LscModificationType.DELETE_OBJECT);
+		modifications.setMainIdentifer(BOB);
+		try (PlanWriter planWriter = new PlanWriter(planFile)) {
+			planWriter.record(Aspect.USER, modifications);
+		}
+		Files.write(planFile, "{\"aspect\":\"USER\",\"oper".getBytes(), StandardOpenOption.APPEND);
+
+		assertThat(new PlanReader().readAll(planFile))
+			.containsExactly(new PlanEntry(Aspect.USER, LscModificationType.DELETE_OBJECT, BOB, ImmutableMap.of()));
+	}
+
+	@Test
+	void malformedLineBeforeTheLastOneShouldFailTheRead() throws Exception {
+		Files.write(planFile, ImmutableList.of(
+			"{\"aspect\":\"USER\",\"oper",
+			"{\"aspect\":\"USER\",\"operation\":\"DELETE_OBJECT\",\"identifier\":\"bob@james.org\"}"));
+
+		assertThatThrownBy(() -> new PlanReader().readAll(planFile))
+			.isInstanceOf(JsonProcessingException.class);
+	}
+}
@@ -0,0 +1,65 @@
+package org.lsc.plugins.connectors.james.scale;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Splitter;
+
+/**
+ * Size and shape of a {@link SyntheticDirectory}, read from {@code tmail.scale.*} system properties so that the scale
+ * tests can be run at a larger size than the build default, e.g. {@code -Dtmail.scale.users.per.domain=500000}.
+ */
+class DirectoryShape {
+	static final String DOMAINS_PROPERTY = "tmail.scale.domains";
+	static final String USERS_PER_DOMAIN_PROPERTY = "tmail.scale.users.per.domain";
+	static final String ALIASES_PER_USER_PROPERTY = "tmail.scale.aliases.per.user";
+	static final String FORWARDS_PER_USER_PROPERTY = "tmail.scale.forwards.per.user";
+	static final String QUOTA_SIZES_PROPERTY = "tmail.scale.quota.sizes";
+	static final String CHANGE_RATIO_PROPERTY = "tmail.scale.change.ratio";
+
+	static DirectoryShape fromProperties() {
+		return new DirectoryShape(
+			Integer.getInteger(DOMAINS_PROPERTY, 2),
+			Integer.getInteger(USERS_PER_DOMAIN_PROPERTY, 500),
+			Integer.getInteger(ALIASES_PER_USER_PROPERTY, 2),
+			Integer.getInteger(FORWARDS_PER_USER_PROPERTY, 1),
+			Splitter.on(',').trimResults().omitEmptyStrings()
+				.splitToList(System.getProperty(QUOTA_SIZES_PROPERTY, "1000000000,1000000000,5000000000,20000000000"))
+				.stream()
+				.map(Long::parseLong)
+				.collect(Collectors.toList()),
+			Double.parseDouble(System.getProperty(CHANGE_RATIO_PROPERTY, "0.1")));
+	}
+
+	final int domains;
+	final int usersPerDomain;
+	final int aliasesPerUser;
+	final int forwardsPerUser;
+	/**
+	 * Quota sizes drawn uniformly, a size repeated several times being drawn more often.
+	 */
+	final List<Long> quotaSizes;
+	/**
+	 * The ratio of users whose TMail state differs from the directory, and of obsolete TMail users.
+	 */
+	final double changeRatio;
+
+	DirectoryShape(int domains, int usersPerDomain, int aliasesPerUser, int forwardsPerUser, List<Long> quotaSizes, double changeRatio) {
+		this.domains = domains;
+		this.usersPerDomain = usersPerDomain;
+		this.aliasesPerUser = aliasesPerUser;
+		this.forwardsPerUser = forwardsPerUser;
+		this.quotaSizes = quotaSizes;
+		this.changeRatio = changeRatio;
+	}
+
+	int userCount() {
+		return domains * usersPerDomain;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d domains x %d users, %d aliases and %d forwards per user, %.0f%% changed",
+			domains, usersPerDomain, aliasesPerUser, forwardsPerUser, changeRatio * 100);
+	}
+}
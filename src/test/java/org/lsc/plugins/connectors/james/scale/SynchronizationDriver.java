@@ -0,0 +1,142 @@
+package org.lsc.plugins.connectors.james.scale;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lsc.LscDatasetModification;
+import org.lsc.LscDatasetModification.LscDatasetModificationType;
+import org.lsc.LscDatasets;
+import org.lsc.LscModificationType;
+import org.lsc.LscModifications;
+import org.lsc.beans.IBean;
+import org.lsc.exception.LscServiceException;
+import org.lsc.plugins.connectors.james.Aspect;
+import org.lsc.service.IWritableService;
+
+/**
+ * Drives a destination service the way the LSC synchronization engine does: for each source entry, getBean, compare
+ * the attributes of the aspects and apply the resulting modifications (the synchronize phase), then delete the
+ * destination pivots which are not in the source (the clean phase). Entries are synchronized by a pool of threads,
+ * like the LSC tasks.
+ */
+class SynchronizationDriver {
+	static class Result {
+		final LongAdder created = new LongAdder();
+		final LongAdder updated = new LongAdder();
+		final LongAdder deleted = new LongAdder();
+		final LongAdder unchanged = new LongAdder();
+		final LongAdder failed = new LongAdder();
+		long synchronizeNanos;
+		long cleanNanos;
+		long pivots;
+
+		double pivotsPerSecond() {
+			return pivots / ((synchronizeNanos + cleanNanos) / 1e9);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d pivots at %.0f pivots/s: %d created, %d updated, %d deleted, %d unchanged, %d failed",
+				pivots, pivotsPerSecond(), created.sum(), updated.sum(), deleted.sum(), unchanged.sum(), failed.sum());
+		}
+	}
+
+	private final IWritableService destination;
+	private final Collection<Aspect> aspects;
+	private final int threads;
+
+	SynchronizationDriver(IWritableService destination, Collection<Aspect> aspects, int threads) {
+		this.destination = destination;
+		this.aspects = aspects;
+		this.threads = threads;
+	}
+
+	Result synchronize(SyntheticDirectory directory) throws Exception {
+		Result result = new Result();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			long start = System.nanoTime();
+			List<Future<?>> tasks = new ArrayList<>();
+			for (SyntheticDirectory.Entry entry : directory.entries) {
+				tasks.add(executor.submit(() -> {
+					synchronize(entry, result);
+					return null;
+				}));
+			}
+			await(tasks);
+			result.synchronizeNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			Set<String> sourcePivots = new HashSet<>();
+			directory.entries.forEach(entry -> sourcePivots.add(entry.email));
+			tasks.clear();
+			for (String pivot : destination.getListPivots().keySet()) {
+				if (!sourcePivots.contains(pivot)) {
+					tasks.add(executor.submit(() -> {
+						count(apply(new LscModifications(LscModificationType.DELETE_OBJECT), pivot, new ArrayList<>()), result.deleted, result);
+						return null;
+					}));
+				}
+			}
+			await(tasks);
+			result.cleanNanos = System.nanoTime() - start;
+			result.pivots = directory.entries.size() + result.deleted.sum() + result.failed.sum();
+		} finally {
+			executor.shutdownNow();
+		}
+		return result;
+	}
+
+	private void synchronize(SyntheticDirectory.Entry entry, Result result) throws LscServiceException {
+		LscDatasets pivot = new LscDatasets();
+		pivot.put("email", entry.email);
+		IBean bean = destination.getBean(entry.email, pivot, true);
+		Map<String, List<String>> source = entry.attributes(aspects);
+
+		List<LscDatasetModification> modifications = new ArrayList<>();
+		for (Map.Entry<String, List<String>> attribute : source.entrySet()) {
+			Set<Object> sourceValues = new LinkedHashSet<>(attribute.getValue());
+			Set<Object> destinationValues = bean == null ? null : bean.getDatasetById(attribute.getKey());
+			if (bean == null || destinationValues == null || !sourceValues.equals(new HashSet<>(destinationValues))) {
+				modifications.add(new LscDatasetModification(LscDatasetModificationType.REPLACE_VALUES, attribute.getKey(), new ArrayList<>(sourceValues)));
+			}
+		}
+		if (bean == null) {
+			count(apply(new LscModifications(LscModificationType.CREATE_OBJECT), entry.email, modifications), result.created, result);
+		} else if (!modifications.isEmpty()) {
+			count(apply(new LscModifications(LscModificationType.UPDATE_OBJECT), entry.email, modifications), result.updated, result);
+		} else {
+			result.unchanged.increment();
+		}
+	}
+
+	private boolean apply(LscModifications modifications, String pivot, List<LscDatasetModification> attributeModifications) throws LscServiceException {
+		modifications.setMainIdentifer(pivot);
+		modifications.setLscAttributeModifications(attributeModifications);
+		return destination.apply(modifications);
+	}
+
+	private static void count(boolean success, LongAdder counter, Result result) {
+		if (success) {
+			counter.increment();
+		} else {
+			result.failed.increment();
+		}
+	}
+
+	private static void await(List<Future<?>> tasks) throws InterruptedException, ExecutionException {
+		for (Future<?> task : tasks) {
+			task.get();
+		}
+	}
+}
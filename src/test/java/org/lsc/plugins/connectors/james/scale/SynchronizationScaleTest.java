@@ -0,0 +1,203 @@
+package org.lsc.plugins.connectors.james.scale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.lsc.LscDatasets;
+import org.lsc.beans.SimpleBean;
+import org.lsc.configuration.PluginConnectionType;
+import org.lsc.configuration.PluginDestinationServiceType;
+import org.lsc.configuration.ServiceType;
+import org.lsc.configuration.TaskType;
+import org.lsc.configuration.ValuesType;
+import org.lsc.plugins.connectors.james.Aspect;
+import org.lsc.plugins.connectors.james.JamesCompositeDstService;
+import org.lsc.plugins.connectors.james.beans.ContactNames;
+import org.lsc.plugins.connectors.james.generated.JamesCompositeService;
+import org.lsc.plugins.connectors.james.stub.InMemoryTMail;
+import org.lsc.plugins.connectors.james.stub.WebadminStub;
+import org.lsc.service.IWritableService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Synchronizes a {@link SyntheticDirectory} into a {@link WebadminStub} with each destination service, and fails when
+ * the throughput or the heap retained by the pivot list exceed their budgets. The directory shape and the budgets are
+ * set by {@code tmail.scale.*} system properties, see {@link DirectoryShape}.
+ */
+class SynchronizationScaleTest {
+	static final String THREADS_PROPERTY = "tmail.scale.threads";
+	static final String MIN_PIVOTS_PER_SECOND_PROPERTY = "tmail.scale.min.pivots.per.second";
+	static final String MAX_HEAP_PER_PIVOT_PROPERTY = "tmail.scale.max.heap.per.pivot";
+	private static final Logger LOGGER = LoggerFactory.getLogger(SynchronizationScaleTest.class);
+	private static final Set<Aspect> COMPOSITE_ASPECTS = EnumSet.of(Aspect.USER, Aspect.MAIL_QUOTA_SIZE, Aspect.IDENTITY,
+		Aspect.ALIAS, Aspect.FORWARD, Aspect.ADDRESS_MAPPING);
+
+	private static SyntheticDirectory directory;
+
+	private WebadminStub stub;
+	private PluginConnectionType connection;
+
+	@BeforeAll
+	static void generateDirectory() {
+		directory = SyntheticDirectory.generate(DirectoryShape.fromProperties());
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = new WebadminStub();
+		connection = new PluginConnectionType();
+		connection.setUrl(stub.getUrl());
+		connection.setPassword("token");
+	}
+
+	@AfterEach
+	void tearDown() {
+		stub.close();
+	}
+
+	@ParameterizedTest
+	@EnumSource(Aspect.class)
+	void serviceShouldSynchronizeTheDirectoryWithinBudgets(Aspect aspect) throws Exception {
+		directory.seed(stub.tmail(), EnumSet.of(aspect));
+		IWritableService service = aspect.newService("scale-" + aspect.label(), SimpleBean.class.getName(), connection);
+
+		SynchronizationDriver.Result result = new SynchronizationDriver(service, EnumSet.of(aspect), threads())
+			.synchronize(directory);
+		LOGGER.info("{} service, {}: {}", aspect.label(), directory.shape, result);
+
+		assertThat(result.failed.sum()).isZero();
+		assertConverged(aspect);
+		assertWithinBudgets(result, service, 1);
+	}
+
+	@Test
+	void compositeServiceShouldSynchronizeTheDirectoryWithinBudgets() throws Exception {
+		directory.seed(stub.tmail(), COMPOSITE_ASPECTS);
+		IWritableService service = compositeService();
+
+		SynchronizationDriver.Result result = new SynchronizationDriver(service, COMPOSITE_ASPECTS, threads())
+			.synchronize(directory);
+		LOGGER.info("composite service, {}: {}", directory.shape, result);
+
+		assertThat(result.failed.sum()).isZero();
+		for (Aspect aspect : COMPOSITE_ASPECTS) {
+			assertConverged(aspect);
+		}
+		assertWithinBudgets(result, service, COMPOSITE_ASPECTS.size());
+	}
+
+	private IWritableService compositeService() throws Exception {
+		ServiceType.Connection connectionReference = new ServiceType.Connection();
+		connectionReference.setReference(connection);
+		ValuesType aspects = new ValuesType();
+		aspects.getString().addAll(COMPOSITE_ASPECTS.stream().map(Aspect::label).collect(Collectors.toList()));
+		JamesCompositeService service = new JamesCompositeService();
+		service.setName("scale-composite");
+		service.setConnection(connectionReference);
+		service.setWritableAttributes(new ValuesType());
+		service.setAspects(aspects);
+		PluginDestinationServiceType destinationService = new PluginDestinationServiceType();
+		destinationService.getAny().add(service);
+		TaskType task = new TaskType();
+		task.setName("scale-composite");
+		task.setBean(SimpleBean.class.getName());
+		task.setPluginDestinationService(destinationService);
+		return new JamesCompositeDstService(task);
+	}
+
+	private void assertConverged(Aspect aspect) {
+		InMemoryTMail tmail = stub.tmail();
+		for (SyntheticDirectory.Entry entry : directory.entries) {
+			switch (aspect) {
+				case USER:
+					assertThat(tmail.hasUser(entry.email)).isTrue();
+					break;
+				case MAIL_QUOTA_SIZE:
+					assertThat(tmail.getQuota(entry.email)).contains(entry.quotaSize);
+					break;
+				case IDENTITY:
+					assertThat(tmail.getDefaultIdentity(entry.email)).isPresent();
+					break;
+				case ALIAS:
+					assertThat(tmail.getAliases(entry.email)).containsExactlyInAnyOrderElementsOf(entry.aliases);
+					break;
+				case FORWARD:
+					// Forwards are never removed from TMail, as they could have been set by the user
+					assertThat(tmail.getForwards(entry.email)).containsAll(entry.forwards);
+					break;
+				case ADDRESS_MAPPING:
+					assertThat(tmail.getAddressMappings(entry.email)).containsExactlyInAnyOrderElementsOf(entry.addressMappings);
+					break;
+				case CONTACT:
+					assertThat(tmail.getContact(entry.email).flatMap(ContactNames::getSurname)).contains(entry.surname);
+					break;
+				default:
+					throw new IllegalArgumentException(aspect.name());
+			}
+		}
+		for (int i = 0; i < directory.obsoleteUsers; i++) {
+			String obsolete = SyntheticDirectory.obsoleteUser(i);
+			switch (aspect) {
+				case USER:
+					assertThat(tmail.hasUser(obsolete)).isFalse();
+					break;
+				case ALIAS:
+					assertThat(tmail.getAliases(obsolete)).isEmpty();
+					break;
+				case FORWARD:
+					assertThat(tmail.getForwards(obsolete)).isEmpty();
+					break;
+				case CONTACT:
+					assertThat(tmail.getContact(obsolete)).isEmpty();
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	/**
+	 * @param aspectCount the number of aspects synchronized for each pivot, which divides the throughput budget
+	 */
+	private void assertWithinBudgets(SynchronizationDriver.Result result, IWritableService service, int aspectCount) throws Exception {
+		assertThat(result.pivotsPerSecond() * aspectCount)
+			.as("pivots per second and per aspect")
+			.isGreaterThanOrEqualTo(Double.parseDouble(System.getProperty(MIN_PIVOTS_PER_SECOND_PROPERTY, "100")));
+
+		long heapPerPivot = retainedHeapPerPivot(service);
+		LOGGER.info("Pivot list retains {} bytes per pivot", heapPerPivot);
+		assertThat(heapPerPivot)
+			.as("heap bytes retained per listed pivot")
+			.isLessThanOrEqualTo(Long.getLong(MAX_HEAP_PER_PIVOT_PROPERTY, 4096));
+	}
+
+	private static long retainedHeapPerPivot(IWritableService service) throws Exception {
+		long before = usedHeapAfterGc();
+		Map<String, LscDatasets> pivots = service.getListPivots();
+		long after = usedHeapAfterGc();
+		return Math.max(0, after - before) / Math.max(1, pivots.size());
+	}
+
+	private static long usedHeapAfterGc() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static int threads() {
+		return Integer.getInteger(THREADS_PROPERTY, 5);
+	}
+}
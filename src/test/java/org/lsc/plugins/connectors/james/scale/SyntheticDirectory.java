@@ -0,0 +1,178 @@
+package org.lsc.plugins.connectors.james.scale;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import org.lsc.plugins.connectors.james.Aspect;
+import org.lsc.plugins.connectors.james.beans.ContactNames;
+import org.lsc.plugins.connectors.james.beans.Identity;
+import org.lsc.plugins.connectors.james.stub.InMemoryTMail;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A generated LDAP directory, and the TMail state of a previous synchronization of it: most users are up to date,
+ * {@link DirectoryShape#changeRatio} of them have changed since, and as many TMail users no longer exist in the
+ * directory.
+ */
+class SyntheticDirectory {
+	private static final long SEED = 42;
+
+	static class Entry {
+		final String email;
+		final String firstname;
+		final String surname;
+		final List<String> aliases;
+		final List<String> forwards;
+		final long quotaSize;
+		final List<String> addressMappings;
+		final boolean changed;
+
+		Entry(String email, String firstname, String surname, List<String> aliases, List<String> forwards, long quotaSize,
+			  List<String> addressMappings, boolean changed) {
+			this.email = email;
+			this.firstname = firstname;
+			this.surname = surname;
+			this.aliases = aliases;
+			this.forwards = forwards;
+			this.quotaSize = quotaSize;
+			this.addressMappings = addressMappings;
+			this.changed = changed;
+		}
+
+		/**
+		 * @return the values of the LDAP attributes of the given aspects, as read by LSC from the source
+		 */
+		Map<String, List<String>> attributes(Collection<Aspect> aspects) {
+			Map<String, List<String>> attributes = new LinkedHashMap<>();
+			for (Aspect aspect : aspects) {
+				List<List<String>> values = values(aspect);
+				for (int i = 0; i < values.size(); i++) {
+					attributes.put(aspect.getAttributes().get(i), values.get(i));
+				}
+			}
+			return attributes;
+		}
+
+		private List<List<String>> values(Aspect aspect) {
+			switch (aspect) {
+				case IDENTITY:
+				case CONTACT:
+					return ImmutableList.of(ImmutableList.of(firstname), ImmutableList.of(surname));
+				case ALIAS:
+					return ImmutableList.of(aliases);
+				case FORWARD:
+					return ImmutableList.of(forwards);
+				case MAIL_QUOTA_SIZE:
+					return ImmutableList.of(ImmutableList.of(String.valueOf(quotaSize)));
+				case ADDRESS_MAPPING:
+					return ImmutableList.of(addressMappings);
+				default:
+					return ImmutableList.of();
+			}
+		}
+	}
+
+	static SyntheticDirectory generate(DirectoryShape shape) {
+		Random random = new Random(SEED);
+		List<Entry> entries = new ArrayList<>(shape.userCount());
+		for (int domain = 0; domain < shape.domains; domain++) {
+			for (int user = 0; user < shape.usersPerDomain; user++) {
+				String local = "user" + user;
+				String domainName = "domain" + domain + ".org";
+				entries.add(new Entry(local + "@" + domainName,
+					"First" + user,
+					"Last" + user,
+					values(shape.aliasesPerUser, i -> local + "-alias" + i + "@" + domainName),
+					values(shape.forwardsPerUser, i -> local + "-forward" + i + "@external.org"),
+					shape.quotaSizes.get(random.nextInt(shape.quotaSizes.size())),
+					values(shape.aliasesPerUser, i -> local + "-mapping" + i + "@external.org"),
+					random.nextDouble() < shape.changeRatio));
+			}
+		}
+		int obsoleteUsers = (int) Math.round(shape.userCount() * shape.changeRatio);
+		return new SyntheticDirectory(shape, entries, obsoleteUsers);
+	}
+
+	private static List<String> values(int count, IntFunction<String> value) {
+		List<String> values = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			values.add(value.apply(i));
+		}
+		return values;
+	}
+
+	final DirectoryShape shape;
+	final List<Entry> entries;
+	final int obsoleteUsers;
+
+	private SyntheticDirectory(DirectoryShape shape, List<Entry> entries, int obsoleteUsers) {
+		this.shape = shape;
+		this.entries = entries;
+		this.obsoleteUsers = obsoleteUsers;
+	}
+
+	static String obsoleteUser(int index) {
+		return "obsolete" + index + "@domain0.org";
+	}
+
+	/**
+	 * Write the TMail state of the previous synchronization of the given aspects: changed users have a stale value
+	 * instead of their first one, or are missing when synchronizing users.
+	 */
+	void seed(InMemoryTMail tmail, Set<Aspect> aspects) {
+		for (Entry entry : entries) {
+			if (!entry.changed || !aspects.contains(Aspect.USER)) {
+				tmail.addUser(entry.email, "secret");
+			}
+			if (aspects.contains(Aspect.ALIAS)) {
+				entry.aliases.stream().skip(entry.changed ? 1 : 0).forEach(alias -> tmail.addAlias(entry.email, alias));
+				staleValue(entry).ifPresent(stale -> tmail.addAlias(entry.email, stale));
+			}
+			if (aspects.contains(Aspect.FORWARD)) {
+				entry.forwards.stream().skip(entry.changed ? 1 : 0).forEach(forward -> tmail.addForward(entry.email, forward));
+			}
+			if (aspects.contains(Aspect.ADDRESS_MAPPING)) {
+				entry.addressMappings.stream().skip(entry.changed ? 1 : 0).forEach(mapping -> tmail.addAddressMapping(entry.email, mapping));
+				staleValue(entry).ifPresent(stale -> tmail.addAddressMapping(entry.email, stale));
+			}
+			if (aspects.contains(Aspect.MAIL_QUOTA_SIZE)) {
+				tmail.setQuota(entry.email, entry.changed ? entry.quotaSize + 1 : entry.quotaSize);
+			}
+			if (aspects.contains(Aspect.IDENTITY) && !entry.changed) {
+				tmail.setDefaultIdentity(new Identity(entry.email, entry.firstname + " " + entry.surname, 0));
+			}
+			if (aspects.contains(Aspect.CONTACT)) {
+				tmail.putContact(entry.email, new ContactNames(Optional.of(entry.firstname),
+					Optional.of(entry.changed ? "Stale" : entry.surname)));
+			}
+		}
+		for (int i = 0; i < obsoleteUsers; i++) {
+			String obsolete = obsoleteUser(i);
+			tmail.addUser(obsolete, "secret");
+			if (aspects.contains(Aspect.ALIAS)) {
+				tmail.addAlias(obsolete, "obsolete-alias" + i + "@domain0.org");
+			}
+			if (aspects.contains(Aspect.FORWARD)) {
+				tmail.addForward(obsolete, "obsolete-forward" + i + "@external.org");
+			}
+			if (aspects.contains(Aspect.CONTACT)) {
+				tmail.putContact(obsolete, new ContactNames(Optional.of("Obsolete"), Optional.empty()));
+			}
+		}
+	}
+
+	private static Optional<String> staleValue(Entry entry) {
+		if (!entry.changed) {
+			return Optional.empty();
+		}
+		return Optional.of("stale-" + entry.email);
+	}
+}
@@ -0,0 +1,157 @@
+package org.lsc.plugins.connectors.james.stub;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.lsc.plugins.connectors.james.beans.ContactNames;
+import org.lsc.plugins.connectors.james.beans.Identity;
+
+/**
+ * The TMail state served by {@link WebadminStub}. Users are kept sorted, like the webadmin user listing. Every method
+ * is thread safe, so that tests can seed and inspect the state while the connector is running.
+ */
+public class InMemoryTMail {
+	private final ConcurrentSkipListMap<String, String> users = new ConcurrentSkipListMap<>();
+	private final Map<String, Set<String>> aliases = new ConcurrentSkipListMap<>();
+	private final Map<String, Set<String>> forwards = new ConcurrentSkipListMap<>();
+	private final Map<String, Set<String>> addressMappings = new ConcurrentHashMap<>();
+	private final Map<String, Long> quotas = new ConcurrentHashMap<>();
+	private final Map<String, Identity> defaultIdentities = new ConcurrentHashMap<>();
+	private final Map<String, ContactNames> contacts = new ConcurrentSkipListMap<>();
+
+	public void addUser(String user, String password) {
+		users.put(user, password);
+	}
+
+	/**
+	 * Add {@code count} users named {@code user<i>@<domain>}.
+	 */
+	public void addUsers(int count, String domain) {
+		for (int i = 0; i < count; i++) {
+			users.put("user" + i + "@" + domain, "secret");
+		}
+	}
+
+	public boolean removeUser(String user) {
+		quotas.remove(user);
+		defaultIdentities.remove(user);
+		return users.remove(user) != null;
+	}
+
+	public boolean hasUser(String user) {
+		return users.containsKey(user);
+	}
+
+	public Set<String> getUsers() {
+		return Collections.unmodifiableSet(users.keySet());
+	}
+
+	public void addAlias(String user, String source) {
+		add(aliases, user, source);
+	}
+
+	public void removeAlias(String user, String source) {
+		remove(aliases, user, source);
+	}
+
+	public Set<String> getAliases(String user) {
+		return get(aliases, user);
+	}
+
+	Set<String> getUsersWithAliases() {
+		return aliases.keySet();
+	}
+
+	public void addForward(String user, String target) {
+		add(forwards, user, target);
+	}
+
+	public void removeForward(String user, String target) {
+		remove(forwards, user, target);
+	}
+
+	public Set<String> getForwards(String user) {
+		return get(forwards, user);
+	}
+
+	Set<String> getUsersWithForwards() {
+		return forwards.keySet();
+	}
+
+	public void addAddressMapping(String user, String mapping) {
+		add(addressMappings, user, mapping);
+	}
+
+	public void removeAddressMapping(String user, String mapping) {
+		remove(addressMappings, user, mapping);
+	}
+
+	public Set<String> getAddressMappings(String user) {
+		return get(addressMappings, user);
+	}
+
+	Set<String> getUsersWithAddressMappings() {
+		return addressMappings.keySet();
+	}
+
+	public void setQuota(String user, long size) {
+		quotas.put(user, size);
+	}
+
+	public void removeQuota(String user) {
+		quotas.remove(user);
+	}
+
+	public Optional<Long> getQuota(String user) {
+		return Optional.ofNullable(quotas.get(user));
+	}
+
+	public void setDefaultIdentity(Identity identity) {
+		defaultIdentities.putIfAbsent(identity.getEmail(), identity);
+	}
+
+	public Optional<Identity> getDefaultIdentity(String user) {
+		return Optional.ofNullable(defaultIdentities.get(user));
+	}
+
+	public void putContact(String email, ContactNames names) {
+		contacts.put(email, names);
+	}
+
+	public boolean removeContact(String email) {
+		return contacts.remove(email) != null;
+	}
+
+	public Optional<ContactNames> getContact(String email) {
+		return Optional.ofNullable(contacts.get(email));
+	}
+
+	public Set<String> getContacts() {
+		return Collections.unmodifiableSet(contacts.keySet());
+	}
+
+	private static void add(Map<String, Set<String>> values, String user, String value) {
+		values.compute(user, (key, current) -> {
+			Set<String> updated = current == null ? new LinkedHashSet<>() : new LinkedHashSet<>(current);
+			updated.add(value);
+			return Collections.unmodifiableSet(updated);
+		});
+	}
+
+	private static void remove(Map<String, Set<String>> values, String user, String value) {
+		values.computeIfPresent(user, (key, current) -> {
+			Set<String> updated = new LinkedHashSet<>(current);
+			updated.remove(value);
+			return updated.isEmpty() ? null : Collections.unmodifiableSet(updated);
+		});
+	}
+
+	private static Set<String> get(Map<String, Set<String>> values, String user) {
+		return values.getOrDefault(user, Collections.emptySet());
+	}
+}
@@ -0,0 +1,35 @@
+package org.lsc.plugins.connectors.james.stub;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Latency added by {@link WebadminStub} to each response.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+	LatencyDistribution NONE = random -> 0;
+
+	long nextMicros(Random random);
+
+	static LatencyDistribution fixed(Duration latency) {
+		long micros = latency.toNanos() / 1000;
+		return random -> micros;
+	}
+
+	static LatencyDistribution uniform(Duration min, Duration max) {
+		long minMicros = min.toNanos() / 1000;
+		long rangeMicros = max.toNanos() / 1000 - minMicros;
+		return random -> minMicros + (long) (random.nextDouble() * rangeMicros);
+	}
+
+	/**
+	 * A long-tailed distribution, typical of a loaded server: most calls close to the median, a few much slower.
+	 *
+	 * @param sigma the standard deviation of the logarithm of the latency, 0.5 giving a p99 about 3 times the median
+	 */
+	static LatencyDistribution logNormal(Duration median, double sigma) {
+		double logMedian = Math.log(median.toNanos() / 1000.0);
+		return random -> (long) Math.exp(logMedian + sigma * random.nextGaussian());
+	}
+}
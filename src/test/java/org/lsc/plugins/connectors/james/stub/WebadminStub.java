@@ -0,0 +1,677 @@
+package org.lsc.plugins.connectors.james.stub;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.lsc.plugins.connectors.james.beans.Contact;
+import org.lsc.plugins.connectors.james.beans.ContactNames;
+import org.lsc.plugins.connectors.james.beans.Identity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process, in-memory implementation of the TMail webadmin endpoints used by
+ * {@link org.lsc.plugins.connectors.james.JamesDao}, to test and benchmark the connector without Docker.
+ *
+ * Responses can be delayed following a {@link LatencyDistribution}, and faults injected with a given probability:
+ * server errors (503), throttling (429) and connection resets, the connection being closed before any response.
+ * Delays are applied by a scheduler rather than by sleeping in the request threads, so that slow responses do not
+ * limit the number of concurrent requests. Requests are counted by method and route, e.g. {@code GET /users/{}}.
+ *
+ * Besides its loopback TCP port, the stub can serve a Unix domain socket on Java 16 and later, see
+ * {@link #serveUnixSocket(Path)}.
+ */
+public class WebadminStub implements AutoCloseable {
+	public enum Fault {
+		SERVER_ERROR,
+		THROTTLING,
+		RESET
+	}
+
+	private static final int NO_BODY = -1;
+	private static final int CHUNKED = 0;
+	private static final int DEFAULT_THREADS = 64;
+	private static final String UNIX_SOCKET_FRONT_CLASS = "org.lsc.plugins.connectors.james.stub.UnixSocketFront";
+
+	static {
+		// The headers and the body of a response are flushed separately: with Nagle's algorithm, the body would wait
+		// for the delayed acknowledgement of the headers, adding 40ms to every response on Linux
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	@FunctionalInterface
+	private interface Body {
+		void write(OutputStream output) throws IOException;
+	}
+
+	private static class Reply {
+		private final int status;
+		private final Optional<Body> body;
+
+		private Reply(int status, Optional<Body> body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * Start a stub on the given port with {@code users} seeded users, for load testing a full LSC run:
+	 * {@code WebadminStub <port> <users> <domain> [median latency in ms]}.
+	 */
+	public static void main(String[] args) throws IOException {
+		WebadminStub stub = new WebadminStub(Integer.parseInt(args[0]), Optional.empty(), DEFAULT_THREADS);
+		stub.tmail().addUsers(Integer.parseInt(args[1]), args[2]);
+		if (args.length > 3) {
+			stub.setLatency(LatencyDistribution.logNormal(Duration.ofMillis(Long.parseLong(args[3])), 0.5));
+		}
+		System.out.println("Webadmin stub listening on " + stub.getUrl());
+	}
+
+	private final InMemoryTMail tmail;
+	private final Optional<String> expectedAuthorization;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ScheduledExecutorService scheduler;
+	private final ObjectMapper mapper;
+	private final Map<String, LongAdder> requests;
+	private final Map<Fault, LongAdder> faults;
+	private volatile LatencyDistribution latency;
+	private volatile double serverErrorRate;
+	private volatile double throttlingRate;
+	private volatile double resetRate;
+
+	/**
+	 * Start a stub on a random local port, accepting any token.
+	 */
+	public WebadminStub() throws IOException {
+		this(0, Optional.empty(), DEFAULT_THREADS);
+	}
+
+	/**
+	 * @param port the port to listen to on the loopback interface, 0 for a random one
+	 * @param token the token expected in the Authorization header, any token being accepted when empty
+	 * @param threads the number of threads handling requests
+	 */
+	public WebadminStub(int port, Optional<String> token, int threads) throws IOException {
+		this.tmail = new InMemoryTMail();
+		this.expectedAuthorization = token.map(value -> "Bearer " + value);
+		this.mapper = new ObjectMapper().registerModule(new Jdk8Module());
+		this.requests = new ConcurrentHashMap<>();
+		this.faults = new EnumMap<>(Fault.class);
+		for (Fault fault : Fault.values()) {
+			faults.put(fault, new LongAdder());
+		}
+		this.latency = LatencyDistribution.NONE;
+		this.executor = Executors.newFixedThreadPool(threads,
+			new ThreadFactoryBuilder().setNameFormat("webadmin-stub-%d").setDaemon(true).build());
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("webadmin-stub-latency").setDaemon(true).build());
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public InMemoryTMail tmail() {
+		return tmail;
+	}
+
+	public String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * Serves the webadmin endpoints on a Unix domain socket too, until the returned front is closed.
+	 *
+	 * @return the front of the socket, or empty when this runtime does not support Unix domain sockets
+	 */
+	public Optional<Closeable> serveUnixSocket(Path socket) throws IOException {
+		Class<? extends Closeable> frontClass;
+		try {
+			frontClass = Class.forName(UNIX_SOCKET_FRONT_CLASS).asSubclass(Closeable.class);
+		} catch (ClassNotFoundException | LinkageError e) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(frontClass.getDeclaredConstructor(WebadminStub.class, Path.class).newInstance(this, socket));
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public void setLatency(LatencyDistribution latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * Set the probability of each fault, between 0 and 1. Faults are drawn before the request is processed, so a
+	 * failed write leaves the state unchanged.
+	 */
+	public void setFaultRates(double serverErrorRate, double throttlingRate, double resetRate) {
+		this.serverErrorRate = serverErrorRate;
+		this.throttlingRate = throttlingRate;
+		this.resetRate = resetRate;
+	}
+
+	/**
+	 * @return the number of requests received so far for a method and route, e.g. {@code ("GET", "/users")}
+	 */
+	public long getRequestCount(String method, String route) {
+		LongAdder count = requests.get(method + " " + route);
+		return count == null ? 0 : count.sum();
+	}
+
+	public long getRequestCount() {
+		return requests.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	/**
+	 * @return the request count of each method and route
+	 */
+	public Map<String, Long> getRequestCounts() {
+		return requests.entrySet().stream()
+			.collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+	}
+
+	public long getFaultCount(Fault fault) {
+		return faults.get(fault).sum();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		scheduler.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	void handle(HttpExchange exchange) throws IOException {
+		List<String> segments = segments(exchange);
+		String method = exchange.getRequestMethod();
+		requests.computeIfAbsent(method + " " + route(segments), key -> new LongAdder()).increment();
+		byte[] requestBody;
+		try (InputStream body = exchange.getRequestBody()) {
+			requestBody = ByteStreams.toByteArray(body);
+		}
+
+		Optional<Fault> fault = drawFault();
+		if (fault.isPresent() && fault.get() == Fault.RESET) {
+			faults.get(Fault.RESET).increment();
+			exchange.close();
+			return;
+		}
+		Reply reply;
+		if (fault.isPresent()) {
+			faults.get(fault.get()).increment();
+			reply = fault.get() == Fault.THROTTLING
+				? error(429, "Too many requests")
+				: error(503, "Injected server error");
+			if (fault.get() == Fault.THROTTLING) {
+				exchange.getResponseHeaders().add("Retry-After", "1");
+			}
+		} else if (expectedAuthorization.isPresent()
+			&& !expectedAuthorization.get().equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+			reply = error(401, "Invalid token");
+		} else {
+			try {
+				reply = route(method, segments, exchange.getRequestURI().getRawQuery(), requestBody);
+			} catch (RuntimeException e) {
+				reply = error(400, e.getMessage());
+			}
+		}
+
+		long delayMicros = latency.nextMicros(ThreadLocalRandom.current());
+		Reply toSend = reply;
+		if (delayMicros > 0) {
+			scheduler.schedule(() -> sendQuietly(exchange, toSend), delayMicros, TimeUnit.MICROSECONDS);
+		} else {
+			send(exchange, reply);
+		}
+	}
+
+	private Optional<Fault> drawFault() {
+		double draw = ThreadLocalRandom.current().nextDouble();
+		if (draw < resetRate) {
+			return Optional.of(Fault.RESET);
+		}
+		if (draw < resetRate + throttlingRate) {
+			return Optional.of(Fault.THROTTLING);
+		}
+		if (draw < resetRate + throttlingRate + serverErrorRate) {
+			return Optional.of(Fault.SERVER_ERROR);
+		}
+		return Optional.empty();
+	}
+
+	private Reply route(String method, List<String> segments, String query, byte[] body) {
+		String root = segments.isEmpty() ? "" : segments.get(0);
+		switch (root) {
+			case "users":
+				return users(method, segments, query, body);
+			case "address":
+				if (segments.size() >= 2 && segments.get(1).equals("aliases")) {
+					return aliases(method, segments);
+				}
+				if (segments.size() >= 2 && segments.get(1).equals("forwards")) {
+					return forwards(method, segments);
+				}
+				return notFound();
+			case "quota":
+				return quotas(method, segments, query, body);
+			case "mappings":
+				return mappings(method, segments);
+			case "domains":
+				return contacts(method, segments, body);
+			default:
+				return notFound();
+		}
+	}
+
+	// GET /users, PUT|DELETE|HEAD /users/{user}, GET|POST /users/{user}/identities
+	private Reply users(String method, List<String> segments, String query, byte[] body) {
+		if (segments.size() == 1 && method.equals("GET")) {
+			return json(generator -> {
+				generator.writeStartArray();
+				for (String user : tmail.getUsers()) {
+					generator.writeStartObject();
+					generator.writeStringField("username", user);
+					generator.writeEndObject();
+				}
+				generator.writeEndArray();
+			});
+		}
+		if (segments.size() == 2) {
+			String user = segments.get(1);
+			switch (method) {
+				case "PUT":
+					tmail.addUser(user, readTree(body).path("password").asText());
+					return noContent();
+				case "DELETE":
+					tmail.removeUser(user);
+					return noContent();
+				case "HEAD":
+					return tmail.hasUser(user) ? new Reply(200, Optional.empty()) : new Reply(404, Optional.empty());
+				default:
+					return notFound();
+			}
+		}
+		if (segments.size() == 3 && segments.get(2).equals("identities")) {
+			String user = segments.get(1);
+			if (!tmail.hasUser(user)) {
+				return error(404, "User " + user + " does not exist");
+			}
+			if (method.equals("GET")) {
+				return json(tmail.getDefaultIdentity(user).map(ImmutableList::of).orElse(ImmutableList.of()));
+			}
+			if (method.equals("POST")) {
+				JsonNode identity = readTree(body);
+				tmail.setDefaultIdentity(new Identity(user, identity.path("name").asText(), identity.path("sortOrder").asInt()));
+				return new Reply(201, Optional.empty());
+			}
+		}
+		return notFound();
+	}
+
+	// GET /address/aliases, GET /address/aliases/{user}, PUT|DELETE /address/aliases/{user}/sources/{source}
+	private Reply aliases(String method, List<String> segments) {
+		if (segments.size() == 2 && method.equals("GET")) {
+			return json(new ArrayList<>(tmail.getUsersWithAliases()));
+		}
+		if (segments.size() == 3 && method.equals("GET")) {
+			return json(tmail.getAliases(segments.get(2)).stream()
+				.map(source -> ImmutableMap.of("source", source))
+				.collect(Collectors.toList()));
+		}
+		if (segments.size() == 5 && segments.get(3).equals("sources")) {
+			if (method.equals("PUT")) {
+				tmail.addAlias(segments.get(2), segments.get(4));
+				return noContent();
+			}
+			if (method.equals("DELETE")) {
+				tmail.removeAlias(segments.get(2), segments.get(4));
+				return noContent();
+			}
+		}
+		return notFound();
+	}
+
+	// GET /address/forwards, GET /address/forwards/{user}, PUT|DELETE /address/forwards/{user}/targets/{target}
+	private Reply forwards(String method, List<String> segments) {
+		if (segments.size() == 2 && method.equals("GET")) {
+			return json(new ArrayList<>(tmail.getUsersWithForwards()));
+		}
+		if (segments.size() == 3 && method.equals("GET")) {
+			Collection<String> forwards = tmail.getForwards(segments.get(2));
+			if (forwards.isEmpty()) {
+				return error(404, "The group " + segments.get(2) + " does not exist");
+			}
+			return json(forwards.stream()
+				.map(target -> ImmutableMap.of("mailAddress", target))
+				.collect(Collectors.toList()));
+		}
+		if (segments.size() == 5 && segments.get(3).equals("targets")) {
+			if (method.equals("PUT")) {
+				tmail.addForward(segments.get(2), segments.get(4));
+				return noContent();
+			}
+			if (method.equals("DELETE")) {
+				tmail.removeForward(segments.get(2), segments.get(4));
+				return noContent();
+			}
+		}
+		return notFound();
+	}
+
+	// GET /quota/users?offset=&limit=, GET|PUT|DELETE /quota/users/{user}/size
+	private Reply quotas(String method, List<String> segments, String query, byte[] body) {
+		if (segments.size() == 2 && segments.get(1).equals("users") && method.equals("GET")) {
+			return quotaListing(query);
+		}
+		if (segments.size() != 4 || !segments.get(1).equals("users") || !segments.get(3).equals("size")) {
+			return notFound();
+		}
+		String user = segments.get(2);
+		if (!tmail.hasUser(user)) {
+			return error(404, "User " + user + " does not exist");
+		}
+		switch (method) {
+			case "GET":
+				return tmail.getQuota(user)
+					.map(size -> json(size))
+					.orElse(noContent());
+			case "PUT":
+				tmail.setQuota(user, Long.parseLong(new String(body, StandardCharsets.UTF_8).trim()));
+				return noContent();
+			case "DELETE":
+				tmail.removeQuota(user);
+				return noContent();
+			default:
+				return notFound();
+		}
+	}
+
+	// Paginated like the quota search, only the user scope of the details is served
+	private Reply quotaListing(String query) {
+		Map<String, String> parameters = parameters(query);
+		int offset = Integer.parseInt(parameters.getOrDefault("offset", "0"));
+		int limit = Integer.parseInt(parameters.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE)));
+		List<String> page = tmail.getUsers().stream()
+			.skip(offset)
+			.limit(limit)
+			.collect(Collectors.toList());
+		return json(generator -> {
+			generator.writeStartArray();
+			for (String user : page) {
+				generator.writeStartObject();
+				generator.writeStringField("username", user);
+				generator.writeObjectFieldStart("detail");
+				generator.writeObjectFieldStart("user");
+				Optional<Long> size = tmail.getQuota(user);
+				if (size.isPresent()) {
+					generator.writeNumberField("size", size.get());
+				}
+				generator.writeEndObject();
+				generator.writeEndObject();
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+		});
+	}
+
+	private static Map<String, String> parameters(String query) {
+		Map<String, String> parameters = new HashMap<>();
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				int separator = parameter.indexOf('=');
+				if (separator > 0) {
+					parameters.put(decode(parameter.substring(0, separator)), decode(parameter.substring(separator + 1)));
+				}
+			}
+		}
+		return parameters;
+	}
+
+	// GET /mappings, GET /mappings/user/{user}, POST|DELETE /mappings/address/{user}/targets/{mapping}
+	private Reply mappings(String method, List<String> segments) {
+		if (segments.size() == 1 && method.equals("GET")) {
+			return json(allMappings());
+		}
+		if (segments.size() == 3 && segments.get(1).equals("user") && method.equals("GET")) {
+			return json(tmail.getAddressMappings(segments.get(2)).stream()
+				.map(mapping -> ImmutableMap.of("type", "Address", "mapping", mapping))
+				.collect(Collectors.toList()));
+		}
+		if (segments.size() == 5 && segments.get(1).equals("address") && segments.get(3).equals("targets")) {
+			if (method.equals("POST")) {
+				tmail.addAddressMapping(segments.get(2), segments.get(4));
+				return noContent();
+			}
+			if (method.equals("DELETE")) {
+				tmail.removeAddressMapping(segments.get(2), segments.get(4));
+				return noContent();
+			}
+		}
+		return notFound();
+	}
+
+	// Keyed by source, like the recipient rewrite table: an alias is listed under its source, mapped to its user
+	private Map<String, List<Map<String, String>>> allMappings() {
+		Map<String, List<Map<String, String>>> mappings = new TreeMap<>();
+		for (String user : tmail.getUsersWithAliases()) {
+			for (String source : tmail.getAliases(user)) {
+				mappings.computeIfAbsent(source, key -> new ArrayList<>()).add(ImmutableMap.of("type", "Alias", "mapping", user));
+			}
+		}
+		for (String user : tmail.getUsersWithForwards()) {
+			for (String target : tmail.getForwards(user)) {
+				mappings.computeIfAbsent(user, key -> new ArrayList<>()).add(ImmutableMap.of("type", "Forward", "mapping", target));
+			}
+		}
+		for (String user : tmail.getUsersWithAddressMappings()) {
+			for (String mapping : tmail.getAddressMappings(user)) {
+				mappings.computeIfAbsent(user, key -> new ArrayList<>()).add(ImmutableMap.of("type", "Address", "mapping", mapping));
+			}
+		}
+		return mappings;
+	}
+
+	// GET /domains/contacts/all, GET|POST /domains/{domain}/contacts, GET|PUT|DELETE /domains/{domain}/contacts/{local}
+	private Reply contacts(String method, List<String> segments, byte[] body) {
+		if (segments.size() == 3 && segments.get(1).equals("contacts") && segments.get(2).equals("all") && method.equals("GET")) {
+			return json(new ArrayList<>(tmail.getContacts()));
+		}
+		if (segments.size() < 3 || !segments.get(2).equals("contacts")) {
+			return notFound();
+		}
+		String domain = segments.get(1);
+		if (segments.size() == 3) {
+			if (method.equals("GET")) {
+				return json(tmail.getContacts().stream()
+					.filter(email -> Contact.extractDomainFromEmail(email).equals(domain))
+					.collect(Collectors.toList()));
+			}
+			if (method.equals("POST")) {
+				Contact contact = readValue(body, Contact.class);
+				tmail.putContact(contact.getEmailAddress(), contact.getContactNames());
+				return new Reply(201, Optional.empty());
+			}
+			return notFound();
+		}
+		String email = segments.get(3) + "@" + domain;
+		switch (method) {
+			case "GET":
+				return tmail.getContact(email)
+					.map(names -> json(new Contact(email, names.getFirstname(), names.getSurname())))
+					.orElse(error(404, "Contact " + email + " does not exist"));
+			case "PUT":
+				JsonNode names = readTree(body);
+				tmail.putContact(email, new ContactNames(text(names, "firstname"), text(names, "surname")));
+				return noContent();
+			case "DELETE":
+				tmail.removeContact(email);
+				return noContent();
+			default:
+				return notFound();
+		}
+	}
+
+	private static Optional<String> text(JsonNode node, String field) {
+		return Optional.ofNullable(node.get(field))
+			.filter(value -> !value.isNull())
+			.map(JsonNode::asText);
+	}
+
+	@FunctionalInterface
+	private interface JsonWriter {
+		void write(JsonGenerator generator) throws IOException;
+	}
+
+	private Reply json(JsonWriter writer) {
+		return new Reply(200, Optional.of(output -> {
+			try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+				writer.write(generator);
+			}
+		}));
+	}
+
+	private Reply json(Object value) {
+		return json(generator -> mapper.writeValue(generator, value));
+	}
+
+	private static Reply noContent() {
+		return new Reply(204, Optional.empty());
+	}
+
+	private Reply notFound() {
+		return error(404, "Not found");
+	}
+
+	private Reply error(int status, String message) {
+		Reply reply = json(ImmutableMap.of("statusCode", status, "message", String.valueOf(message)));
+		return new Reply(status, reply.body);
+	}
+
+	private JsonNode readTree(byte[] body) {
+		try {
+			return mapper.readTree(body);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid JSON body", e);
+		}
+	}
+
+	private <T> T readValue(byte[] body, Class<T> type) {
+		try {
+			return mapper.readValue(body, type);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid JSON body", e);
+		}
+	}
+
+	private void sendQuietly(HttpExchange exchange, Reply reply) {
+		try {
+			send(exchange, reply);
+		} catch (IOException e) {
+			exchange.close();
+		}
+	}
+
+	private static void send(HttpExchange exchange, Reply reply) throws IOException {
+		if (!reply.body.isPresent() || exchange.getRequestMethod().equals("HEAD")) {
+			exchange.sendResponseHeaders(reply.status, NO_BODY);
+			exchange.close();
+			return;
+		}
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(reply.status, CHUNKED);
+		try (OutputStream output = exchange.getResponseBody()) {
+			reply.body.get().write(output);
+		}
+	}
+
+	private static List<String> segments(HttpExchange exchange) {
+		List<String> segments = new ArrayList<>();
+		for (String segment : exchange.getRequestURI().getRawPath().split("/")) {
+			if (!segment.isEmpty()) {
+				segments.add(decode(segment));
+			}
+		}
+		return segments;
+	}
+
+	private static String decode(String segment) {
+		try {
+			return URLDecoder.decode(segment, StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the route of a request, with the user, domain and value segments replaced by placeholders
+	 */
+	static String route(List<String> segments) {
+		StringBuilder route = new StringBuilder();
+		for (int i = 0; i < segments.size(); i++) {
+			route.append('/').append(isVariable(segments, i) ? "{}" : segments.get(i));
+		}
+		return route.length() == 0 ? "/" : route.toString();
+	}
+
+	private static boolean isVariable(List<String> segments, int index) {
+		String root = segments.get(0);
+		switch (root) {
+			case "users":
+				return index == 1;
+			case "address":
+				return index == 2 || index == 4;
+			case "quota":
+				return index == 2;
+			case "mappings":
+				return index == 2 || index == 4;
+			case "domains":
+				return (index == 1 && !segments.get(1).equals("contacts")) || index == 3;
+			default:
+				return false;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package org.lsc.plugins.connectors.james.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import javax.ws.rs.ProcessingException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.configuration.TaskType;
+import org.lsc.plugins.connectors.james.JamesDao;
+import org.lsc.plugins.connectors.james.beans.AddressMapping;
+import org.lsc.plugins.connectors.james.beans.Alias;
+import org.lsc.plugins.connectors.james.beans.Contact;
+import org.lsc.plugins.connectors.james.beans.Forward;
+import org.lsc.plugins.connectors.james.beans.Identity;
+import org.lsc.plugins.connectors.james.beans.QuotaSize;
+import org.lsc.plugins.connectors.james.beans.User;
+
+import com.google.common.collect.ImmutableList;
+
+class WebadminStubTest {
+	private static final User BOB = new User("bob@james.org");
+
+	private WebadminStub stub;
+	private JamesDao dao;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = new WebadminStub(0, Optional.of("token"), 8);
+		dao = new JamesDao(stub.getUrl(), "token", mock(TaskType.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		stub.close();
+	}
+
+	@Test
+	void usersShouldBeCreatedListedAndRemoved() {
+		assertThat(dao.addUser(BOB, "secret")).isTrue();
+		stub.tmail().addUsers(2, "james.org");
+
+		assertThat(dao.userExists(BOB.email)).isTrue();
+		assertThat(dao.getUserList()).extracting(user -> user.email)
+			.containsExactly("bob@james.org", "user0@james.org", "user1@james.org");
+
+		assertThat(dao.removeUser(BOB)).isTrue();
+		assertThat(dao.userExists(BOB.email)).isFalse();
+	}
+
+	@Test
+	void aliasesShouldBeUpdatedWithTheirDiff() {
+		stub.tmail().addAlias(BOB.email, "old@james.org");
+		stub.tmail().addAlias(BOB.email, "kept@james.org");
+
+		assertThat(dao.updateAliases(BOB, ImmutableList.of(new Alias("kept@james.org"), new Alias("new@james.org")))).isTrue();
+
+		assertThat(stub.tmail().getAliases(BOB.email)).containsExactlyInAnyOrder("kept@james.org", "new@james.org");
+		assertThat(dao.getUsersListViaAlias()).extracting(user -> user.email).containsExactly(BOB.email);
+		assertThat(stub.getRequestCount("PUT", "/address/aliases/{}/sources/{}")).isEqualTo(1);
+		assertThat(stub.getRequestCount("DELETE", "/address/aliases/{}/sources/{}")).isEqualTo(1);
+	}
+
+	@Test
+	void forwardsQuotasAndAddressMappingsShouldBeStored() {
+		stub.tmail().addUser(BOB.email, "secret");
+
+		assertThat(dao.createForwards(BOB, ImmutableList.of(new Forward("alice@james.org")))).isTrue();
+		assertThat(dao.setQuotaSize(BOB, new QuotaSize(1000))).isTrue();
+		assertThat(dao.updateAddressMappings(BOB, ImmutableList.of(new AddressMapping("bob@other.org")))).isTrue();
+
+		assertThat(dao.getForwards(BOB.email)).containsExactly(new Forward("alice@james.org"));
+		assertThat(dao.getQuotaSize(BOB.email)).contains(new QuotaSize(1000));
+		assertThat(stub.tmail().getAddressMappings(BOB.email)).containsExactly("bob@other.org");
+	}
+
+	@Test
+	void identitiesAndContactsShouldBeStored() throws Exception {
+		stub.tmail().addUser(BOB.email, "secret");
+		Contact alice = new Contact("alice@james.org", Optional.of("Alice"), Optional.empty());
+
+		assertThat(dao.createDefaultIdentity(new Identity(BOB.email, "Bob", 0))).isTrue();
+		assertThat(dao.addDomainContact(alice)).isTrue();
+
+		assertThat(dao.getDefaultIdentity(BOB.email).getName()).isEqualTo("Bob");
+		assertThat(dao.getContact("alice@james.org")).isEqualTo(alice);
+		assertThat(dao.getAllDomainsContacts()).extracting(user -> user.email).containsExactly("alice@james.org");
+	}
+
+	@Test
+	void absentEntriesShouldBeFoundEmpty() throws Exception {
+		stub.tmail().addUser(BOB.email, "secret");
+
+		assertThat(dao.findAliases(BOB.email)).isEmpty();
+		assertThat(dao.findForwards(BOB.email)).isEmpty();
+		assertThat(dao.findQuotaSize(BOB.email)).isEmpty();
+		assertThat(dao.findQuotaSize("unknown@james.org")).isEmpty();
+		assertThat(dao.findDefaultIdentity(BOB.email)).isEmpty();
+		assertThat(dao.findDefaultIdentity("unknown@james.org")).isEmpty();
+		assertThat(dao.findContact("unknown@james.org")).isEmpty();
+	}
+
+	@Test
+	void requestsWithAnotherTokenShouldBeRejected() {
+		JamesDao intruder = new JamesDao(stub.getUrl(), "forged", mock(TaskType.class));
+
+		assertThat(intruder.addUser(BOB, "secret")).isFalse();
+		assertThat(stub.tmail().hasUser(BOB.email)).isFalse();
+	}
+
+	@Test
+	void injectedServerErrorsShouldFailWritesWithoutSideEffects() {
+		stub.setFaultRates(1, 0, 0);
+
+		assertThat(dao.addUser(BOB, "secret")).isFalse();
+
+		assertThat(stub.tmail().hasUser(BOB.email)).isFalse();
+		assertThat(stub.getFaultCount(WebadminStub.Fault.SERVER_ERROR)).isEqualTo(1);
+	}
+
+	@Test
+	void injectedThrottlingShouldFailWrites() {
+		stub.setFaultRates(0, 1, 0);
+
+		assertThat(dao.addUser(BOB, "secret")).isFalse();
+
+		assertThat(stub.getFaultCount(WebadminStub.Fault.THROTTLING)).isEqualTo(1);
+	}
+
+	@Test
+	void injectedResetsShouldSurfaceAsProcessingExceptions() {
+		stub.setFaultRates(0, 0, 1);
+
+		assertThatThrownBy(() -> dao.getUserList()).isInstanceOf(ProcessingException.class);
+		// HttpURLConnection silently retries a GET once when the connection is closed
+		assertThat(stub.getFaultCount(WebadminStub.Fault.RESET)).isEqualTo(stub.getRequestCount("GET", "/users")).isPositive();
+	}
+
+	@Test
+	void latencyShouldDelayResponses() {
+		stub.setLatency(LatencyDistribution.fixed(Duration.ofMillis(200)));
+
+		long start = System.nanoTime();
+		dao.getUserList();
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+	}
+
+	@Test
+	void routesShouldHidePathVariables() {
+		assertThat(WebadminStub.route(ImmutableList.of("users", "bob@james.org", "identities"))).isEqualTo("/users/{}/identities");
+		assertThat(WebadminStub.route(ImmutableList.of("domains", "contacts", "all"))).isEqualTo("/domains/contacts/all");
+		assertThat(WebadminStub.route(ImmutableList.of("domains", "james.org", "contacts", "alice"))).isEqualTo("/domains/{}/contacts/{}");
+	}
+}
@@ -0,0 +1,49 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class FileSpanExporterTest {
+	private Path file;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		file = Files.createTempFile("spans", ".ndjson");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	void spansShouldBeWrittenOnePerLine() throws Exception {
+		FileSpanExporter testee = new FileSpanExporter(file);
+		Tracer tracer = new Tracer(testee, 1);
+
+		try (Span getBean = tracer.startSpan("getBean").setAttribute("pivot", "bob@james.org")) {
+			tracer.startLeafSpan("GET users").setError("Service Unavailable").close();
+		}
+		testee.close();
+
+		List<String> lines = Files.readAllLines(file);
+		assertThat(lines).hasSize(2);
+		JsonNode call = new ObjectMapper().readTree(lines.get(0));
+		JsonNode getBean = new ObjectMapper().readTree(lines.get(1));
+		assertThat(call.get("parentSpanId").asText()).isEqualTo(getBean.get("spanId").asText());
+		assertThat(call.get("status").get("code").asText()).isEqualTo("ERROR");
+		assertThat(getBean.has("parentSpanId")).isFalse();
+		assertThat(getBean.get("attributes").get("pivot").asText()).isEqualTo("bob@james.org");
+		assertThat(getBean.get("endTimeUnixNano").asLong()).isGreaterThanOrEqualTo(getBean.get("startTimeUnixNano").asLong());
+	}
+}
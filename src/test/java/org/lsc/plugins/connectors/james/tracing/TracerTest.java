@@ -0,0 +1,82 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TracerTest {
+	private final InMemorySpanExporter exporter = new InMemorySpanExporter();
+
+	@Test
+	void spansStartedWithinASpanShouldBeItsChildren() {
+		Tracer testee = new Tracer(exporter, 1);
+
+		try (Span getBean = testee.startSpan("getBean")) {
+			testee.startLeafSpan("GET users").close();
+			testee.startSpan("apply").close();
+		}
+
+		assertThat(exporter.getSpans()).extracting(Span::getName).containsExactly("GET users", "apply", "getBean");
+		Span root = exporter.getSpans().get(2);
+		assertThat(root.getParentSpanId()).isEmpty();
+		assertThat(exporter.getSpans().subList(0, 2)).allSatisfy(child -> {
+			assertThat(child.getTraceId()).isEqualTo(root.getTraceId());
+			assertThat(child.getParentSpanId()).contains(root.getSpanId());
+		});
+		assertThat(testee.current()).isEmpty();
+	}
+
+	@Test
+	void traceparentShouldFollowTheW3cFormat() {
+		Tracer testee = new Tracer(exporter, 1);
+
+		try (Span span = testee.startSpan("getBean")) {
+			assertThat(span.traceparent()).hasValueSatisfying(traceparent ->
+				assertThat(traceparent).matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01"));
+		}
+	}
+
+	@Test
+	void unsampledTracesShouldNotBeExported() {
+		Tracer testee = new Tracer(exporter, 0);
+
+		try (Span getBean = testee.startSpan("getBean")) {
+			testee.startLeafSpan("GET users").close();
+			try (Span apply = testee.startSpan("apply")) {
+				assertThat(apply.isRecording()).isFalse();
+			}
+		}
+
+		assertThat(exporter.getSpans()).isEmpty();
+		assertThat(testee.current()).isEmpty();
+	}
+
+	@Test
+	void leafSpansShouldBeIgnoredOutsideOfATrace() {
+		Tracer testee = new Tracer(exporter, 1);
+
+		testee.startLeafSpan("GET users").close();
+
+		assertThat(exporter.getSpans()).isEmpty();
+	}
+
+	@Test
+	void openLeafSpansShouldBeClosedWithTheirParent() {
+		Tracer testee = new Tracer(exporter, 1);
+
+		try (Span getBean = testee.startSpan("getBean")) {
+			testee.startLeafSpan("GET users");
+		}
+
+		assertThat(exporter.getSpans()).extracting(Span::getName).containsExactly("GET users", "getBean");
+		assertThat(exporter.getSpans().get(0).getError()).contains(Span.NO_RESPONSE);
+	}
+
+	@Test
+	void disabledTracerShouldNotTrackSpans() {
+		try (Span span = Tracer.DISABLED.startSpan("getBean")) {
+			assertThat(span.isRecording()).isFalse();
+			assertThat(Tracer.DISABLED.current()).isEmpty();
+		}
+	}
+}
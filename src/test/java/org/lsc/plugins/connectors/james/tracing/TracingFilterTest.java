@@ -0,0 +1,73 @@
+package org.lsc.plugins.connectors.james.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lsc.plugins.connectors.james.metrics.Endpoint;
+
+import com.sun.net.httpserver.HttpServer;
+
+class TracingFilterTest {
+	private final InMemorySpanExporter exporter = new InMemorySpanExporter();
+	private final AtomicReference<String> receivedTraceparent = new AtomicReference<>();
+	private HttpServer server;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/users", exchange -> {
+			receivedTraceparent.set(exchange.getRequestHeaders().getFirst(TracingFilter.TRACEPARENT_HEADER));
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	private Client client(Tracer tracer) {
+		return ClientBuilder.newClient().register(new TracingFilter(Endpoint.USERS, tracer));
+	}
+
+	private String url() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/users/bob@james.org";
+	}
+
+	@Test
+	void webadminCallsShouldBeTracedAndPropagated() {
+		Tracer tracer = new Tracer(exporter, 1);
+
+		try (Span getBean = tracer.startSpan("getBean")) {
+			client(tracer).target(url()).request().head().close();
+		}
+
+		Span call = exporter.getSpans().get(0);
+		assertThat(call.getName()).isEqualTo("HEAD users");
+		assertThat(call.getAttributes())
+			.containsEntry("endpoint", "users")
+			.containsEntry("http.target", "/users/bob@james.org")
+			.containsEntry("http.status_code", 404);
+		assertThat(receivedTraceparent.get()).isEqualTo("00-" + call.getTraceId() + "-" + call.getSpanId() + "-01");
+	}
+
+	@Test
+	void callsOutsideOfATraceShouldNotBePropagated() {
+		Tracer tracer = new Tracer(exporter, 1);
+
+		client(tracer).target(url()).request().head().close();
+
+		assertThat(receivedTraceparent.get()).isNull();
+		assertThat(exporter.getSpans()).isEmpty();
+	}
+}
@@ -0,0 +1,61 @@
+package org.lsc.plugins.connectors.james.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class RequestStreamTest {
+	@Test
+	void submitShouldBlockWhileTheWindowIsFull() throws Exception {
+		RequestStream testee = new RequestStream(2);
+		CompletableFuture<Boolean> first = new CompletableFuture<>();
+		CompletableFuture<Boolean> second = new CompletableFuture<>();
+		testee.submit(() -> first);
+		testee.submit(() -> second);
+		CountDownLatch thirdStarted = new CountDownLatch(1);
+
+		Thread submitter = new Thread(() -> {
+			try {
+				testee.submit(() -> {
+					thirdStarted.countDown();
+					return CompletableFuture.completedFuture(true);
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		submitter.start();
+
+		assertThat(thirdStarted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		assertThat(testee.getInFlight()).isEqualTo(2);
+		first.complete(true);
+		assertThat(thirdStarted.await(10, TimeUnit.SECONDS)).isTrue();
+		submitter.join();
+		second.completeExceptionally(new IllegalStateException("webadmin is down"));
+		testee.awaitCompletion();
+		assertThat(testee.getInFlight()).isZero();
+	}
+
+	@Test
+	void callsFailingToStartShouldLeaveTheWindow() throws Exception {
+		RequestStream testee = new RequestStream(1);
+
+		assertThatThrownBy(() -> testee.submit(() -> {
+			throw new IllegalStateException("no entity");
+		})).isInstanceOf(IllegalStateException.class);
+		assertThat(testee.getInFlight()).isZero();
+		assertThat(testee.submit(() -> CompletableFuture.completedFuture(true)).get()).isTrue();
+	}
+
+	@Test
+	void windowShouldBePositive() {
+		assertThatThrownBy(() -> new RequestStream(0))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining(RequestStream.MAX_IN_FLIGHT_PROPERTY);
+	}
+}
@@ -0,0 +1,229 @@
+package org.lsc.plugins.connectors.james.stub;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+/**
+ * An HTTP/1.1 exchange read from a Unix domain socket, handed to {@link WebadminStub} as if its HTTP server had read
+ * it. The response is buffered, then written at once when its body is closed, chunked when the stub asks for it.
+ */
+class UnixSocketExchange extends HttpExchange {
+	private final String method;
+	private final URI uri;
+	private final Headers requestHeaders;
+	private final InputStream requestBody;
+	private final Headers responseHeaders;
+	private final ByteArrayOutputStream responseBody;
+	private final OutputStream output;
+	private final Map<String, Object> attributes;
+	private final CountDownLatch completion;
+	private volatile int responseCode;
+	private volatile boolean chunked;
+	private volatile boolean responded;
+
+	/**
+	 * @return the next request of the connection, or empty when the client closed it
+	 */
+	static Optional<UnixSocketExchange> read(InputStream input, OutputStream output) throws IOException {
+		Optional<String> requestLine = readLine(input);
+		if (!requestLine.isPresent()) {
+			return Optional.empty();
+		}
+		String[] parts = requestLine.get().split(" ");
+		if (parts.length != 3) {
+			throw new IOException("Invalid request line: " + requestLine.get());
+		}
+		Headers headers = new Headers();
+		for (String line = readLine(input).orElse(""); !line.isEmpty(); line = readLine(input).orElse("")) {
+			int colon = line.indexOf(':');
+			headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+		}
+		int contentLength = Optional.ofNullable(headers.getFirst("Content-Length")).map(Integer::parseInt).orElse(0);
+		byte[] body = input.readNBytes(contentLength);
+		if (body.length < contentLength) {
+			throw new EOFException("Truncated request body");
+		}
+		return Optional.of(new UnixSocketExchange(parts[0], URI.create(parts[1]), headers, body, output));
+	}
+
+	private static Optional<String> readLine(InputStream input) throws IOException {
+		StringBuilder line = new StringBuilder();
+		for (int current = input.read(); current >= 0; current = input.read()) {
+			if (current == '\n') {
+				int length = line.length();
+				return Optional.of(length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString());
+			}
+			line.append((char) current);
+		}
+		return Optional.empty();
+	}
+
+	private UnixSocketExchange(String method, URI uri, Headers requestHeaders, byte[] requestBody, OutputStream output) {
+		this.method = method;
+		this.uri = uri;
+		this.requestHeaders = requestHeaders;
+		this.requestBody = new ByteArrayInputStream(requestBody);
+		this.responseHeaders = new Headers();
+		this.responseBody = new ByteArrayOutputStream();
+		this.output = output;
+		this.attributes = new HashMap<>();
+		this.completion = new CountDownLatch(1);
+		this.responseCode = -1;
+	}
+
+	/**
+	 * @return true when the response was written, false when the stub closed the exchange without responding
+	 */
+	boolean awaitResponse() throws InterruptedException {
+		completion.await();
+		return responded;
+	}
+
+	@Override
+	public Headers getRequestHeaders() {
+		return requestHeaders;
+	}
+
+	@Override
+	public Headers getResponseHeaders() {
+		return responseHeaders;
+	}
+
+	@Override
+	public URI getRequestURI() {
+		return uri;
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return method;
+	}
+
+	@Override
+	public HttpContext getHttpContext() {
+		return null;
+	}
+
+	@Override
+	public void close() {
+		if (responseCode >= 0 && !responded) {
+			try {
+				writeResponse();
+			} catch (IOException e) {
+				// The connection is closed
+			}
+		}
+		completion.countDown();
+	}
+
+	@Override
+	public InputStream getRequestBody() {
+		return requestBody;
+	}
+
+	@Override
+	public OutputStream getResponseBody() {
+		return new OutputStream() {
+			@Override
+			public void write(int b) {
+				responseBody.write(b);
+			}
+
+			@Override
+			public void write(byte[] bytes, int offset, int length) {
+				responseBody.write(bytes, offset, length);
+			}
+
+			@Override
+			public void close() {
+				UnixSocketExchange.this.close();
+			}
+		};
+	}
+
+	@Override
+	public void sendResponseHeaders(int responseCode, long responseLength) {
+		this.responseCode = responseCode;
+		this.chunked = responseLength == 0;
+	}
+
+	private void writeResponse() throws IOException {
+		StringBuilder head = new StringBuilder("HTTP/1.1 ").append(responseCode).append(" Stub\r\n");
+		for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+			header.getValue().forEach(value -> head.append(header.getKey()).append(": ").append(value).append("\r\n"));
+		}
+		byte[] body = responseBody.toByteArray();
+		if (chunked) {
+			head.append("Transfer-Encoding: chunked\r\n\r\n");
+			if (body.length > 0) {
+				head.append(Integer.toHexString(body.length)).append("\r\n");
+			}
+		} else {
+			head.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+		}
+		output.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+		output.write(body);
+		if (chunked) {
+			output.write((body.length > 0 ? "\r\n0\r\n\r\n" : "0\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+		}
+		output.flush();
+		responded = true;
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return null;
+	}
+
+	@Override
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return null;
+	}
+
+	@Override
+	public String getProtocol() {
+		return "HTTP/1.1";
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		attributes.put(name, value);
+	}
+
+	@Override
+	public void setStreams(InputStream input, OutputStream output) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public HttpPrincipal getPrincipal() {
+		return null;
+	}
+}
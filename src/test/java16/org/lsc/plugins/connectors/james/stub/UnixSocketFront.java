@@ -0,0 +1,84 @@
+package org.lsc.plugins.connectors.james.stub;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Serves the endpoints of a {@link WebadminStub} as HTTP/1.1 over a Unix domain socket, one thread per connection.
+ * Loaded by name by {@link WebadminStub#serveUnixSocket(Path)}, as Unix domain sockets require Java 16.
+ */
+class UnixSocketFront implements Closeable {
+	private final WebadminStub stub;
+	private final Path socket;
+	private final ServerSocketChannel server;
+	private final ExecutorService connections;
+
+	UnixSocketFront(WebadminStub stub, Path socket) throws IOException {
+		this.stub = stub;
+		this.socket = socket;
+		this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		server.bind(UnixDomainSocketAddress.of(socket));
+		this.connections = Executors.newCachedThreadPool(
+			new ThreadFactoryBuilder().setNameFormat("webadmin-stub-unix-%d").setDaemon(true).build());
+		connections.execute(this::accept);
+	}
+
+	private void accept() {
+		try {
+			while (true) {
+				SocketChannel connection = server.accept();
+				connections.execute(() -> serve(connection));
+			}
+		} catch (AsynchronousCloseException e) {
+			// Closed
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void serve(SocketChannel connection) {
+		try (SocketChannel channel = connection) {
+			InputStream input = new BufferedInputStream(Channels.newInputStream(channel));
+			OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel));
+			while (true) {
+				Optional<UnixSocketExchange> exchange = UnixSocketExchange.read(input, output);
+				if (!exchange.isPresent()) {
+					return;
+				}
+				stub.handle(exchange.get());
+				if (!exchange.get().awaitResponse()) {
+					// Reset by the stub
+					return;
+				}
+			}
+		} catch (IOException e) {
+			// The connection is closed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+		connections.shutdownNow();
+		Files.deleteIfExists(socket);
+	}
+}
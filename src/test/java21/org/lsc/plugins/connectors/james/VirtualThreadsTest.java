@@ -0,0 +1,16 @@
+package org.lsc.plugins.connectors.james;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Guards the Java 21 part of the multi-release jar: without it the executors silently stay on platform threads.
+ */
+class VirtualThreadsTest {
+	@Test
+	void executorsShouldRunOnVirtualThreads() {
+		assertThat(Threads.isVirtual()).isTrue();
+		assertThat(Threads.factory("tmail-test-").newThread(() -> { }).isVirtual()).isTrue();
+	}
+}